@@ -73,6 +73,12 @@ public abstract class TracerProbe<X extends DataSource> {
      * The timestamp is the same for a single data-read event for all selected
      * probes of the actual Tracer session.
      * <br><br>
+     * The method is invoked in a worker thread. Probes of the same package are
+     * invoked serially, probes of different packages may be invoked concurrently,
+     * a cache shared by probes of several packages must be thread safe. The
+     * returned values are copied, the probe may reuse the array. A probe blocking
+     * the invocation for a long time may be interrupted.
+     * <br><br>
      * <b>Note: current Tracer version doesn't support negative values. Negative
      * values returned by the probes will be treated as '0' and the user will be
      * notified by a warning dialog.</b>
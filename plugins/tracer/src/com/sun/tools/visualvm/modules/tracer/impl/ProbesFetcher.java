@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl;
+
+import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
+import com.sun.tools.visualvm.modules.tracer.TracerPackage;
+import com.sun.tools.visualvm.modules.tracer.TracerProbe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Fetches values of several probes. Probes of a single package are fetched
+ * serially since they typically share a cache of the package, probes of
+ * different packages are fetched concurrently. Each fetch is given a time
+ * budget derived from the refresh rate, a probe which doesn't provide its
+ * values in time is represented by its last known values (or VALUE_UNDEFINED)
+ * and its package isn't invoked again until the pending invocation finishes.
+ * An invocation blocked for longer than HUNG_TIMEOUT is interrupted.
+ *
+ * All methods must be invoked from a single thread.
+ *
+ * @author agent
+ */
+final class ProbesFetcher {
+
+    private static final Logger LOGGER = Logger.getLogger(ProbesFetcher.class.getName());
+
+    private static final int MAX_THROUGHPUT = 4;
+    private static final float BUDGET_FACTOR = 0.8f;
+    private static final long HUNG_TIMEOUT = Integer.getInteger(
+            "com.sun.tools.visualvm.modules.tracer.impl.ProbesFetcher.hungTimeout", 10000); // NOI18N
+
+    private final TracerModel model;
+    private final RequestProcessor processor;
+    private final Map<TracerProbe, ProbeFetch> fetches = new HashMap();
+    private final Map<TracerPackage, PackageFetch> packageFetches = new HashMap();
+    private final List<PackageFetch> scheduledFetches = new ArrayList();
+
+
+    ProbesFetcher(TracerModel model, String name) {
+        this.model = model;
+        processor = new RequestProcessor(name, MAX_THROUGHPUT, true);
+    }
+
+
+    /**
+     * Returns values of the probes in the order of the list. Blocks at most
+     * for the budget computed from the refresh rate. The returned arrays are
+     * reused by the next invocation.
+     */
+    long[][] fetchValues(List<TracerProbe> probes, long timestamp, int refreshRate) {
+        int probesCount = probes.size();
+        ProbeFetch[] probeFetches = new ProbeFetch[probesCount];
+
+        scheduledFetches.clear();
+        for (int i = 0; i < probesCount; i++) {
+            TracerProbe probe = probes.get(i);
+            ProbeFetch fetch = fetches.get(probe);
+            if (fetch == null) {
+                fetch = new ProbeFetch(probe, getPackageFetch(probe));
+                fetches.put(probe, fetch);
+            }
+            probeFetches[i] = fetch;
+            if (fetch.packageFetch.prepare(scheduledFetches)) fetch.packageFetch.add(fetch);
+        }
+        for (PackageFetch fetch : scheduledFetches) fetch.schedule(timestamp);
+
+        long budget = Math.max(1, (long)(refreshRate * BUDGET_FACTOR));
+        long deadline = System.currentTimeMillis() + budget;
+
+        long[][] values = new long[probesCount][];
+        for (int i = 0; i < probesCount; i++) {
+            PackageFetch fetch = probeFetches[i].packageFetch;
+            long remaining = Math.max(1, deadline - System.currentTimeMillis());
+            if (!fetch.waitFinished(remaining)) fetch.overrun(budget);
+            values[i] = probeFetches[i].getValues();
+        }
+
+        return values;
+    }
+
+    void reset() {
+        if (LOGGER.isLoggable(Level.FINE))
+            for (ProbeFetch fetch : fetches.values())
+                LOGGER.fine("Probe " + fetch.getProbeName() + " average latency: " + // NOI18N
+                            fetch.getAverageLatency() + "ms"); // NOI18N
+        fetches.clear();
+        packageFetches.clear();
+    }
+
+
+    private PackageFetch getPackageFetch(TracerProbe probe) {
+        TracerPackage p = model.getPackage(probe);
+        PackageFetch fetch = packageFetches.get(p);
+        if (fetch == null) {
+            fetch = new PackageFetch(p);
+            // Probe without a package (removed meanwhile) is fetched separately
+            if (p != null) packageFetches.put(p, fetch);
+        }
+        return fetch;
+    }
+
+
+    /**
+     * Fetches the probes of a package serially in a single task.
+     */
+    private final class PackageFetch implements Runnable {
+
+        private final TracerPackage tracerPackage;
+        private final RequestProcessor.Task task;
+
+        // Accessed by the worker only while pending
+        private final List<ProbeFetch> probes = new ArrayList();
+        private long timestamp;
+
+        private volatile boolean pending;
+        private volatile long startTime;
+
+        private boolean overrunReported;
+        private boolean hungReported;
+
+
+        PackageFetch(TracerPackage tracerPackage) {
+            this.tracerPackage = tracerPackage;
+            task = processor.create(this);
+        }
+
+
+        // Returns true if the probes of the package are going to be fetched
+        boolean prepare(List<PackageFetch> scheduled) {
+            // Previous invocation still running, don't flood the probes
+            if (pending) return false;
+            if (!scheduled.contains(this)) {
+                probes.clear();
+                scheduled.add(this);
+            }
+            return true;
+        }
+
+        void add(ProbeFetch fetch) {
+            probes.add(fetch);
+        }
+
+        void schedule(long timestamp) {
+            this.timestamp = timestamp;
+            startTime = System.currentTimeMillis();
+            pending = true;
+            task.schedule(0);
+        }
+
+        boolean waitFinished(long timeout) {
+            if (!pending) return true;
+            try {
+                return task.waitFinished(timeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void overrun(long budget) {
+            String packageName = getPackageName();
+            long blocked = System.currentTimeMillis() - startTime;
+            if (pending && blocked > HUNG_TIMEOUT) {
+                // Interrupts the worker, the probes keep their last values
+                if (!hungReported) {
+                    LOGGER.info("Probes of " + packageName + " blocked for " + blocked + // NOI18N
+                                "ms, interrupting the fetch"); // NOI18N
+                    hungReported = true;
+                }
+                task.cancel();
+            } else if (!overrunReported) {
+                LOGGER.info("Probes of " + packageName + " exceeded their fetch budget of " + // NOI18N
+                            budget + "ms"); // NOI18N
+                overrunReported = true;
+            } else if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Probes of " + packageName + " exceeded their fetch budget of " + // NOI18N
+                            budget + "ms, blocked for " + blocked + "ms"); // NOI18N
+            }
+        }
+
+        private String getPackageName() {
+            return tracerPackage == null ? "removed package" : tracerPackage.getName(); // NOI18N
+        }
+
+        public void run() {
+            try {
+                for (ProbeFetch fetch : probes) {
+                    if (Thread.currentThread().isInterrupted()) break;
+                    fetch.fetch(timestamp);
+                }
+            } finally {
+                pending = false;
+            }
+        }
+
+    }
+
+
+    private final class ProbeFetch {
+
+        private final TracerProbe probe;
+        private final PackageFetch packageFetch;
+
+        // Double buffer, the worker fills the buffer which isn't published.
+        // The published buffer is consumed by the caller before next schedule.
+        private long[] buffer1;
+        private long[] buffer2;
+        private volatile long[] values;
+        private volatile long lastLatency;
+        private volatile long totalLatency;
+        private volatile int fetchesCount;
+
+
+        ProbeFetch(TracerProbe probe, PackageFetch packageFetch) {
+            this.probe = probe;
+            this.packageFetch = packageFetch;
+            int itemsCount = probe.getItemsCount();
+            buffer1 = new long[itemsCount];
+            buffer2 = new long[itemsCount];
+            Arrays.fill(buffer1, ProbeItemDescriptor.VALUE_UNDEFINED);
+            values = buffer1;
+        }
+
+
+        long[] getValues() {
+            return values;
+        }
+
+        String getProbeName() {
+            return model.getDescriptor(probe).getProbeName();
+        }
+
+        float getAverageLatency() {
+            int count = fetchesCount;
+            return count == 0 ? -1 : totalLatency / 1000000f / count;
+        }
+
+        // Invoked by the package fetch worker
+        void fetch(long timestamp) {
+            long[] itemValues = values == buffer1 ? buffer2 : buffer1;
+            long start = System.nanoTime();
+            try {
+                long[] probeValues = probe.getItemValues(timestamp);
+                System.arraycopy(probeValues, 0, itemValues, 0, itemValues.length);
+            } catch (Throwable t) {
+                Arrays.fill(itemValues, ProbeItemDescriptor.VALUE_UNDEFINED);
+                LOGGER.log(Level.INFO, "Probe exception in getItemValues", t); // NOI18N
+            }
+            lastLatency = System.nanoTime() - start;
+            totalLatency += lastLatency;
+            fetchesCount++;
+            values = itemValues;
+        }
+
+    }
+
+}
@@ -29,7 +29,6 @@ import com.sun.tools.visualvm.core.datasource.DataSource;
 import com.sun.tools.visualvm.core.datasupport.DataRemovedListener;
 import com.sun.tools.visualvm.core.datasupport.Stateful;
 import com.sun.tools.visualvm.modules.tracer.PackageStateHandler;
-import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
 import com.sun.tools.visualvm.modules.tracer.ProbeStateHandler;
 import com.sun.tools.visualvm.modules.tracer.SessionInitializationException;
 import com.sun.tools.visualvm.modules.tracer.TracerPackage;
@@ -41,8 +40,9 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -73,6 +73,8 @@ final class TracerController implements DataRemovedListener<DataSource>,
     static final int STATE_SESSION_STARTING = Integer.MAX_VALUE;
     static final int STATE_SESSION_STOPPING = Integer.MIN_VALUE;
 
+    static final String RECORDING_EXT = ".tsr"; // NOI18N
+
     private final DataSource dataSource;
     private final TracerModel model;
 
@@ -84,8 +86,10 @@ final class TracerController implements DataRemovedListener<DataSource>,
     private boolean wasNegativeValue;
 
     private boolean running;
+    private boolean recordingEnabled;
     private final Timer timer;
     private RequestProcessor processor;
+    private ProbesFetcher fetcher;
 
 
     // --- Constructor ---------------------------------------------------------
@@ -166,6 +170,14 @@ final class TracerController implements DataRemovedListener<DataSource>,
         return timer != null ? timer.getDelay() : -1;
     }
 
+    void setRecordingEnabled(boolean enabled) {
+        recordingEnabled = enabled;
+    }
+
+    boolean isRecordingEnabled() {
+        return recordingEnabled;
+    }
+
     void startSession() {
         if (!model.areProbesDefined()) return;
         if (doStartSession()) setState(STATE_SESSION_RUNNING);
@@ -184,6 +196,7 @@ final class TracerController implements DataRemovedListener<DataSource>,
         SwingUtilities.invokeLater(new Runnable() {
             public void run() { model.getTimelineSupport().resetValues(); }
         });
+        if (recordingEnabled) startRecording();
         Set<Map.Entry<TracerPackage, List<TracerProbe>>> toNotify =
                 model.getDefinedProbeSets();
         notifySessionInitializing(toNotify);
@@ -194,6 +207,9 @@ final class TracerController implements DataRemovedListener<DataSource>,
     }
 
     private void doStopSession() {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() { model.getTimelineSupport().stopRecording(); }
+        });
         Set<Map.Entry<TracerPackage, List<TracerProbe>>> toNotify =
                 model.getDefinedProbeSets();
         notifySessionStopping(toNotify);
@@ -409,6 +425,27 @@ final class TracerController implements DataRemovedListener<DataSource>,
     }
 
 
+    // --- Session recording ---------------------------------------------------
+
+    private void startRecording() {
+        File directory = dataSource.getStorage().getDirectory();
+        final File file = new File(directory, "tracer_" + // NOI18N
+                          System.currentTimeMillis() + RECORDING_EXT);
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                try {
+                    model.getTimelineSupport().startRecording(file);
+                } catch (IOException e) {
+                    LOGGER.log(Level.INFO, "Failed to start recording", e); // NOI18N
+                    DialogDisplayer.getDefault().notifyLater(
+                        new NotifyDescriptor.Message("Failed to record session to " +
+                        file, NotifyDescriptor.ERROR_MESSAGE));
+                }
+            }
+        });
+    }
+
+
     // --- Session runtime -----------------------------------------------------
 
     private Timer createTimer() {
@@ -432,22 +469,28 @@ final class TracerController implements DataRemovedListener<DataSource>,
             running = false;
             timer.stop();
         }
+        if (processor != null) processor.post(new Runnable() {
+            public void run() { fetcher.reset(); }
+        });
     }
 
     private void fetchData() {
         if (!running) return;
 
-        if (processor == null)
+        if (processor == null) {
             processor = new RequestProcessor("Tracer Processor for " + dataSource); // NOI18N
+            fetcher = new ProbesFetcher(model, "Tracer Probes Fetcher for " + dataSource); // NOI18N
+        }
 
         final List<TracerProbe> probes = model.getDefinedProbes();
         final int itemsCount = model.getTimelineSupport().getItemsCount();
+        final int refreshRate = getRefreshRate();
         processor.post(new Runnable() {
-            public void run() { fetchDataImpl(probes, itemsCount); }
+            public void run() { fetchDataImpl(probes, itemsCount, refreshRate); }
         });
     }
 
-    private void fetchDataImpl(List<TracerProbe> probes, int itemsCount) {
+    private void fetchDataImpl(List<TracerProbe> probes, int itemsCount, int refreshRate) {
         if (!running) return;
 
         final long[] values = new long[itemsCount];
@@ -455,15 +498,11 @@ final class TracerController implements DataRemovedListener<DataSource>,
 
         final long timestamp = System.currentTimeMillis();
 
-        for (TracerProbe probe : probes) {
-            long[] itemValues;
-            try {
-                itemValues = probe.getItemValues(timestamp);
-            } catch (Throwable t) {
-                itemValues = new long[probe.getItemsCount()];
-                Arrays.fill(itemValues, ProbeItemDescriptor.VALUE_UNDEFINED);
-                LOGGER.log(Level.INFO, "Probe exception in getItemValues", t); // NOI18N
-            }
+        long[][] probesValues = fetcher.fetchValues(probes, timestamp, refreshRate);
+
+        for (int p = 0; p < probesValues.length; p++) {
+            TracerProbe probe = probes.get(p);
+            long[] itemValues = probesValues[p];
             for (int i = 0; i < itemValues.length; i++) {
                 long value = itemValues[i];
                 if (value < 0) {
@@ -129,6 +129,14 @@ final class TracerModel {
         }
     }
 
+    TracerPackage getPackage(TracerProbe p) {
+        synchronized(probesCache) {
+            for (Map.Entry<TracerPackage, List<TracerProbe>> entry : probesCache.entrySet())
+                if (entry.getValue().contains(p)) return entry.getKey();
+            return null;
+        }
+    }
+
     // Must be called in EDT
     List<TracerProbe> getDefinedProbes() {
         List<TracerProbe> probes = new ArrayList();
@@ -47,6 +47,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.text.NumberFormat;
 import java.util.Date;
 import javax.swing.AbstractAction;
 import javax.swing.AbstractButton;
@@ -57,6 +60,7 @@ import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
@@ -65,8 +69,12 @@ import javax.swing.JToolBar;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
+import javax.swing.filechooser.FileFilter;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
 import org.openide.util.ImageUtilities;
 import org.openide.util.RequestProcessor;
+import org.openide.windows.WindowManager;
 
 /**
  *
@@ -169,6 +177,7 @@ final class TracerView extends DataSourceView {
 
         private JButton clearRowSelectionButton;
         private JButton clearTimestampSelectionButton;
+        private JLabel intervalLabel;
 
         private Action exportAllAction;
         private Action exportDetailsAction;
@@ -507,6 +516,34 @@ final class TracerView extends DataSourceView {
             action22.putValue(DropdownButton.KEY_CLASS, Boolean.class);
             d.addAction(action22);
 
+            d.addAction(null);
+
+            Action action23 = new AbstractAction("Record session to disk") {
+                public Object getValue(String key) {
+                    if (DropdownButton.KEY_BOOLVALUE.equals(key)) {
+                        putValue(DropdownButton.KEY_BOOLVALUE,
+                                 controller.isRecordingEnabled());
+                    }
+                    return super.getValue(key);
+                }
+                public void actionPerformed(ActionEvent e) {
+                    controller.setRecordingEnabled(!controller.isRecordingEnabled());
+                }
+            };
+            action23.putValue(DropdownButton.KEY_CLASS, Boolean.class);
+            d.addAction(action23);
+
+            Action action24 = new AbstractAction("Replay recorded session...") {
+                public void actionPerformed(ActionEvent e) {
+                    replayRecording();
+                }
+                public boolean isEnabled() {
+                    return controller.getState() == TracerController.STATE_SESSION_INACTIVE &&
+                           model.areProbesDefined();
+                }
+            };
+            d.addAction(action24);
+
             d.setMinimumSize(size);
             d.setPreferredSize(size);
             d.setMaximumSize(size);
@@ -522,6 +559,32 @@ final class TracerView extends DataSourceView {
             addClientToobarItem(timelineToolbar);
         }
 
+        private void replayRecording() {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Replay Recorded Session");
+            chooser.setCurrentDirectory(model.getDataSource().getStorage().getDirectory());
+            chooser.setFileFilter(new FileFilter() {
+                public boolean accept(File f) {
+                    return f.isDirectory() || f.getName().endsWith(
+                                              TracerController.RECORDING_EXT);
+                }
+                public String getDescription() {
+                    return "Tracer Recordings (*" + TracerController.RECORDING_EXT + ")"; // NOI18N
+                }
+            });
+            if (chooser.showOpenDialog(WindowManager.getDefault().getRegistry().
+                    getActivated()) != JFileChooser.APPROVE_OPTION) return;
+
+            File file = chooser.getSelectedFile();
+            try {
+                model.getTimelineSupport().replayRecording(file);
+            } catch (IOException ex) {
+                DialogDisplayer.getDefault().notify(new NotifyDescriptor.Message(
+                        "<html><b>Failed to replay " + file.getName() + ":</b><br><br>" + // NOI18N
+                        ex.getMessage() + "</html>", NotifyDescriptor.ERROR_MESSAGE)); // NOI18N
+            }
+        }
+
         private void hideTimelineToolbar() {
             if (timelineToolbar != null) timelineToolbar.setVisible(false);
         }
@@ -567,6 +630,11 @@ final class TracerView extends DataSourceView {
             clearTimestampSelectionButton.setMaximumSize(size);
             selectionToolbar.addItem(clearTimestampSelectionButton);
 
+            intervalLabel = new JLabel();
+            intervalLabel.setBorder(BorderFactory.createEmptyBorder(0, 4, 0, 4));
+            intervalLabel.setVisible(false);
+            selectionToolbar.addItem(intervalLabel);
+
             TracerOptions options = TracerOptions.getInstance();
             int tbVis = options.getSelectionToolbar();
             if (tbVis == TracerOptions.SHOW_AS_NEEDED) {
@@ -586,11 +654,24 @@ final class TracerView extends DataSourceView {
             boolean timestampSelection = support.isTimestampSelection(false);
             clearRowSelectionButton.setEnabled(rowSelection);
             clearTimestampSelectionButton.setEnabled(timestampSelection);
+            updateIntervalLabel(support);
             if (dynamicSelection)
                 selectionToolbar.setVisible(rowSelection || timestampSelection);
         }
 
 
+        private void updateIntervalLabel(TimelineSupport support) {
+            if (intervalLabel == null) return;
+            boolean intervalSelection = support.isIntervalSelection();
+            if (intervalSelection) {
+                intervalLabel.setText("Interval: " + NumberFormat.getInstance().format(
+                                      support.getSelectedIntervalLength()) + " ms");
+                intervalLabel.setToolTipText(support.getSelectedIntervalStatistics());
+            }
+            intervalLabel.setVisible(intervalSelection);
+        }
+
+
         private void createExtraToolbar(Dimension size) {
             extraToolbar = new TransparentToolBar();
 
@@ -0,0 +1,94 @@
+/*
+ *  Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ *  This code is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License version 2 only, as
+ *  published by the Free Software Foundation.  Oracle designates this
+ *  particular file as subject to the "Classpath" exception as provided
+ *  by Oracle in the LICENSE file that accompanied this code.
+ *
+ *  This code is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ *  version 2 for more details (a copy is included in the LICENSE file that
+ *  accompanied this code).
+ *
+ *  You should have received a copy of the GNU General Public License version
+ *  2 along with this work; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ *  Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ *  or visit www.oracle.com if you need additional information or have any
+ *  questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl.export;
+
+import com.sun.tools.visualvm.modules.tracer.TracerProgressObject;
+import java.io.IOException;
+
+/**
+ * Streams all rows into a compact binary columnar format. All numbers are
+ * ZigZag encoded varints, timestamps and values of each item are stored as
+ * a column of deltas from the previous row.
+ *
+ * <pre>
+ * byte[4] magic "TRCB"
+ * varint  version
+ * varint  items count
+ * varint  rows count
+ * (varint length, byte[] UTF-8 name)[items count]
+ * varint[rows count] timestamp deltas
+ * varint[rows count] value deltas, for each item
+ * </pre>
+ *
+ * @author agent
+ */
+final class BinaryExporter extends StreamExporter {
+
+    private static final byte[] MAGIC = { 'T', 'R', 'C', 'B' }; // NOI18N
+    private static final int VERSION = 1;
+
+
+    protected long getWork(DataExport.ValuesModel model) {
+        return (long)model.getRowsCount() * (model.getItemsCount() + 1);
+    }
+
+    protected void writeData(DataExport.ValuesModel model, String title,
+                             TracerProgressObject progress) throws IOException {
+        int itemsCount = model.getItemsCount();
+        int rowsCount = model.getRowsCount();
+
+        write(MAGIC);
+        writeVarLong(VERSION);
+        writeVarLong(itemsCount);
+        writeVarLong(rowsCount);
+        for (int i = 0; i < itemsCount; i++) {
+            byte[] name = getBytes(model.getItemName(i));
+            writeVarLong(name.length);
+            write(name);
+        }
+
+        long work = 0;
+
+        long last = 0;
+        for (int r = 0; r < rowsCount; r++) {
+            long timestamp = model.getTimestamp(r);
+            writeVarLong(timestamp - last);
+            last = timestamp;
+            if (!workDone(++work, progress)) return;
+        }
+
+        for (int i = 0; i < itemsCount; i++) {
+            last = 0;
+            for (int r = 0; r < rowsCount; r++) {
+                long value = model.getValue(i, r);
+                writeVarLong(value - last);
+                last = value;
+                if (!workDone(++work, progress)) return;
+            }
+        }
+    }
+
+}
@@ -58,14 +58,14 @@ final class CSVExporter extends Exporter {
         int rowsCount = model.getRowCount();
 
         for (int c = 0; c < columnsCount; c++) {
-            write(writer, "\"" + model.getColumnName(c) + "\""); // NOI18N
+            write(writer, quote(model.getColumnName(c)));
             if (c < columnsCount - 1) write(writer, DELIMITER);
         }
         writeLine(writer);
 
         for (int r = 0; r < rowsCount; r++) {
             for (int c = 0; c < columnsCount; c++) {
-                write(writer, "\"" + model.getValueAt(r, c) + "\""); // NOI18N
+                write(writer, quote(String.valueOf(model.getValueAt(r, c))));
                 if (c < columnsCount - 1) write(writer, DELIMITER);
             }
             writeLine(writer);
@@ -84,4 +84,9 @@ final class CSVExporter extends Exporter {
         }
     }
 
+    // Cells may contain delimiters and quotes, '"' is escaped as '""'
+    private static String quote(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\""; // NOI18N
+    }
+
 }
@@ -34,6 +34,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.nio.channels.FileChannel;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.logging.Level;
@@ -69,21 +70,35 @@ public final class DataExport {
     private static final Filter CSV_FILTER  = Filter.create("CSV Files", ".csv");
     private static final Filter HTML_FILTER = Filter.create("HTML Files", ".html");
     private static final Filter XML_FILTER  = Filter.create("XML Files", ".xml");
+    private static final Filter RAW_CSV_FILTER = Filter.create("CSV Files - Raw Values", ".csv");
+    private static final Filter BINARY_FILTER  = Filter.create("Binary Columnar Files", ".tbin");
 
     private static JFileChooser fileChooser;
     private static File lastDirectory;
     private static Filter lastFilter = CSV_FILTER;
 
 
-    public static void exportData(final TableModel model, final String title) {
+    public static void exportData(TableModel model, String title) {
+        exportData(model, null, title);
+    }
+
+    /**
+     * Exports the data. If valuesModel is provided, raw values can be also
+     * streamed to CSV or binary columnar format.
+     */
+    public static void exportData(final TableModel model, final ValuesModel valuesModel,
+                                  final String title) {
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
-                JFileChooser chooser = getFileChooser();
+                JFileChooser chooser = getFileChooser(valuesModel != null);
                 if (chooser.showSaveDialog(WindowManager.getDefault().getRegistry().
                         getActivated()) == JFileChooser.APPROVE_OPTION) {
                     File file = chooser.getSelectedFile();
                     Filter filter = (Filter)chooser.getFileFilter();
-                    doExportData(model, title, file, filter);
+                    if (filter == RAW_CSV_FILTER || filter == BINARY_FILTER)
+                        doStreamData(valuesModel, title, file, filter);
+                    else
+                        doExportData(model, title, file, filter);
                 }
                 lastDirectory = chooser.getCurrentDirectory();
                 lastFilter = (Filter)chooser.getFileFilter();
@@ -131,6 +146,44 @@ public final class DataExport {
         });
     }
 
+    private static void doStreamData(final ValuesModel model, final String title,
+                                     final File file, final Filter filter) {
+
+        RequestProcessor.getDefault().post(new Runnable() {
+            public void run() {
+                FileOutputStream stream = null;
+                TracerProgressObject progress = null;
+                try {
+                    stream = new FileOutputStream(file);
+                    FileChannel channel = stream.getChannel();
+                    ExportBatch batch = null;
+
+                    if (filter == RAW_CSV_FILTER)
+                        batch = new RawCSVExporter().createBatch(model, title, channel);
+                    else if (filter == BINARY_FILTER)
+                        batch = new BinaryExporter().createBatch(model, title, channel);
+
+                    if (batch != null) {
+                        progress = batch.getProgress();
+                        final TracerProgressObject progressF = progress;
+                        SwingUtilities.invokeAndWait(new Runnable() {
+                            public void run() { showProgressDialog(progressF); }
+                        });
+                        batch.getWorker().run();
+                    }
+                } catch (Throwable t) {
+                    if (progress != null) {
+                        progress.setText("Exporting data failed");
+                        progress.finish();
+                    }
+                    LOGGER.log(Level.INFO, "Exporting data failed", t); // NOI18N
+                } finally {
+                    if (stream != null) try { stream.close(); } catch (Exception e) {}
+                }
+            }
+        });
+    }
+
     private static void showProgressDialog(final TracerProgressObject progress) {
         final JLabel l = new JLabel();
         l.setBorder(BorderFactory.createEmptyBorder(0, 0, 7, 0));
@@ -192,10 +245,20 @@ public final class DataExport {
     }
     
 
-    private static JFileChooser getFileChooser() {
+    private static JFileChooser getFileChooser(boolean streamFilters) {
         if (fileChooser == null)   fileChooser = createFileChooser();
+        fileChooser.removeChoosableFileFilter(RAW_CSV_FILTER);
+        fileChooser.removeChoosableFileFilter(BINARY_FILTER);
+        if (streamFilters) {
+            fileChooser.addChoosableFileFilter(RAW_CSV_FILTER);
+            fileChooser.addChoosableFileFilter(BINARY_FILTER);
+        }
         if (lastDirectory != null) fileChooser.setCurrentDirectory(lastDirectory);
-        if (lastFilter != null)    fileChooser.setFileFilter(lastFilter);
+        if (lastFilter != null && (streamFilters || (lastFilter != RAW_CSV_FILTER &&
+                                   lastFilter != BINARY_FILTER)))
+            fileChooser.setFileFilter(lastFilter);
+        else
+            fileChooser.setFileFilter(CSV_FILTER);
         return fileChooser;
     }
 
@@ -278,6 +341,24 @@ public final class DataExport {
     }
 
 
+    /**
+     * Provides raw timeline values for streaming exporters.
+     */
+    public static interface ValuesModel {
+
+        public int getRowsCount();
+
+        public int getItemsCount();
+
+        public String getItemName(int itemIndex);
+
+        public long getTimestamp(int rowIndex);
+
+        public long getValue(int itemIndex, int rowIndex);
+
+    }
+
+
     private DataExport() {}
 
 }
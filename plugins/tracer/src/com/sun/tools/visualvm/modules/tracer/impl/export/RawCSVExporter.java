@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ *  This code is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License version 2 only, as
+ *  published by the Free Software Foundation.  Oracle designates this
+ *  particular file as subject to the "Classpath" exception as provided
+ *  by Oracle in the LICENSE file that accompanied this code.
+ *
+ *  This code is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ *  version 2 for more details (a copy is included in the LICENSE file that
+ *  accompanied this code).
+ *
+ *  You should have received a copy of the GNU General Public License version
+ *  2 along with this work; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ *  Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ *  or visit www.oracle.com if you need additional information or have any
+ *  questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl.export;
+
+import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
+import com.sun.tools.visualvm.modules.tracer.TracerProgressObject;
+import java.io.IOException;
+
+/**
+ * Streams raw values of all rows, undefined values are exported as empty cells.
+ *
+ * @author agent
+ */
+final class RawCSVExporter extends StreamExporter {
+
+    private static final byte DELIMITER = ','; // NOI18N
+    private static final byte QUOTE = '"'; // NOI18N
+    private static final byte NEWLINE = '\n'; // NOI18N
+
+
+    protected long getWork(DataExport.ValuesModel model) {
+        return model.getRowsCount();
+    }
+
+    protected void writeData(DataExport.ValuesModel model, String title,
+                             TracerProgressObject progress) throws IOException {
+        int itemsCount = model.getItemsCount();
+        int rowsCount = model.getRowsCount();
+
+        writeQuoted("Time [ms]"); // NOI18N
+        for (int i = 0; i < itemsCount; i++) {
+            write(DELIMITER);
+            writeQuoted(model.getItemName(i));
+        }
+        write(NEWLINE);
+
+        for (int r = 0; r < rowsCount; r++) {
+            writeDecimal(model.getTimestamp(r));
+            for (int i = 0; i < itemsCount; i++) {
+                write(DELIMITER);
+                long value = model.getValue(i, r);
+                if (value != ProbeItemDescriptor.VALUE_UNDEFINED) writeDecimal(value);
+            }
+            write(NEWLINE);
+
+            if (!workDone(r + 1, progress)) break;
+        }
+    }
+
+    // Quoted field, embedded quotes are doubled (RFC 4180)
+    private void writeQuoted(String text) throws IOException {
+        write(QUOTE);
+        write(text.replace("\"", "\"\"")); // NOI18N
+        write(QUOTE);
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl.export;
+
+import com.sun.tools.visualvm.modules.tracer.TracerProgressObject;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Exporter writing raw timeline values directly into a channel. Values are
+ * encoded into a reused buffer, no objects are allocated per exported value.
+ *
+ * @author agent
+ */
+abstract class StreamExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+
+    private WritableByteChannel channel;
+
+    private int steps;
+    private long stepsTotal;
+    private int lastStep;
+
+
+    /**
+     * Returns number of units of work (for example values) to be exported.
+     */
+    protected abstract long getWork(DataExport.ValuesModel model);
+
+    protected abstract void writeData(DataExport.ValuesModel model, String title,
+                                      TracerProgressObject progress) throws IOException;
+
+
+    final ExportBatch createBatch(final DataExport.ValuesModel model,
+                                  final String title,
+                                  final WritableByteChannel channel) {
+
+        stepsTotal = Math.max(1, getWork(model));
+        steps = (int)Math.min(stepsTotal, Exporter.MAX_STEPS);
+        final TracerProgressObject progress = new TracerProgressObject(steps + 2);
+
+        ExportBatch.BatchRunnable worker = new ExportBatch.BatchRunnable() {
+            public void run() throws IOException {
+                doExport(model, title, channel, progress);
+            }
+        };
+
+        return new ExportBatch(progress, worker);
+    }
+
+    private void doExport(DataExport.ValuesModel model, String title,
+                          WritableByteChannel channel, TracerProgressObject progress)
+                          throws IOException {
+        this.channel = channel;
+        buffer.clear();
+        lastStep = 0;
+
+        progress.setText("Initializing export...");
+        if (progress.isFinished()) return;
+
+        progress.addStep("Exporting data...");
+        writeData(model, title, progress);
+        flush();
+
+        if (progress.isFinished()) return;
+
+        progress.addStep("Data exported");
+        progress.finish();
+    }
+
+
+    // --- Progress ------------------------------------------------------------
+
+    /**
+     * Updates the progress, returns false if the export has been cancelled.
+     */
+    protected final boolean workDone(long work, TracerProgressObject progress) {
+        if (progress.isFinished()) return false;
+        int currentStep = (int)(work * steps / stepsTotal);
+        if (currentStep > lastStep) {
+            progress.addSteps(currentStep - lastStep);
+            lastStep = currentStep;
+        }
+        return true;
+    }
+
+
+    // --- Encoding ------------------------------------------------------------
+
+    protected final void write(byte b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(b);
+    }
+
+    protected final void write(byte[] bytes) throws IOException {
+        for (byte b : bytes) write(b);
+    }
+
+    protected final void write(String text) throws IOException {
+        write(getBytes(text));
+    }
+
+    /**
+     * Writes decimal representation of the value.
+     */
+    protected final void writeDecimal(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            write((byte)'-'); // NOI18N
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte)('0' + (value % 10)); // NOI18N
+            value /= 10;
+        } while (value != 0);
+        while (pos < digits.length) write(digits[pos++]);
+    }
+
+    /**
+     * Writes the value as ZigZag encoded unsigned varint.
+     */
+    protected final void writeVarLong(long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            write((byte)((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        write((byte)zigzag);
+    }
+
+    protected final void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    protected static byte[] getBytes(String text) {
+        try {
+            return text.getBytes("UTF-8"); // NOI18N
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
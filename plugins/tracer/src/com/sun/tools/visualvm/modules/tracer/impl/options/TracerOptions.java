@@ -70,6 +70,10 @@ public final class TracerOptions {
 
     private static final String PROP_CLEAR_SELECTION = "TracerOptions.clearSelection"; // NOI18N
 
+    private static final String PROP_RETENTION_CAP = "TracerOptions.retentionCap"; // NOI18N
+    public static final int RETENTION_UNLIMITED = -1;
+    private static final int RETENTION_CAP_DEFAULT = 8192;
+
     private static final String PROP_ZOOM_MODE = "TracerOptions.zoomMode"; // NOI18N
     private static final String KEY_FIXED_SCALE = "KEY_fixedScale"; // NOI18N
     private static final String KEY_SCALE_TO_FIT = "KEY_scaleToFit"; // NOI18N
@@ -280,6 +284,18 @@ public final class TracerOptions {
         return prefs.getBoolean(PROP_CLEAR_SELECTION, true);
     }
 
+    void setRetentionCap(int rows) {
+        prefs.putInt(PROP_RETENTION_CAP, rows);
+    }
+
+    /**
+     * Number of rows kept in full resolution, older rows are rolled up.
+     * Read when a Tracer session is created.
+     */
+    public int getRetentionCap() {
+        return prefs.getInt(PROP_RETENTION_CAP, RETENTION_CAP_DEFAULT);
+    }
+
 
     private TracerOptions() {
         prefs = NbPreferences.forModule(TracerOptions.class);
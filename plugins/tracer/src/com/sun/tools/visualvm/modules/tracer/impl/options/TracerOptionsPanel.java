@@ -64,6 +64,10 @@ import org.netbeans.lib.profiler.charts.swing.Utils;
  */
 final class TracerOptionsPanel extends JPanel {
 
+    private static final Integer[] RETENTION_CAPS = new Integer[] {
+        1024, 4096, 8192, 32768, 131072, TracerOptions.RETENTION_UNLIMITED };
+    private static final int RETENTION_CAP_DEFAULT_INDEX = 2;
+
     private final TracerOptionsPanelController controller;
     private boolean internalChange;
 
@@ -370,6 +374,17 @@ final class TracerOptionsPanel extends JPanel {
     String getMouseWheelAction() {
         return mouseWheelCombo.getSelectedItem().toString();
     }
+
+    void setRetentionCap(int retentionCap) {
+        internalChange = true;
+        retentionCombo.setSelectedIndex(RETENTION_CAP_DEFAULT_INDEX); // fallback for invalid cap
+        retentionCombo.setSelectedItem(retentionCap);
+        internalChange = false;
+    }
+
+    int getRetentionCap() {
+        return (Integer)retentionCombo.getSelectedItem();
+    }
     
     void setClearSelection(boolean clear) {
         clearSelectionsCheckBox.setSelected(clear);
@@ -778,11 +793,56 @@ final class TracerOptionsPanel extends JPanel {
         add(customizableMouseWheelLabel, c);
 
 
+        // retentionLabel
+        JLabel retentionLabel = new JLabel("Full resolution samples:");
+        c = new GridBagConstraints();
+        c.gridx = 0;
+        c.gridy = 6;
+        c.gridwidth = 1;
+        c.fill = GridBagConstraints.NONE;
+        c.anchor = GridBagConstraints.WEST;
+        c.insets = new Insets(3, 15, 3, 5);
+        add(retentionLabel, c);
+
+        // retentionCombo
+        retentionCombo = new JComboBox(RETENTION_CAPS) {
+            public Dimension getMinimumSize() {
+                return getPreferredSize();
+            }
+            protected void selectedItemChanged() {
+                TracerOptionsPanel.this.update();
+                super.selectedItemChanged();
+            }
+        };
+        retentionLabel.setLabelFor(retentionCombo);
+        retentionCombo.setRenderer(new CustomComboRenderer.Number(retentionCombo, null, true, "unlimited"));
+        retentionCombo.setEditable(false);
+        c = new GridBagConstraints();
+        c.gridx = 1;
+        c.gridy = 6;
+        c.gridwidth = 1;
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.anchor = GridBagConstraints.WEST;
+        c.insets = new Insets(3, 5, 3, 0);
+        add(retentionCombo, c);
+
+        // retentionHintLabel
+        JLabel retentionHintLabel = new JLabel("Older samples are averaged, applies to new sessions");
+        retentionHintLabel.setEnabled(false);
+        c.gridx = 2;
+        c.gridy = 6;
+        c.gridwidth = 1;
+        c.anchor = GridBagConstraints.WEST;
+        c.fill = GridBagConstraints.NONE;
+        c.insets = new Insets(3, 9, 3, 0);
+        add(retentionHintLabel, c);
+
+
         // timelineAppearanceSeparator
         SectionSeparator timelineAppearanceSeparator =
                 UISupport.createSectionSeparator("Timeline Appearance"); // NOI18N
         c = new GridBagConstraints();
-        c.gridy = 6;
+        c.gridy = 7;
         c.gridwidth = GridBagConstraints.REMAINDER;
         c.anchor = GridBagConstraints.WEST;
         c.fill = GridBagConstraints.HORIZONTAL;
@@ -793,7 +853,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel minMaxValsLabel = new JLabel("Show min/max values:");
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 7;
+        c.gridy = 8;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.NONE;
         c.anchor = GridBagConstraints.WEST;
@@ -815,7 +875,7 @@ final class TracerOptionsPanel extends JPanel {
         minMaxValsCombo.setRenderer(new CustomComboRenderer.Boolean(minMaxValsCombo));
         c = new GridBagConstraints();
         c.gridx = 1;
-        c.gridy = 7;
+        c.gridy = 8;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.anchor = GridBagConstraints.WEST;
@@ -826,7 +886,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel customizableMinMaxValsLabel = new JLabel("Customizable in Tracer tab");
         customizableMinMaxValsLabel.setEnabled(false);
         c.gridx = 2;
-        c.gridy = 7;
+        c.gridy = 8;
         c.gridwidth = 1;
         c.anchor = GridBagConstraints.WEST;
         c.fill = GridBagConstraints.NONE;
@@ -837,7 +897,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel rowLegendLabel = new JLabel("Show row legend:");
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 8;
+        c.gridy = 9;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.NONE;
         c.anchor = GridBagConstraints.WEST;
@@ -859,7 +919,7 @@ final class TracerOptionsPanel extends JPanel {
         rowLegendCombo.setRenderer(new CustomComboRenderer.Boolean(rowLegendCombo));
         c = new GridBagConstraints();
         c.gridx = 1;
-        c.gridy = 8;
+        c.gridy = 9;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.anchor = GridBagConstraints.WEST;
@@ -870,7 +930,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel customizableRowLegendLabel = new JLabel("Customizable in Tracer tab");
         customizableRowLegendLabel.setEnabled(false);
         c.gridx = 2;
-        c.gridy = 8;
+        c.gridy = 9;
         c.gridwidth = 1;
         c.anchor = GridBagConstraints.WEST;
         c.fill = GridBagConstraints.NONE;
@@ -881,7 +941,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel rowsDecorationLabel = new JLabel("Rows decoration:");
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 9;
+        c.gridy = 10;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.NONE;
         c.anchor = GridBagConstraints.WEST;
@@ -903,7 +963,7 @@ final class TracerOptionsPanel extends JPanel {
         rowsDecorationCombo.setRenderer(new CustomComboRenderer.Boolean(rowsDecorationCombo));
         c = new GridBagConstraints();
         c.gridx = 1;
-        c.gridy = 9;
+        c.gridy = 10;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.anchor = GridBagConstraints.WEST;
@@ -914,7 +974,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel rowsSelectionLabel = new JLabel("Rows selection:");
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 10;
+        c.gridy = 11;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.NONE;
         c.anchor = GridBagConstraints.WEST;
@@ -936,7 +996,7 @@ final class TracerOptionsPanel extends JPanel {
 //        rowsSelectionCombo.setRenderer(new CustomComboRenderer.Boolean(rowsSelectionCombo));
         c = new GridBagConstraints();
         c.gridx = 1;
-        c.gridy = 10;
+        c.gridy = 11;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.anchor = GridBagConstraints.WEST;
@@ -948,7 +1008,7 @@ final class TracerOptionsPanel extends JPanel {
         SectionSeparator toolbarsBehaviorSeparator =
                 UISupport.createSectionSeparator("Toolbars Behavior"); // NOI18N
         c = new GridBagConstraints();
-        c.gridy = 11;
+        c.gridy = 12;
         c.gridwidth = GridBagConstraints.REMAINDER;
         c.anchor = GridBagConstraints.WEST;
         c.fill = GridBagConstraints.HORIZONTAL;
@@ -959,7 +1019,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel timelineToolbarLabel = new JLabel("Timeline toolbar:");
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 12;
+        c.gridy = 13;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.NONE;
         c.anchor = GridBagConstraints.WEST;
@@ -980,7 +1040,7 @@ final class TracerOptionsPanel extends JPanel {
         timelineToolbarLabel.setLabelFor(timelineToolbarCombo);
         c = new GridBagConstraints();
         c.gridx = 1;
-        c.gridy = 12;
+        c.gridy = 13;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.anchor = GridBagConstraints.WEST;
@@ -991,7 +1051,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel selectionToolbarLabel = new JLabel("Selection toolbar:");
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 13;
+        c.gridy = 14;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.NONE;
         c.anchor = GridBagConstraints.WEST;
@@ -1013,7 +1073,7 @@ final class TracerOptionsPanel extends JPanel {
         selectionToolbarLabel.setLabelFor(selectionToolbarCombo);
         c = new GridBagConstraints();
         c.gridx = 1;
-        c.gridy = 13;
+        c.gridy = 14;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.anchor = GridBagConstraints.WEST;
@@ -1024,7 +1084,7 @@ final class TracerOptionsPanel extends JPanel {
         JLabel extraToolbarLabel = new JLabel("Export toolbar:");
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 14;
+        c.gridy = 15;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.NONE;
         c.anchor = GridBagConstraints.WEST;
@@ -1046,7 +1106,7 @@ final class TracerOptionsPanel extends JPanel {
         extraToolbarLabel.setLabelFor(extraToolbarCombo);
         c = new GridBagConstraints();
         c.gridx = 1;
-        c.gridy = 14;
+        c.gridy = 15;
         c.gridwidth = 1;
         c.fill = GridBagConstraints.HORIZONTAL;
         c.anchor = GridBagConstraints.WEST;
@@ -1058,7 +1118,7 @@ final class TracerOptionsPanel extends JPanel {
         SectionSeparator viewsBehaviorSeparator =
                 UISupport.createSectionSeparator("Views Behavior"); // NOI18N
         c = new GridBagConstraints();
-        c.gridy = 15;
+        c.gridy = 16;
         c.gridwidth = GridBagConstraints.REMAINDER;
         c.anchor = GridBagConstraints.WEST;
         c.fill = GridBagConstraints.HORIZONTAL;
@@ -1070,7 +1130,7 @@ final class TracerOptionsPanel extends JPanel {
         JPanel viewsBehaviorPanel = new JPanel(new BorderLayout(0, 0));
         viewsBehaviorPanel.setOpaque(false);
         c = new GridBagConstraints();
-        c.gridy = 16;
+        c.gridy = 17;
         c.gridwidth = GridBagConstraints.REMAINDER;
         c.anchor = GridBagConstraints.NORTHWEST;
         c.fill = GridBagConstraints.HORIZONTAL;
@@ -1364,7 +1424,7 @@ final class TracerOptionsPanel extends JPanel {
         };
         c = new GridBagConstraints();
         c.gridx = 0;
-        c.gridy = 17;
+        c.gridy = 18;
         c.anchor = GridBagConstraints.WEST;
         c.fill = GridBagConstraints.NONE;
         c.gridwidth = GridBagConstraints.REMAINDER;
@@ -1388,6 +1448,7 @@ final class TracerOptionsPanel extends JPanel {
     private JComboBox probesDefaultsCombo;
     private JComboBox refreshCombo;
     private JCheckBox refreshCheckBox;
+    private JComboBox retentionCombo;
     private JComboBox minMaxValsCombo;
     private JComboBox rowLegendCombo;
     private JComboBox rowsDecorationCombo;
@@ -68,6 +68,7 @@ final class TracerOptionsPanelController extends OptionsPanelController {
 
         p.setZoomMode(options.getZoomMode());
         p.setMouseWheelAction(options.getMouseWheelAction());
+        p.setRetentionCap(options.getRetentionCap());
 
         p.setTimelineToolbar(options.getTimelineToolbar());
         p.setSelectionToolbar(options.getSelectionToolbar());
@@ -100,6 +101,7 @@ final class TracerOptionsPanelController extends OptionsPanelController {
 
         options.setZoomMode(p.getZoomMode());
         options.setMouseWheelAction(p.getMouseWheelAction());
+        options.setRetentionCap(p.getRetentionCap());
 
         options.setTimelineToolbar(p.getTimelineToolbar());
         options.setSelectionToolbar(p.getSelectionToolbar());
@@ -136,6 +138,7 @@ final class TracerOptionsPanelController extends OptionsPanelController {
 
         if (!options.getZoomMode().equals(p.getZoomMode())) return true;
         if (!options.getMouseWheelAction().equals(p.getMouseWheelAction())) return true;
+        if (options.getRetentionCap() != p.getRetentionCap()) return true;
 
         if (options.getTimelineToolbar() != p.getTimelineToolbar()) return true;
         if (options.getSelectionToolbar() != p.getSelectionToolbar()) return true;
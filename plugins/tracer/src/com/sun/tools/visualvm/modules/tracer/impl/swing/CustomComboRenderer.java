@@ -112,11 +112,21 @@ public abstract class CustomComboRenderer implements ListCellRenderer {
 
         private final java.lang.String units;
         private final boolean lAlign;
+        private final java.lang.String undefined;
 
         public Number(JComboBox combo, java.lang.String units, boolean lAlign) {
+            this(combo, units, lAlign, "default");
+        }
+
+        /**
+         * The undefined text is displayed for value -1.
+         */
+        public Number(JComboBox combo, java.lang.String units, boolean lAlign,
+                      java.lang.String undefined) {
             super(combo);
             this.units = units;
             this.lAlign = lAlign;
+            this.undefined = undefined;
         }
 
         protected void setupRenderer(JLabel renderer, boolean popupVisible) {
@@ -126,7 +136,7 @@ public abstract class CustomComboRenderer implements ListCellRenderer {
 
         public java.lang.String value(Object value) {
             java.lang.String sunits = units == null ? "" : " " + units;
-            return Integer.valueOf(-1).equals(value) ? "default" :
+            return Integer.valueOf(-1).equals(value) ? undefined :
                    NumberFormat.getInstance().format(value) + sunits;
         }
 
@@ -91,13 +91,23 @@ final class ContinuousXYPainter extends TimelineXYPainter {
         dirtyExt.x -= lineWidth;
         dirtyExt.width += lineWidth * 2;
 
-        int[][] idxs = computer.getVisible(dirtyExt, valuesCount, context, 1,
-                                           extraTrailing);
-        if (idxs == null) return;
-        int[] visibleIndexes = idxs[0];
-        int npoints = idxs[1][0];
-        int[][] points = computer.createPoints(visibleIndexes, npoints, item,
-                                               dataFactor, context);
+        int npoints;
+        int[][] points = item instanceof TimelineXYItem ?
+                         computer.getMinMaxPoints(dirtyExt, (TimelineXYItem)item,
+                                                  dataFactor, context, extraTrailing) :
+                         null;
+
+        if (points != null) {
+            npoints = points[2][0];
+        } else {
+            int[][] idxs = computer.getVisible(dirtyExt, valuesCount, context, 1,
+                                               extraTrailing);
+            if (idxs == null) return;
+            int[] visibleIndexes = idxs[0];
+            npoints = idxs[1][0];
+            points = computer.createPoints(visibleIndexes, npoints, item,
+                                           dataFactor, context);
+        }
         
         if (fillColor != null) {
             points[0][npoints - 2] = points[0][npoints - 3];
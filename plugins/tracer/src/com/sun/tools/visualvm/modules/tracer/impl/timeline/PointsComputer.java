@@ -42,6 +42,8 @@ final class PointsComputer {
     private int[] arr2;
     private final int[] count = new int[1];
     private final int[][] ret = new int[2][];
+    private final int[][] minMaxRet = new int[3][];
+    private final int[] range = new int[2];
 
 
     PointsComputer() {}
@@ -75,23 +77,9 @@ final class PointsComputer {
                        SynchronousXYChartContext context,
                        int extraFactor, int extraTrailing) {
 
-        if (context.getViewWidth() == 0) return null;
-        
-        int[][] visibleBounds = context.getVisibleBounds(dirtyArea);
-
-        int firstFirst = visibleBounds[0][0];
-        int firstIndex = firstFirst;
-        if (firstIndex == -1) firstIndex = visibleBounds[0][1];
-        if (firstIndex == -1) return null;
-        // firstIndex - 2: workaround for polyline joins
-        if (firstFirst != -1) firstIndex = Math.max(firstIndex - 2, 0);
-
-        int lastFirst = visibleBounds[1][0];
-        int lastIndex = lastFirst;
-        if (lastIndex == -1) lastIndex = visibleBounds[1][1];
-        if (lastIndex == -1) lastIndex = valuesCount - 1;
-        // lastIndex + 2: workaround for polyline joins
-        if (lastFirst != -1) lastIndex = Math.min(lastIndex + 2, valuesCount - 1);
+        if (!computeRange(dirtyArea, valuesCount, context)) return null;
+        int firstIndex = range[0];
+        int lastIndex = range[1];
 
         int itemsStep = (int)Math.ceil(valuesCount / context.getViewWidth());
         if (itemsStep == 0) itemsStep = 1;
@@ -126,6 +114,74 @@ final class PointsComputer {
         return ret;
     }
 
+    /**
+     * Computes the points of a polyline representing the visible values using
+     * min/max decimation: each pixel column covering several values is painted
+     * as a vertical segment from the minimum to the maximum value in the column,
+     * so that no peaks get lost. Returns null if there are not enough values
+     * per pixel for the decimation to pay off, createPoints() should be used.
+     *
+     * Returns { xPoints, yPoints, { pointsCount } }, pointsCount includes
+     * extraTrailing points.
+     */
+    int[][] getMinMaxPoints(Rectangle dirtyArea, TimelineXYItem item,
+                            double dataFactor, SynchronousXYChartContext context,
+                            int extraTrailing) {
+
+        if (!computeRange(dirtyArea, item.getValuesCount(), context)) return null;
+        int firstIndex = range[0];
+        int lastIndex = range[1];
+
+        int firstX = getViewX(item, firstIndex, context);
+        int lastX = getViewX(item, lastIndex, context);
+        int columns = lastX - firstX + 1;
+        if (lastIndex - firstIndex + 1 <= columns * 2) return null;
+
+        int size = Math.min(columns * 2, (lastIndex - firstIndex + 1)) + extraTrailing;
+        int[] xPoints = arr1(size);
+        int[] yPoints = arr2(size);
+        int npoints = 0;
+        int lastY = Integer.MIN_VALUE;
+
+        int index = firstIndex;
+        while (index <= lastIndex) {
+            int x = getViewX(item, index, context);
+
+            // Last index painted at the same pixel column
+            int low = index;
+            int high = lastIndex;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (getViewX(item, mid, context) <= x) low = mid;
+                else high = mid - 1;
+            }
+
+            if (low == index) {
+                xPoints[npoints] = x;
+                yPoints[npoints++] = getViewY(item.getYValue(index), dataFactor, context);
+            } else {
+                int minY = getViewY(item.getMinYValue(index, low), dataFactor, context);
+                int maxY = getViewY(item.getMaxYValue(index, low), dataFactor, context);
+                // Start with the point closer to previous column to keep the line joins short
+                boolean minFirst = lastY == Integer.MIN_VALUE ||
+                                   Math.abs(minY - lastY) <= Math.abs(maxY - lastY);
+                xPoints[npoints] = x;
+                yPoints[npoints++] = minFirst ? minY : maxY;
+                xPoints[npoints] = x;
+                yPoints[npoints++] = minFirst ? maxY : minY;
+            }
+            lastY = yPoints[npoints - 1];
+
+            index = low + 1;
+        }
+
+        count[0] = npoints + extraTrailing;
+        minMaxRet[0] = xPoints;
+        minMaxRet[1] = yPoints;
+        minMaxRet[2] = count;
+        return minMaxRet;
+    }
+
     int getZeroY(SynchronousXYChartContext context) {
         int zeroY = Utils.checkedInt(context.getViewY(context.getDataOffsetY()));
         zeroY = Math.max(Utils.checkedInt(context.getViewportOffsetY()), zeroY);
@@ -155,4 +211,40 @@ final class PointsComputer {
         return ret;
     }
 
+
+    private boolean computeRange(Rectangle dirtyArea, int valuesCount,
+                                 SynchronousXYChartContext context) {
+
+        if (context.getViewWidth() == 0) return false;
+
+        int[][] visibleBounds = context.getVisibleBounds(dirtyArea);
+
+        int firstFirst = visibleBounds[0][0];
+        int firstIndex = firstFirst;
+        if (firstIndex == -1) firstIndex = visibleBounds[0][1];
+        if (firstIndex == -1) return false;
+        // firstIndex - 2: workaround for polyline joins
+        if (firstFirst != -1) firstIndex = Math.max(firstIndex - 2, 0);
+
+        int lastFirst = visibleBounds[1][0];
+        int lastIndex = lastFirst;
+        if (lastIndex == -1) lastIndex = visibleBounds[1][1];
+        if (lastIndex == -1) lastIndex = valuesCount - 1;
+        // lastIndex + 2: workaround for polyline joins
+        if (lastFirst != -1) lastIndex = Math.min(lastIndex + 2, valuesCount - 1);
+
+        range[0] = firstIndex;
+        range[1] = lastIndex;
+        return true;
+    }
+
+    private static int getViewX(XYItem item, int index, SynchronousXYChartContext context) {
+        return Utils.checkedInt(Math.ceil(context.getViewX(item.getXValue(index))));
+    }
+
+    private static int getViewY(long value, double dataFactor,
+                                SynchronousXYChartContext context) {
+        return Utils.checkedInt(Math.ceil(context.getViewY(value * dataFactor)));
+    }
+
 }
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl.timeline;
+
+import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
+
+/**
+ * Precomputed aggregates of timeline items allowing to compute min/max/average
+ * value of an item in any range of rows in constant time, independently of the
+ * range length.
+ *
+ * Rows are grouped into blocks of BLOCK_SIZE rows. For each item there's
+ * a sparse table of min/max values over the completed blocks (level k holds
+ * min/max of 2^k consecutive blocks) and prefix sums of the completed blocks.
+ * A query combines two overlapping sparse table entries, a prefix sums
+ * difference and a scan of at most two partial blocks at the range edges.
+ *
+ * The aggregates are updated incrementally as new rows are added and rebuilt
+ * lazily when indexes of existing rows change (roll-up, replay).
+ *
+ * All methods must be invoked from the EDT.
+ *
+ * @author agent
+ */
+final class TimelineAggregates {
+
+    private static final int BLOCK_BITS = 7;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private static final int INITIAL_BLOCKS = 16;
+
+    private static final long UNDEFINED = ProbeItemDescriptor.VALUE_UNDEFINED;
+
+    private final TimelineModel model;
+
+    private int itemsCount;
+    private int rowsCount;
+    private boolean dirty;
+
+    private int blocksCapacity;
+    private int levelsCount;
+
+    // [item][level][block], maximum stored as Long.MIN_VALUE for no defined value
+    private long[][][] minTables;
+    private long[][][] maxTables;
+
+    // [item][block], sum/count of the defined values in blocks 0..block-1
+    private double[][] prefixSums;
+    private long[][] prefixCounts;
+
+    // Running aggregates of the current (incomplete) block
+    private long[] blockMin;
+    private long[] blockMax;
+    private double[] blockSum;
+    private long[] blockCount;
+
+
+    TimelineAggregates(TimelineModel model) {
+        this.model = model;
+        reset(0);
+    }
+
+
+    // --- Updates -------------------------------------------------------------
+
+    void reset(int itemsCount) {
+        this.itemsCount = itemsCount;
+        rowsCount = 0;
+        dirty = false;
+
+        blocksCapacity = INITIAL_BLOCKS;
+        levelsCount = 1;
+
+        minTables = new long[itemsCount][1][blocksCapacity];
+        maxTables = new long[itemsCount][1][blocksCapacity];
+        prefixSums = new double[itemsCount][blocksCapacity + 1];
+        prefixCounts = new long[itemsCount][blocksCapacity + 1];
+
+        blockMin = new long[itemsCount];
+        blockMax = new long[itemsCount];
+        blockSum = new double[itemsCount];
+        blockCount = new long[itemsCount];
+    }
+
+    /**
+     * Marks the aggregates to be rebuilt on next access.
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Processes the last row of the model.
+     */
+    void rowAdded() {
+        if (dirty) return;
+        addRow(rowsCount);
+    }
+
+
+    // --- Queries -------------------------------------------------------------
+
+    /**
+     * Returns minimum defined value of the item in rows from..to (inclusive)
+     * or VALUE_UNDEFINED if there is no defined value.
+     */
+    long getMinValue(int itemIndex, int from, int to) {
+        if (dirty) rebuild();
+
+        long min = Long.MAX_VALUE;
+        int firstBlock = (from + BLOCK_MASK) >> BLOCK_BITS;
+        int lastBlock = ((to + 1) >> BLOCK_BITS) - 1;
+
+        if (firstBlock > lastBlock) {
+            for (int i = from; i <= to; i++)
+                min = Math.min(min, model.getMinValue(itemIndex, i));
+        } else {
+            for (int i = from; i < firstBlock << BLOCK_BITS; i++)
+                min = Math.min(min, model.getMinValue(itemIndex, i));
+            int level = log2(lastBlock - firstBlock + 1);
+            long[] table = minTables[itemIndex][level];
+            min = Math.min(min, Math.min(table[firstBlock],
+                                         table[lastBlock - (1 << level) + 1]));
+            for (int i = (lastBlock + 1) << BLOCK_BITS; i <= to; i++)
+                min = Math.min(min, model.getMinValue(itemIndex, i));
+        }
+
+        // Note: VALUE_UNDEFINED == Long.MAX_VALUE
+        return min;
+    }
+
+    /**
+     * Returns maximum defined value of the item in rows from..to (inclusive)
+     * or VALUE_UNDEFINED if there is no defined value.
+     */
+    long getMaxValue(int itemIndex, int from, int to) {
+        if (dirty) rebuild();
+
+        long max = Long.MIN_VALUE;
+        int firstBlock = (from + BLOCK_MASK) >> BLOCK_BITS;
+        int lastBlock = ((to + 1) >> BLOCK_BITS) - 1;
+
+        if (firstBlock > lastBlock) {
+            for (int i = from; i <= to; i++)
+                max = max(max, model.getMaxValue(itemIndex, i));
+        } else {
+            for (int i = from; i < firstBlock << BLOCK_BITS; i++)
+                max = max(max, model.getMaxValue(itemIndex, i));
+            int level = log2(lastBlock - firstBlock + 1);
+            long[] table = maxTables[itemIndex][level];
+            max = Math.max(max, Math.max(table[firstBlock],
+                                         table[lastBlock - (1 << level) + 1]));
+            for (int i = (lastBlock + 1) << BLOCK_BITS; i <= to; i++)
+                max = max(max, model.getMaxValue(itemIndex, i));
+        }
+
+        return max == Long.MIN_VALUE ? UNDEFINED : max;
+    }
+
+    /**
+     * Returns average of the defined values of the item in rows from..to
+     * (inclusive) or Double.NaN if there is no defined value. Rolled up rows
+     * are weighted by the number of samples they represent.
+     */
+    double getAverageValue(int itemIndex, int from, int to) {
+        if (dirty) rebuild();
+
+        double sum = 0;
+        long count = 0;
+        int firstBlock = (from + BLOCK_MASK) >> BLOCK_BITS;
+        int lastBlock = ((to + 1) >> BLOCK_BITS) - 1;
+
+        int scanTo = firstBlock > lastBlock ? to : (firstBlock << BLOCK_BITS) - 1;
+        for (int i = from; i <= scanTo; i++) {
+            long value = model.getValue(itemIndex, i);
+            if (value == UNDEFINED) continue;
+            int span = model.getRowSpan(i);
+            sum += (double)value * span;
+            count += span;
+        }
+
+        if (firstBlock <= lastBlock) {
+            double[] sums = prefixSums[itemIndex];
+            long[] counts = prefixCounts[itemIndex];
+            sum += sums[lastBlock + 1] - sums[firstBlock];
+            count += counts[lastBlock + 1] - counts[firstBlock];
+
+            for (int i = (lastBlock + 1) << BLOCK_BITS; i <= to; i++) {
+                long value = model.getValue(itemIndex, i);
+                if (value == UNDEFINED) continue;
+                int span = model.getRowSpan(i);
+                sum += (double)value * span;
+                count += span;
+            }
+        }
+
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+
+    // --- Implementation ------------------------------------------------------
+
+    private void rebuild() {
+        dirty = false;
+        rowsCount = 0;
+        int modelRows = model.getTimestampsCount();
+        for (int i = 0; i < modelRows; i++) addRow(i);
+    }
+
+    private void addRow(int row) {
+        boolean firstInBlock = (row & BLOCK_MASK) == 0;
+        int span = model.getRowSpan(row);
+
+        for (int i = 0; i < itemsCount; i++) {
+            long min = model.getMinValue(i, row);
+            long max = model.getMaxValue(i, row);
+            long value = model.getValue(i, row);
+            if (max == UNDEFINED) max = Long.MIN_VALUE;
+
+            if (firstInBlock) {
+                blockMin[i] = min;
+                blockMax[i] = max;
+                blockSum[i] = 0;
+                blockCount[i] = 0;
+            } else {
+                blockMin[i] = Math.min(blockMin[i], min);
+                blockMax[i] = Math.max(blockMax[i], max);
+            }
+
+            if (value != UNDEFINED) {
+                blockSum[i] += (double)value * span;
+                blockCount[i] += span;
+            }
+        }
+
+        rowsCount = row + 1;
+        if ((rowsCount & BLOCK_MASK) == 0) blockCompleted((rowsCount >> BLOCK_BITS) - 1);
+    }
+
+    private void blockCompleted(int block) {
+        if (block == blocksCapacity) extendCapacity();
+        if (block + 1 >= 1 << levelsCount) addLevel();
+
+        for (int i = 0; i < itemsCount; i++) {
+            long[][] mins = minTables[i];
+            long[][] maxs = maxTables[i];
+            mins[0][block] = blockMin[i];
+            maxs[0][block] = blockMax[i];
+
+            // Entries of higher levels ending with the completed block
+            for (int level = 1; level < levelsCount; level++) {
+                int start = block - (1 << level) + 1;
+                if (start < 0) break;
+                int half = start + (1 << (level - 1));
+                mins[level][start] = Math.min(mins[level - 1][start], mins[level - 1][half]);
+                maxs[level][start] = Math.max(maxs[level - 1][start], maxs[level - 1][half]);
+            }
+
+            prefixSums[i][block + 1] = prefixSums[i][block] + blockSum[i];
+            prefixCounts[i][block + 1] = prefixCounts[i][block] + blockCount[i];
+        }
+    }
+
+    private void extendCapacity() {
+        int newCapacity = blocksCapacity * 2;
+        for (int i = 0; i < itemsCount; i++) {
+            for (int level = 0; level < levelsCount; level++) {
+                minTables[i][level] = extendArray(minTables[i][level], newCapacity);
+                maxTables[i][level] = extendArray(maxTables[i][level], newCapacity);
+            }
+            prefixSums[i] = extendArray(prefixSums[i], newCapacity + 1);
+            prefixCounts[i] = extendArray(prefixCounts[i], newCapacity + 1);
+        }
+        blocksCapacity = newCapacity;
+    }
+
+    private void addLevel() {
+        for (int i = 0; i < itemsCount; i++) {
+            minTables[i] = addLevel(minTables[i], blocksCapacity);
+            maxTables[i] = addLevel(maxTables[i], blocksCapacity);
+        }
+        levelsCount++;
+    }
+
+    private static long max(long max, long value) {
+        return value == UNDEFINED ? max : Math.max(max, value);
+    }
+
+    private static int log2(int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private static long[][] addLevel(long[][] levels, int capacity) {
+        long[][] newLevels = new long[levels.length + 1][];
+        System.arraycopy(levels, 0, newLevels, 0, levels.length);
+        newLevels[levels.length] = new long[capacity];
+        return newLevels;
+    }
+
+    private static long[] extendArray(long[] array, int length) {
+        long[] newArray = new long[length];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    private static double[] extendArray(double[] array, int length) {
+        double[] newArray = new double[length];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+}
@@ -26,9 +26,14 @@
 package com.sun.tools.visualvm.modules.tracer.impl.timeline;
 
 import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
+import com.sun.tools.visualvm.modules.tracer.impl.options.TracerOptions;
 import com.sun.tools.visualvm.modules.tracer.impl.timeline.items.ValueItemDescriptor;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.netbeans.lib.profiler.charts.Timeline;
 import org.netbeans.lib.profiler.charts.xy.synchronous.SynchronousXYItem;
 
@@ -39,24 +44,24 @@ import org.netbeans.lib.profiler.charts.xy.synchronous.SynchronousXYItem;
  */
 final class TimelineModel implements Timeline {
 
-    private static final int STORAGE_BUFFER_STEP = 50;
+    private static final Logger LOGGER = Logger.getLogger(TimelineModel.class.getName());
 
-    private int bufferStep;
+    private final TimelineStorage storage;
+    private final TimelineAggregates aggregates;
 
-    private int valuesCount;
-    private long[] timestamps;
-    private long[][] values;
+    private TimelineRecording recording;
+    private TimelineRecording replay;
 
     private final List<TimelineXYItem> items = new ArrayList();
 
 
     TimelineModel() {
-        this(STORAGE_BUFFER_STEP);
+        this(TracerOptions.getInstance().getRetentionCap());
     }
     
-    private TimelineModel(int bufferStep) {
-        this.bufferStep = bufferStep;
-        reset();
+    private TimelineModel(int retentionCap) {
+        storage = new TimelineStorage(retentionCap);
+        aggregates = new TimelineAggregates(this);
     }
 
 
@@ -66,7 +71,10 @@ final class TimelineModel implements Timeline {
 
 
     TimelineXYItem[] createItems(ProbeItemDescriptor[] itemDescriptors) {
-        int itemsCount = values == null ? 0 : values.length;
+        stopRecording();
+        stopReplay();
+
+        int itemsCount = storage.getItemsCount();
         int addedItemsCount = itemDescriptors.length;
         TimelineXYItem[] itemsArr = new TimelineXYItem[addedItemsCount];
 
@@ -76,7 +84,19 @@ final class TimelineModel implements Timeline {
                 itemsArr[i] = new TimelineXYItem(d.getName(), d.getMinValue(),
                                                  d.getMaxValue(), itemsCount + i) {
                     public long getYValue(int valueIndex) {
-                        return values[getIndex()][valueIndex];
+                        return getValue(getIndex(), valueIndex);
+                    }
+                    int getDataGeneration() {
+                        return storage.getGeneration();
+                    }
+                    long getMinYValue(int fromIndex, int toIndex) {
+                        return aggregates.getMinValue(getIndex(), fromIndex, toIndex);
+                    }
+                    long getMaxYValue(int fromIndex, int toIndex) {
+                        return aggregates.getMaxValue(getIndex(), fromIndex, toIndex);
+                    }
+                    double getAverageYValue(int fromIndex, int toIndex) {
+                        return aggregates.getAverageValue(getIndex(), fromIndex, toIndex);
                     }
                 };
             } else {
@@ -85,13 +105,17 @@ final class TimelineModel implements Timeline {
             items.add(itemsArr[i]);
         }
 
-        addItemsImpl(addedItemsCount);
+        storage.setItemsCount(itemsCount + addedItemsCount);
+        aggregates.reset(itemsCount + addedItemsCount);
 
         return itemsArr;
     }
 
     void removeItems(SynchronousXYItem[] removed) {
-        removeItemsImpl(removed.length);
+        stopRecording();
+        stopReplay();
+        storage.setItemsCount(storage.getItemsCount() - removed.length);
+        aggregates.reset(storage.getItemsCount());
 
         int firstRemovedIndex = ((TimelineXYItem)removed[0]).getIndex();
         for (SynchronousXYItem item : removed)
@@ -101,75 +125,175 @@ final class TimelineModel implements Timeline {
     }
 
 
-    void addValues(long timestamp, long[] newValues) {
-        updateStorage();
+    /**
+     * Returns true if existing rows have been rolled up or dropped to respect
+     * the retention cap, indexes of previously added rows are no longer valid.
+     */
+    boolean addValues(long timestamp, long[] newValues) {
+        int generation = storage.getGeneration();
 
         // Check last timestamp whether greater than the new one
-        long lastTimestamp = valuesCount == 0 ? -1 : timestamps[valuesCount - 1];
+        long lastTimestamp = storage.getLastTimestamp();
         // Silently increase timestamp, JVM was busy - timer out of sync
         if (lastTimestamp >= timestamp) timestamp = lastTimestamp + 1;
 
-        timestamps[valuesCount] = timestamp;
-        for (int i = 0; i < values.length; i++)
-            values[i][valuesCount] = newValues[i];
+        storage.addValues(timestamp, newValues);
 
-        valuesCount++;
+        boolean rolledUp = generation != storage.getGeneration();
+        if (rolledUp) aggregates.invalidate();
+        else aggregates.rowAdded();
+
+        if (recording != null) try {
+            recording.addValues(timestamp, newValues);
+        } catch (IOException e) {
+            LOGGER.log(Level.INFO, "Failed to record values, recording stopped", e); // NOI18N
+            stopRecording();
+        }
+
+        return rolledUp;
     }
     
 
     void reset() {
-        valuesCount = 0;
+        stopReplay();
+        storage.reset();
+        aggregates.reset(storage.getItemsCount());
+    }
 
-        timestamps = null;
-        if (values != null) {
-            if (values.length == 0) {
-                values = null;
-            } else {
-                for (int i = 0; i < values.length; i++)
-                    values[i] = new long[0];
-            }
+
+    // --- Recording & replay --------------------------------------------------
+
+    void startRecording(File file) throws IOException {
+        stopRecording();
+        String[] itemNames = new String[items.size()];
+        for (int i = 0; i < itemNames.length; i++)
+            itemNames[i] = items.get(i).getName();
+        recording = TimelineRecording.create(file, itemNames);
+    }
+
+    void stopRecording() {
+        if (recording == null) return;
+        recording.close();
+        recording = null;
+    }
+
+    boolean isRecording() {
+        return recording != null;
+    }
+
+    void startReplay(File file) throws IOException {
+        TimelineRecording newReplay = TimelineRecording.open(file);
+        String[] itemNames = newReplay.getItemNames();
+        boolean matches = itemNames.length == items.size();
+        for (int i = 0; matches && i < itemNames.length; i++)
+            matches = itemNames[i].equals(items.get(i).getName());
+        if (!matches) {
+            newReplay.close();
+            throw new IOException("Recording doesn't match selected probes"); // NOI18N
         }
+
+        storage.reset();
+        stopReplay();
+        replay = newReplay;
+        aggregates.invalidate();
     }
 
+    void stopReplay() {
+        if (replay == null) return;
+        replay.close();
+        replay = null;
+        aggregates.invalidate();
+    }
 
-    private void addItemsImpl(int addedItemsCount) {
-        int newItemsCount = (values == null ? 0 : values.length) + addedItemsCount;
-        values = new long[newItemsCount][];
-        reset();
+    boolean isReplay() {
+        return replay != null;
     }
 
-    private void removeItemsImpl(int removedItemsCount) {
-        values = new long[values.length - removedItemsCount][];
-        reset();
+
+    // --- Values access -------------------------------------------------------
+
+    long getValue(int itemIndex, int index) {
+        return replay != null ? replay.getValue(itemIndex, index) :
+                                storage.getValue(itemIndex, index);
     }
 
+    long getMinValue(int itemIndex, int index) {
+        return replay != null ? replay.getValue(itemIndex, index) :
+                                storage.getMinValue(itemIndex, index);
+    }
+
+    long getMaxValue(int itemIndex, int index) {
+        return replay != null ? replay.getValue(itemIndex, index) :
+                                storage.getMaxValue(itemIndex, index);
+    }
+
+    /**
+     * Returns number of raw samples represented by the row.
+     */
+    int getRowSpan(int index) {
+        return replay != null ? 1 : storage.getRowSpan(index);
+    }
 
     public int getTimestampsCount() {
-        return valuesCount;
+        return replay != null ? replay.getRowsCount() : storage.getRowsCount();
     }
 
     public long getTimestamp(int index) {
-        return timestamps[index];
+        return replay != null ? replay.getTimestamp(index) :
+                                storage.getTimestamp(index);
+    }
+
+    /**
+     * Returns index of the last row not newer than the timestamp, the row
+     * contains the timestamp if it has been rolled up. Returns -1 if the
+     * timestamp is older than the first row.
+     */
+    int getTimestampIndex(long timestamp) {
+        int low = 0;
+        int high = getTimestampsCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midTimestamp = getTimestamp(mid);
+            if (midTimestamp < timestamp) low = mid + 1;
+            else if (midTimestamp > timestamp) high = mid - 1;
+            else return mid;
+        }
+        return high;
     }
 
 
-    private void updateStorage() {
-        if (timestamps == null) {
-            timestamps = new long[bufferStep];
-            for (int i = 0; i < values.length; i++)
-                values[i] = new long[bufferStep];
-        } else if (valuesCount == timestamps.length) {
-            timestamps = extendArray(timestamps, bufferStep);
-            for (int i = 0; i < values.length; i++)
-                values[i] = extendArray(values[i], bufferStep);
+    // --- Export --------------------------------------------------------------
+
+    /**
+     * Returns the current rows in a form which can be read from any thread
+     * while new values are being added and rows rolled up. Only references to
+     * the stored chunks are copied, the values are read by the caller. A
+     * replayed recording doesn't change and is read directly.
+     */
+    Values getValuesSnapshot() {
+        if (replay != null) {
+            final TimelineRecording recording = replay;
+            return new Values() {
+                int getRowsCount() { return recording.getRowsCount(); }
+                int getItemsCount() { return recording.getItemsCount(); }
+                long getTimestamp(int index) { return recording.getTimestamp(index); }
+                long getValue(int itemIndex, int index) { return recording.getValue(itemIndex, index); }
+            };
         }
+
+        return storage.getValuesSnapshot();
     }
 
-    private static long[] extendArray(long[] array, int extraLength) {
-        int originalLength = array.length;
-        long[] newArray = new long[originalLength + extraLength];
-        System.arraycopy(array, 0, newArray, 0, originalLength);
-        return newArray;
+    static abstract class Values {
+
+        abstract int getRowsCount();
+
+        abstract int getItemsCount();
+
+        abstract long getTimestamp(int index);
+
+        abstract long getValue(int itemIndex, int index);
+
     }
 
 }
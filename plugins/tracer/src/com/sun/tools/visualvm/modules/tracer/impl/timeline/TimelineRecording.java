@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl.timeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped file containing timeline values of a Tracer session. Rows are
+ * appended in blocks of BLOCK_ROWS rows, each block stores the timestamps
+ * followed by values of each item (columnar layout). Blocks are mapped lazily
+ * and the data never has to be loaded into the heap.
+ *
+ * File layout:
+ * <pre>
+ * int    magic
+ * int    version
+ * int    items count
+ * int    header size (offset of the first block)
+ * long   rows count
+ * UTF[]  item names
+ * block* timestamps[BLOCK_ROWS], values[items count][BLOCK_ROWS]
+ * </pre>
+ *
+ * @author agent
+ */
+final class TimelineRecording {
+
+    private static final int MAGIC = 0x54535231; // NOI18N
+    private static final int VERSION = 1;
+
+    private static final int ROWS_COUNT_OFFSET = 16;
+    private static final int FIXED_HEADER_SIZE = 24;
+
+    private static final int BLOCK_ROWS = 1024;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final boolean writable;
+
+    private final String[] itemNames;
+    private final int headerSize;
+    private final long blockSize;
+
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> blocks = new ArrayList();
+
+    private int rowsCount;
+
+
+    // --- Constructors --------------------------------------------------------
+
+    private TimelineRecording(File file, String[] itemNames) throws IOException {
+        this.file = file;
+        this.itemNames = itemNames;
+        writable = true;
+
+        raf = new RandomAccessFile(file, "rw"); // NOI18N
+        raf.setLength(0);
+        raf.writeInt(MAGIC);
+        raf.writeInt(VERSION);
+        raf.writeInt(itemNames.length);
+        raf.writeInt(0); // header size, updated below
+        raf.writeLong(0); // rows count
+        for (String itemName : itemNames) raf.writeUTF(itemName);
+
+        long size = raf.getFilePointer();
+        headerSize = (int)((size + 7) & ~7);
+        raf.seek(12);
+        raf.writeInt(headerSize);
+        raf.setLength(headerSize);
+
+        channel = raf.getChannel();
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FIXED_HEADER_SIZE);
+        blockSize = (long)BLOCK_ROWS * 8 * (itemNames.length + 1);
+    }
+
+    private TimelineRecording(File file) throws IOException {
+        this.file = file;
+        writable = false;
+
+        raf = new RandomAccessFile(file, "r"); // NOI18N
+        try {
+            if (raf.readInt() != MAGIC)
+                throw new IOException("Unknown recording format"); // NOI18N
+            if (raf.readInt() != VERSION)
+                throw new IOException("Unsupported recording version"); // NOI18N
+            int itemsCount = raf.readInt();
+            headerSize = raf.readInt();
+            raf.readLong();
+            itemNames = new String[itemsCount];
+            for (int i = 0; i < itemsCount; i++) itemNames[i] = raf.readUTF();
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+
+        channel = raf.getChannel();
+        header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FIXED_HEADER_SIZE);
+        blockSize = (long)BLOCK_ROWS * 8 * (itemNames.length + 1);
+
+        // Rows count is updated after each row, a crashed session is readable
+        long rows = header.getLong(ROWS_COUNT_OFFSET);
+        long availableRows = (channel.size() - headerSize) / blockSize * BLOCK_ROWS;
+        rowsCount = (int)Math.min(rows, availableRows);
+    }
+
+
+    /**
+     * Creates a new recording file, an existing file is overwritten.
+     */
+    static TimelineRecording create(File file, String[] itemNames) throws IOException {
+        return new TimelineRecording(file, itemNames);
+    }
+
+    /**
+     * Opens an existing recording file for replay.
+     */
+    static TimelineRecording open(File file) throws IOException {
+        return new TimelineRecording(file);
+    }
+
+
+    // --- Recording -----------------------------------------------------------
+
+    synchronized void addValues(long timestamp, long[] values) throws IOException {
+        if (!writable) throw new IOException("Recording opened for replay"); // NOI18N
+
+        int row = rowsCount % BLOCK_ROWS;
+        MappedByteBuffer block = row == 0 ? mapBlock(rowsCount / BLOCK_ROWS) :
+                                            blocks.get(blocks.size() - 1);
+        int offset = row * 8;
+        block.putLong(offset, timestamp);
+        for (int i = 0; i < itemNames.length; i++)
+            block.putLong(offset + (i + 1) * BLOCK_ROWS * 8, values[i]);
+
+        rowsCount++;
+        header.putLong(ROWS_COUNT_OFFSET, rowsCount);
+    }
+
+    synchronized void close() {
+        try {
+            if (writable) {
+                for (MappedByteBuffer block : blocks) block.force();
+                header.force();
+            }
+            raf.close();
+        } catch (IOException e) {
+            // Ignored, the file is not used any more
+        }
+        blocks.clear();
+    }
+
+
+    // --- Replay --------------------------------------------------------------
+
+    File getFile() {
+        return file;
+    }
+
+    String[] getItemNames() {
+        return itemNames;
+    }
+
+    int getItemsCount() {
+        return itemNames.length;
+    }
+
+    int getRowsCount() {
+        return rowsCount;
+    }
+
+    long getTimestamp(int index) {
+        return block(index).getLong((index % BLOCK_ROWS) * 8);
+    }
+
+    long getValue(int itemIndex, int index) {
+        return block(index).getLong(((itemIndex + 1) * BLOCK_ROWS +
+                                     index % BLOCK_ROWS) * 8);
+    }
+
+
+    // Replayed recordings may be exported from a worker thread
+    private synchronized MappedByteBuffer block(int index) {
+        int blockIndex = index / BLOCK_ROWS;
+        if (blockIndex < blocks.size()) return blocks.get(blockIndex);
+        try {
+            MappedByteBuffer block = null;
+            while (blocks.size() <= blockIndex) block = mapBlock(blocks.size());
+            return block;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read recording " + file, e); // NOI18N
+        }
+    }
+
+    private MappedByteBuffer mapBlock(int blockIndex) throws IOException {
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE :
+                                              FileChannel.MapMode.READ_ONLY;
+        MappedByteBuffer block = channel.map(mode, headerSize + blockIndex * blockSize,
+                                             blockSize);
+        blocks.add(block);
+        return block;
+    }
+
+}
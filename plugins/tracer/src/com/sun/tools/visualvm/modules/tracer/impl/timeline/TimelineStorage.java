@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl.timeline;
+
+import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
+import com.sun.tools.visualvm.modules.tracer.impl.options.TracerOptions;
+
+/**
+ * Segmented column store for timeline values. Rows are stored in fixed-size
+ * chunks of primitive columns, new rows are always appended into the last chunk
+ * of the raw tier. Once a tier holds more chunks than the retention cap allows,
+ * its oldest chunk is rolled up into the next tier where each row aggregates
+ * (min/max/avg) ROLLUP_FACTOR rows of the previous tier. The oldest chunk of
+ * the last tier is dropped. Chunks are recycled, memory stays flat once all
+ * tiers are filled.
+ *
+ * Chunks captured by getValuesSnapshot() are never recycled, the snapshot can
+ * be read from any thread while new rows are added and older rows rolled up.
+ *
+ * Rows are indexed chronologically: rows of the most aggregated tier come first,
+ * raw rows come last.
+ *
+ * All methods must be invoked from the EDT.
+ *
+ * @author agent
+ */
+final class TimelineStorage {
+
+    static final int RETENTION_UNLIMITED = TracerOptions.RETENTION_UNLIMITED;
+
+    private static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    static final int ROLLUP_FACTOR = 8;
+    static final int TIERS_COUNT = 3;
+
+    private static final long UNDEFINED = ProbeItemDescriptor.VALUE_UNDEFINED;
+
+    private final Tier[] tiers;
+    private int itemsCount;
+    private int rowsCount;
+    private int generation;
+
+
+    TimelineStorage(int retentionCap) {
+        int chunksLimit = retentionCap == RETENTION_UNLIMITED ? Integer.MAX_VALUE :
+                          Math.max(1, (retentionCap + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        tiers = new Tier[chunksLimit == Integer.MAX_VALUE ? 1 : TIERS_COUNT];
+        for (int i = 0; i < tiers.length; i++)
+            tiers[i] = new Tier(i, chunksLimit);
+    }
+
+
+    // --- Structure -----------------------------------------------------------
+
+    void setItemsCount(int itemsCount) {
+        this.itemsCount = itemsCount;
+        for (Tier tier : tiers) tier.clear(true);
+        rowsCount = 0;
+        generation++;
+    }
+
+    int getItemsCount() {
+        return itemsCount;
+    }
+
+    void reset() {
+        for (Tier tier : tiers) tier.clear(false);
+        rowsCount = 0;
+        generation++;
+    }
+
+    /**
+     * Returns a number which changes whenever existing rows are removed or
+     * rolled up, i.e. whenever indexes of the existing rows have changed.
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+
+    // --- Values --------------------------------------------------------------
+
+    void addValues(long timestamp, long[] values) {
+        Chunk chunk = tiers[0].appendChunk();
+        int row = chunk.count++;
+        chunk.timestamps[row] = timestamp;
+        for (int i = 0; i < itemsCount; i++)
+            chunk.values[i][row] = values[i];
+        tiers[0].rowsCount++;
+        rowsCount++;
+    }
+
+    int getRowsCount() {
+        return rowsCount;
+    }
+
+    long getTimestamp(int index) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            Tier tier = tiers[i];
+            if (index < tier.rowsCount) return tier.getTimestamp(index);
+            index -= tier.rowsCount;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    long getLastTimestamp() {
+        return rowsCount == 0 ? -1 : tiers[0].getTimestamp(tiers[0].rowsCount - 1);
+    }
+
+    long getValue(int itemIndex, int index) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            Tier tier = tiers[i];
+            if (index < tier.rowsCount) return tier.getValue(itemIndex, index);
+            index -= tier.rowsCount;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    long getMinValue(int itemIndex, int index) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            Tier tier = tiers[i];
+            if (index < tier.rowsCount) return tier.getMinValue(itemIndex, index);
+            index -= tier.rowsCount;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    long getMaxValue(int itemIndex, int index) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            Tier tier = tiers[i];
+            if (index < tier.rowsCount) return tier.getMaxValue(itemIndex, index);
+            index -= tier.rowsCount;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * Returns number of raw samples aggregated in the row.
+     */
+    int getRowSpan(int index) {
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            Tier tier = tiers[i];
+            if (index < tier.rowsCount) return tier.rowSpan;
+            index -= tier.rowsCount;
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+
+    // --- Snapshot ------------------------------------------------------------
+
+    /**
+     * Returns the current rows in a form which can be read from any thread.
+     * Only references to the chunks are copied, the captured chunks are marked
+     * as shared and won't be recycled anymore.
+     */
+    TimelineModel.Values getValuesSnapshot() {
+        final Chunk[][] tierChunks = new Chunk[tiers.length][];
+        final int[] tierRows = new int[tiers.length];
+        for (int t = 0; t < tiers.length; t++) {
+            Tier tier = tiers[t];
+            Chunk[] chunks = new Chunk[tier.chunksCount];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = tier.chunks[tier.chunkIndex(i)];
+                chunks[i].shared = true;
+            }
+            tierChunks[t] = chunks;
+            tierRows[t] = tier.rowsCount;
+        }
+
+        final int snapshotItemsCount = itemsCount;
+        final int snapshotRowsCount = rowsCount;
+        return new TimelineModel.Values() {
+            int getRowsCount() { return snapshotRowsCount; }
+            int getItemsCount() { return snapshotItemsCount; }
+            long getTimestamp(int index) {
+                for (int t = tierChunks.length - 1; t >= 0; t--) {
+                    if (index < tierRows[t])
+                        return tierChunks[t][index >>> CHUNK_BITS].timestamps[index & CHUNK_MASK];
+                    index -= tierRows[t];
+                }
+                throw new IndexOutOfBoundsException();
+            }
+            long getValue(int itemIndex, int index) {
+                for (int t = tierChunks.length - 1; t >= 0; t--) {
+                    if (index < tierRows[t])
+                        return tierChunks[t][index >>> CHUNK_BITS].values[itemIndex][index & CHUNK_MASK];
+                    index -= tierRows[t];
+                }
+                throw new IndexOutOfBoundsException();
+            }
+        };
+    }
+
+
+    // --- Roll-up -------------------------------------------------------------
+
+    private Chunk rollUp(int tierIndex) {
+        Tier tier = tiers[tierIndex];
+        Chunk chunk = tier.removeFirstChunk();
+        rowsCount -= chunk.count;
+        generation++;
+
+        if (tierIndex + 1 < tiers.length) {
+            Tier nextTier = tiers[tierIndex + 1];
+            for (int row = 0; row < chunk.count; row += ROLLUP_FACTOR) {
+                int end = Math.min(row + ROLLUP_FACTOR, chunk.count);
+                Chunk target = nextTier.appendChunk();
+                int targetRow = target.count++;
+                target.timestamps[targetRow] = chunk.timestamps[row];
+                for (int i = 0; i < itemsCount; i++)
+                    aggregate(chunk, i, row, end, target, targetRow);
+                nextTier.rowsCount++;
+                rowsCount++;
+            }
+        }
+
+        // Chunk captured by a snapshot is left to the snapshot
+        if (chunk.shared) return null;
+        chunk.count = 0;
+        return chunk;
+    }
+
+    private static void aggregate(Chunk source, int itemIndex, int from, int to,
+                                  Chunk target, int targetRow) {
+        long[] values = source.values[itemIndex];
+        long[] minValues = source.minValues == null ? values : source.minValues[itemIndex];
+        long[] maxValues = source.maxValues == null ? values : source.maxValues[itemIndex];
+
+        double sum = 0;
+        int count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for (int row = from; row < to; row++) {
+            long value = values[row];
+            if (value == UNDEFINED) continue;
+            sum += value;
+            count++;
+            min = Math.min(min, minValues[row]);
+            max = Math.max(max, maxValues[row]);
+        }
+
+        if (count == 0) {
+            target.values[itemIndex][targetRow] = UNDEFINED;
+            target.minValues[itemIndex][targetRow] = UNDEFINED;
+            target.maxValues[itemIndex][targetRow] = UNDEFINED;
+        } else {
+            target.values[itemIndex][targetRow] = Math.round(sum / count);
+            target.minValues[itemIndex][targetRow] = min;
+            target.maxValues[itemIndex][targetRow] = max;
+        }
+    }
+
+
+    // --- Tier ----------------------------------------------------------------
+
+    private final class Tier {
+
+        private final int tierIndex;
+        private final int chunksLimit;
+        private final int rowSpan;
+
+        private Chunk[] chunks;
+        private int firstChunk;
+        private int chunksCount;
+        private int rowsCount;
+
+        private Chunk spareChunk;
+
+
+        Tier(int tierIndex, int chunksLimit) {
+            this.tierIndex = tierIndex;
+            this.chunksLimit = chunksLimit;
+            int span = 1;
+            for (int i = 0; i < tierIndex; i++) span *= ROLLUP_FACTOR;
+            rowSpan = span;
+            chunks = new Chunk[Math.min(chunksLimit, 16)];
+        }
+
+
+        void clear(boolean dropChunks) {
+            if (dropChunks) {
+                chunks = new Chunk[Math.min(chunksLimit, 16)];
+                spareChunk = null;
+            } else {
+                for (int i = 0; i < chunksCount; i++) {
+                    int idx = chunkIndex(i);
+                    if (spareChunk == null && !chunks[idx].shared) {
+                        chunks[idx].count = 0;
+                        spareChunk = chunks[idx];
+                    }
+                    chunks[idx] = null;
+                }
+            }
+            firstChunk = 0;
+            chunksCount = 0;
+            rowsCount = 0;
+        }
+
+        /**
+         * Returns a chunk with free space for at least one row, rolling up or
+         * dropping the oldest chunk if the retention cap would be exceeded.
+         */
+        Chunk appendChunk() {
+            if (chunksCount > 0) {
+                Chunk last = chunks[chunkIndex(chunksCount - 1)];
+                if (last.count < CHUNK_SIZE) return last;
+            }
+
+            Chunk chunk = spareChunk;
+            spareChunk = null;
+            if (chunksCount == chunksLimit) {
+                Chunk recycled = rollUp(tierIndex);
+                if (chunk == null) chunk = recycled;
+                else spareChunk = recycled;
+            }
+            if (chunk == null) chunk = new Chunk(itemsCount, tierIndex > 0);
+
+            if (chunksCount == chunks.length) growChunks();
+            chunks[chunkIndex(chunksCount)] = chunk;
+            chunksCount++;
+            return chunk;
+        }
+
+        Chunk removeFirstChunk() {
+            Chunk chunk = chunks[firstChunk];
+            chunks[firstChunk] = null;
+            firstChunk = (firstChunk + 1) % chunks.length;
+            chunksCount--;
+            rowsCount -= chunk.count;
+            return chunk;
+        }
+
+        long getTimestamp(int index) {
+            return chunk(index).timestamps[index & CHUNK_MASK];
+        }
+
+        long getValue(int itemIndex, int index) {
+            return chunk(index).values[itemIndex][index & CHUNK_MASK];
+        }
+
+        long getMinValue(int itemIndex, int index) {
+            Chunk chunk = chunk(index);
+            long[][] minValues = chunk.minValues == null ? chunk.values : chunk.minValues;
+            return minValues[itemIndex][index & CHUNK_MASK];
+        }
+
+        long getMaxValue(int itemIndex, int index) {
+            Chunk chunk = chunk(index);
+            long[][] maxValues = chunk.maxValues == null ? chunk.values : chunk.maxValues;
+            return maxValues[itemIndex][index & CHUNK_MASK];
+        }
+
+
+        private Chunk chunk(int index) {
+            return chunks[chunkIndex(index >>> CHUNK_BITS)];
+        }
+
+        private int chunkIndex(int index) {
+            index += firstChunk;
+            if (index >= chunks.length) index -= chunks.length;
+            return index;
+        }
+
+        private void growChunks() {
+            int newLength = (int)Math.min((long)chunksLimit, chunks.length * 2L);
+            Chunk[] newChunks = new Chunk[newLength];
+            for (int i = 0; i < chunksCount; i++)
+                newChunks[i] = chunks[chunkIndex(i)];
+            chunks = newChunks;
+            firstChunk = 0;
+        }
+
+    }
+
+
+    // --- Chunk ---------------------------------------------------------------
+
+    private static final class Chunk {
+
+        final long[] timestamps;
+        final long[][] values;
+        final long[][] minValues;
+        final long[][] maxValues;
+
+        int count;
+        boolean shared; // captured by a snapshot
+
+
+        Chunk(int itemsCount, boolean aggregated) {
+            timestamps = new long[CHUNK_SIZE];
+            values = new long[itemsCount][CHUNK_SIZE];
+            minValues = aggregated ? new long[itemsCount][CHUNK_SIZE] : null;
+            maxValues = aggregated ? new long[itemsCount][CHUNK_SIZE] : null;
+        }
+
+    }
+
+}
@@ -36,6 +36,8 @@ import com.sun.tools.visualvm.modules.tracer.impl.export.DataExport;
 import com.sun.tools.visualvm.modules.tracer.impl.timeline.TimelineChart.Row;
 import com.sun.tools.visualvm.modules.tracer.impl.timeline.items.ValueItemDescriptor;
 import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
 import java.text.Format;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
@@ -395,9 +397,17 @@ public final class TimelineSupport {
 
     public void addValues(final long timestamp, final long[] newValues) {
         int newRow = detailsModel == null ? -1 : detailsModel.getRowCount();
-        model.addValues(timestamp, newValues);
+        long[] selectedTimes = getSelectedTimes();
+        boolean rolledUp = model.addValues(timestamp, newValues);
         itemsModel.valuesAdded();
-        if (newRow != -1) detailsModel.fireTableRowsInserted(newRow, newRow);
+        if (rolledUp) {
+            // Indexes of existing values have changed
+            pointsComputer.reset();
+            if (detailsModel != null) detailsModel.fireTableDataChanged();
+            remapSelectedTimestamps(selectedTimes);
+        } else {
+            if (newRow != -1) detailsModel.fireTableRowsInserted(newRow, newRow);
+        }
         fireValuesAdded();
     }
 
@@ -410,9 +420,40 @@ public final class TimelineSupport {
         fireValuesReset();
     }
 
+
+    // --- Recording & replay --------------------------------------------------
+
+    public void startRecording(File file) throws IOException {
+        model.startRecording(file);
+    }
+
+    public void stopRecording() {
+        model.stopRecording();
+    }
+
+    public boolean isRecording() {
+        return model.isRecording();
+    }
+
+    public void replayRecording(File file) throws IOException {
+        model.startReplay(file);
+        itemsModel.valuesAdded();
+        resetSelectedTimestamps();
+        pointsComputer.reset();
+        if (detailsModel != null) detailsModel.fireTableDataChanged();
+        fireValuesAdded();
+    }
+
+    public boolean isReplay() {
+        return model.isReplay();
+    }
+
+
     public void exportAllValues(String title) {
-        final int rowsCount = model.getTimestampsCount();
-        final int columnsCount = model.getItemsCount();
+        // Only chunk references are captured here, rows are read on the export worker
+        final TimelineModel.Values values = model.getValuesSnapshot();
+        final int rowsCount = values.getRowsCount();
+        final int columnsCount = values.getItemsCount();
         
         final Format timeFormatter = new SimpleDateFormat(MessageFormat.format(
                                      TimeAxisUtils.TIME_DATE_FORMAT, new Object[] {
@@ -422,8 +463,11 @@ public final class TimelineSupport {
         for (TracerProbe probe : probes)
             probeDescriptors.addAll(Arrays.asList(probe.getItemDescriptors()));
         final ValueItemDescriptor[] descriptors = new ValueItemDescriptor[columnsCount];
-        for (int i = 0; i < columnsCount; i++)
+        final String[] names = new String[columnsCount];
+        for (int i = 0; i < columnsCount; i++) {
             descriptors[i] = (ValueItemDescriptor)probeDescriptors.get(i);
+            names[i] = itemsModel.getItem(i).getName();
+        }
 
         TableModel exportModel = new AbstractTableModel() {
             public int getRowCount() {
@@ -440,19 +484,42 @@ public final class TimelineSupport {
                 String unitsString = descriptors[columnIndex - 1].getUnitsString(
                                      ItemValueFormatter.FORMAT_EXPORT);
                 unitsString = unitsString == null ? "" : " [" + unitsString + "]";
-                return itemsModel.getItem(columnIndex - 1).getName() + unitsString;
+                return names[columnIndex - 1] + unitsString;
             }
 
             public Object getValueAt(int rowIndex, int columnIndex) {
-                if (columnIndex == 0) return timeFormatter.format(model.
+                if (columnIndex == 0) return timeFormatter.format(values.
                                              getTimestamp(rowIndex));
 
-                long value = itemsModel.getItem(columnIndex - 1).getYValue(rowIndex);
+                long value = values.getValue(columnIndex - 1, rowIndex);
                 return descriptors[columnIndex - 1].getValueString(value,
                                                     ItemValueFormatter.FORMAT_EXPORT);
             }
         };
-        DataExport.exportData(exportModel, title);
+
+        DataExport.ValuesModel valuesModel = new DataExport.ValuesModel() {
+            public int getRowsCount() {
+                return rowsCount;
+            }
+
+            public int getItemsCount() {
+                return columnsCount;
+            }
+
+            public String getItemName(int itemIndex) {
+                return names[itemIndex];
+            }
+
+            public long getTimestamp(int rowIndex) {
+                return values.getTimestamp(rowIndex);
+            }
+
+            public long getValue(int itemIndex, int rowIndex) {
+                return values.getValue(itemIndex, rowIndex);
+            }
+        };
+
+        DataExport.exportData(exportModel, valuesModel, title);
     }
 
     public void exportDetailsValues(String title) {
@@ -694,6 +761,124 @@ public final class TimelineSupport {
         return selectedTimestamps;
     }
 
+    // Timestamps of the selected rows, used to find the rows after a roll-up
+    private long[] getSelectedTimes() {
+        if (selectedTimestamps.isEmpty()) return null;
+        long[] times = new long[selectedTimestamps.size()];
+        int i = 0;
+        for (int index : selectedTimestamps) times[i++] = model.getTimestamp(index);
+        return times;
+    }
+
+    // Selects rows containing the timestamps, rows rolled up into a single
+    // row are merged, dropped rows are unselected
+    private void remapSelectedTimestamps(long[] times) {
+        if (times == null) return;
+        selectedTimestamps.clear();
+        for (long time : times) {
+            int index = model.getTimestampIndex(time);
+            if (index != -1) selectedTimestamps.add(index);
+        }
+        updateSelectedItems();
+        notifyTimeSelectionChanged();
+    }
+
+
+    // --- Interval statistics -------------------------------------------------
+
+    /**
+     * Returns true if at least two timestamps are marked. The interval between
+     * the first and the last mark is considered to be selected.
+     */
+    public boolean isIntervalSelection() {
+        return selectedTimestamps.size() > 1;
+    }
+
+    /**
+     * Returns length of the selected interval in milliseconds or -1 if no
+     * interval is selected.
+     */
+    public long getSelectedIntervalLength() {
+        if (!isIntervalSelection()) return -1;
+        int[] interval = getSelectedInterval();
+        return model.getTimestamp(interval[1]) - model.getTimestamp(interval[0]);
+    }
+
+    /**
+     * Returns HTML formatted average/min/max/rate of all items within the
+     * selected interval or null if no interval is selected. The statistics are
+     * computed from precomputed aggregates, its cost doesn't depend on the
+     * interval length.
+     */
+    public String getSelectedIntervalStatistics() {
+        if (!isIntervalSelection()) return null;
+        int[] interval = getSelectedInterval();
+        int from = interval[0];
+        int to = interval[1];
+        double seconds = (model.getTimestamp(to) - model.getTimestamp(from)) / 1000d;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<html><table cellspacing=\"0\" cellpadding=\"1\">"); // NOI18N
+        sb.append("<tr><td></td><td align=\"right\"><b>Avg</b></td>" + // NOI18N
+                  "<td align=\"right\"><b>Min</b></td><td align=\"right\"><b>Max</b></td>" + // NOI18N
+                  "<td align=\"right\"><b>Rate/s</b></td><td></td></tr>"); // NOI18N
+
+        for (int rowIndex = 0; rowIndex < chart.getRowsCount(); rowIndex++) {
+            TimelineChart.Row row = chart.getRow(rowIndex);
+            TracerProbe probe = getProbe(row);
+            ProbeItemDescriptor[] descriptors = probe.getItemDescriptors();
+            sb.append("<tr><td colspan=\"6\"><b>"); // NOI18N
+            sb.append(getDescriptor(probe).getProbeName());
+            sb.append("</b></td></tr>"); // NOI18N
+
+            for (int itemIndex = 0; itemIndex < row.getItemsCount(); itemIndex++) {
+                TimelineXYItem item = (TimelineXYItem)row.getItem(itemIndex);
+                ValueItemDescriptor descriptor = (ValueItemDescriptor)descriptors[itemIndex];
+
+                double avg = item.getAverageYValue(from, to);
+                long min = item.getMinYValue(from, to);
+                long max = item.getMaxYValue(from, to);
+                long first = item.getYValue(from);
+                long last = item.getYValue(to);
+                boolean rate = seconds > 0 && first != ProbeItemDescriptor.VALUE_UNDEFINED &&
+                               last != ProbeItemDescriptor.VALUE_UNDEFINED;
+
+                sb.append("<tr><td>&nbsp;&nbsp;"); // NOI18N
+                sb.append(item.getName());
+                appendValue(sb, descriptor, Double.isNaN(avg) ?
+                            ProbeItemDescriptor.VALUE_UNDEFINED : Math.round(avg));
+                appendValue(sb, descriptor, min);
+                appendValue(sb, descriptor, max);
+                appendValue(sb, descriptor, rate ? Math.round((last - first) / seconds) :
+                                            ProbeItemDescriptor.VALUE_UNDEFINED);
+                sb.append("</td><td>"); // NOI18N
+                String units = descriptor.getUnitsString(ItemValueFormatter.FORMAT_TOOLTIP);
+                if (units != null) sb.append(units);
+                sb.append("</td></tr>"); // NOI18N
+            }
+        }
+
+        sb.append("</table></html>"); // NOI18N
+        return sb.toString();
+    }
+
+    private int[] getSelectedInterval() {
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (int index : selectedTimestamps) {
+            first = Math.min(first, index);
+            last = Math.max(last, index);
+        }
+        return new int[] { first, last };
+    }
+
+    private static void appendValue(StringBuilder sb, ValueItemDescriptor descriptor,
+                                    long value) {
+        sb.append("</td><td align=\"right\">&nbsp;&nbsp;"); // NOI18N
+        sb.append(value == ProbeItemDescriptor.VALUE_UNDEFINED ? "-" : // NOI18N
+                  descriptor.getValueString(value, ItemValueFormatter.FORMAT_TOOLTIP));
+    }
+
     private void highlightTimestamp(int selectedIndex) {
 //        List<SynchronousXYItem> selectedItems = new ArrayList();
 //        if (selectedIndex != -1) {
@@ -47,6 +47,8 @@ abstract class TimelineXYItem extends SynchronousXYItem {
 
     private int itemIndex;
 
+    private int lastGeneration;
+
 
     // --- Constructor ---------------------------------------------------------
 
@@ -76,6 +78,39 @@ abstract class TimelineXYItem extends SynchronousXYItem {
 
     final int getIndex() { return itemIndex; }
 
+    /**
+     * Returns a number which changes whenever the indexes of already processed
+     * values have changed, for example when old values have been rolled up.
+     */
+    int getDataGeneration() { return 0; }
+
+    /**
+     * Returns minimum y value of the values fromIndex..toIndex (inclusive).
+     */
+    long getMinYValue(int fromIndex, int toIndex) {
+        long min = Long.MAX_VALUE;
+        for (int i = fromIndex; i <= toIndex; i++) min = Math.min(min, getYValue(i));
+        return min;
+    }
+
+    /**
+     * Returns maximum y value of the values fromIndex..toIndex (inclusive).
+     */
+    long getMaxYValue(int fromIndex, int toIndex) {
+        long max = Long.MIN_VALUE;
+        for (int i = fromIndex; i <= toIndex; i++) max = Math.max(max, getYValue(i));
+        return max;
+    }
+
+    /**
+     * Returns average y value of the values fromIndex..toIndex (inclusive).
+     */
+    double getAverageYValue(int fromIndex, int toIndex) {
+        double sum = 0;
+        for (int i = fromIndex; i <= toIndex; i++) sum += getYValue(i);
+        return sum / (toIndex - fromIndex + 1);
+    }
+
 
     // --- Item telemetry ------------------------------------------------------
 
@@ -85,6 +120,15 @@ abstract class TimelineXYItem extends SynchronousXYItem {
         int index = valuesCount - 1;
         XYItemChange change = null;
 
+        // Already processed values have been rolled up, process all values
+        int generation = getDataGeneration();
+        if (generation != lastGeneration) {
+            lastGeneration = generation;
+            lastIndex = -1;
+            minY = Long.MAX_VALUE;
+            maxY = Long.MIN_VALUE;
+        }
+
         if (index > -1) { // New item(s)
 
             // Save oldBounds, setup dirtyBounds
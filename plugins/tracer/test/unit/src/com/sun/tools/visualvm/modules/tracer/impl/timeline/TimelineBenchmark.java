@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.impl.timeline;
+
+import com.sun.tools.visualvm.modules.tracer.ItemValueFormatter;
+import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
+import java.awt.Rectangle;
+import java.util.Random;
+import javax.swing.SwingUtilities;
+import org.netbeans.lib.profiler.charts.xy.XYItemPainter;
+import org.netbeans.lib.profiler.charts.xy.synchronous.SynchronousXYChartContext;
+import org.netbeans.lib.profiler.charts.xy.synchronous.SynchronousXYItemsModel;
+
+/**
+ * Headless timings of adding values to TimelineModel and of computing the
+ * painted points by PointsComputer. The chart is sized but never displayed,
+ * so the benchmark target of the module runs it with java.awt.headless set.
+ * Use -Dbenchmark.iterations=N for a different number of measured iterations.
+ *
+ * @author agent
+ */
+public class TimelineBenchmark {
+
+    private static final int ITEMS_COUNT = 16;
+    private static final int SAMPLES_COUNT = 100000;
+    private static final int PAINTS_COUNT = 100;
+    private static final int VIEW_WIDTH = 1000;
+    private static final int VIEW_HEIGHT = 400;
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 10); // NOI18N
+
+
+    private final long[][] samples;
+    private final ProbeItemDescriptor[] descriptors;
+
+
+    private TimelineBenchmark() {
+        // Random walk resembling values of the monitored probes
+        Random random = new Random(42);
+        samples = new long[SAMPLES_COUNT][ITEMS_COUNT];
+        long[] last = new long[ITEMS_COUNT];
+        for (int i = 0; i < ITEMS_COUNT; i++) last[i] = 1000000 * (i + 1);
+        for (int s = 0; s < SAMPLES_COUNT; s++)
+            for (int i = 0; i < ITEMS_COUNT; i++) {
+                last[i] = Math.max(0, last[i] + random.nextInt(20001) - 10000);
+                samples[s][i] = last[i];
+            }
+
+        descriptors = new ProbeItemDescriptor[ITEMS_COUNT];
+        for (int i = 0; i < ITEMS_COUNT; i++)
+            descriptors[i] = ProbeItemDescriptor.continuousLineItem("Item " + i, // NOI18N
+                             null, ItemValueFormatter.DEFAULT_DECIMAL);
+    }
+
+
+    private void fill(TimelineModel model) {
+        for (int s = 0; s < SAMPLES_COUNT; s++)
+            model.addValues(1000L * s, samples[s]);
+    }
+
+
+    private long addValues() {
+        TimelineModel model = new TimelineModel();
+        model.createItems(descriptors);
+        long start = System.nanoTime();
+        fill(model);
+        return System.nanoTime() - start;
+    }
+
+    // Must be invoked from the EDT like TimelineSupport
+    private long computePoints() {
+        TimelineModel model = new TimelineModel();
+        SynchronousXYItemsModel itemsModel = new SynchronousXYItemsModel(model);
+        TimelineChart chart = new TimelineChart(itemsModel);
+        chart.setFitsWidth(true);
+        chart.setBounds(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+
+        PointsComputer computer = new PointsComputer();
+        TimelineChart.Row row = chart.addRow();
+        TimelineXYItem[] items = model.createItems(descriptors);
+        XYItemPainter[] painters = new XYItemPainter[items.length];
+        for (int i = 0; i < painters.length; i++)
+            painters[i] = TimelinePaintersFactory.createPainter(descriptors[i], i, computer);
+        row.addItems(items, painters);
+
+        fill(model);
+        itemsModel.valuesAdded();
+
+        SynchronousXYChartContext context = (SynchronousXYChartContext)row.getContext();
+        Rectangle dirtyArea = new Rectangle(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+
+        long start = System.nanoTime();
+        for (int p = 0; p < PAINTS_COUNT; p++)
+            for (TimelineXYItem item : items) {
+                // Same order as the painters, min/max decimation or all visible points
+                int[][] points = computer.getMinMaxPoints(dirtyArea, item, 1d, context, 0);
+                if (points != null) continue;
+                int[][] visible = computer.getVisible(dirtyArea, item.getValuesCount(),
+                                                      context, 1, 0);
+                if (visible != null)
+                    computer.createPoints(visible[0], visible[1][0], item, 1d, context);
+            }
+        return System.nanoTime() - start;
+    }
+
+    private long computePointsInEDT() throws Exception {
+        final long[] time = new long[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() { time[0] = computePoints(); }
+        });
+        return time[0];
+    }
+
+
+    private void run() throws Exception {
+        System.out.println("TimelineModel: " + ITEMS_COUNT + " items, " + SAMPLES_COUNT + // NOI18N
+                           " samples, view " + VIEW_WIDTH + "x" + VIEW_HEIGHT); // NOI18N
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            addValues();
+            computePointsInEDT();
+        }
+
+        long add = 0, points = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            add += addValues();
+            points += computePointsInEDT();
+        }
+
+        report("TimelineModel.addValues", add, SAMPLES_COUNT, "sample"); // NOI18N
+        report("PointsComputer, all items", points, PAINTS_COUNT, "paint"); // NOI18N
+    }
+
+    private static void report(String name, long totalTime, int count, String unit) {
+        double perUnit = (double)totalTime / ITERATIONS / count;
+        System.out.println(String.format("  %-32s %12.1f ns/%s", name, perUnit, unit)); // NOI18N
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        new TimelineBenchmark().run();
+    }
+
+}
@@ -98,6 +98,10 @@ public class DynamicPackage extends TracerPackage.SessionAware<Application> {
                     throw new SessionInitializationException("Error deploying dynamic probe (" + di.getClass().getName() + ")"); // NOI18N
                 }
             }
+            // only the attributes of selected probes are retrieved from the server
+            for(TracerProbe probe : probes) {
+                ((DynamicProbe)probe).registerAttributes();
+            }
         } finally {
             if (progress != null) progress.finish();
         }
@@ -110,4 +114,11 @@ public class DynamicPackage extends TracerPackage.SessionAware<Application> {
         }
         deployers.clear();
     }
+
+    @Override
+    protected void sessionFinished(TracerProbe<Application>[] probes, Application application) {
+        for(TracerProbe probe : probes) {
+            ((DynamicProbe)probe).unregisterAttributes();
+        }
+    }
 }
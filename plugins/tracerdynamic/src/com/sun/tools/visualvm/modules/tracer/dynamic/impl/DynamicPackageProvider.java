@@ -34,11 +34,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
@@ -79,6 +84,10 @@ class DynamicPackageProvider extends ModuleInstall {
 
 
     private class Impl extends TracerPackageProvider<Application> {
+        final private static String CONFIGURATOR = "com/sun/tools/visualvm/modules/tracer/dynamic/resources/configurator.js"; // NOI18N
+
+        // scripts are compiled once and evaluated for each application
+        final private Map<String, CompiledConfig> compiledScripts = new HashMap<String, CompiledConfig>();
 
         Impl() { super(Application.class); }
 
@@ -93,13 +102,13 @@ class DynamicPackageProvider extends ModuleInstall {
             try {
                 FileObject probesRoot = FileUtil.getConfigFile("VisualVM/Tracer/packages"); // NOI18N
                 if (probesRoot != null) {
-                    jsEngine.eval(readResource("com/sun/tools/visualvm/modules/tracer/dynamic/resources/configurator.js").toString(), bindings);
+                    eval(CONFIGURATOR, null, bindings);
 
                     Enumeration<? extends FileObject> data = probesRoot.getData(false);
 
                     while (data.hasMoreElements()) {
                         FileObject cfg = data.nextElement();
-                        jsEngine.eval(cfg.asText(), bindings);
+                        eval(cfg.getPath(), cfg, bindings);
                     }
 
                     packages.addAll((Collection<TracerPackage<Application>>)bindings.get("configuredPackages"));
@@ -111,6 +120,25 @@ class DynamicPackageProvider extends ModuleInstall {
             return packages.toArray(new TracerPackage[packages.size()]);
         }
 
+        private void eval(String id, FileObject cfg, Bindings bindings) throws IOException, ScriptException {
+            if (!(jsEngine instanceof Compilable)) {
+                jsEngine.eval(cfg == null ? readResource(id).toString() : cfg.asText(), bindings);
+                return;
+            }
+            CompiledScript script;
+            synchronized(compiledScripts) {
+                Date modified = cfg == null ? null : cfg.lastModified();
+                CompiledConfig compiled = compiledScripts.get(id);
+                if (compiled == null || (modified != null && !modified.equals(compiled.modified))) {
+                    String source = cfg == null ? readResource(id).toString() : cfg.asText();
+                    compiled = new CompiledConfig(((Compilable)jsEngine).compile(source), modified);
+                    compiledScripts.put(id, compiled);
+                }
+                script = compiled.script;
+            }
+            script.eval(bindings);
+        }
+
         private CharSequence readResource(String resName) {
             StringBuilder sb = new StringBuilder();
             InputStream is = getClass().getClassLoader().getResourceAsStream(resName);
@@ -131,6 +159,16 @@ class DynamicPackageProvider extends ModuleInstall {
             }
             return sb;
         }
+        private class CompiledConfig {
+            final private CompiledScript script;
+            final private Date modified;
+
+            CompiledConfig(CompiledScript script, Date modified) {
+                this.script = script;
+                this.modified = modified;
+            }
+        }
+
 //        private static boolean isAvailable(ApplicationValidator validator, Application application) {
 //            if (validator == null) return true;
 //
@@ -29,6 +29,7 @@ import com.sun.tools.visualvm.application.Application;
 import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
 import com.sun.tools.visualvm.modules.tracer.TracerProbe;
 import com.sun.tools.visualvm.modules.tracer.TracerProbeDescriptor;
+import com.sun.tools.visualvm.modules.tracer.dynamic.jmx.JMXValueProvider;
 import com.sun.tools.visualvm.modules.tracer.dynamic.spi.DeployerImpl;
 import java.util.HashMap;
 import java.util.List;
@@ -41,13 +42,15 @@ import java.util.Set;
  */
 public class DynamicProbe extends TracerProbe<Application>{
     private TracerProbeDescriptor descriptor;
-    private List<ValueProvider> valueProviders;
+    final private ValueProvider[] valueProviders;
+    final private long[] values;
 
     private Map<DeployerImpl, Map<String, Object>>  deployers = new HashMap<DeployerImpl, Map<String, Object>>();
 
     public DynamicProbe(List<ProbeItemDescriptor> itemDescriptors, List<ValueProvider> valueProviders) {
         super(itemDescriptors.toArray(new ProbeItemDescriptor[itemDescriptors.size()]));
-        this.valueProviders = valueProviders;
+        this.valueProviders = valueProviders.toArray(new ValueProvider[valueProviders.size()]);
+        this.values = new long[this.valueProviders.length];
     }
 
     public TracerProbeDescriptor getProbeDescriptor() {
@@ -69,13 +72,28 @@ public class DynamicProbe extends TracerProbe<Application>{
         return deployers.keySet();
     }
 
+    void registerAttributes() {
+        for(ValueProvider vp : valueProviders) {
+            if (vp instanceof JMXValueProvider) {
+                ((JMXValueProvider)vp).register();
+            }
+        }
+    }
+
+    void unregisterAttributes() {
+        for(ValueProvider vp : valueProviders) {
+            if (vp instanceof JMXValueProvider) {
+                ((JMXValueProvider)vp).unregister();
+            }
+        }
+    }
+
     @Override
     public long[] getItemValues(long timestamp) {
-        long[] vals = new long[valueProviders.size()];
-        int index = 0;
-        for(ValueProvider vp : valueProviders) {
-            vals[index++] = vp.getValue(timestamp);
+        // the values array is reused; tracer copies the returned values
+        for(int i = 0; i < valueProviders.length; i++) {
+            values[i] = valueProviders[i].getValue(timestamp);
         }
-        return vals;
+        return values;
     }
 }
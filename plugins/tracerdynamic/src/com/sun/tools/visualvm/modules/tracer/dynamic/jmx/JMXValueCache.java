@@ -33,6 +33,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 import javax.management.Attribute;
@@ -48,18 +50,20 @@ import javax.management.RuntimeMBeanException;
 /**
  * A per application cached MBean attribute values provider<br/>
  * It uses a timestamp to decide whether fresh values should be retrieved
- * from the server. It also tries to batch the retrieval process to reduce
- * the network utilization overhead.
+ * from the server. All registered attributes of an MBean are retrieved by
+ * a single getAttributes() call per timestamp. Registered attributes are
+ * accessed via {@linkplain Accessor} handles reading the cached values
+ * directly, without any lookups.
  *
  * @author Jaroslav Bachorik
  */
 final public class JMXValueCache {
     final private static Map<Application, JMXValueCache> instanceMap = new WeakHashMap<Application, JMXValueCache>();
-    final private Map<ObjectName, Collection<String>> attributeMap = new HashMap<ObjectName, Collection<String>>();
-    final private Map<String, Object> valueMap = new HashMap<String, Object>();
+    final private Map<ObjectName, BeanValues> beanMap = new LinkedHashMap<ObjectName, BeanValues>();
 
     final private MBeanServerConnection connection;
-    volatile private long lastTimestamp = 0L;
+    private long lastTimestamp = 0L;
+    private BeanValues[] beans = new BeanValues[0];
 
     private JMXValueCache(Application app) {
         JmxModel model = JmxModelFactory.getJmxModelFor(app);
@@ -84,16 +88,26 @@ final public class JMXValueCache {
     }
 
     public JMXValueCache register(ObjectName name, Collection<String> attributes) {
-        synchronized(attributeMap) {
-            Collection<String> existingAttribs = attributeMap.get(name);
-            if (existingAttribs == null) {
-                existingAttribs = new ArrayList<String>();
-                attributeMap.put(name, existingAttribs);
+        for(String attribute : attributes) {
+            getAccessor(name, attribute);
+        }
+        return this;
+    }
+
+    /**
+     * Registers the attribute and returns a handle providing its cached value
+     */
+    public Accessor getAccessor(ObjectName name, String attribute) {
+        synchronized(beanMap) {
+            BeanValues bean = beanMap.get(name);
+            if (bean == null) {
+                bean = new BeanValues(name);
+                beanMap.put(name, bean);
+                beans = beanMap.values().toArray(new BeanValues[beanMap.size()]);
             }
-            existingAttribs.addAll(attributes);
             lastTimestamp = -1; // need to clear the timestamp so the cache is loaded at the next getValue() request
+            return new Accessor(bean, bean.register(attribute));
         }
-        return this;
     }
 
     public JMXValueCache unregister(ObjectName name, String attribute) {
@@ -102,10 +116,12 @@ final public class JMXValueCache {
     }
 
     public JMXValueCache unregister(ObjectName name, Collection<String> attributes) {
-        synchronized(attributeMap) {
-            Collection<String> existingAttribs = attributeMap.get(name);
-            if (existingAttribs != null) {
-                existingAttribs.removeAll(attributes);
+        synchronized(beanMap) {
+            BeanValues bean = beanMap.get(name);
+            if (bean != null) {
+                for(String attribute : attributes) {
+                    bean.unregister(attribute);
+                }
             }
         }
         return this;
@@ -125,39 +141,109 @@ final public class JMXValueCache {
     }
 
     public Object getValue(ObjectName name, String attribute, long timestamp) {
-        refreshCache(timestamp);
-        return valueMap.get(getId(name, attribute));
+        Accessor accessor;
+        synchronized(beanMap) {
+            BeanValues bean = beanMap.get(name);
+            Integer index = bean == null ? null : bean.indexes.get(attribute);
+            if (index == null) return null;
+            accessor = new Accessor(bean, index);
+        }
+        return accessor.getValue(timestamp);
     }
     
     private void refreshCache(long timestamp) {
-        if (lastTimestamp == timestamp) {
-            return;
+        synchronized(beanMap) {
+            if (lastTimestamp == timestamp) {
+                return;
+            }
+            lastTimestamp = timestamp;
+
+            for(BeanValues bean : beans) {
+                bean.refresh(connection);
+            }
         }
+    }
 
-        lastTimestamp = timestamp;
-
-        synchronized(attributeMap) {
-            for(Map.Entry<ObjectName, Collection<String>> entry : attributeMap.entrySet()) {
-                try {
-                    AttributeList al = connection.getAttributes(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
-                    for(Attribute a : al.asList()) {
-                        valueMap.put(getId(entry.getKey(), a.getName()), a.getValue());
-                    }
-                    continue;
-                } catch (RuntimeMBeanException ex) {
-                } catch (ReflectionException ex) {
-                } catch (IOException ex) {
-                } catch (InstanceNotFoundException e) {
-                }
-                for(String an : entry.getValue()) {
-                    String id = getId(entry.getKey(), an);
-                    if (!valueMap.containsKey(id)) valueMap.put(id, 0);
+    /**
+     * Direct access to a cached attribute value
+     */
+    final public class Accessor {
+        final private BeanValues bean;
+        final private int index;
+
+        private Accessor(BeanValues bean, int index) {
+            this.bean = bean;
+            this.index = index;
+        }
+
+        public Object getValue(long timestamp) {
+            refreshCache(timestamp);
+            return bean.values[index];
+        }
+    }
+
+    private static final class BeanValues {
+        final private ObjectName name;
+        final private Map<String, Integer> indexes = new HashMap<String, Integer>();
+        final private List<String> attributes = new ArrayList<String>();
+        private String[] attributesArr = new String[0];
+        private int[] counts = new int[0];
+        volatile private Object[] values = new Object[0];
+
+        BeanValues(ObjectName name) {
+            this.name = name;
+        }
+
+        int register(String attribute) {
+            Integer index = indexes.get(attribute);
+            if (index == null) {
+                index = attributes.size();
+                indexes.put(attribute, index);
+                attributes.add(attribute);
+                int[] newCounts = new int[attributes.size()];
+                System.arraycopy(counts, 0, newCounts, 0, counts.length);
+                counts = newCounts;
+                Object[] newValues = new Object[attributes.size()];
+                System.arraycopy(values, 0, newValues, 0, values.length);
+                values = newValues;
+            }
+            if (counts[index]++ == 0) updateAttributes();
+            return index;
+        }
+
+        void unregister(String attribute) {
+            Integer index = indexes.get(attribute);
+            if (index != null && counts[index] > 0) {
+                if (--counts[index] == 0) updateAttributes();
+            }
+        }
+
+        void refresh(MBeanServerConnection connection) {
+            if (attributesArr.length == 0) return;
+            Object[] vals = values;
+            try {
+                AttributeList al = connection.getAttributes(name, attributesArr);
+                for(Attribute a : al.asList()) {
+                    Integer index = indexes.get(a.getName());
+                    if (index != null) vals[index] = a.getValue();
                 }
+                return;
+            } catch (RuntimeMBeanException ex) {
+            } catch (ReflectionException ex) {
+            } catch (IOException ex) {
+            } catch (InstanceNotFoundException e) {
+            }
+            for(int i = 0; i < vals.length; i++) {
+                if (vals[i] == null) vals[i] = 0;
             }
         }
-    }
 
-    private String getId(ObjectName on, String attrName) {
-        return on.toString() + "#" + attrName;
+        private void updateAttributes() {
+            List<String> active = new ArrayList<String>();
+            for(int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) active.add(attributes.get(i));
+            }
+            attributesArr = active.toArray(new String[active.size()]);
+        }
     }
 }
@@ -34,6 +34,8 @@ import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 
 /**
+ * The attribute is registered in the {@linkplain JMXValueCache} only while
+ * a Tracer session reads it, see {@linkplain #register()}.
  *
  * @author Jaroslav Bachorik
  */
@@ -42,11 +44,31 @@ public class JMXValueProvider implements ValueProvider {
     private ObjectName on;
     private String attributeName;
     private JMXValueCache cache;
+    volatile private JMXValueCache.Accessor accessor;
 
     public JMXValueProvider(String objectName, String attributeName, Application app) throws MalformedObjectNameException {
         this.on = ObjectName.getInstance(objectName);
         this.attributeName = attributeName;
-        cache = JMXValueCache.forApplication(app).register(on, attributeName);
+        cache = JMXValueCache.forApplication(app);
+    }
+
+    /**
+     * Registers the attribute so it's refreshed with the other attributes
+     * of its MBean. Called when a session using the provider starts, values
+     * requested by a script outside of a session register it on demand.
+     */
+    public synchronized void register() {
+        if (accessor == null) accessor = cache.getAccessor(on, attributeName);
+    }
+
+    /**
+     * Unregisters the attribute, it's not retrieved from the server anymore
+     */
+    public synchronized void unregister() {
+        if (accessor != null) {
+            cache.unregister(on, attributeName);
+            accessor = null;
+        }
     }
 
     @Override
@@ -59,7 +81,12 @@ public class JMXValueProvider implements ValueProvider {
     }
 
     public Object value(long timestamp) {
-        Object val = cache.getValue(on, attributeName, timestamp);
+        JMXValueCache.Accessor a = accessor;
+        if (a == null) {
+            register();
+            a = accessor;
+        }
+        Object val = a.getValue(timestamp);
         if (val == null) {
             LOG.log(Level.FINE, "NULL({0}#{1}) @ {2}", new Object[]{on, attributeName, timestamp});
         }
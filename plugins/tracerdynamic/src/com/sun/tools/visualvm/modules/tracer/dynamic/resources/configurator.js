@@ -292,7 +292,12 @@ function processPackage(pkg) {
                         if (itemDescriptor != null && itemDescriptor != undefined) {
                             itemDescriptors.add(itemDescriptor);
                         }
-                        if (typeof(prop.value) == "function") {
+                        var jmxProvider = getJmxProvider(prop.value);
+                        if (jmxProvider != undefined) {
+                            // plain JMX attribute, read directly by the Java provider
+                            // registered in the cache when the probe session starts
+                            valProviders.add(jmxProvider);
+                        } else if (typeof(prop.value) == "function") {
                             var handler = {
                                 getValue: prop.value
                             };
@@ -350,6 +355,17 @@ function processPackage(pkg) {
     }
 }
 
+function getJmxProvider(value) {
+    if (value instanceof MBeanAttribute) {
+        try {
+            return value.getProvider();
+        } catch (e) {
+            // invalid object name, handled by the generic value provider
+        }
+    }
+    return undefined;
+}
+
 function getDeploymentAttributes(deployment) {
     var map = new java.util.HashMap();
     for(var attr in deployment) {
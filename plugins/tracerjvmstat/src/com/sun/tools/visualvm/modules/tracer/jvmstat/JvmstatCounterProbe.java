@@ -28,8 +28,6 @@ package com.sun.tools.visualvm.modules.tracer.jvmstat;
 import com.sun.tools.visualvm.modules.tracer.ProbeItemDescriptor;
 import com.sun.tools.visualvm.modules.tracer.TracerProbe;
 import static com.sun.tools.visualvm.modules.tracer.jvmstat.JvmstatCounterFormatter.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import sun.jvmstat.monitor.Monitor;
 
 /**
@@ -37,17 +35,20 @@ import sun.jvmstat.monitor.Monitor;
  * @author Tomas Hurka
  */
 class JvmstatCounterProbe extends TracerProbe {
-    private static final Logger LOGGER = Logger.getLogger(JvmstatCounterProbe.class.getName());    
     private static final String Variability_MONOTONIC = "Monotonic";    // NOI18N
 
     private Monitor counter;
+    private JvmstatCountersReader reader;
+    private int slot = -1;
+    private final long[] values = new long[1];
     private long lastVal;
     private long lastTime;
     private boolean ticks;
     
-    JvmstatCounterProbe(String name, String desc, Monitor c) {
+    JvmstatCounterProbe(String name, String desc, Monitor c, JvmstatCountersReader r) {
         super(createItemDescriptors(name, desc, c));
         counter = c;
+        reader = r;
         String u = Utils.getUnits(c).toString();
   
         ticks = u.equals(Units_TICKS) || (u.equals(Units_EVENTS) && Utils.getVariability(c).toString().equals(Variability_MONOTONIC));
@@ -61,25 +62,27 @@ class JvmstatCounterProbe extends TracerProbe {
     }
     
     public long[] getItemValues(long time) {
-        try {
-            Object val = counter.getValue();
-            if (val instanceof Number) {
-                Number num = (Number) val;
-                long value = num.longValue();
-                
-                return new long[] {convert(value)};
-            }
-        } catch (Throwable t) {
-            LOGGER.log(Level.INFO, "Failed to read UnixOperatingSystemMXBean attributes", t); // NOI18N
-        }
-        return new long[1]; // ??? should return null -- or -- catch exception in TracerController.fetchDataImpl() 
+        // values array is reused, Tracer copies the values
+        values[0] = convert(reader.getValue(this, time), time);
+        return values;
+    }
+
+    Monitor getCounter() {
+        return counter;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int s) {
+        slot = s;
     }
 
-    private long convert(long value) {
+    private long convert(long value, long now) {
         if (ticks) {
-            long now = System.currentTimeMillis();
             long diff = 0;
-            if (lastTime != 0) {
+            if (lastTime != 0 && now > lastTime) {
                 diff = 1000 * (value - lastVal) / (now - lastTime);
             }
             lastTime = now;
@@ -69,11 +69,12 @@ class JvmstatCountersPackage extends TracerPackage.SessionAware<Application> {
     void addProbe(Monitor monitor, int pos, String probeName) {
         String descName = "Counter: "+monitor.getName()+", Units: "+Utils.getUnits(monitor);
         TracerProbeDescriptor desc = new TracerProbeDescriptor(probeName,descName,ICON,pos,true);
-        probes.put(desc,new JvmstatCounterProbe(probeName, descName, monitor));
+        probes.put(desc,new JvmstatCounterProbe(probeName, descName, monitor, master.getReader()));
     }
 
     protected TracerProgressObject sessionInitializing(TracerProbe<Application>[] probes, Application dataSource, int refresh) {
         master.setInterval(refresh*1000);
+        master.getReader().addProbes(probes);
         return null;
     }
 
@@ -82,6 +83,7 @@ class JvmstatCountersPackage extends TracerPackage.SessionAware<Application> {
     }
 
     protected void sessionStopping(TracerProbe<Application>[] probes, Application dataSource) {
+        master.getReader().removeProbes(probes);
     }
 
 
@@ -57,10 +57,12 @@ class JvmstatCountersPackages  {
 
     private Application application;
     private MonitoredVm monitoredVm;
+    private JvmstatCountersReader reader;
     
     JvmstatCountersPackages(Application app) {
         application = app;
         monitoredVm = getMonitoredHost();
+        reader = new JvmstatCountersReader();
     }
 
     TracerPackage<Application>[] getPackages() {
@@ -154,6 +156,10 @@ class JvmstatCountersPackages  {
         }
     }
 
+    JvmstatCountersReader getReader() {
+        return reader;
+    }
+
     void setInterval(int refresh) {
         monitoredVm.setInterval(refresh);
 //        System.out.println("New refresh "+refresh);
@@ -0,0 +1,126 @@
+/*
+ *  Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ *  This code is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License version 2 only, as
+ *  published by the Free Software Foundation.  Oracle designates this
+ *  particular file as subject to the "Classpath" exception as provided
+ *  by Oracle in the LICENSE file that accompanied this code.
+ *
+ *  This code is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ *  version 2 for more details (a copy is included in the LICENSE file that
+ *  accompanied this code).
+ *
+ *  You should have received a copy of the GNU General Public License version
+ *  2 along with this work; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ *  Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ *  or visit www.oracle.com if you need additional information or have any
+ *  questions.
+ */
+
+package com.sun.tools.visualvm.modules.tracer.jvmstat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import sun.jvmstat.monitor.LongMonitor;
+import sun.jvmstat.monitor.Monitor;
+
+/**
+ * Reads all counters of the running Tracer session in a single pass per
+ * timestamp. The first probe asking for a new timestamp reads values of all
+ * registered counters into a reused array, other probes just pick their slot.
+ * No objects are allocated on the sampling path for LongMonitor counters.
+ *
+ * @author agent
+ */
+class JvmstatCountersReader {
+    private static final Logger LOGGER = Logger.getLogger(JvmstatCountersReader.class.getName());
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final List<JvmstatCounterProbe> probes = new ArrayList();
+    
+    private LongMonitor[] longCounters = new LongMonitor[0];
+    private Monitor[] counters = new Monitor[0];
+    private long[] values = new long[0];
+    private long lastTimestamp = NO_TIMESTAMP;
+
+    synchronized void addProbes(Object[] newProbes) {
+        for (Object probe : newProbes) {
+            if (probe instanceof JvmstatCounterProbe && !probes.contains(probe)) {
+                probes.add((JvmstatCounterProbe)probe);
+            }
+        }
+        updateCounters();
+    }
+
+    synchronized void removeProbes(Object[] oldProbes) {
+        for (Object probe : oldProbes) {
+            if (probes.remove(probe)) {
+                ((JvmstatCounterProbe)probe).setSlot(-1);
+            }
+        }
+        updateCounters();
+    }
+
+    /**
+     * Returns value of the counter of the probe at the given timestamp, reads
+     * all counters if the timestamp is a new one.
+     */
+    synchronized long getValue(JvmstatCounterProbe probe, long timestamp) {
+        int slot = probe.getSlot();
+        if (slot == -1) {
+            Monitor counter = probe.getCounter();
+            return readValue(counter, counter instanceof LongMonitor ? (LongMonitor) counter : null);
+        }
+        if (timestamp != lastTimestamp) {
+            readValues();
+            lastTimestamp = timestamp;
+        }
+        return values[slot];
+    }
+
+    private void readValues() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readValue(counters[i], longCounters[i]);
+        }
+    }
+
+    private static long readValue(Monitor counter, LongMonitor longCounter) {
+        try {
+            if (longCounter != null) {
+                return longCounter.longValue();
+            }
+            Object val = counter.getValue();
+            if (val instanceof Number) {
+                return ((Number) val).longValue();
+            }
+        } catch (Throwable t) {
+            LOGGER.log(Level.INFO, "Failed to read jvmstat counter " + counter.getName(), t); // NOI18N
+        }
+        return 0;
+    }
+
+    private void updateCounters() {
+        int count = probes.size();
+        counters = new Monitor[count];
+        longCounters = new LongMonitor[count];
+        values = new long[count];
+        for (int i = 0; i < count; i++) {
+            JvmstatCounterProbe probe = probes.get(i);
+            Monitor counter = probe.getCounter();
+            counters[i] = counter;
+            if (counter instanceof LongMonitor) {
+                longCounters[i] = (LongMonitor) counter;
+            }
+            probe.setSlot(i);
+        }
+        lastTimestamp = NO_TIMESTAMP;
+    }
+}
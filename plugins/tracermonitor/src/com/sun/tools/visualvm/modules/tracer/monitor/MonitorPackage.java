@@ -113,7 +113,7 @@ class MonitorPackage extends TracerPackage<Application> implements MonitorProbe.
         }
     }
 
-    public MonitoredData getMonitoredData(long timestamp) {
+    public synchronized MonitoredData getMonitoredData(long timestamp) {
         // TODO: validity may be extended to some timeslot (~100ms)
         if (lastTimestamp != timestamp) {
             lastMonitoredData = jvm.getMonitoredData();
@@ -26,12 +26,14 @@
 package com.sun.tools.visualvm.attach;
 
 import com.sun.tools.visualvm.application.jvm.HeapHistogram;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.AbstractSet;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -85,36 +87,70 @@ class HeapHistogramImpl extends HeapHistogram {
     HeapHistogramImpl() {
     }
     
-    HeapHistogramImpl(InputStream in) {
-        Map<String,ClassInfoImpl> classesMap = new HashMap(1024);
-        Map<String,ClassInfoImpl> permGenMap = new HashMap(1024);
+    HeapHistogramImpl(InputStream in) throws IOException {
         time = new Date();
-        Scanner sc = new Scanner(in, "UTF-8");  // NOI18N
-        sc.useRadix(10);
-        while(!sc.hasNext("-+")) {
-            sc.nextLine();
-        }
-        sc.skip("-+");
-        sc.nextLine();
+        Parser parser = new Parser(in);
+        parser.parse();
 
-        
-        while(sc.hasNext("[0-9]+:")) {  // NOI18N
-            ClassInfoImpl newClInfo = new ClassInfoImpl(sc);
-            if (newClInfo.isPermGen()) {
-                storeClassInfo(newClInfo, permGenMap);
-                totalPermGenBytes += newClInfo.getBytes();
-                totalPermgenInstances += newClInfo.getInstancesCount();
+        int rowsCount = parser.rowsCount;
+        long[] instances = parser.instances;
+        long[] bytes = parser.bytes;
+        String[] names = parser.names;
+        boolean[] permGen = parser.permGen;
+
+        // Merge rows of the same class loaded by several classloaders. Names
+        // are interned, rows are indexed by identity in an open-addressing table.
+        int[] table = new int[tableSize(rowsCount)];
+        int mask = table.length - 1;
+        int heapCount = 0;
+        int permGenCount = 0;
+        for (int row = 0; row < rowsCount; row++) {
+            String name = names[row];
+            int slot = name.hashCode() & mask;
+            int first;
+            while ((first = table[slot]) != 0 && (names[first - 1] != name ||
+                   permGen[first - 1] != permGen[row]))
+                slot = (slot + 1) & mask;
+            if (first == 0) {
+                table[slot] = row + 1;
+                if (permGen[row]) permGenCount++;
+                else heapCount++;
             } else {
-                storeClassInfo(newClInfo, classesMap);
-                totalHeapBytes += newClInfo.getBytes();
-                totalHeapInstances += newClInfo.getInstancesCount();                
+                instances[first - 1] += instances[row];
+                bytes[first - 1] += bytes[row];
+                names[row] = null;
+            }
+            if (permGen[row]) {
+                totalPermGenBytes += bytes[row];
+                totalPermgenInstances += instances[row];
+            } else {
+                totalHeapBytes += bytes[row];
+                totalHeapInstances += instances[row];
             }
         }
-        sc.next("Total");   // NOI18N
-        totalInstances = sc.nextLong();
-        totalBytes = sc.nextLong();
-        classes = new HashSet(classesMap.values());
-        permGenClasses = new HashSet(permGenMap.values());
+
+        ClassInfo[] heapInfos = new ClassInfo[heapCount];
+        ClassInfo[] permGenInfos = new ClassInfo[permGenCount];
+        heapCount = 0;
+        permGenCount = 0;
+        for (int row = 0; row < rowsCount; row++) {
+            if (names[row] == null) continue;
+            ClassInfoImpl info = new ClassInfoImpl(names[row], instances[row],
+                                                   bytes[row], permGen[row]);
+            if (permGen[row]) permGenInfos[permGenCount++] = info;
+            else heapInfos[heapCount++] = info;
+        }
+
+        totalInstances = parser.totalInstances;
+        totalBytes = parser.totalBytes;
+        classes = new ClassInfoSet(heapInfos);
+        permGenClasses = new ClassInfoSet(permGenInfos);
+    }
+
+    private static int tableSize(int count) {
+        int size = 16;
+        while (size < count * 2) size <<= 1;
+        return size;
     }
 
     void storeClassInfo(final ClassInfoImpl newClInfo, final Map<String, ClassInfoImpl> map) {
@@ -171,17 +207,12 @@ class HeapHistogramImpl extends HeapHistogram {
         
         ClassInfoImpl() {
         }
-        
-        ClassInfoImpl(Scanner sc) {
-            String jvmName;
-            
-            sc.next();
-            instances = sc.nextLong();
-            bytes = sc.nextLong();
-            jvmName = sc.next();
-            sc.nextLine();  // skip module name on JDK 9
-            permGen = jvmName.charAt(0) == '<';     // NOI18N
-            name = convertJVMName(jvmName);
+
+        ClassInfoImpl(String name, long instances, long bytes, boolean permGen) {
+            this.name = name;
+            this.instances = instances;
+            this.bytes = bytes;
+            this.permGen = permGen;
         }
         
         public String getName() {
@@ -214,52 +245,326 @@ class HeapHistogramImpl extends HeapHistogram {
         }
         
         String convertJVMName(String jvmName) {
-            String name = null;
-            int index = jvmName.lastIndexOf('[');     // NOI18N
-            
-            if (index != -1) {
-                switch(jvmName.charAt(index+1)) {
-                    case BOOLEAN_CODE:
-                        name=BOOLEAN_TEXT;
-                        break;
-                    case CHAR_CODE:
-                        name=CHAR_TEXT;
-                        break;
-                    case BYTE_CODE:
-                        name=BYTE_TEXT;
-                        break;
-                    case SHORT_CODE:
-                        name=SHORT_TEXT;
-                        break;
-                    case INT_CODE:
-                        name=INT_TEXT;
-                        break;
-                    case LONG_CODE:
-                        name=LONG_TEXT;
-                        break;
-                    case FLOAT_CODE:
-                        name=FLOAT_TEXT;
-                        break;
-                    case DOUBLE_CODE:
-                        name=DOUBLE_TEXT;
-                        break;
-                    case OBJECT_CODE:
-                        name=jvmName.substring(index+2,jvmName.length()-1);
-                        break;
-                    default:
-                        System.err.println("Uknown name "+jvmName);     // NOI18N
-                        name = jvmName;
+            return HeapHistogramImpl.convertJVMName(jvmName, isPermGen());
+        }
+    }
+
+    static String convertJVMName(String jvmName, boolean permGen) {
+        String name = null;
+        int index = jvmName.lastIndexOf('[');     // NOI18N
+        
+        if (index != -1) {
+            switch(jvmName.charAt(index+1)) {
+                case BOOLEAN_CODE:
+                    name=BOOLEAN_TEXT;
+                    break;
+                case CHAR_CODE:
+                    name=CHAR_TEXT;
+                    break;
+                case BYTE_CODE:
+                    name=BYTE_TEXT;
+                    break;
+                case SHORT_CODE:
+                    name=SHORT_TEXT;
+                    break;
+                case INT_CODE:
+                    name=INT_TEXT;
+                    break;
+                case LONG_CODE:
+                    name=LONG_TEXT;
+                    break;
+                case FLOAT_CODE:
+                    name=FLOAT_TEXT;
+                    break;
+                case DOUBLE_CODE:
+                    name=DOUBLE_TEXT;
+                    break;
+                case OBJECT_CODE:
+                    name=jvmName.substring(index+2,jvmName.length()-1);
+                    break;
+                default:
+                    System.err.println("Uknown name "+jvmName);     // NOI18N
+                    name = jvmName;
+            }
+            for (int i=0;i<=index;i++) {
+                name+="[]";
+            }
+        } else if (permGen) {
+            name = permGenNames.get(jvmName);
+        }
+        if (name == null) {
+            name = jvmName;
+        }
+        return name.intern();
+    }
+
+
+    /**
+     * Streaming parser of the heapHisto output. The stream is read through
+     * a reused buffer and rows are decoded directly into primitive columns,
+     * class names are resolved by NameCache without decoding known names.
+     */
+    private static final class Parser {
+        private static final int BUFFER_SIZE = 16 * 1024;
+        private static final int INITIAL_ROWS = 1024;
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        private byte[] token = new byte[256];
+        private int tokenLength;
+
+        int rowsCount;
+        long[] instances = new long[INITIAL_ROWS];
+        long[] bytes = new long[INITIAL_ROWS];
+        String[] names = new String[INITIAL_ROWS];
+        boolean[] permGen = new boolean[INITIAL_ROWS];
+        long totalInstances;
+        long totalBytes;
+
+        Parser(InputStream in) {
+            this.in = in;
+        }
+
+        void parse() throws IOException {
+            // header ends with a line of dashes
+            do {
+                nextToken();
+                skipLine();
+            } while (!isDashes());
+
+            while (true) {
+                nextToken();
+                if (isRowNumber()) {
+                    if (rowsCount == names.length) growColumns();
+                    instances[rowsCount] = nextLong();
+                    bytes[rowsCount] = nextLong();
+                    nextToken();
+                    permGen[rowsCount] = token[0] == '<';     // NOI18N
+                    names[rowsCount] = NAME_CACHE.getName(token, tokenLength);
+                    rowsCount++;
+                    skipLine();  // skip module name on JDK 9
+                } else if (isTotal()) {
+                    totalInstances = nextLong();
+                    totalBytes = nextLong();
+                    return;
+                } else {
+                    throw new IOException("Unexpected histogram row: " +    // NOI18N
+                                          new String(token, 0, tokenLength, "UTF-8"));  // NOI18N
                 }
-                for (int i=0;i<=index;i++) {
-                    name+="[]";
+            }
+        }
+
+        private boolean isDashes() {
+            for (int i = 0; i < tokenLength; i++)
+                if (token[i] != '-') return false;     // NOI18N
+            return true;
+        }
+
+        private boolean isRowNumber() {
+            if (tokenLength < 2 || token[tokenLength - 1] != ':') return false;     // NOI18N
+            for (int i = 0; i < tokenLength - 1; i++)
+                if (token[i] < '0' || token[i] > '9') return false;     // NOI18N
+            return true;
+        }
+
+        private boolean isTotal() {
+            return tokenLength == 5 && token[0] == 'T' && token[1] == 'o' &&     // NOI18N
+                   token[2] == 't' && token[3] == 'a' && token[4] == 'l';     // NOI18N
+        }
+
+        private long nextLong() throws IOException {
+            nextToken();
+            long value = 0;
+            for (int i = 0; i < tokenLength; i++) {
+                int digit = token[i] - '0';     // NOI18N
+                if (digit < 0 || digit > 9)
+                    throw new IOException("Number expected: " +     // NOI18N
+                                          new String(token, 0, tokenLength, "UTF-8"));  // NOI18N
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /**
+         * Reads next whitespace-delimited token into the token buffer,
+         * throws IOException if the stream ends before the token.
+         */
+        private void nextToken() throws IOException {
+            int b;
+            do {
+                b = read();
+            } while (b != -1 && b <= ' ');     // NOI18N
+            if (b == -1) throw new IOException("Unexpected end of histogram");     // NOI18N
+
+            tokenLength = 0;
+            do {
+                if (tokenLength == token.length) {
+                    byte[] newToken = new byte[token.length * 2];
+                    System.arraycopy(token, 0, newToken, 0, tokenLength);
+                    token = newToken;
                 }
-            } else if (isPermGen()) {
-                name = permGenNames.get(jvmName);
+                token[tokenLength++] = (byte)b;
+                b = read();
+            } while (b > ' ');     // NOI18N
+            if (b == '\n') position--;     // NOI18N
+        }
+
+        private void skipLine() throws IOException {
+            int b;
+            do {
+                b = read();
+            } while (b != -1 && b != '\n');     // NOI18N
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                int count = in.read(buffer);
+                if (count <= 0) return -1;
+                position = 0;
+                limit = count;
             }
-            if (name == null) {
-                name = jvmName;
+            return buffer[position++] & 0xff;
+        }
+
+        private void growColumns() {
+            int length = names.length * 2;
+            long[] newInstances = new long[length];
+            long[] newBytes = new long[length];
+            String[] newNames = new String[length];
+            boolean[] newPermGen = new boolean[length];
+            System.arraycopy(instances, 0, newInstances, 0, rowsCount);
+            System.arraycopy(bytes, 0, newBytes, 0, rowsCount);
+            System.arraycopy(names, 0, newNames, 0, rowsCount);
+            System.arraycopy(permGen, 0, newPermGen, 0, rowsCount);
+            instances = newInstances;
+            bytes = newBytes;
+            names = newNames;
+            permGen = newPermGen;
+        }
+    }
+
+    private static final NameCache NAME_CACHE = new NameCache();
+
+    /**
+     * Cache of converted class names keyed by the raw UTF-8 bytes of the JVM
+     * name, shared by all histograms. Known names are neither decoded nor
+     * converted again, the cache is cleared when it exceeds MAX_SIZE names.
+     */
+    private static final class NameCache {
+        private static final int MAX_SIZE = 128 * 1024;
+        private static final int INITIAL_CAPACITY = 4 * 1024;
+
+        private byte[][] keys = new byte[INITIAL_CAPACITY][];
+        private String[] values = new String[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized String getName(byte[] bytes, int length) throws IOException {
+            int hash = hash(bytes, length);
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            byte[] key;
+            while ((key = keys[slot]) != null) {
+                if (equals(key, bytes, length)) return values[slot];
+                slot = (slot + 1) & mask;
             }
-            return name.intern();
+
+            String jvmName = new String(bytes, 0, length, "UTF-8");  // NOI18N
+            String name = convertJVMName(jvmName, bytes[0] == '<');     // NOI18N
+            key = new byte[length];
+            System.arraycopy(bytes, 0, key, 0, length);
+            if (size == MAX_SIZE) {
+                keys = new byte[INITIAL_CAPACITY][];
+                values = new String[INITIAL_CAPACITY];
+                size = 0;
+            } else if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            put(key, hash, name);
+            return name;
+        }
+
+        private void put(byte[] key, int hash, String name) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = name;
+            size++;
+        }
+
+        private void rehash(int capacity) {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[capacity][];
+            values = new String[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldKeys[i] != null)
+                    put(oldKeys[i], hash(oldKeys[i], oldKeys[i].length), oldValues[i]);
+        }
+
+        private static int hash(byte[] bytes, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) hash = 31 * hash + bytes[i];
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equals(byte[] key, byte[] bytes, int length) {
+            if (key.length != length) return false;
+            for (int i = 0; i < length; i++)
+                if (key[i] != bytes[i]) return false;
+            return true;
+        }
+    }
+
+    /**
+     * Read-only set backed by an array of distinct ClassInfoImpls. Histograms
+     * are mostly just iterated, the index for contains() is built on demand.
+     */
+    private static final class ClassInfoSet extends AbstractSet<ClassInfo> {
+        private final ClassInfo[] infos;
+        private volatile Map<String, ClassInfo> index;
+
+        ClassInfoSet(ClassInfo[] infos) {
+            this.infos = infos;
+        }
+
+        public int size() {
+            return infos.length;
+        }
+
+        public boolean contains(Object o) {
+            // Same as ClassInfoImpl.equals(), names are distinct
+            if (!(o instanceof ClassInfoImpl)) return false;
+            Map<String, ClassInfo> map = index;
+            if (map == null) {
+                map = new HashMap(infos.length * 2);
+                for (ClassInfo info : infos) map.put(info.getName(), info);
+                index = map;
+            }
+            return map.containsKey(((ClassInfoImpl)o).getName());
+        }
+
+        public Iterator<ClassInfo> iterator() {
+            return new Iterator<ClassInfo>() {
+                private int index;
+
+                public boolean hasNext() {
+                    return index < infos.length;
+                }
+
+                public ClassInfo next() {
+                    if (index == infos.length) throw new NoSuchElementException();
+                    return infos[index++];
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
         }
     }
     
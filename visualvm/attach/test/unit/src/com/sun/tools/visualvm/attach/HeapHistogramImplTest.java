@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.attach;
+
+import com.sun.tools.visualvm.application.jvm.HeapHistogram.ClassInfo;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests parsing of the heapHisto output by HeapHistogramImpl.
+ *
+ * @author agent
+ */
+public class HeapHistogramImplTest {
+
+    private static final String JDK8_HISTOGRAM =
+        "\n" + // NOI18N
+        " num     #instances         #bytes  class name\n" + // NOI18N
+        "----------------------------------------------\n" + // NOI18N
+        "   1:         12000         960000  [C\n" + // NOI18N
+        "   2:          5000         120000  java.lang.String\n" + // NOI18N
+        "   3:           300           9600  java.util.HashMap$Node\n" + // NOI18N
+        "   4:            20           1600  [Ljava.lang.Object;\n" + // NOI18N
+        "   5:             3             72  [[I\n" + // NOI18N
+        "   6:             2             48  [[Ljava.lang.String;\n" + // NOI18N
+        "Total         17325        1091320\n"; // NOI18N
+
+    private static final String JDK9_HISTOGRAM =
+        " num     #instances         #bytes  class name (module)\n" + // NOI18N
+        "-------------------------------------------------------\n" + // NOI18N
+        "   1:         11000         880000  [B (java.base@11.0.2)\n" + // NOI18N
+        "   2:          5000         120000  java.lang.String (java.base@11.0.2)\n" + // NOI18N
+        "   3:            40           1280  java.util.concurrent.ConcurrentHashMap$Node (java.base@11.0.2)\n" + // NOI18N
+        "   4:             7            168  com.example.Foo\n" + // NOI18N
+        "Total         16047        1001448\n"; // NOI18N
+
+    private static final String PERMGEN_HISTOGRAM =
+        " num     #instances         #bytes  class name\n" + // NOI18N
+        "----------------------------------------------\n" + // NOI18N
+        "   1:         20000        2400000  <constMethodKlass>\n" + // NOI18N
+        "   2:          9000         800000  [C\n" + // NOI18N
+        "   3:          2000         480000  <constantPoolKlass>\n" + // NOI18N
+        "   4:            10            160  <unknownKlass>\n" + // NOI18N
+        "   5:          8000         192000  java.lang.String\n" + // NOI18N
+        "Total         39010        3872160\n"; // NOI18N
+
+    private static final String CLASSLOADERS_HISTOGRAM =
+        " num     #instances         #bytes  class name\n" + // NOI18N
+        "----------------------------------------------\n" + // NOI18N
+        "   1:           100           2400  com.example.Foo\n" + // NOI18N
+        "   2:            50           1600  java.lang.String\n" + // NOI18N
+        "   3:            30            720  com.example.Foo\n" + // NOI18N
+        "   4:             5            120  [Lcom.example.Foo;\n" + // NOI18N
+        "   5:             2             48  com.example.Foo\n" + // NOI18N
+        "   6:             1             24  [Lcom.example.Foo;\n" + // NOI18N
+        "Total           188           4912\n"; // NOI18N
+
+
+    @Test
+    public void jdk8Histogram() throws IOException {
+        HeapHistogramImpl histogram = parse(JDK8_HISTOGRAM);
+        Set<ClassInfo> classes = histogram.getHeapHistogram();
+        assertEquals(6, classes.size());
+        assertClass(classes, "char[]", 12000, 960000); // NOI18N
+        assertClass(classes, "java.lang.String", 5000, 120000); // NOI18N
+        assertClass(classes, "java.util.HashMap$Node", 300, 9600); // NOI18N
+        assertClass(classes, "java.lang.Object[]", 20, 1600); // NOI18N
+        assertClass(classes, "int[][]", 3, 72); // NOI18N
+        assertClass(classes, "java.lang.String[][]", 2, 48); // NOI18N
+        assertTrue(histogram.getPermGenHistogram().isEmpty());
+    }
+
+    @Test
+    public void jdk9HistogramWithModules() throws IOException {
+        HeapHistogramImpl histogram = parse(JDK9_HISTOGRAM);
+        Set<ClassInfo> classes = histogram.getHeapHistogram();
+        assertEquals(4, classes.size());
+        assertClass(classes, "byte[]", 11000, 880000); // NOI18N
+        assertClass(classes, "java.lang.String", 5000, 120000); // NOI18N
+        assertClass(classes, "java.util.concurrent.ConcurrentHashMap$Node", 40, 1280); // NOI18N
+        assertClass(classes, "com.example.Foo", 7, 168); // NOI18N
+    }
+
+    @Test
+    public void permGenRows() throws IOException {
+        HeapHistogramImpl histogram = parse(PERMGEN_HISTOGRAM);
+        Set<ClassInfo> classes = histogram.getHeapHistogram();
+        assertEquals(2, classes.size());
+        assertClass(classes, "char[]", 9000, 800000); // NOI18N
+        assertClass(classes, "java.lang.String", 8000, 192000); // NOI18N
+
+        Set<ClassInfo> permGen = histogram.getPermGenHistogram();
+        assertEquals(3, permGen.size());
+        assertClass(permGen, "Read-Only Method Metadata", 20000, 2400000); // NOI18N
+        assertClass(permGen, "Constant Pool Metadata", 2000, 480000); // NOI18N
+        assertClass(permGen, "<unknownKlass>", 10, 160); // NOI18N
+
+        assertEquals(17000, histogram.getTotalHeapInstances());
+        assertEquals(992000, histogram.getTotalHeapBytes());
+        assertEquals(22010, histogram.getTotalPerGenInstances());
+        assertEquals(2880160, histogram.getTotalPermGenHeapBytes());
+    }
+
+    @Test
+    public void classLoadersMerged() throws IOException {
+        HeapHistogramImpl histogram = parse(CLASSLOADERS_HISTOGRAM);
+        Set<ClassInfo> classes = histogram.getHeapHistogram();
+        assertEquals(3, classes.size());
+        assertClass(classes, "com.example.Foo", 132, 3168); // NOI18N
+        assertClass(classes, "java.lang.String", 50, 1600); // NOI18N
+        assertClass(classes, "com.example.Foo[]", 6, 144); // NOI18N
+
+        assertTrue(classes.contains(new HeapHistogramImpl.ClassInfoImpl(
+                "com.example.Foo", 0, 0, false))); // NOI18N
+        assertFalse(classes.contains(new HeapHistogramImpl.ClassInfoImpl(
+                "com.example.Bar", 0, 0, false))); // NOI18N
+    }
+
+    @Test
+    public void totalLine() throws IOException {
+        HeapHistogramImpl histogram = parse(JDK8_HISTOGRAM);
+        assertEquals(17325, histogram.getTotalInstances());
+        assertEquals(1091320, histogram.getTotalBytes());
+        assertEquals(17325, histogram.getTotalHeapInstances());
+        assertEquals(1091320, histogram.getTotalHeapBytes());
+
+        histogram = parse(CLASSLOADERS_HISTOGRAM);
+        assertEquals(188, histogram.getTotalInstances());
+        assertEquals(4912, histogram.getTotalBytes());
+        assertEquals(188, histogram.getTotalHeapInstances());
+        assertEquals(4912, histogram.getTotalHeapBytes());
+    }
+
+    @Test(expected = IOException.class)
+    public void missingTotalLine() throws IOException {
+        parse(JDK8_HISTOGRAM.substring(0, JDK8_HISTOGRAM.indexOf("Total"))); // NOI18N
+    }
+
+
+    private static HeapHistogramImpl parse(String histogram) throws IOException {
+        return new HeapHistogramImpl(new ByteArrayInputStream(histogram.getBytes("UTF-8"))); // NOI18N
+    }
+
+    private static void assertClass(Set<ClassInfo> classes, String name,
+                                    long instances, long bytes) {
+        for (ClassInfo info : classes) {
+            if (name.equals(info.getName())) {
+                assertEquals(name + " instances", instances, info.getInstancesCount()); // NOI18N
+                assertEquals(name + " bytes", bytes, info.getBytes()); // NOI18N
+                return;
+            }
+        }
+        fail(name + " not found"); // NOI18N
+    }
+
+}
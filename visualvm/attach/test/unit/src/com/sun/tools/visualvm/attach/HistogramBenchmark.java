@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.attach;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Times HeapHistogramImpl parsing a generated heapHisto output of a big
+ * application: many classes, classes loaded by several classloaders, arrays
+ * and permgen rows. Correctness of the parser is covered by
+ * HeapHistogramImplTest. -Dbenchmark.iterations=N changes the number of
+ * measured iterations.
+ *
+ * @author agent
+ */
+public class HistogramBenchmark {
+
+    private static final int CLASSES_COUNT = 20000;
+    private static final int DUPLICATES_COUNT = 5000;
+    private static final int PERMGEN_COUNT = 12;
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 50); // NOI18N
+
+    private static final String[] PERMGEN_NAMES = new String[] {
+        "<methodKlass>", "<constMethodKlass>", "<methodDataKlass>", // NOI18N
+        "<constantPoolKlass>", "<constantPoolCacheKlass>", "<symbolKlass>", // NOI18N
+        "<compiledICHolderKlass>", "<instanceKlassKlass>", "<objArrayKlassKlass>", // NOI18N
+        "<typeArrayKlassKlass>", "<klassKlass>", "<arrayKlassKlass>" // NOI18N
+    };
+
+
+    private final byte[] histogram;
+    private final int rowsCount;
+
+
+    private HistogramBenchmark() throws IOException {
+        Random random = new Random(42);
+        String[] names = new String[CLASSES_COUNT];
+        for (int i = 0; i < CLASSES_COUNT; i++) {
+            String name = "com.example.module" + (i % 97) + ".package" + (i % 13) + // NOI18N
+                          ".Class" + i; // NOI18N
+            switch (i % 10) {
+                case 0: name = "[L" + name + ";"; break; // NOI18N
+                case 1: name = name + "$Inner" + (i % 7); break; // NOI18N
+                case 2: name = "[[L" + name + ";"; break; // NOI18N
+            }
+            names[i] = name;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n num     #instances         #bytes  class name\n"); // NOI18N
+        sb.append("----------------------------------------------\n"); // NOI18N
+        int row = 0;
+        long totalInstances = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < CLASSES_COUNT + DUPLICATES_COUNT + PERMGEN_COUNT; i++) {
+            String name;
+            if (i < PERMGEN_COUNT) name = PERMGEN_NAMES[i];
+            else if (i < PERMGEN_COUNT + CLASSES_COUNT) name = names[i - PERMGEN_COUNT];
+            else name = names[random.nextInt(CLASSES_COUNT)]; // another classloader
+            long instances = 1 + random.nextInt(100000);
+            long bytes = instances * (16 + 8 * random.nextInt(8));
+            totalInstances += instances;
+            totalBytes += bytes;
+            sb.append(String.format("%6d: %14d %14d  %s\n", ++row, instances, bytes, name)); // NOI18N
+        }
+        sb.append(String.format("Total %14d %14d\n", totalInstances, totalBytes)); // NOI18N
+
+        histogram = sb.toString().getBytes("UTF-8"); // NOI18N
+        rowsCount = row;
+    }
+
+
+    private long parse() throws IOException {
+        long start = System.nanoTime();
+        HeapHistogramImpl h = new HeapHistogramImpl(new ByteArrayInputStream(histogram));
+        long time = System.nanoTime() - start;
+        if (h.getHeapHistogram().size() != CLASSES_COUNT)
+            throw new IllegalStateException("Unexpected classes count: " + // NOI18N
+                                            h.getHeapHistogram().size());
+        return time;
+    }
+
+
+    private void run() throws Exception {
+        System.out.println("HeapHistogramImpl: " + rowsCount + " rows, " + // NOI18N
+                           histogram.length / 1024 + " KB"); // NOI18N
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) parse();
+
+        long parse = 0;
+        for (int i = 0; i < ITERATIONS; i++) parse += parse();
+
+        double perRow = (double)parse / ITERATIONS / rowsCount;
+        double perHistogram = (double)parse / ITERATIONS / 1000000;
+        System.out.println(String.format("  %-32s %8.1f ns/row, %8.2f ms/histogram", // NOI18N
+                           "HeapHistogramImpl(InputStream)", perRow, perHistogram)); // NOI18N
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        new HistogramBenchmark().run();
+    }
+
+}
@@ -53,6 +53,9 @@ public class XYPainter extends SynchronousXYItemPainter {
     private final Color fillColor2;
     private boolean painting;
 
+    private int[] xPointsCache;
+    private int[] yPointsCache;
+
     
     // --- Initializer ---------------------------------------------------------
     
@@ -336,10 +339,17 @@ public class XYPainter extends SynchronousXYItemPainter {
         double itemValueFactor = type == TYPE_RELATIVE ? getItemValueFactor(context,
                                  maxValueOffset, item.getBounds().height) : 0;
         
-        int maxPoints = Math.max(dirtyArea.width, (lastIndex - firstIndex + 1) * 3);
+        // At most three points (first, max, min) per pixel column
+        int columns = getViewX(context, item, lastIndex) -
+                      getViewX(context, item, firstIndex) + 1;
+        int maxPoints = Math.min(columns, lastIndex - firstIndex + 1) * 3;
         
-        int[] xPoints = new int[maxPoints + 2];
-        int[] yPoints = new int[maxPoints + 2];
+        if (xPointsCache == null || xPointsCache.length < maxPoints + 2) {
+            xPointsCache = new int[maxPoints + 2];
+            yPointsCache = new int[maxPoints + 2];
+        }
+        int[] xPoints = xPointsCache;
+        int[] yPoints = yPointsCache;
         
         int nPoints = 0;
         for (int index = firstIndex; index <= lastIndex; index++) {
@@ -35,6 +35,10 @@ import org.netbeans.lib.profiler.charts.Timeline;
 import org.netbeans.lib.profiler.charts.xy.synchronous.SynchronousXYItem;
 
 /**
+ * Storage of chart values. Values are added by a single writer (addValues,
+ * loadValues, addItem are serialized) into a ring buffer, readers never block
+ * the writer. The buffers and the ring position are guarded by a seqlock:
+ * a reader repeats the read if the writer modified the storage meanwhile.
  *
  * @author Jiri Sedlacek
  */
@@ -48,12 +52,17 @@ public class XYStorage implements Timeline {
     private final int valuesLimit;
     private final int bufferStep;
 
-    private int valuesCount;
+    private volatile int valuesCount;
     private long[] timestamps;
     private long[][] values;
 
     private int cycleIndex;
 
+    // Seqlock, odd while the writer modifies the storage
+    private volatile int version;
+    // Target of the volatile load ordering the writer's stores after the version
+    private volatile int fence;
+
     
     public XYStorage(int valuesLimit, int bufferStep) {
         this.valuesLimit = valuesLimit;
@@ -63,7 +72,13 @@ public class XYStorage implements Timeline {
 
 
     public synchronized SynchronousXYItem addItem(String name, long minValue, long maxValue) {
-        final int itemIndex = addItemImpl();
+        beginWrite();
+        final int itemIndex;
+        try {
+            itemIndex = addItemImpl();
+        } finally {
+            endWrite();
+        }
         return new XYItem(name, minValue, maxValue) {
             public long getYValue(int valueIndex) {
                 return getValue(itemIndex, valueIndex);
@@ -73,20 +88,40 @@ public class XYStorage implements Timeline {
 
 
     public synchronized void addValues(long timestamp, long[] values) {
-        updateStorage();
+        beginWrite();
+        try {
+            updateStorage();
 
-        setTimestamp(Math.min(valuesCount, valuesLimit - 1), timestamp);
-        for (int i = 0; i < values.length; i++)
-            setValue(i, Math.min(valuesCount, valuesLimit - 1), values[i]);
+            setTimestamp(Math.min(valuesCount, valuesLimit - 1), timestamp);
+            for (int i = 0; i < values.length; i++)
+                setValue(i, Math.min(valuesCount, valuesLimit - 1), values[i]);
 
-        if (valuesCount < valuesLimit) valuesCount++;
+            if (valuesCount < valuesLimit) valuesCount++;
+        } finally {
+            endWrite();
+        }
     }
 
-    public synchronized void saveValues(OutputStream os) throws IOException {
+    public void saveValues(OutputStream os) throws IOException {
+        // Snapshot the values first, the writer is not blocked by the I/O
+        long[] snapshotTimestamps;
+        long[][] snapshotValues;
+        while (true) {
+            int v = beginRead();
+            int count = valuesCount;
+            int cycle = cycleIndex;
+            long[][] vals = values;
+            snapshotTimestamps = copyValues(timestamps, count, cycle);
+            snapshotValues = new long[vals == null ? 0 : vals.length][];
+            for (int i = 0; i < snapshotValues.length; i++)
+                snapshotValues[i] = copyValues(vals[i], count, cycle);
+            if (endRead(v)) break;
+        }
+
         DataOutputStream dos = null;
         try {
-            int icount = values.length;
-            int vcount = getTimestampsCount();
+            int icount = snapshotValues.length;
+            int vcount = snapshotTimestamps.length;
 
             dos = new DataOutputStream(os);
 
@@ -96,9 +131,9 @@ public class XYStorage implements Timeline {
             dos.writeInt(vcount); // Values count
 
             for (int vidx = 0; vidx < vcount; vidx++) {
-                dos.writeLong(getTimestamp(vidx));
+                dos.writeLong(snapshotTimestamps[vidx]);
                 for (int iidx = 0; iidx < icount; iidx++)
-                    dos.writeLong(getValue(iidx, vidx));
+                    dos.writeLong(snapshotValues[iidx][vidx]);
             }
         } finally {
             if (dos != null) dos.close();
@@ -183,7 +218,7 @@ public class XYStorage implements Timeline {
     }
 
     public long getTimestamp(int index) {
-        return timestamps[getIndex(index)];
+        return readValue(-1, index);
     }
 
     private void setValue(int itemIndex, int valueIndex, long value) {
@@ -191,7 +226,59 @@ public class XYStorage implements Timeline {
     }
 
     private long getValue(int itemIndex, int valueIndex) {
-        return values[itemIndex][getIndex(valueIndex)];
+        return readValue(itemIndex, valueIndex);
+    }
+
+    private long readValue(int itemIndex, int valueIndex) {
+        while (true) {
+            int v = beginRead();
+            long[] array = itemIndex == -1 ? timestamps : values[itemIndex];
+            int index = getIndex(valueIndex);
+            if (index < array.length) {
+                long value = array[index];
+                if (endRead(v)) return value;
+            } else if (endRead(v)) {
+                throw new IndexOutOfBoundsException("Index: " + valueIndex + // NOI18N
+                                                    ", Size: " + valuesCount); // NOI18N
+            }
+        }
+    }
+
+
+    // --- Seqlock -------------------------------------------------------------
+
+    // The plain stores to the buffers must be ordered after the odd version
+    // store in the writer. Without explicit fences (the module compiles for
+    // 1.5) the ordering relies on the JSR-133 rules: a volatile load is never
+    // reordered with a preceding volatile store and no access is moved before
+    // a volatile load. The reader only does the two volatile loads of the
+    // version around its plain loads, it doesn't write any shared field.
+
+    private void beginWrite() {
+        version++; // Single writer, invoked under the lock
+        storeFence();
+    }
+
+    private void endWrite() {
+        version++;
+    }
+
+    // Volatile load after the version store, following stores stay after it
+    private void storeFence() {
+        int f = fence;
+    }
+
+    private int beginRead() {
+        int v = version;
+        while ((v & 1) != 0) {
+            Thread.yield();
+            v = version;
+        }
+        return v;
+    }
+
+    private boolean endRead(int v) {
+        return version == v;
     }
 
     
@@ -202,7 +289,9 @@ public class XYStorage implements Timeline {
     private void updateStorage() {
         int bufferSize = timestamps.length;
         if (valuesCount == bufferSize && bufferSize < valuesLimit) {
-            int extent = Math.min(bufferStep, valuesLimit - bufferSize);
+            // Grow geometrically, adding values is amortized constant time
+            int extent = Math.min(Math.max(bufferStep, bufferSize),
+                                  valuesLimit - bufferSize);
             timestamps = extendArray(timestamps, extent);
             for (int i = 0; i < values.length; i++)
                 values[i] = extendArray(values[i], extent);
@@ -213,6 +302,16 @@ public class XYStorage implements Timeline {
         }
     }
 
+    private static long[] copyValues(long[] array, int count, int cycle) {
+        // Inconsistent state may be seen by a reader, the read is retried
+        if (array == null || count > array.length || cycle > count) return new long[0];
+        long[] copy = new long[count];
+        int head = count - cycle;
+        System.arraycopy(array, cycle, copy, 0, head);
+        System.arraycopy(array, 0, copy, head, cycle);
+        return copy;
+    }
+
     private static long[] extendArray(long[] array, int extraLength) {
         int originalLength = array.length;
         long[] newArray = new long[originalLength + extraLength];
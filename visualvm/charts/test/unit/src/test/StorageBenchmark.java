@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package test;
+
+import com.sun.tools.visualvm.charts.xy.XYStorage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.netbeans.lib.profiler.charts.xy.synchronous.SynchronousXYItem;
+
+/**
+ * Measures the XYStorage hot paths: adding values, reading all values from
+ * another thread while values are being added, saving and loading snapshots.
+ * Run by the benchmark target of the module, -Dbenchmark.iterations=N sets
+ * the number of measured iterations.
+ *
+ * @author agent
+ */
+public class StorageBenchmark {
+
+    private static final int VALUES_LIMIT = 50000;
+    private static final int BUFFER_STEP = 50;
+    private static final int ITEMS_COUNT = 8;
+    private static final int SAMPLES_COUNT = 200000;
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 10); // NOI18N
+
+
+    private final long[][] samples;
+
+    // Values read by the reader thread, printed so that reading isn't optimized out
+    private static long checksum;
+
+
+    private StorageBenchmark() {
+        // Random walk resembling monitored heap/threads values
+        Random random = new Random(42);
+        samples = new long[SAMPLES_COUNT][ITEMS_COUNT];
+        long[] last = new long[ITEMS_COUNT];
+        for (int i = 0; i < ITEMS_COUNT; i++) last[i] = 1000000 * (i + 1);
+        for (int s = 0; s < SAMPLES_COUNT; s++)
+            for (int i = 0; i < ITEMS_COUNT; i++) {
+                last[i] = Math.max(0, last[i] + random.nextInt(20001) - 10000);
+                samples[s][i] = last[i];
+            }
+    }
+
+
+    private static XYStorage createStorage(SynchronousXYItem[] items) {
+        XYStorage storage = new XYStorage(VALUES_LIMIT, BUFFER_STEP);
+        for (int i = 0; i < items.length; i++)
+            items[i] = storage.addItem("Item " + i, 0, Long.MAX_VALUE); // NOI18N
+        return storage;
+    }
+
+    private void fill(XYStorage storage) {
+        for (int s = 0; s < SAMPLES_COUNT; s++)
+            storage.addValues(1000L * s, samples[s]);
+    }
+
+
+    private long addValues() {
+        XYStorage storage = createStorage(new SynchronousXYItem[ITEMS_COUNT]);
+        long start = System.nanoTime();
+        fill(storage);
+        return System.nanoTime() - start;
+    }
+
+    private long addValuesWhileReading() throws InterruptedException {
+        final SynchronousXYItem[] items = new SynchronousXYItem[ITEMS_COUNT];
+        final XYStorage storage = createStorage(items);
+        final boolean[] done = new boolean[1];
+
+        // Emulates the EDT repeatedly painting all values of all items
+        Thread reader = new Thread() {
+            public void run() {
+                long sum = 0;
+                while (!isDone()) {
+                    int count = storage.getTimestampsCount();
+                    for (int i = 0; i < count; i++) {
+                        sum += storage.getTimestamp(i);
+                        for (SynchronousXYItem item : items) sum += item.getYValue(i);
+                    }
+                }
+                checksum += sum; // published by join()
+            }
+            private boolean isDone() {
+                synchronized (done) { return done[0]; }
+            }
+        };
+        reader.start();
+
+        long start = System.nanoTime();
+        fill(storage);
+        long time = System.nanoTime() - start;
+
+        synchronized (done) { done[0] = true; }
+        reader.join();
+        return time;
+    }
+
+    private long saveLoadValues() throws IOException {
+        XYStorage storage = createStorage(new SynchronousXYItem[ITEMS_COUNT]);
+        fill(storage);
+
+        long start = System.nanoTime();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        storage.saveValues(os);
+        XYStorage loaded = createStorage(new SynchronousXYItem[ITEMS_COUNT]);
+        loaded.loadValues(new ByteArrayInputStream(os.toByteArray()));
+        return System.nanoTime() - start;
+    }
+
+
+    private void run() throws Exception {
+        System.out.println("XYStorage: " + ITEMS_COUNT + " items, " + SAMPLES_COUNT + // NOI18N
+                           " samples, limit " + VALUES_LIMIT); // NOI18N
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            addValues();
+            addValuesWhileReading();
+            saveLoadValues();
+        }
+
+        long add = 0, addRead = 0, saveLoad = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            add += addValues();
+            addRead += addValuesWhileReading();
+            saveLoad += saveLoadValues();
+        }
+
+        report("addValues", add, SAMPLES_COUNT); // NOI18N
+        report("addValues + concurrent reader", addRead, SAMPLES_COUNT); // NOI18N
+        report("saveValues + loadValues", saveLoad, VALUES_LIMIT); // NOI18N
+        System.out.println("  (checksum " + checksum + ")"); // NOI18N
+    }
+
+    private static void report(String name, long totalTime, int samples) {
+        double perSample = (double)totalTime / ITERATIONS / samples;
+        System.out.println(String.format("  %-32s %8.1f ns/sample", name, perSample)); // NOI18N
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        new StorageBenchmark().run();
+    }
+
+}
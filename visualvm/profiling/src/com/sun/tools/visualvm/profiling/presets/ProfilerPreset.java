@@ -41,6 +41,12 @@ public final class ProfilerPreset {
     private static final String PROP_SAMPLING_RATE_S = "prof_preset_samplingRate_s"; // NOI18N
     private static final String PROP_REFRESH_RATE_S = "prof_preset_refreshRate_s"; // NOI18N
     private static final String PROP_SAMPLING_REFRESH_RATE_S = "prof_preset_samplingRefreshRate_s"; // NOI18N
+    private static final String PROP_STACK_DEPTH_S = "prof_preset_stackDepth_s"; // NOI18N
+    private static final String PROP_RUNNABLE_STACKS_S = "prof_preset_runnableStacks_s"; // NOI18N
+    private static final String PROP_LOG_SAMPLES_S = "prof_preset_logSamples_s"; // NOI18N
+    private static final String PROP_LOG_ONLY_S = "prof_preset_logOnly_s"; // NOI18N
+    private static final String PROP_CPU_TIME_WEIGHTED_S = "prof_preset_cpuTimeWeighted_s"; // NOI18N
+    private static final String PROP_PAUSE_BUDGET_S = "prof_preset_pauseBudget_s"; // NOI18N
     private static final String PROP_ROOTS_P = "prof_preset_roots_p"; // NOI18N
     private static final String PROP_RUNNABLES_P = "prof_preset_runnables_p"; // NOI18N
     private static final String PROP_FILTER_MODE_P = "prof_preset_filterMode_p"; // NOI18N
@@ -57,6 +63,12 @@ public final class ProfilerPreset {
     private int samplingRateS;
     private int refreshRateS;
     private int samplingRefreshRateS;
+    private int stackDepthS;
+    private boolean runnableStacksS;
+    private boolean logSamplesS;
+    private boolean logOnlyS;
+    private boolean cpuTimeWeightedS;
+    private float pauseBudgetS;
     private String rootsP;
     private boolean runnablesP;
     private boolean filterModeP;
@@ -75,6 +87,12 @@ public final class ProfilerPreset {
         this.samplingRateS = 100;
         this.refreshRateS = 1000;
         this.samplingRefreshRateS = 1000;
+        this.stackDepthS = Integer.MAX_VALUE;
+        this.runnableStacksS = false;
+        this.logSamplesS = false;
+        this.logOnlyS = false;
+        this.cpuTimeWeightedS = false;
+        this.pauseBudgetS = 1f;
         this.rootsP = ""; // NOI18N
         this.runnablesP = true;
         this.filterModeP = true;
@@ -93,6 +111,12 @@ public final class ProfilerPreset {
         this.samplingRateS = preset.samplingRateS;
         this.refreshRateS = preset.refreshRateS;
         this.samplingRefreshRateS = preset.samplingRefreshRateS;
+        this.stackDepthS = preset.stackDepthS;
+        this.runnableStacksS = preset.runnableStacksS;
+        this.logSamplesS = preset.logSamplesS;
+        this.logOnlyS = preset.logOnlyS;
+        this.cpuTimeWeightedS = preset.cpuTimeWeightedS;
+        this.pauseBudgetS = preset.pauseBudgetS;
         this.rootsP = preset.rootsP;
         this.runnablesP = preset.runnablesP;
         this.filterModeP = preset.filterModeP;
@@ -111,6 +135,12 @@ public final class ProfilerPreset {
         samplingRateS = prefs.getInt(prefix + PROP_SAMPLING_RATE_S, 100);
         refreshRateS = prefs.getInt(prefix + PROP_REFRESH_RATE_S, 1000);
         samplingRefreshRateS = prefs.getInt(prefix + PROP_SAMPLING_REFRESH_RATE_S, 1000);
+        stackDepthS = prefs.getInt(prefix + PROP_STACK_DEPTH_S, Integer.MAX_VALUE);
+        runnableStacksS = prefs.getBoolean(prefix + PROP_RUNNABLE_STACKS_S, false);
+        logSamplesS = prefs.getBoolean(prefix + PROP_LOG_SAMPLES_S, false);
+        logOnlyS = prefs.getBoolean(prefix + PROP_LOG_ONLY_S, false);
+        cpuTimeWeightedS = prefs.getBoolean(prefix + PROP_CPU_TIME_WEIGHTED_S, false);
+        pauseBudgetS = prefs.getFloat(prefix + PROP_PAUSE_BUDGET_S, 1f);
         rootsP = prefs.get(prefix + PROP_ROOTS_P, ""); // NOI18N
         runnablesP = prefs.getBoolean(prefix + PROP_RUNNABLES_P, true);
         filterModeP = prefs.getBoolean(prefix + PROP_FILTER_MODE_P, true);
@@ -129,6 +159,12 @@ public final class ProfilerPreset {
         prefs.putInt(prefix + PROP_SAMPLING_RATE_S, samplingRateS);
         prefs.putInt(prefix + PROP_REFRESH_RATE_S, refreshRateS);
         prefs.putInt(prefix + PROP_SAMPLING_REFRESH_RATE_S, samplingRefreshRateS);
+        prefs.putInt(prefix + PROP_STACK_DEPTH_S, stackDepthS);
+        prefs.putBoolean(prefix + PROP_RUNNABLE_STACKS_S, runnableStacksS);
+        prefs.putBoolean(prefix + PROP_LOG_SAMPLES_S, logSamplesS);
+        prefs.putBoolean(prefix + PROP_LOG_ONLY_S, logOnlyS);
+        prefs.putBoolean(prefix + PROP_CPU_TIME_WEIGHTED_S, cpuTimeWeightedS);
+        prefs.putFloat(prefix + PROP_PAUSE_BUDGET_S, pauseBudgetS);
         prefs.put(prefix + PROP_ROOTS_P, rootsP);
         prefs.putBoolean(prefix + PROP_RUNNABLES_P, runnablesP);
         prefs.putBoolean(prefix + PROP_FILTER_MODE_P, filterModeP);
@@ -204,6 +240,54 @@ public final class ProfilerPreset {
         return samplingRefreshRateS;
     }
 
+    public void setStackDepthS(int stackDepth) {
+        this.stackDepthS = stackDepth;
+    }
+
+    public int getStackDepthS() {
+        return stackDepthS;
+    }
+
+    public void setRunnableStacksS(boolean runnableStacks) {
+        this.runnableStacksS = runnableStacks;
+    }
+
+    public boolean getRunnableStacksS() {
+        return runnableStacksS;
+    }
+
+    public void setLogSamplesS(boolean logSamples) {
+        this.logSamplesS = logSamples;
+    }
+
+    public boolean getLogSamplesS() {
+        return logSamplesS;
+    }
+
+    public void setLogOnlyS(boolean logOnly) {
+        this.logOnlyS = logOnly;
+    }
+
+    public boolean getLogOnlyS() {
+        return logOnlyS;
+    }
+
+    public void setCpuTimeWeightedS(boolean cpuTimeWeighted) {
+        this.cpuTimeWeightedS = cpuTimeWeighted;
+    }
+
+    public boolean getCpuTimeWeightedS() {
+        return cpuTimeWeightedS;
+    }
+
+    public void setPauseBudgetS(float pauseBudget) {
+        this.pauseBudgetS = pauseBudget;
+    }
+
+    public float getPauseBudgetS() {
+        return pauseBudgetS;
+    }
+
     public void setRootsP(String roots) {
         this.rootsP = roots;
     }
@@ -39,6 +39,7 @@ import java.text.NumberFormat;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JList;
@@ -63,6 +64,8 @@ import org.openide.util.NbBundle;
  * @author Jiri Sedlacek
  */
 public abstract class SamplerCPUPanel extends JPanel {
+
+    public static final int STACK_DEPTH_UNLIMITED = Integer.MAX_VALUE;
     
     private JRadioButton inclFilterRadioButton;
     private JRadioButton exclFilterRadioButton;
@@ -73,6 +76,13 @@ public abstract class SamplerCPUPanel extends JPanel {
     private JLabel refreshRateLabel;
     private JLabel refreshUnitsLabel;
     private JComboBox refreshRateCombo;
+    private JLabel stackDepthLabel;
+    private JComboBox stackDepthCombo;
+    private JLabel stackDepthUnitsLabel;
+    private JCheckBox runnableStacksCheckBox;
+    private JCheckBox logSamplesCheckBox;
+    private JCheckBox logOnlyCheckBox;
+    private JCheckBox cpuTimeWeightedCheckBox;
     
     private final Runnable validator;
     private boolean filtersValid = true;
@@ -112,6 +122,26 @@ public abstract class SamplerCPUPanel extends JPanel {
         return (Integer)refreshRateCombo.getSelectedItem();
     }
     
+    public int getStackDepth() {
+        return (Integer)stackDepthCombo.getSelectedItem();
+    }
+    
+    public boolean isRunnableStacksOnly() {
+        return runnableStacksCheckBox.isSelected();
+    }
+    
+    public boolean isLogSamples() {
+        return logSamplesCheckBox.isSelected();
+    }
+    
+    public boolean isLogOnly() {
+        return logSamplesCheckBox.isSelected() && logOnlyCheckBox.isSelected();
+    }
+    
+    public boolean isCpuTimeWeighted() {
+        return cpuTimeWeightedCheckBox.isSelected();
+    }
+    
     
     public boolean settingsValid() { return filtersValid; }
     
@@ -124,6 +154,12 @@ public abstract class SamplerCPUPanel extends JPanel {
         filtersArea.getTextArea().setText(preset.getFilterS());
         sampleRateCombo.setSelectedItem(preset.getSamplingRateS());
         refreshRateCombo.setSelectedItem(preset.getRefreshRateS());
+        stackDepthCombo.setSelectedItem(preset.getStackDepthS());
+        runnableStacksCheckBox.setSelected(preset.getRunnableStacksS());
+        logSamplesCheckBox.setSelected(preset.getLogSamplesS());
+        logOnlyCheckBox.setSelected(preset.getLogOnlyS());
+        updateLogOnly();
+        cpuTimeWeightedCheckBox.setSelected(preset.getCpuTimeWeightedS());
         internalChange = false;
     }
     
@@ -134,6 +170,11 @@ public abstract class SamplerCPUPanel extends JPanel {
         preset.setFilterS(filtersArea.getTextArea().getText());
         preset.setSamplingRateS((Integer)sampleRateCombo.getSelectedItem());
         preset.setRefreshRateS((Integer)refreshRateCombo.getSelectedItem());
+        preset.setStackDepthS((Integer)stackDepthCombo.getSelectedItem());
+        preset.setRunnableStacksS(runnableStacksCheckBox.isSelected());
+        preset.setLogSamplesS(logSamplesCheckBox.isSelected());
+        preset.setLogOnlyS(logOnlyCheckBox.isSelected());
+        preset.setCpuTimeWeightedS(cpuTimeWeightedCheckBox.isSelected());
     }
     
     public abstract void settingsChanged();
@@ -143,6 +184,10 @@ public abstract class SamplerCPUPanel extends JPanel {
         settingsChanged();
     }
     
+    private void updateLogOnly() {
+        logOnlyCheckBox.setEnabled(isEnabled() && logSamplesCheckBox.isSelected());
+    }
+    
     
     private void checkFilterValidity() {
         filtersValid = isFilterValueValid();
@@ -186,6 +231,7 @@ public abstract class SamplerCPUPanel extends JPanel {
     public void setEnabled(boolean enabled) {
         super.setEnabled(enabled);
         for (Component c : getComponents()) c.setEnabled(enabled);
+        updateLogOnly();
     }
     
     private void initComponents(boolean mnemonics) {
@@ -358,7 +404,7 @@ public abstract class SamplerCPUPanel extends JPanel {
         constraints.gridwidth = 1;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.NONE;
-        constraints.insets = new Insets(1, 10, 10, 5);
+        constraints.insets = new Insets(1, 10, 5, 5);
         add(refreshRateLabel, constraints);
 
         Integer[] refreshRates = new Integer[] { 100, 200, 500, 1000, 2000, 5000, 10000 };
@@ -380,7 +426,7 @@ public abstract class SamplerCPUPanel extends JPanel {
         constraints.gridwidth = 1;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.NONE;
-        constraints.insets = new Insets(1, 0, 10, 5);
+        constraints.insets = new Insets(1, 0, 5, 5);
         add(refreshRateCombo, constraints);
 
         refreshUnitsLabel = new JLabel(NbBundle.getMessage(
@@ -393,7 +439,7 @@ public abstract class SamplerCPUPanel extends JPanel {
         constraints.gridwidth = 1;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.NONE;
-        constraints.insets = new Insets(1, 0, 10, 5);
+        constraints.insets = new Insets(1, 0, 5, 5);
         add(refreshUnitsLabel, constraints);
 
         constraints = new GridBagConstraints();
@@ -402,8 +448,140 @@ public abstract class SamplerCPUPanel extends JPanel {
         constraints.gridwidth = GridBagConstraints.REMAINDER;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.HORIZONTAL;
-        constraints.insets = new Insets(1, 0, 10, 0);
+        constraints.insets = new Insets(1, 0, 5, 0);
+        add(Spacer.create(), constraints);
+
+        stackDepthLabel = new JLabel();
+        setText(stackDepthLabel, NbBundle.getMessage(SamplerCPUPanel.class,
+                "LBL_Stack_depth"), mnemonics); // NOI18N
+        stackDepthLabel.setToolTipText(NbBundle.getMessage(
+                SamplerCPUPanel.class, "TOOLTIP_Stack_depth")); // NOI18N
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 8;
+        constraints.gridwidth = 1;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(1, 10, 5, 5);
+        add(stackDepthLabel, constraints);
+
+        Integer[] stackDepths = new Integer[] { 16, 32, 64, 128, 256, 512, 1024,
+                                                STACK_DEPTH_UNLIMITED };
+        stackDepthCombo = new JComboBox(stackDepths) {
+            public Dimension getMinimumSize() { return getPreferredSize(); }
+            public Dimension getMaximumSize() { return getPreferredSize(); }
+        };
+        stackDepthLabel.setLabelFor(stackDepthCombo);
+        stackDepthCombo.setToolTipText(NbBundle.getMessage(
+                SamplerCPUPanel.class, "TOOLTIP_Stack_depth")); // NOI18N
+        stackDepthCombo.setEditable(false);
+        stackDepthCombo.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) { syncUI(); }
+        });
+        stackDepthCombo.setRenderer(new ComboRenderer(stackDepthCombo));
+        constraints = new GridBagConstraints();
+        constraints.gridx = 1;
+        constraints.gridy = 8;
+        constraints.gridwidth = 1;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(1, 0, 5, 5);
+        add(stackDepthCombo, constraints);
+
+        stackDepthUnitsLabel = new JLabel(NbBundle.getMessage(
+                SamplerCPUPanel.class, "LBL_units_frames")); // NOI18N
+        stackDepthUnitsLabel.setToolTipText(NbBundle.getMessage(
+                SamplerCPUPanel.class, "TOOLTIP_Stack_depth")); // NOI18N
+        constraints = new GridBagConstraints();
+        constraints.gridx = 2;
+        constraints.gridy = 8;
+        constraints.gridwidth = 1;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(1, 0, 5, 5);
+        add(stackDepthUnitsLabel, constraints);
+
+        constraints = new GridBagConstraints();
+        constraints.gridx = 3;
+        constraints.gridy = 8;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.HORIZONTAL;
+        constraints.insets = new Insets(1, 0, 5, 0);
         add(Spacer.create(), constraints);
+
+        runnableStacksCheckBox = new JCheckBox() {
+            protected void fireActionPerformed(ActionEvent e) { syncUI(); }
+        };
+        setText(runnableStacksCheckBox, NbBundle.getMessage(SamplerCPUPanel.class,
+                "LBL_Runnable_stacks"), mnemonics); // NOI18N
+        runnableStacksCheckBox.setToolTipText(NbBundle.getMessage(
+                SamplerCPUPanel.class, "TOOLTIP_Runnable_stacks")); // NOI18N
+        runnableStacksCheckBox.setOpaque(false);
+        runnableStacksCheckBox.setBorder(referenceLabel.getBorder());
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 9;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(1, 10, 5, 10);
+        add(runnableStacksCheckBox, constraints);
+
+        logSamplesCheckBox = new JCheckBox() {
+            protected void fireActionPerformed(ActionEvent e) { updateLogOnly(); syncUI(); }
+        };
+        setText(logSamplesCheckBox, NbBundle.getMessage(SamplerCPUPanel.class,
+                "LBL_Log_samples"), mnemonics); // NOI18N
+        logSamplesCheckBox.setToolTipText(NbBundle.getMessage(
+                SamplerCPUPanel.class, "TOOLTIP_Log_samples")); // NOI18N
+        logSamplesCheckBox.setOpaque(false);
+        logSamplesCheckBox.setBorder(referenceLabel.getBorder());
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 10;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(1, 10, 5, 10);
+        add(logSamplesCheckBox, constraints);
+
+        logOnlyCheckBox = new JCheckBox() {
+            protected void fireActionPerformed(ActionEvent e) { syncUI(); }
+        };
+        setText(logOnlyCheckBox, NbBundle.getMessage(SamplerCPUPanel.class,
+                "LBL_Log_only"), mnemonics); // NOI18N
+        logOnlyCheckBox.setToolTipText(NbBundle.getMessage(
+                SamplerCPUPanel.class, "TOOLTIP_Log_only")); // NOI18N
+        logOnlyCheckBox.setOpaque(false);
+        logOnlyCheckBox.setBorder(referenceLabel.getBorder());
+        logOnlyCheckBox.setEnabled(false);
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 11;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(1, 30, 5, 10);
+        add(logOnlyCheckBox, constraints);
+
+        cpuTimeWeightedCheckBox = new JCheckBox() {
+            protected void fireActionPerformed(ActionEvent e) { syncUI(); }
+        };
+        setText(cpuTimeWeightedCheckBox, NbBundle.getMessage(SamplerCPUPanel.class,
+                "LBL_Cpu_time_weighted"), mnemonics); // NOI18N
+        cpuTimeWeightedCheckBox.setToolTipText(NbBundle.getMessage(
+                SamplerCPUPanel.class, "TOOLTIP_Cpu_time_weighted")); // NOI18N
+        cpuTimeWeightedCheckBox.setOpaque(false);
+        cpuTimeWeightedCheckBox.setBorder(referenceLabel.getBorder());
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 12;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(1, 10, 10, 10);
+        add(cpuTimeWeightedCheckBox, constraints);
     }
     
     
@@ -466,8 +644,11 @@ public abstract class SamplerCPUPanel extends JPanel {
         public Component getListCellRendererComponent(JList list, Object value,
                 int index, boolean isSelected, boolean cellHasFocus) {
             
-            return renderer.getListCellRendererComponent(list, NumberFormat.
-                    getInstance().format(value), index, isSelected, cellHasFocus);
+            String text = Integer.valueOf(STACK_DEPTH_UNLIMITED).equals(value) ?
+                    NbBundle.getMessage(SamplerCPUPanel.class, "LBL_Unlimited") : // NOI18N
+                    NumberFormat.getInstance().format(value);
+            return renderer.getListCellRendererComponent(list, text, index,
+                    isSelected, cellHasFocus);
         }
 
     }
@@ -52,6 +52,9 @@ public abstract class SamplerMemoryPanel extends JPanel {
     private JLabel refreshRateLabel;
     private JLabel refreshUnitsLabel;
     private JComboBox refreshCombo;
+    private JLabel pauseBudgetLabel;
+    private JLabel pauseBudgetUnitsLabel;
+    private JComboBox pauseBudgetCombo;
     
     private boolean internalChange;
     
@@ -76,6 +79,14 @@ public abstract class SamplerMemoryPanel extends JPanel {
     public int getRefreshRate() {
         return getSamplingRate();
     }
+
+    /**
+     * Returns maximum share of time the target application may be paused by
+     * taking heap histograms, in percent.
+     */
+    public float getPauseBudget() {
+        return (Float)pauseBudgetCombo.getSelectedItem();
+    }
     
     
     public boolean settingsValid() { return true; }
@@ -85,6 +96,7 @@ public abstract class SamplerMemoryPanel extends JPanel {
 
         internalChange = true;
         refreshCombo.setSelectedItem(preset.getSamplingRefreshRateS());
+        pauseBudgetCombo.setSelectedItem(preset.getPauseBudgetS());
         internalChange = false;
     }
     
@@ -92,6 +104,7 @@ public abstract class SamplerMemoryPanel extends JPanel {
         if (preset == null) return;
         
         preset.setSamplingRefreshRateS((Integer)refreshCombo.getSelectedItem());
+        preset.setPauseBudgetS((Float)pauseBudgetCombo.getSelectedItem());
     }
     
     public abstract void settingsChanged();
@@ -124,7 +137,7 @@ public abstract class SamplerMemoryPanel extends JPanel {
         constraints.gridwidth = 1;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.NONE;
-        constraints.insets = new Insets(7, 10, 10, 5);
+        constraints.insets = new Insets(7, 10, 5, 5);
         add(refreshRateLabel, constraints);
 
         Integer[] refreshRates = new Integer[] { 100, 200, 500, 1000, 2000, 5000, 10000 };
@@ -146,7 +159,7 @@ public abstract class SamplerMemoryPanel extends JPanel {
         constraints.gridwidth = 1;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.NONE;
-        constraints.insets = new Insets(7, 0, 10, 5);
+        constraints.insets = new Insets(7, 0, 5, 5);
         add(refreshCombo, constraints);
 
         refreshUnitsLabel = new JLabel(NbBundle.getMessage(SamplerMemoryPanel.class,
@@ -159,7 +172,7 @@ public abstract class SamplerMemoryPanel extends JPanel {
         constraints.gridwidth = 1;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.NONE;
-        constraints.insets = new Insets(7, 0, 10, 5);
+        constraints.insets = new Insets(7, 0, 5, 5);
         add(refreshUnitsLabel, constraints);
 
         constraints = new GridBagConstraints();
@@ -169,12 +182,61 @@ public abstract class SamplerMemoryPanel extends JPanel {
         constraints.gridwidth = GridBagConstraints.REMAINDER;
         constraints.anchor = GridBagConstraints.WEST;
         constraints.fill = GridBagConstraints.HORIZONTAL;
-        constraints.insets = new Insets(7, 0, 10, 0);
+        constraints.insets = new Insets(7, 0, 5, 0);
         add(Spacer.create(), constraints);
 
+        pauseBudgetLabel = new JLabel();
+        setText(pauseBudgetLabel, NbBundle.getMessage(SamplerMemoryPanel.class,
+                "LBL_Pause_budget"), mnemonics); // NOI18N
+        pauseBudgetLabel.setToolTipText(NbBundle.getMessage(SamplerMemoryPanel.class,
+                "TOOLTIP_Pause_budget")); // NOI18N
         constraints = new GridBagConstraints();
         constraints.gridx = 0;
         constraints.gridy = 1;
+        constraints.gridwidth = 1;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(0, 10, 10, 5);
+        add(pauseBudgetLabel, constraints);
+
+        Float[] pauseBudgets = new Float[] { 0.1f, 0.5f, 1f, 2f, 5f, 10f, 100f };
+        pauseBudgetCombo = new JComboBox(pauseBudgets) {
+            public Dimension getMinimumSize() { return getPreferredSize(); }
+            public Dimension getMaximumSize() { return getPreferredSize(); }
+        };
+        pauseBudgetLabel.setLabelFor(pauseBudgetCombo);
+        pauseBudgetCombo.setToolTipText(NbBundle.getMessage(SamplerMemoryPanel.class,
+                "TOOLTIP_Pause_budget")); // NOI18N
+        pauseBudgetCombo.setEditable(false);
+        pauseBudgetCombo.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) { syncUI(); }
+        });
+        pauseBudgetCombo.setRenderer(new ComboRenderer(pauseBudgetCombo));
+        constraints = new GridBagConstraints();
+        constraints.gridx = 1;
+        constraints.gridy = 1;
+        constraints.gridwidth = 1;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(0, 0, 10, 5);
+        add(pauseBudgetCombo, constraints);
+
+        pauseBudgetUnitsLabel = new JLabel(NbBundle.getMessage(SamplerMemoryPanel.class,
+                "LBL_units_pause")); // NOI18N
+        pauseBudgetUnitsLabel.setToolTipText(NbBundle.getMessage(SamplerMemoryPanel.class,
+                "TOOLTIP_Pause_budget")); // NOI18N
+        constraints = new GridBagConstraints();
+        constraints.gridx = 2;
+        constraints.gridy = 1;
+        constraints.gridwidth = 1;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(0, 0, 10, 5);
+        add(pauseBudgetUnitsLabel, constraints);
+
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 2;
         constraints.weighty = 1;
         constraints.gridwidth = GridBagConstraints.REMAINDER;
         constraints.anchor = GridBagConstraints.NORTHWEST;
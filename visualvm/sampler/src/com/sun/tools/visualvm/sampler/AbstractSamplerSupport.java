@@ -26,7 +26,6 @@
 package com.sun.tools.visualvm.sampler;
 
 import com.sun.tools.visualvm.core.ui.components.DataViewComponent;
-import java.util.Timer;
 import org.netbeans.lib.profiler.common.ProfilingSettings;
 
 /**
@@ -44,7 +43,7 @@ public abstract class AbstractSamplerSupport {
     public abstract void terminate();
 
 
-    protected abstract Timer getTimer();
+    protected abstract SamplingEngine.Target getSamplingTarget();
 
 
     public static abstract class Refresher {
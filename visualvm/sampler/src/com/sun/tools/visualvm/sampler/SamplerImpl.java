@@ -73,10 +73,11 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
 import java.net.URL;
-import java.util.Timer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.MBeanServerConnection;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -107,14 +108,15 @@ final class SamplerImpl {
     private static enum State { TERMINATED, INACTIVE, CPU, MEMORY, TRANSITION };
 
     private Application application;
-    private Timer timer;
+    private SamplingEngine.Target samplingTarget;
+    private ThreadsPoller threadsPoller;
 
     private HTMLTextArea summaryArea;
     private String cpuStatus = NbBundle.getMessage(SamplerImpl.class, "MSG_Checking_Availability"); // NOI18N
     private String memoryStatus = NbBundle.getMessage(SamplerImpl.class, "MSG_Checking_Availability"); // NOI18N
 
     private boolean cpuProfilingSupported;
-    private AbstractSamplerSupport cpuSampler;
+    private CPUSamplerSupport cpuSampler;
     private CPUSettingsSupport cpuSettings;
 
     private boolean memoryProfilingSupported;
@@ -217,6 +219,7 @@ final class SamplerImpl {
             if (State.MEMORY.equals(currentState)) memorySampler.stopSampling();
             memorySampler.terminate();
         }
+        if (samplingTarget != null) samplingTarget.cancel();
 
         setState(State.TERMINATED);
         dvc = null;
@@ -390,10 +393,16 @@ final class SamplerImpl {
                         RequestProcessor.getDefault().post(new Runnable() {
                             public void run() {
                                 cpuSettings.saveSettings();
+                                cpuSampler.setSamplesLogDirectory(cpuSettings.isLogSamples() ?
+                                         application.getStorage().getDirectory() : null,
+                                         cpuSettings.isLogOnly());
                                 setState(cpuSampler.startSampling(
                                          cpuSettings.getSettings(),
                                          cpuSettings.getSamplingRate(),
-                                         cpuSettings.getRefreshRate()) ?
+                                         cpuSettings.getRefreshRate(),
+                                         cpuSettings.getStackDepth(),
+                                         cpuSettings.isRunnableStacksOnly(),
+                                         cpuSettings.isCpuTimeWeighted()) ?
                                          State.CPU : State.INACTIVE);
                             }
                         });
@@ -433,7 +442,8 @@ final class SamplerImpl {
                                 setState(memorySampler.startSampling(
                                          memorySettings.getSettings(),
                                          memorySettings.getSamplingRate(),
-                                         memorySettings.getRefreshRate()) ?
+                                         memorySettings.getRefreshRate(),
+                                         memorySettings.getPauseBudget()) ?
                                          State.MEMORY : State.INACTIVE);
                             }
                         });
@@ -497,12 +507,17 @@ final class SamplerImpl {
                 }
 
                 CPUSamplerSupport.SnapshotDumper snapshotDumper = new CPUSamplerSupport.SnapshotDumper() {
-                    public void takeSnapshot(final boolean openView) {
+                    public void takeSnapshot(boolean openView) {
+                        takeSnapshot(openView, -1, -1);
+                    }
+                    public void takeSnapshot(final boolean openView, final long startTime, final long endTime) {
                         RequestProcessor.getDefault().post(new Runnable() {
                             public void run() {
                                 LoadedSnapshot ls = null;
                                 try {
-                                    ls = takeNPSSnapshot(application.getStorage().getDirectory());
+                                    File directory = application.getStorage().getDirectory();
+                                    ls = startTime == -1 ? takeNPSSnapshot(directory) :
+                                         takeNPSSnapshot(directory, startTime, endTime);
                                 } catch (CPUResultsSnapshot.NoDataAvailableException e) {
                                     DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message(NbBundle.getMessage(
                                             SamplerImpl.class, "MSG_No_save_data_cpu"), NotifyDescriptor.WARNING_MESSAGE)); // NOI18N
@@ -522,7 +537,8 @@ final class SamplerImpl {
                         });
                     }
                 };
-                tcpu = new ThreadsCPU(ti.getThreadMXBean(), JmxModelFactory.getJmxModelFor(application).getMBeanServerConnection());
+                tcpu = new ThreadsCPU(getThreadsPoller(ti.getThreadMXBean(),
+                        JmxModelFactory.getJmxModelFor(application).getMBeanServerConnection()));
                 try {
                     tcpu.getThreadsCPUInfo();
                 } catch (Exception ex) {
@@ -543,7 +559,7 @@ final class SamplerImpl {
                     };
                     
                 cpuSampler = new CPUSamplerSupport(ti, tcpu, snapshotDumper, threadDumper) {
-                    protected Timer getTimer() { return SamplerImpl.this.getTimer(); }
+                    protected SamplingEngine.Target getSamplingTarget() { return SamplerImpl.this.getSamplingTarget(); }
                 };
                 SwingUtilities.invokeLater(new Runnable() {
                     public void run() {
@@ -658,7 +674,8 @@ final class SamplerImpl {
                     if (mxbeans != null) {
                         memoryBean = mxbeans.getMemoryMXBean();
                         try {
-                            threadsMemory = new ThreadsMemory(mxbeans.getThreadMXBean(),jmxModel.getMBeanServerConnection());
+                            threadsMemory = new ThreadsMemory(getThreadsPoller(mxbeans.getThreadMXBean(),
+                                                              jmxModel.getMBeanServerConnection()));
                             threadsMemory.getThreadsMemoryInfo();
                         } catch (Exception ex) {
                             threadsMemory = null;
@@ -698,8 +715,15 @@ final class SamplerImpl {
                                                                         "." + ResultsManager.SNAPSHOT_EXTENSION); // NOI18N
                                         dos = new DataOutputStream(new FileOutputStream(file));
                                         ls.save(dos);
+                                        dos.close();
+                                        dos = null;
                                         ls.setFile(file);
                                         ls.setSaved(true);
+                                        try {
+                                            dumper.saveSeries(file);
+                                        } catch (IOException e) {
+                                            LOGGER.log(Level.INFO, "Failed to save histograms series for " + application, e); // NOI18N
+                                        }
                                     }
                                 } catch (Throwable t) {
                                     LOGGER.log(Level.WARNING, "Failed to save profiler snapshot for " + application, t); // NOI18N
@@ -731,7 +755,7 @@ final class SamplerImpl {
                         }
                     };
                 memorySampler = new MemorySamplerSupport(jvm, hasPermGenHisto, threadsMemory, memoryBean, snapshotDumper, heapDumper) {
-                    protected Timer getTimer() { return SamplerImpl.this.getTimer(); }
+                    protected SamplingEngine.Target getSamplingTarget() { return SamplerImpl.this.getSamplingTarget(); }
                 };
                 SwingUtilities.invokeLater(new Runnable() {
                     public void run() {
@@ -772,11 +796,19 @@ final class SamplerImpl {
         });
     }
 
-    private synchronized Timer getTimer() {
-        if (timer == null)
-            timer = new Timer("Sampler timer for " + DataSourceDescriptorFactory. // NOI18N
-                              getDescriptor(application).getName());
-        return timer;
+    private synchronized SamplingEngine.Target getSamplingTarget() {
+        if (samplingTarget == null)
+            samplingTarget = SamplingEngine.getDefault().createTarget(
+                    DataSourceDescriptorFactory.getDescriptor(application).getName());
+        return samplingTarget;
+    }
+
+    private synchronized ThreadsPoller getThreadsPoller(ThreadMXBean threadBean,
+                                                        MBeanServerConnection connection) {
+        // CPU and memory sampling share the cached thread names
+        if (threadsPoller == null)
+            threadsPoller = new ThreadsPoller(threadBean, connection);
+        return threadsPoller;
     }
 
     private DataViewComponent.DetailsView[] createSummaryView() {
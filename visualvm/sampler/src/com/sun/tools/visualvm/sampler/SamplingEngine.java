@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs sampling tasks of all sampled applications in a small shared pool of
+ * worker threads. The number of workers is the global limit of concurrently
+ * running tasks (JMX dumps), by default the number of processors capped to
+ * MAX_WORKERS.
+ *
+ * Tasks are submitted for a Target, typically one per sampled application.
+ * Tasks of a target never run concurrently, a ready task of an idle target
+ * with the earliest due time runs first. A slow target can delay only its own
+ * tasks, other targets are served in the order of their due times.
+ *
+ * Periodic tasks run on a fixed time grid. Ticks missed while the task was
+ * running or waiting for a worker are skipped and counted, never run in a
+ * burst. When the task takes more than MAX_DUTY_CYCLE of the interval, the
+ * effective interval is extended so that the sampling doesn't saturate the
+ * target JVM or the connection to it.
+ *
+ * A task running longer than the timeout of its target is considered hung:
+ * it's interrupted and its worker is replaced by a new one, so that a target
+ * which stopped responding doesn't reduce the pool. Tasks posted to a hung
+ * target are dropped, its periodic tasks resume when the hung task returns.
+ *
+ * @author agent
+ */
+public final class SamplingEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(SamplingEngine.class.getName());
+
+    /** Maximum fraction of the interval a periodic task may take. */
+    public static final float MAX_DUTY_CYCLE = 0.5f;
+
+    private static final int MAX_WORKERS = 4;
+    private static final int WORKERS = Integer.getInteger(
+            "com.sun.tools.visualvm.sampler.SamplingEngine.workers", // NOI18N
+            Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+
+    private static final int TASK_TIMEOUT = Integer.getInteger(
+            "com.sun.tools.visualvm.sampler.SamplingEngine.taskTimeout", 30000); // NOI18N [ms]
+
+    // Weight of the last value in the moving averages
+    private static final float ALPHA = 0.1f;
+
+    private static SamplingEngine DEFAULT;
+
+    private final int workersCount;
+
+    // Guarded by this
+    private final List<Entry> entries = new ArrayList();
+    private final List<Target> runningTargets = new ArrayList();
+    private long sequence;
+    private int workers; // not counting workers of hung tasks
+    private int workerNumber;
+    private boolean watchdogStarted;
+
+
+    public static synchronized SamplingEngine getDefault() {
+        if (DEFAULT == null) DEFAULT = new SamplingEngine(WORKERS);
+        return DEFAULT;
+    }
+
+    SamplingEngine(int workersCount) {
+        this.workersCount = Math.max(1, workersCount);
+    }
+
+
+    /**
+     * Creates a new target, tasks of a target never run concurrently.
+     */
+    public Target createTarget(String name) {
+        return new Target(name);
+    }
+
+
+    // --- Scheduling ----------------------------------------------------------
+
+    private synchronized void submit(Entry entry) {
+        if (entry.target.cancelled || entry.target.hung) return;
+        entry.sequence = sequence++;
+        entries.add(entry);
+        if (workers < workersCount) startWorker();
+        if (!watchdogStarted) startWatchdog();
+        notifyAll();
+    }
+
+    private synchronized void cancel(Entry entry) {
+        entries.remove(entry);
+    }
+
+    private void startWorker() {
+        workers++;
+        Thread worker = new Thread(new Runnable() {
+            public void run() { work(); }
+        }, "VisualVM Sampler " + workerNumber++); // NOI18N
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void startWatchdog() {
+        watchdogStarted = true;
+        Thread watchdog = new Thread(new Runnable() {
+            public void run() { watch(); }
+        }, "VisualVM Sampler Watchdog"); // NOI18N
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    private void work() {
+        while (true) {
+            Entry entry;
+            long time;
+            synchronized (this) {
+                while (true) {
+                    time = System.nanoTime();
+                    entry = null;
+                    long nextDue = Long.MAX_VALUE;
+                    for (Entry e : entries) {
+                        if (e.target.runner != null) continue;
+                        if (e.due <= time) {
+                            if (entry == null || e.due < entry.due ||
+                               (e.due == entry.due && e.sequence < entry.sequence)) entry = e;
+                        } else {
+                            nextDue = Math.min(nextDue, e.due);
+                        }
+                    }
+                    if (entry != null) break;
+                    try {
+                        if (nextDue == Long.MAX_VALUE) wait();
+                        else TimeUnit.NANOSECONDS.timedWait(this, nextDue - time);
+                    } catch (InterruptedException e) {
+                        // Waiting workers are never interrupted
+                    }
+                }
+                entries.remove(entry);
+                entry.target.runner = Thread.currentThread();
+                entry.target.started = time;
+                runningTargets.add(entry.target);
+                notifyAll(); // the watchdog waits for the timeout
+            }
+
+            try {
+                entry.task.run();
+            } catch (Throwable t) {
+                LOGGER.log(Level.INFO, "Sampling task of " + entry.target.name + " failed", t); // NOI18N
+            }
+            long cost = System.nanoTime() - time;
+
+            synchronized (this) {
+                Target target = entry.target;
+                boolean hung = target.hung;
+                target.hung = false;
+                target.runner = null;
+                runningTargets.remove(target);
+                Thread.interrupted(); // interrupted by cancel() or as hung
+                if (entry.session != null) entry.session.taskFinished(entry, time, cost);
+                notifyAll();
+
+                // The worker of a hung task has been replaced, it's only kept if needed
+                if (hung) {
+                    if (workers == workersCount) return;
+                    workers++;
+                }
+            }
+        }
+    }
+
+    private synchronized void watch() {
+        while (true) {
+            long time = System.nanoTime();
+            long nextTimeout = Long.MAX_VALUE;
+            for (Target target : runningTargets) {
+                if (target.hung || target.timeout == 0) continue;
+                long timeout = target.started + target.timeout;
+                if (timeout <= time) taskHung(target);
+                else nextTimeout = Math.min(nextTimeout, timeout);
+            }
+            try {
+                if (nextTimeout == Long.MAX_VALUE) wait();
+                else TimeUnit.NANOSECONDS.timedWait(this, nextTimeout - time);
+            } catch (InterruptedException e) {
+                // The watchdog is never interrupted
+            }
+        }
+    }
+
+    private void taskHung(Target target) {
+        LOGGER.log(Level.INFO, "Sampling task of " + target.name + " hasn't finished in " + // NOI18N
+                   target.timeout / 1000000 + " ms, interrupting it"); // NOI18N
+        target.hung = true;
+        target.runner.interrupt();
+        workers--;
+        startWorker();
+    }
+
+
+    // --- Target --------------------------------------------------------------
+
+    /**
+     * Sampled application, its tasks never run concurrently.
+     */
+    public final class Target {
+
+        private final String name;
+
+        // Guarded by SamplingEngine.this
+        private long timeout = TASK_TIMEOUT * 1000000L;
+        private Thread runner;
+        private long started;
+        private boolean hung;
+        private boolean cancelled;
+
+
+        private Target(String name) {
+            this.name = name;
+        }
+
+
+        /**
+         * Sets the time in milliseconds after which a running task of the
+         * target is interrupted and its worker replaced, 0 means no timeout.
+         */
+        public void setTaskTimeout(int timeout) {
+            synchronized (SamplingEngine.this) {
+                this.timeout = Math.max(0, timeout) * 1000000L;
+                SamplingEngine.this.notifyAll();
+            }
+        }
+
+        /**
+         * Drops the pending tasks, stops the periodic tasks and interrupts
+         * the running task of the target. Tasks posted later are ignored.
+         */
+        public void cancel() {
+            synchronized (SamplingEngine.this) {
+                cancelled = true;
+                for (int i = entries.size() - 1; i >= 0; i--) {
+                    Entry entry = entries.get(i);
+                    if (entry.target != this) continue;
+                    if (entry.session != null) entry.session.stopped = true;
+                    entries.remove(i);
+                }
+                if (runner != null) runner.interrupt();
+            }
+        }
+
+
+        /**
+         * Runs the task as soon as a worker and the target are available.
+         */
+        public void post(Runnable task) {
+            submit(new Entry(this, task, System.nanoTime(), null));
+        }
+
+        /**
+         * Runs the task periodically until the returned session is stopped.
+         */
+        public Session schedule(Runnable task, int interval) {
+            return new Session(this, task, interval);
+        }
+
+    }
+
+
+    // --- Session -------------------------------------------------------------
+
+    /**
+     * Periodic task of a target.
+     */
+    public final class Session {
+
+        private final long requestedInterval;
+
+        // Guarded by SamplingEngine.this
+        private Entry entry;
+        private boolean stopped;
+        private long nextTick;
+        private long effectiveInterval;
+        private long firstTick = -1;
+        private long lastTick;
+        private int samplesCount;
+        private float averageCost;
+        private float averageInterval;
+
+
+        private Session(Target target, Runnable task, int interval) {
+            requestedInterval = Math.max(1, interval) * 1000000L;
+            effectiveInterval = requestedInterval;
+            nextTick = System.nanoTime();
+            entry = new Entry(target, task, nextTick, this);
+            submit(entry);
+        }
+
+
+        /**
+         * Stops the session, the running task isn't interrupted. Can be invoked
+         * from the task.
+         */
+        public void stop() {
+            synchronized (SamplingEngine.this) {
+                stopped = true;
+                cancel(entry);
+            }
+        }
+
+        public Statistics getStatistics() {
+            synchronized (SamplingEngine.this) {
+                long skippedTicks = 0;
+                if (samplesCount > 0) {
+                    long expectedTicks = (lastTick - firstTick) / requestedInterval + 1;
+                    skippedTicks = Math.max(0, expectedTicks - samplesCount);
+                }
+                return new Statistics(requestedInterval, effectiveInterval, samplesCount,
+                                      skippedTicks, averageInterval, averageCost);
+            }
+        }
+
+
+        private void taskFinished(Entry entry, long tick, long cost) {
+            if (samplesCount == 0) {
+                firstTick = tick;
+                averageCost = cost;
+            } else {
+                averageCost += ALPHA * (cost - averageCost);
+                long interval = tick - lastTick;
+                averageInterval = samplesCount == 1 ? interval :
+                                  averageInterval + ALPHA * (interval - averageInterval);
+            }
+            lastTick = tick;
+            samplesCount++;
+
+            effectiveInterval = Math.max(requestedInterval, (long)(averageCost / MAX_DUTY_CYCLE));
+            if (stopped) return;
+
+            // Stay on the grid, ticks missed by a slow task are skipped
+            nextTick += effectiveInterval;
+            long now = System.nanoTime();
+            if (nextTick <= now)
+                nextTick += ((now - nextTick) / effectiveInterval + 1) * effectiveInterval;
+            entry.due = nextTick;
+            submit(entry);
+        }
+
+    }
+
+
+    /**
+     * Statistics of a periodic task, times in milliseconds.
+     */
+    public static final class Statistics {
+
+        private final long requestedInterval;
+        private final long effectiveInterval;
+        private final int samplesCount;
+        private final long skippedTicks;
+        private final float averageInterval;
+        private final float averageCost;
+
+
+        private Statistics(long requestedInterval, long effectiveInterval, int samplesCount,
+                           long skippedTicks, float averageInterval, float averageCost) {
+            this.requestedInterval = requestedInterval;
+            this.effectiveInterval = effectiveInterval;
+            this.samplesCount = samplesCount;
+            this.skippedTicks = skippedTicks;
+            this.averageInterval = averageInterval;
+            this.averageCost = averageCost;
+        }
+
+
+        public float getRequestedRate() {
+            return 1e9f / requestedInterval;
+        }
+
+        /**
+         * Returns the recent number of runs per second, 0 if not known yet.
+         */
+        public float getAchievedRate() {
+            return averageInterval == 0 ? 0 : 1e9f / averageInterval;
+        }
+
+        public float getEffectiveInterval() {
+            return effectiveInterval / 1e6f;
+        }
+
+        public int getSamplesCount() {
+            return samplesCount;
+        }
+
+        /**
+         * Returns number of ticks of the requested rate with no run.
+         */
+        public long getSkippedTicks() {
+            return skippedTicks;
+        }
+
+        /**
+         * Returns the recent average time of one run.
+         */
+        public float getAverageCost() {
+            return averageCost / 1e6f;
+        }
+
+    }
+
+
+    private static final class Entry {
+
+        final Target target;
+        final Runnable task;
+        final Session session;
+        long due;
+        long sequence;
+
+
+        Entry(Target target, Runnable task, long due, Session session) {
+            this.target = target;
+            this.task = task;
+            this.due = due;
+            this.session = session;
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler;
+
+/**
+ * Sorting helpers shared by the sampler views.
+ *
+ * @author agent
+ */
+public final class SortUtils {
+
+    /**
+     * Sorts the first count indexes by values[index], ties keep their order.
+     */
+    public static void sortIndexes(int[] indexes, int count, long[] values, boolean ascending) {
+        sortIndexes(indexes, count, values, ascending, new int[count]);
+    }
+
+    /**
+     * Sorts the first count indexes by values[index], ties keep their order.
+     * The buffer must be at least count long.
+     */
+    public static void sortIndexes(int[] indexes, int count, long[] values,
+                                   boolean ascending, int[] buffer) {
+        // Bottom-up merge sort, no allocations when the buffer is reused
+        for (int width = 1; width < count; width *= 2) {
+            for (int from = 0; from < count - width; from += width * 2) {
+                int middle = from + width;
+                int to = Math.min(from + width * 2, count);
+                int i = from, j = middle, k = 0;
+                while (i < middle && j < to) {
+                    long v1 = values[indexes[i]];
+                    long v2 = values[indexes[j]];
+                    boolean first = ascending ? v1 <= v2 : v1 >= v2;
+                    buffer[k++] = first ? indexes[i++] : indexes[j++];
+                }
+                while (i < middle) buffer[k++] = indexes[i++];
+                while (j < to) buffer[k++] = indexes[j++];
+                System.arraycopy(buffer, 0, indexes, from, k);
+            }
+        }
+    }
+
+
+    private SortUtils() {}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanException;
+import javax.management.MBeanServerConnection;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Polls ids, names, CPU time and allocated bytes of all threads of a sampled
+ * application in a single stage. Thread names are cached, getThreadInfo() is
+ * only invoked for threads not seen by the previous poll. Names of all threads
+ * are resolved again each NAMES_REFRESH milliseconds to reflect threads
+ * renamed by Thread.setName(). A poll of CPU time or allocated bytes takes two
+ * remote calls, a poll of both takes three.
+ *
+ * Results are kept in primitive arrays sorted by thread id, polls of the same
+ * threads can be compared by merging the arrays without any lookups.
+ *
+ * @author agent
+ */
+public final class ThreadsPoller {
+
+    private static final ObjectName THREAD_NAME = getThreadName();
+    private static final String[] SIGNATURE = new String[] { "[J" }; // NOI18N
+
+    private static final int NAMES_REFRESH = Integer.getInteger(
+            "com.sun.tools.visualvm.sampler.ThreadsPoller.namesRefresh", 5000); // NOI18N
+
+    private final ThreadMXBean threadBean;
+    private final MBeanServerConnection connection;
+
+    // Sorted ids and names of the previous poll
+    private long[] lastIds = new long[0];
+    private String[] lastNames = new String[0];
+    private long lastNamesRefresh;
+
+
+    public ThreadsPoller(ThreadMXBean threadBean, MBeanServerConnection connection) {
+        this.threadBean = threadBean;
+        this.connection = connection;
+    }
+
+
+    /**
+     * Returns alive threads with the requested data.
+     */
+    public synchronized Threads poll(boolean cpuTime, boolean allocatedBytes)
+            throws MBeanException, ReflectionException, IOException, InstanceNotFoundException {
+        long[] ids = threadBean.getAllThreadIds();
+        Arrays.sort(ids);
+        long[] cpuTimes = cpuTime ? invoke("getThreadCpuTime", ids) : null; // NOI18N
+        long[] allocated = allocatedBytes ? invoke("getThreadAllocatedBytes", ids) : null; // NOI18N
+        long timestamp = System.currentTimeMillis();
+
+        // Renamed threads are only detected by resolving all names again
+        if (timestamp - lastNamesRefresh >= NAMES_REFRESH) {
+            lastIds = new long[0];
+            lastNames = new String[0];
+            lastNamesRefresh = timestamp;
+        }
+        String[] names = getThreadNames(ids);
+
+        // Drop threads terminated before their names have been resolved
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (names[i] == null) continue;
+            ids[count] = ids[i];
+            names[count] = names[i];
+            if (cpuTimes != null) cpuTimes[count] = cpuTimes[i];
+            if (allocated != null) allocated[count] = allocated[i];
+            count++;
+        }
+        if (count < ids.length) {
+            ids = Arrays.copyOf(ids, count);
+            names = Arrays.copyOf(names, count);
+            if (cpuTimes != null) cpuTimes = Arrays.copyOf(cpuTimes, count);
+            if (allocated != null) allocated = Arrays.copyOf(allocated, count);
+        }
+
+        lastIds = ids;
+        lastNames = names;
+        return new Threads(timestamp, ids, names, cpuTimes, allocated);
+    }
+
+    /**
+     * Returns CPU time in nanoseconds of each thread in one remote call, -1
+     * for threads which are not alive or if CPU time measurement is disabled.
+     */
+    public long[] getThreadCpuTime(long[] ids)
+            throws MBeanException, ReflectionException, IOException, InstanceNotFoundException {
+        return invoke("getThreadCpuTime", ids); // NOI18N
+    }
+
+
+    private long[] invoke(String operation, long[] ids)
+            throws MBeanException, ReflectionException, IOException, InstanceNotFoundException {
+        return (long[])connection.invoke(THREAD_NAME, operation, new Object[] { ids }, SIGNATURE);
+    }
+
+    private String[] getThreadNames(long[] ids) {
+        String[] names = new String[ids.length];
+        long[] newIds = new long[ids.length];
+        int newIdsCount = 0;
+
+        // Both arrays are sorted
+        for (int i = 0, j = 0; i < ids.length; i++) {
+            while (j < lastIds.length && lastIds[j] < ids[i]) j++;
+            if (j < lastIds.length && lastIds[j] == ids[i]) names[i] = lastNames[j];
+            else newIds[newIdsCount++] = ids[i];
+        }
+
+        if (newIdsCount > 0) {
+            ThreadInfo[] infos = threadBean.getThreadInfo(Arrays.copyOf(newIds, newIdsCount));
+            for (ThreadInfo info : infos) {
+                if (info == null) continue; // thread terminated
+                int index = Arrays.binarySearch(ids, info.getThreadId());
+                if (index >= 0) names[index] = info.getThreadName();
+            }
+        }
+
+        return names;
+    }
+
+    private static ObjectName getThreadName() {
+        try {
+            return new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME);
+        } catch (MalformedObjectNameException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+
+    /**
+     * Result of a poll, threads are sorted by id.
+     */
+    public static final class Threads {
+
+        private final long timestamp;
+        private final long[] ids;
+        private final String[] names;
+        private final long[] cpuTimes;
+        private final long[] allocatedBytes;
+
+
+        private Threads(long timestamp, long[] ids, String[] names, long[] cpuTimes,
+                        long[] allocatedBytes) {
+            this.timestamp = timestamp;
+            this.ids = ids;
+            this.names = names;
+            this.cpuTimes = cpuTimes;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public String[] getNames() {
+            return names;
+        }
+
+        /**
+         * Returns CPU times in nanoseconds or null if not polled.
+         */
+        public long[] getCpuTimes() {
+            return cpuTimes;
+        }
+
+        /**
+         * Returns allocated bytes or null if not polled.
+         */
+        public long[] getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+    }
+
+}
@@ -29,6 +29,7 @@ import com.sun.tools.visualvm.core.datasupport.Utils;
 import com.sun.tools.visualvm.core.options.GlobalPreferences;
 import com.sun.tools.visualvm.core.ui.components.DataViewComponent;
 import com.sun.tools.visualvm.sampler.AbstractSamplerSupport;
+import com.sun.tools.visualvm.sampler.SamplingEngine;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.DataOutputStream;
@@ -38,8 +39,8 @@ import java.io.IOException;
 import java.lang.management.ThreadInfo;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import org.netbeans.lib.profiler.common.ProfilingSettings;
 import org.netbeans.lib.profiler.common.ProfilingSettingsPresets;
@@ -59,16 +60,22 @@ import org.openide.util.NbBundle;
  */
 public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
 
+    private static final Logger LOGGER = Logger.getLogger(CPUSamplerSupport.class.getName());
+
     private final ThreadInfoProvider threadInfoProvider;
     private final SnapshotDumper snapshotDumper;
     private final ThreadDumper threadDumper;
 
-    private Timer timer;
-    private TimerTask samplerTask;
+    private SamplingEngine.Target samplingTarget;
+    private SamplingEngine.Session samplerSession;
     private final Refresher refresher;
     private int refreshRate;
 
-    private StackTraceSnapshotBuilder builder;
+    private SampledStacks stacks;
+
+    private File samplesLogDirectory;
+    private boolean samplesLogOnly;
+    private SampleLog samplesLog;
 
     private volatile boolean sampleRunning;
     private final Object updateLock = new Object();
@@ -99,7 +106,7 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
                 return CPUSamplerSupport.this.refreshRate;
             }
             protected boolean checkRefresh() {
-                return samplerTask != null && cpuView.isShowing();
+                return samplerSession != null && cpuView.isShowing();
             }
             protected void doRefresh() {
                 doRefreshImpl();
@@ -149,26 +156,84 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
         return detailsViews.clone();
     }
 
+    /**
+     * Sets the directory for logging samples of the next sampling sessions,
+     * null disables logging.
+     */
+    public void setSamplesLogDirectory(File directory) {
+        setSamplesLogDirectory(directory, false);
+    }
+
+    /**
+     * Sets the directory for logging samples of the next sampling sessions,
+     * null disables logging. If logOnly is set the samples are only logged,
+     * no live results are collected in memory.
+     */
+    public synchronized void setSamplesLogDirectory(File directory, boolean logOnly) {
+        samplesLogDirectory = directory;
+        samplesLogOnly = logOnly;
+    }
+
     public boolean startSampling(ProfilingSettings settings, int samplingRate, int refreshRate) {
+        return startSampling(settings, samplingRate, refreshRate,
+                             Integer.MAX_VALUE, false);
+    }
+
+    public boolean startSampling(ProfilingSettings settings, int samplingRate, int refreshRate,
+                                 int stackDepth, boolean runnableStacksOnly) {
+        return startSampling(settings, samplingRate, refreshRate, stackDepth,
+                             runnableStacksOnly, false);
+    }
+
+    /**
+     * Starts sampling, if cpuTimeWeighted is set and thread CPU times are
+     * available, each sampled stack is weighted by the CPU time its thread
+     * consumed since the previous sample.
+     */
+    public boolean startSampling(ProfilingSettings settings, int samplingRate, int refreshRate,
+                                 int stackDepth, boolean runnableStacksOnly,
+                                 boolean cpuTimeWeighted) {
+        threadInfoProvider.setStackSettings(stackDepth, runnableStacksOnly);
+        if (cpuTimeWeighted && threadsCPU == null) {
+            LOGGER.info("Thread CPU time not available, samples are weighted by thread state"); // NOI18N
+            cpuTimeWeighted = false;
+        }
+
         InstrumentationFilter filter = new InstrumentationFilter();
         SimpleFilter sf = (SimpleFilter)settings.getSelectedInstrumentationFilter();
         filter.setFilterStrings(sf.getFilterValue());
         filter.setFilterType(convertFilterType(sf.getFilterType()));
-        builder = snapshotDumper.getNewBuilder(filter);
-                
+        stacks = new SampledStacks();
+        SampleLog log = createSamplesLog(stacks, sf);
+        // Falls back to live results if the log cannot be created
+        final boolean logOnly = log != null && isSamplesLogOnly();
+        // Snapshots are created from the log, samples of a live session not
+        // logged to a file are kept compressed in memory
+        if (log == null) log = SampleLog.createInMemory(stacks,
+                convertFilterType(sf.getFilterType()), sf.getFilterValue());
+        snapshotDumper.setSamplesLog(log);
+        // Time of RUNNABLE threads or their CPU time is the second timestamp
+        final SlidingFlatProfile slidingProfile = logOnly ? null :
+                new SlidingFlatProfile(stacks.getDictionary(), filter, true);
+        final FlameGraph flameGraph = logOnly ? null :
+                new FlameGraph(stacks.getDictionary(), cpuTimeWeighted);
+        if (samplingTarget == null) samplingTarget = getSamplingTarget();
+        final SamplingEngine.Session session = samplingTarget.schedule(
+                new SamplerTask(stacks, slidingProfile, flameGraph, log,
+                                cpuTimeWeighted), samplingRate);
+        samplerSession = session;
+
         refresher.setRefreshRate(refreshRate);
 
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
-                cpuView.setResultsPanel(new SampledLivePanel(builder));
+                if (logOnly) cpuView.setLogOnly();
+                else cpuView.setResultsPanel(new SampledLivePanel(slidingProfile),
+                                             new FlameGraphPanel(flameGraph));
+                cpuView.setSamplingSession(session);
             }
         });
 
-        if (timer == null) timer = getTimer();
-        samplerTask = new SamplerTask(builder);
-
-        timer.scheduleAtFixedRate(samplerTask, 0, samplingRate);
-        
         if (threadsCPU != null) {
             threadCPUTimer = new javax.swing.Timer(refreshRate, new ActionListener() {
                 public void actionPerformed(ActionEvent e) {
@@ -181,10 +246,11 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     }
 
     public synchronized void stopSampling() {
-        if (samplerTask != null) {
-            samplerTask.cancel();
-            samplerTask = null;
+        if (samplerSession != null) {
+            samplerSession.stop();
+            samplerSession = null;
         }
+        closeSamplesLog();
         if (threadCPUTimer != null) {
             threadCPUTimer.stop();
             threadCPUTimer = null;
@@ -192,20 +258,48 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     }
 
     public synchronized void terminate() {
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
+        if (samplerSession != null) {
+            samplerSession.stop();
+            samplerSession = null;
         }
         if (cpuView != null) cpuView.terminate();
         if (threadCPUView != null) threadCPUView.terminate();
-        builder = null;  // release data
+        closeSamplesLog();
+        stacks = null;  // release data
+    }
+
+
+    private synchronized boolean isSamplesLogOnly() {
+        return samplesLogOnly;
+    }
+
+    private synchronized SampleLog createSamplesLog(SampledStacks stacks, SimpleFilter sf) {
+        closeSamplesLog();
+        samplesLog = null;
+        if (samplesLogDirectory == null) return null;
+        try {
+            samplesLog = SampleLog.create(samplesLogDirectory, stacks,
+                    convertFilterType(sf.getFilterType()), sf.getFilterValue());
+        } catch (IOException e) {
+            LOGGER.log(Level.INFO, "Failed to create samples log in " + samplesLogDirectory, e); // NOI18N
+        }
+        return samplesLog;
+    }
+
+    private synchronized void closeSamplesLog() {
+        if (samplesLog == null) return;
+        try {
+            samplesLog.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.INFO, "Failed to close " + samplesLog, e); // NOI18N
+        }
     }
 
 
     private void doRefreshImpl() {
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
-                if (samplerTask == null) return;
+                if (samplerSession == null) return;
                 if (!sampleRunning) {
                     synchronized (updateLock) {
                         lastLiveUpdate = currentLiveUpdate;
@@ -221,7 +315,7 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
         if (!stimer.isRunning() || view.isPaused()) return;
         
         try {
-            timer.schedule(new TimerTask() {
+            samplingTarget.post(new Runnable() {
                 public void run() {
                     try {
                         if (!stimer.isRunning()) return;
@@ -230,7 +324,7 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
                         terminate();
                     }
                 }
-            }, 0);
+            });
         } catch (Exception e) {
             terminate();
         }
@@ -258,13 +352,24 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     }
 
 
-    private class SamplerTask extends TimerTask {
+    private class SamplerTask implements Runnable {
 
-        private final StackTraceSnapshotBuilder builder;
+        private final SampledStacks stacks;
+        private final SlidingFlatProfile slidingProfile; // null if samples are only logged
+        private final FlameGraph flameGraph; // null if samples are only logged
+        private SampleLog log;
+        private final boolean cpuTimeWeighted;
         private final Set samplingThreads = new HashSet();
-
-        public SamplerTask(StackTraceSnapshotBuilder builder) {
-            this.builder = builder;
+        private long[] threadIds = new long[0];
+        private long[] threadCpuTimes = new long[0];
+
+        public SamplerTask(SampledStacks stacks, SlidingFlatProfile slidingProfile,
+                           FlameGraph flameGraph, SampleLog log, boolean cpuTimeWeighted) {
+            this.stacks = stacks;
+            this.slidingProfile = slidingProfile;
+            this.flameGraph = flameGraph;
+            this.log = log;
+            this.cpuTimeWeighted = cpuTimeWeighted;
         }
 
         public void run() {
@@ -273,15 +378,24 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
             synchronized (updateLock) {
                 try {
                     ThreadInfo[] infos = threadInfoProvider.dumpAllThreads();
+                    long[] cpuTimes = cpuTimeWeighted ? getThreadCpuTimes(infos) : null;
                     long timestamp = System.nanoTime();
                     String samplingThreadName = findSamplingThread(infos);
                     if (samplingThreadName != null) {
                         if (samplingThreads.add(samplingThreadName)) {
 //                                System.out.println("New ignored thread: "+samplingThreadName);
-                            builder.setIgnoredThreads(samplingThreads);
+                            if (slidingProfile != null) {
+                                slidingProfile.setIgnoredThreads(samplingThreads);
+                                flameGraph.setIgnoredThreads(samplingThreads);
+                            }
                         }
                     }
-                    builder.addStacktrace(infos, timestamp);
+                    SampledStacks.Sample sample = stacks.addSample(infos, cpuTimes, timestamp);
+                    if (slidingProfile != null) {
+                        slidingProfile.addSample(sample);
+                        flameGraph.addSample(sample);
+                    }
+                    if (log != null) logSample(sample);
 
                     currentLiveUpdate = timestamp / 1000000;
                     if (currentLiveUpdate - lastLiveUpdate >= refreshRate)
@@ -295,6 +409,37 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
             }
         }
 
+        /**
+         * Returns CPU times of the sampled threads in the order of infos,
+         * fetched right after the stacks in the same sampling tick. The
+         * returned array is reused by the next tick.
+         */
+        private long[] getThreadCpuTimes(ThreadInfo[] infos) throws Exception {
+            int idsCount = 0;
+            for (ThreadInfo info : infos) if (info != null) idsCount++;
+            // The ids are sent to the target, the array must not be longer
+            if (threadIds.length != idsCount) threadIds = new long[idsCount];
+            if (threadCpuTimes.length < infos.length) threadCpuTimes = new long[infos.length];
+            idsCount = 0;
+            for (ThreadInfo info : infos)
+                if (info != null) threadIds[idsCount++] = info.getThreadId();
+
+            long[] times = threadsCPU.getThreadCpuTime(threadIds);
+            for (int i = 0, j = 0; i < infos.length; i++)
+                threadCpuTimes[i] = infos[i] == null ? -1 : times[j++];
+            return threadCpuTimes;
+        }
+
+        private void logSample(SampledStacks.Sample sample) {
+            try {
+                log.addSample(sample);
+            } catch (IOException e) {
+                // Disk full or the log has been closed, sampling continues without logging
+                LOGGER.log(Level.INFO, "Failed to log sample to " + log, e); // NOI18N
+                log = null;
+            }
+        }
+
         private String findSamplingThread(ThreadInfo[] infos) {
 //                for (ThreadInfo info : infos) {
 //                    if (info.getThreadState() == Thread.State.RUNNABLE) {
@@ -324,15 +469,45 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
     }
 
     public static abstract class SnapshotDumper {
-        private StackTraceSnapshotBuilder builder;
-                
-        StackTraceSnapshotBuilder getNewBuilder(InstrumentationFilter filter) {
-            builder = new StackTraceSnapshotBuilder(1,filter);
-            return builder;
+        private volatile SampleLog samplesLog;
+
+        void setSamplesLog(SampleLog log) {
+            samplesLog = log;
+        }
+
+        /**
+         * Returns true if samples of the current or last session have been
+         * logged, into a file or in memory
+         */
+        public final boolean hasSamplesLog() {
+            return samplesLog != null;
+        }
+
+        /**
+         * Returns the start time (ms) of the samples log, -1 if there's no log
+         */
+        public final long getSamplesLogStartTime() {
+            SampleLog log = samplesLog;
+            return log == null ? -1 : log.getStartTime();
         }
         
         public final LoadedSnapshot takeNPSSnapshot(File directory) throws IOException, NoDataAvailableException {
-            if (builder == null) throw new IllegalStateException("Builder is null"); // NOI18N
+            return takeNPSSnapshot(directory, getSamplesLogStartTime(), Long.MAX_VALUE);
+        }
+
+        /**
+         * Creates a snapshot from the samples logged between startTime and
+         * endTime (ms, inclusive), including samples of a running session.
+         */
+        public final LoadedSnapshot takeNPSSnapshot(File directory, long startTime, long endTime)
+                throws IOException, NoDataAvailableException {
+            SampleLog log = samplesLog;
+            if (log == null) throw new IllegalStateException("Samples not logged"); // NOI18N
+            return log.createSnapshot(startTime, endTime, directory);
+        }
+
+        static LoadedSnapshot saveNPSSnapshot(StackTraceSnapshotBuilder builder, File directory)
+                throws IOException, NoDataAvailableException {
             long time = System.currentTimeMillis();
             CPUResultsSnapshot snapshot = builder.createSnapshot(time);
             LoadedSnapshot ls = new LoadedSnapshot(snapshot, ProfilingSettingsPresets.createCPUPreset(), null, null);
@@ -351,6 +526,8 @@ public abstract class CPUSamplerSupport extends AbstractSamplerSupport {
         }
 
         public abstract void takeSnapshot(boolean openView);
+
+        public abstract void takeSnapshot(boolean openView, long startTime, long endTime);
     }
 
 }
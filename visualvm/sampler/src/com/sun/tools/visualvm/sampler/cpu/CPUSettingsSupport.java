@@ -60,6 +60,16 @@ public abstract class CPUSettingsSupport {
     
     public int getRefreshRate() { return panel.getRefreshRate(); }
     
+    public int getStackDepth() { return panel.getStackDepth(); }
+    
+    public boolean isRunnableStacksOnly() { return panel.isRunnableStacksOnly(); }
+    
+    public boolean isLogSamples() { return panel.isLogSamples(); }
+    
+    public boolean isLogOnly() { return panel.isLogOnly(); }
+    
+    public boolean isCpuTimeWeighted() { return panel.isCpuTimeWeighted(); }
+    
     public void saveSettings() {
         // NOTE: might save custom configuration here
     }
@@ -26,22 +26,33 @@
 package com.sun.tools.visualvm.sampler.cpu;
 
 import com.sun.tools.visualvm.sampler.AbstractSamplerSupport;
+import com.sun.tools.visualvm.sampler.SamplingEngine;
 import com.sun.tools.visualvm.uisupport.TransparentToolBar;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
+import java.text.NumberFormat;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JToggleButton;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingConstants;
+import org.openide.DialogDescriptor;
+import org.openide.DialogDisplayer;
 import org.openide.util.ImageUtilities;
 import org.openide.util.NbBundle;
 
@@ -57,7 +68,16 @@ final class CPUView extends JPanel {
     private final CPUSamplerSupport.SnapshotDumper snapshotDumper;
     private final CPUSamplerSupport.ThreadDumper threadDumper;
 
+    private static final int VIEW_HOTSPOTS = 0;
+    private static final int VIEW_FLAME = 1;
+    private static final int VIEW_ICICLE = 2;
+
     private SampledLivePanel resultsPanel;
+    private FlameGraphPanel flamePanel;
+    private SamplingEngine.Session samplingSession;
+    private boolean logOnly;
+    private int window = SlidingFlatProfile.WINDOW_UNLIMITED;
+    private int view = VIEW_HOTSPOTS;
 
 
     CPUView(AbstractSamplerSupport.Refresher refresher, CPUSamplerSupport.SnapshotDumper
@@ -83,35 +103,158 @@ final class CPUView extends JPanel {
             remove(resultsPanel);
             resultsPanel = null;
         }
+        if (flamePanel != null) {
+            remove(flamePanel);
+            flamePanel = null;
+        }
+        logOnly = false;
         snapshotButton.setEnabled(false);
+        rangeButton.setEnabled(false);
+        exportButton.setEnabled(false);
+        windowCombo.setEnabled(view == VIEW_HOTSPOTS);
+        viewCombo.setEnabled(true);
+        noDataLabel.setText(NbBundle.getMessage(CPUView.class, "LBL_No_data")); // NOI18N
         add(noDataLabel, BorderLayout.CENTER);
         noDataLabel.invalidate();
         validate();
         repaint();
     }
 
-    void setResultsPanel(SampledLivePanel resultsPanel) {
+    void setResultsPanel(SampledLivePanel resultsPanel, FlameGraphPanel flamePanel) {
         this.resultsPanel = resultsPanel;
+        this.flamePanel = flamePanel;
+        resultsPanel.setWindow(window);
+        flamePanel.setIcicle(view == VIEW_ICICLE);
+    }
+
+    /**
+     * Samples are only logged, there are no live results to display
+     */
+    void setLogOnly() {
+        logOnly = true;
+        windowCombo.setEnabled(false);
+        viewCombo.setEnabled(false);
+        noDataLabel.setText(NbBundle.getMessage(CPUView.class, "LBL_Log_only")); // NOI18N
+    }
+
+    void setSamplingSession(SamplingEngine.Session samplingSession) {
+        this.samplingSession = samplingSession;
+    }
+
+    private void setView(int view) {
+        int previousView = this.view;
+        this.view = view;
+        // Flame graphs always display all samples
+        windowCombo.setEnabled(view == VIEW_HOTSPOTS);
+        if (flamePanel == null) return;
+
+        flamePanel.setIcicle(view == VIEW_ICICLE);
+        if (noDataLabel.getParent() != this &&
+            (previousView == VIEW_HOTSPOTS) != (view == VIEW_HOTSPOTS)) {
+            remove(getViewPanel(previousView));
+            addViewPanel();
+            forceRefresh = true;
+            refresher.refresh();
+        }
+    }
+
+    private JPanel getViewPanel(int view) {
+        return view == VIEW_HOTSPOTS ? resultsPanel : flamePanel;
+    }
+
+    private void addViewPanel() {
+        JPanel viewPanel = getViewPanel(view);
+        add(viewPanel, BorderLayout.CENTER);
+        viewPanel.invalidate();
+        validate();
+        repaint();
+    }
+
+    private void setWindow(int window) {
+        this.window = window;
+        if (resultsPanel != null) {
+            resultsPanel.setWindow(window);
+            forceRefresh = true;
+            refresher.refresh();
+        }
     }
 
     void refresh() {
+        if (logOnly) {
+            if (!isShowing()) return;
+            updateStatistics();
+            snapshotButton.setEnabled(snapshotDumper != null);
+            rangeButton.setEnabled(snapshotDumper != null);
+            return;
+        }
+
         if (noDataLabel.getParent() == this) {
             remove(noDataLabel);
             resultsPanel.setPreferredSize(new Dimension(1, 1));
             JScrollPane resultsScroll = (JScrollPane)resultsPanel.getComponent(0);
             resultsScroll.setBorder(BorderFactory.createEmptyBorder());
             resultsScroll.setViewportBorder(BorderFactory.createEmptyBorder());
-            add(resultsPanel, BorderLayout.CENTER);
-            resultsPanel.invalidate();
-            validate();
-            repaint();
+            flamePanel.setPreferredSize(new Dimension(1, 1));
+            addViewPanel();
         }
 
-        if (!isShowing() || (pauseButton.isSelected() && !forceRefresh)) return;
+        if (!isShowing()) return;
+        updateStatistics();
+        if (pauseButton.isSelected() && !forceRefresh) return;
         forceRefresh = false;
-        resultsPanel.updateLiveResults();
+        if (view == VIEW_HOTSPOTS) resultsPanel.updateLiveResults();
+        else flamePanel.refresh();
 
         snapshotButton.setEnabled(snapshotDumper != null);
+        rangeButton.setEnabled(snapshotDumper != null && snapshotDumper.hasSamplesLog());
+        exportButton.setEnabled(true);
+    }
+
+    private void saveRange() {
+        long startTime = snapshotDumper.getSamplesLogStartTime();
+        if (startTime == -1) return;
+        int duration = (int)Math.max(1, (System.currentTimeMillis() - startTime) / 1000);
+
+        JSpinner fromSpinner = new JSpinner(new SpinnerNumberModel(0, 0, duration, 1));
+        JSpinner toSpinner = new JSpinner(new SpinnerNumberModel(duration, 0, duration, 1));
+
+        JPanel rangePanel = new JPanel(new GridBagLayout());
+        GridBagConstraints constraints = new GridBagConstraints();
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.insets = new Insets(5, 10, 5, 5);
+        rangePanel.add(new JLabel(NbBundle.getMessage(CPUView.class, "LBL_Range_from")), constraints); // NOI18N
+        constraints.insets = new Insets(5, 0, 5, 10);
+        rangePanel.add(fromSpinner, constraints);
+        constraints.gridy = 1;
+        constraints.insets = new Insets(5, 10, 5, 5);
+        rangePanel.add(new JLabel(NbBundle.getMessage(CPUView.class, "LBL_Range_to")), constraints); // NOI18N
+        constraints.insets = new Insets(5, 0, 5, 10);
+        rangePanel.add(toSpinner, constraints);
+
+        DialogDescriptor dd = new DialogDescriptor(rangePanel, NbBundle.getMessage(
+                CPUView.class, "CAPTION_Save_range")); // NOI18N
+        if (DialogDisplayer.getDefault().notify(dd) != DialogDescriptor.OK_OPTION) return;
+
+        int from = (Integer)fromSpinner.getValue();
+        int to = (Integer)toSpinner.getValue();
+        snapshotDumper.takeSnapshot(true, startTime + Math.min(from, to) * 1000L,
+                                    startTime + Math.max(from, to) * 1000L + 999);
+    }
+
+    private void updateStatistics() {
+        if (samplingSession == null) return;
+        SamplingEngine.Statistics statistics = samplingSession.getStatistics();
+        NumberFormat format = NumberFormat.getNumberInstance();
+        format.setMaximumFractionDigits(1);
+        statisticsLabel.setText(NbBundle.getMessage(CPUView.class, "LBL_Sampling_stats", // NOI18N
+                new Object[] { format.format(statistics.getAchievedRate()),
+                format.format(statistics.getRequestedRate()),
+                statistics.getSkippedTicks(),
+                format.format(statistics.getAverageCost()) }));
+        statisticsLabel.setToolTipText(NbBundle.getMessage(CPUView.class, "TOOLTIP_Sampling_stats", // NOI18N
+                new Object[] { statistics.getSamplesCount(),
+                format.format(statistics.getEffectiveInterval()),
+                (int)(SamplingEngine.MAX_DUTY_CYCLE * 100) }));
     }
 
     void terminate() {
@@ -193,9 +336,74 @@ final class CPUView extends JPanel {
         snapshotButton.setOpaque(false);
         snapshotButton.setEnabled(false);
         toolBar.addItem(snapshotButton);
+
+        rangeButton = new JButton(NbBundle.getMessage(CPUView.class, "LBL_Save_range")) { // NOI18N
+            protected void fireActionPerformed(ActionEvent event) {
+                saveRange();
+            }
+        };
+        rangeButton.setToolTipText(NbBundle.getMessage(CPUView.class, "TOOLTIP_Save_range")); // NOI18N
+        rangeButton.setOpaque(false);
+        rangeButton.setEnabled(false);
+        toolBar.addItem(rangeButton);
+
+        toolBar.addSeparator();
+
+        final int[] windows = new int[] { SlidingFlatProfile.WINDOW_UNLIMITED, 10, 30, 60,
+                                          SlidingFlatProfile.MAX_WINDOW };
+        String[] windowNames = new String[windows.length];
+        windowNames[0] = NbBundle.getMessage(CPUView.class, "LBL_Window_all"); // NOI18N
+        for (int i = 1; i < windows.length; i++)
+            windowNames[i] = NbBundle.getMessage(CPUView.class, "LBL_Window_last", windows[i]); // NOI18N
+        windowCombo = new JComboBox(windowNames) {
+            public Dimension getMinimumSize() { return getPreferredSize(); }
+            public Dimension getMaximumSize() { return getPreferredSize(); }
+        };
+        windowCombo.setToolTipText(NbBundle.getMessage(CPUView.class, "TOOLTIP_Window")); // NOI18N
+        windowCombo.setEditable(false);
+        windowCombo.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                setWindow(windows[windowCombo.getSelectedIndex()]);
+            }
+        });
+        toolBar.addItem(windowCombo);
+
+        toolBar.addSeparator();
+
+        String[] viewNames = new String[] {
+            NbBundle.getMessage(CPUView.class, "LBL_View_hotspots"), // NOI18N
+            NbBundle.getMessage(CPUView.class, "LBL_View_flame"), // NOI18N
+            NbBundle.getMessage(CPUView.class, "LBL_View_icicle") // NOI18N
+        };
+        viewCombo = new JComboBox(viewNames) {
+            public Dimension getMinimumSize() { return getPreferredSize(); }
+            public Dimension getMaximumSize() { return getPreferredSize(); }
+        };
+        viewCombo.setToolTipText(NbBundle.getMessage(CPUView.class, "TOOLTIP_View")); // NOI18N
+        viewCombo.setEditable(false);
+        viewCombo.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                setView(viewCombo.getSelectedIndex());
+            }
+        });
+        toolBar.addItem(viewCombo);
+
+        exportButton = new JButton(NbBundle.getMessage(CPUView.class, "LBL_Export_collapsed")) { // NOI18N
+            protected void fireActionPerformed(ActionEvent event) {
+                if (flamePanel != null) flamePanel.exportCollapsed();
+            }
+        };
+        exportButton.setToolTipText(NbBundle.getMessage(CPUView.class, "TOOLTIP_Export_collapsed")); // NOI18N
+        exportButton.setOpaque(false);
+        exportButton.setEnabled(false);
+        toolBar.addItem(exportButton);
         
         toolBar.addFiller();
 
+        statisticsLabel = new JLabel();
+        statisticsLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 8));
+        toolBar.addItem(statisticsLabel);
+
         threaddumpButton = new JButton(NbBundle.getMessage(CPUView.class, "LBL_Thread_dump")) { // NOI18N
             protected void fireActionPerformed(ActionEvent event) {
                 threadDumper.takeThreadDump((event.getModifiers() & Toolkit.getDefaultToolkit().getMenuShortcutKeyMask()) == 0);
@@ -209,7 +417,9 @@ final class CPUView extends JPanel {
         int maxHeight = pauseButton.getPreferredSize().height;
         maxHeight = Math.max(maxHeight, refreshButton.getPreferredSize().height);
         maxHeight = Math.max(maxHeight, snapshotButton.getPreferredSize().height);
+        maxHeight = Math.max(maxHeight, rangeButton.getPreferredSize().height);
         maxHeight = Math.max(maxHeight, threaddumpButton.getPreferredSize().height);
+        maxHeight = Math.max(maxHeight, exportButton.getPreferredSize().height);
 
         int width = pauseButton.getPreferredSize().width;
         Dimension size = new Dimension(maxHeight, maxHeight);
@@ -229,6 +439,18 @@ final class CPUView extends JPanel {
         snapshotButton.setPreferredSize(size);
         snapshotButton.setMaximumSize(size);
 
+        width = rangeButton.getPreferredSize().width;
+        size = new Dimension(width + 5, maxHeight);
+        rangeButton.setMinimumSize(size);
+        rangeButton.setPreferredSize(size);
+        rangeButton.setMaximumSize(size);
+
+        width = exportButton.getPreferredSize().width;
+        size = new Dimension(width + 5, maxHeight);
+        exportButton.setMinimumSize(size);
+        exportButton.setPreferredSize(size);
+        exportButton.setMaximumSize(size);
+
         width = threaddumpButton.getPreferredSize().width;
         size = new Dimension(width + 5, maxHeight);
         threaddumpButton.setMinimumSize(size);
@@ -247,10 +469,15 @@ final class CPUView extends JPanel {
 //    private JLabel refreshUnitsLabel;
 //    private JComboBox refreshCombo;
     private AbstractButton snapshotButton;
+    private AbstractButton rangeButton;
     private AbstractButton pauseButton;
     private AbstractButton refreshButton;
     private AbstractButton threaddumpButton;
+    private AbstractButton exportButton;
+    private JComboBox windowCombo;
+    private JComboBox viewCombo;
     private JLabel noDataLabel;
+    private JLabel statisticsLabel;
 
     
 //    private static class ComboRenderer implements ListCellRenderer {
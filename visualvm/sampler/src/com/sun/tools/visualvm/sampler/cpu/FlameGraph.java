@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.cpu;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Call tree of a CPU sampling session for flame graphs. The tree is rooted in
+ * an "all" node, its children are the sampled threads and their children are
+ * the bottom frames of the sampled stacks. Each (thread, stack id) pair is
+ * resolved to its tree node just once and cached in a hash table, so the cache
+ * grows with the sampled pairs only. Adding a sample increments the self
+ * weight of the cached node. Total weights are computed when creating
+ * a Snapshot.
+ *
+ * Like in SlidingFlatProfile, the weight of a sample is charged to the
+ * previous stack of the thread, the first sample of a thread is not counted.
+ * The weight is 1, or the CPU time in nanoseconds consumed by the thread since
+ * its previous sample if the graph is weighted by CPU time.
+ *
+ * Samples are added from the sampling thread, snapshots can be created from
+ * any thread.
+ *
+ * @author agent
+ */
+final class FlameGraph {
+
+    static final int ROOT = 0;
+
+    private final StackTraceDictionary dictionary;
+
+    // Node names, index is method id or -1 - thread index for thread nodes
+    private String[] methodNames = new String[64];
+    private String[] threadNames = new String[16];
+
+    private int[] nodeNames = new int[1024];
+    private int[] parents = new int[1024];
+    private long[] selfWeights = new long[1024];
+    private int nodesCount;
+
+    // Open addressing table of child nodes, key is (parent, name)
+    private long[] childKeys = new long[2048];
+    private int[] childNodes = new int[2048];
+
+    // Open addressing table of tree nodes of the sampled stacks, key is (thread index, stack id)
+    private long[] stackKeys = new long[1024];
+    private int[] stackNodes = new int[1024];
+    private int stackNodesCount;
+
+    private final boolean cpuTimeWeighted;
+    private int samplesCount;
+
+    private Set<String> ignoredThreads = Collections.EMPTY_SET;
+
+
+    FlameGraph(StackTraceDictionary dictionary, boolean cpuTimeWeighted) {
+        this.dictionary = dictionary;
+        this.cpuTimeWeighted = cpuTimeWeighted;
+        Arrays.fill(childNodes, -1);
+        Arrays.fill(stackNodes, -1);
+        addNode(ROOT, Integer.MIN_VALUE);
+    }
+
+
+    /**
+     * Sets names of threads not included in the graph, like
+     * SlidingFlatProfile.setIgnoredThreads().
+     */
+    synchronized void setIgnoredThreads(Set<String> names) {
+        ignoredThreads = new HashSet(names);
+    }
+
+    synchronized void addSample(SampledStacks.Sample sample) {
+        int threadsCount = sample.getThreadsCount();
+        for (int i = 0; i < threadsCount; i++) {
+            int previousStackId = sample.getPreviousStackId(i);
+            if (previousStackId == -1) continue; // new thread
+            SampledStacks.ThreadStacks thread = sample.getThread(i);
+            if (ignoredThreads.contains(thread.getThreadName())) continue;
+
+            // The thread spent the time since the previous sample in the previous stack
+            int node = getStackNode(thread, previousStackId);
+            selfWeights[node] += cpuTimeWeighted ? Math.max(0, sample.getCpuTime(i)) : 1;
+        }
+        samplesCount++;
+    }
+
+    synchronized int getSamplesCount() {
+        return samplesCount;
+    }
+
+    Snapshot createSnapshot() {
+        // Only the arrays are copied under the lock, sampling isn't blocked
+        // while the snapshot is being built
+        int count;
+        int[] nodeNamesCopy;
+        int[] parentsCopy;
+        long[] selfWeightsCopy;
+        String[] methodNamesCopy;
+        String[] threadNamesCopy;
+        synchronized (this) {
+            count = nodesCount;
+            nodeNamesCopy = Arrays.copyOf(nodeNames, count);
+            parentsCopy = Arrays.copyOf(parents, count);
+            selfWeightsCopy = Arrays.copyOf(selfWeights, count);
+            methodNamesCopy = methodNames.clone();
+            threadNamesCopy = threadNames.clone();
+        }
+
+        long[] totals = selfWeightsCopy.clone();
+        // Children are always created after their parents
+        for (int node = count - 1; node > ROOT; node--)
+            totals[parentsCopy[node]] += totals[node];
+
+        // Children are sorted by the rank of their name, distinct names are
+        // ranked once instead of comparing names of each pair of siblings
+        int[] methodRanks = getRanks(methodNamesCopy);
+        int[] threadRanks = getRanks(threadNamesCopy);
+
+        String[] names = new String[count];
+        int[] ranks = new int[count];
+        names[ROOT] = "all"; // NOI18N
+        for (int node = ROOT + 1; node < count; node++) {
+            int name = nodeNamesCopy[node];
+            if (name < 0) {
+                names[node] = threadNamesCopy[-1 - name];
+                ranks[node] = threadRanks[-1 - name];
+            } else {
+                names[node] = methodNamesCopy[name];
+                ranks[node] = methodRanks[name];
+            }
+        }
+
+        return new Snapshot(names, ranks, parentsCopy, selfWeightsCopy, totals,
+                            cpuTimeWeighted);
+    }
+
+    /**
+     * Returns rank of each name in the order of names, equal names have the
+     * same rank. Ranks of method and thread names are not comparable.
+     */
+    private static int[] getRanks(String[] names) {
+        String[] sorted = new String[names.length];
+        int count = 0;
+        for (String name : names) if (name != null) sorted[count++] = name;
+        Arrays.sort(sorted, 0, count);
+
+        int[] ranks = new int[names.length];
+        for (int i = 0; i < names.length; i++)
+            if (names[i] != null) ranks[i] = Arrays.binarySearch(sorted, 0, count, names[i]);
+        return ranks;
+    }
+
+
+    private int getStackNode(SampledStacks.ThreadStacks thread, int stackId) {
+        int threadIndex = thread.getIndex();
+        long key = ((long)threadIndex << 32) | (stackId & 0xFFFFFFFFL);
+        int slot = findSlot(stackKeys, stackNodes, key);
+        int node = stackNodes[slot];
+        if (node == -1) {
+            if (threadIndex >= threadNames.length)
+                threadNames = Arrays.copyOf(threadNames, Math.max(threadIndex + 1, threadNames.length * 2));
+            threadNames[threadIndex] = thread.getThreadName();
+            node = getChild(ROOT, -1 - threadIndex);
+
+            int[] stack = dictionary.getStack(stackId);
+            for (int i = stack.length - 1; i >= 0; i--) {
+                int methodId = stack[i];
+                if (methodId >= methodNames.length)
+                    methodNames = Arrays.copyOf(methodNames, Math.max(methodId + 1, methodNames.length * 2));
+                if (methodNames[methodId] == null)
+                    methodNames[methodId] = dictionary.getClassName(methodId) + "." + // NOI18N
+                                            dictionary.getMethodName(methodId);
+                node = getChild(node, methodId);
+            }
+
+            // The stack table isn't modified while resolving the node, slot is valid
+            stackKeys[slot] = key;
+            stackNodes[slot] = node;
+            if (++stackNodesCount * 2 > stackKeys.length) {
+                long[] keys = new long[stackKeys.length * 2];
+                int[] nodes = new int[stackNodes.length * 2];
+                rehash(stackKeys, stackNodes, keys, nodes);
+                stackKeys = keys;
+                stackNodes = nodes;
+            }
+        }
+        return node;
+    }
+
+    private int getChild(int parent, int name) {
+        long key = ((long)parent << 32) | (name & 0xFFFFFFFFL);
+        int slot = findSlot(childKeys, childNodes, key);
+        if (childNodes[slot] != -1) return childNodes[slot];
+
+        int node = addNode(parent, name);
+        childKeys[slot] = key;
+        childNodes[slot] = node;
+        if (nodesCount * 2 > childKeys.length) {
+            long[] keys = new long[childKeys.length * 2];
+            int[] nodes = new int[childNodes.length * 2];
+            rehash(childKeys, childNodes, keys, nodes);
+            childKeys = keys;
+            childNodes = nodes;
+        }
+        return node;
+    }
+
+    private int addNode(int parent, int name) {
+        if (nodesCount == nodeNames.length) {
+            nodeNames = Arrays.copyOf(nodeNames, nodesCount * 2);
+            parents = Arrays.copyOf(parents, nodesCount * 2);
+            selfWeights = Arrays.copyOf(selfWeights, nodesCount * 2);
+        }
+        nodeNames[nodesCount] = name;
+        parents[nodesCount] = parent;
+        return nodesCount++;
+    }
+
+    /**
+     * Returns the slot of the key, or the empty slot for the key if not found
+     */
+    private static int findSlot(long[] keys, int[] nodes, long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (nodes[slot] != -1 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private static void rehash(long[] oldKeys, int[] oldNodes, long[] keys, int[] nodes) {
+        Arrays.fill(nodes, -1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldNodes[i] == -1) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (nodes[slot] != -1) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            nodes[slot] = oldNodes[i];
+        }
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int)(key ^ (key >>> 32));
+    }
+
+
+    /**
+     * Immutable copy of the call tree. Children of each node are sorted by
+     * name, the standard flame graph ordering.
+     */
+    static final class Snapshot {
+
+        private final String[] names;
+        private final int[] parents;
+        private final long[] selfWeights;
+        private final long[] totalWeights;
+        private final boolean cpuTimeWeighted;
+        private final int[] depths;
+        private final int maxDepth;
+
+        // Children of node n are children[childrenOffsets[n] .. childrenOffsets[n + 1])
+        private final int[] childrenOffsets;
+        private final int[] children;
+
+
+        private Snapshot(String[] names, int[] ranks, int[] parents, long[] selfWeights,
+                         long[] totalWeights, boolean cpuTimeWeighted) {
+            this.names = names;
+            this.parents = parents;
+            this.selfWeights = selfWeights;
+            this.totalWeights = totalWeights;
+            this.cpuTimeWeighted = cpuTimeWeighted;
+
+            int nodesCount = names.length;
+            depths = new int[nodesCount];
+            int max = 0;
+            for (int node = ROOT + 1; node < nodesCount; node++) {
+                depths[node] = depths[parents[node]] + 1;
+                max = Math.max(max, depths[node]);
+            }
+            maxDepth = max;
+
+            childrenOffsets = new int[nodesCount + 1];
+            for (int node = ROOT + 1; node < nodesCount; node++)
+                childrenOffsets[parents[node] + 1]++;
+            for (int node = 0; node < nodesCount; node++)
+                childrenOffsets[node + 1] += childrenOffsets[node];
+            children = new int[Math.max(0, nodesCount - 1)];
+            int[] positions = Arrays.copyOf(childrenOffsets, nodesCount);
+            for (int node = ROOT + 1; node < nodesCount; node++)
+                children[positions[parents[node]]++] = node;
+
+            // Children are sorted as (rank, node) longs, siblings are either
+            // all threads or all methods
+            long[] sorted = new long[0];
+            for (int node = 0; node < nodesCount; node++) {
+                int from = childrenOffsets[node];
+                int to = childrenOffsets[node + 1];
+                if (to - from < 2) continue;
+                if (sorted.length < to - from) sorted = new long[to - from];
+                for (int i = from; i < to; i++)
+                    sorted[i - from] = ((long)ranks[children[i]] << 32) | children[i];
+                Arrays.sort(sorted, 0, to - from);
+                for (int i = from; i < to; i++) children[i] = (int)sorted[i - from];
+            }
+        }
+
+
+        int getNodesCount() {
+            return names.length;
+        }
+
+        String getName(int node) {
+            return names[node];
+        }
+
+        int getParent(int node) {
+            return node == ROOT ? -1 : parents[node];
+        }
+
+        int getDepth(int node) {
+            return depths[node];
+        }
+
+        int getMaxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * Returns true if the weights are CPU times in nanoseconds, false if
+         * they are numbers of samples.
+         */
+        boolean isCpuTimeWeighted() {
+            return cpuTimeWeighted;
+        }
+
+        long getSelfWeight(int node) {
+            return selfWeights[node];
+        }
+
+        long getTotalWeight(int node) {
+            return totalWeights[node];
+        }
+
+        int getChildrenCount(int node) {
+            return childrenOffsets[node + 1] - childrenOffsets[node];
+        }
+
+        int getChild(int node, int index) {
+            return children[childrenOffsets[node] + index];
+        }
+
+        /**
+         * Writes the tree in the collapsed stack format, one line per node
+         * with self weight: frames from the thread to the top frame separated
+         * by semicolons followed by the number of samples, or by the CPU time
+         * in microseconds.
+         */
+        void writeCollapsed(Writer writer) throws IOException {
+            int[] path = new int[maxDepth + 1];
+            int[] childIndexes = new int[maxDepth + 1];
+            int depth = 0;
+            path[0] = ROOT;
+            childIndexes[0] = 0;
+
+            while (depth >= 0) {
+                int node = path[depth];
+                int childIndex = childIndexes[depth]++;
+                long weight = cpuTimeWeighted ? selfWeights[node] / 1000 : selfWeights[node];
+                if (childIndex == 0 && node != ROOT && weight > 0) {
+                    for (int i = 1; i <= depth; i++) {
+                        if (i > 1) writer.write(';');
+                        writeFrame(writer, names[path[i]]);
+                    }
+                    writer.write(' ');
+                    writer.write(Long.toString(weight));
+                    writer.write('\n');
+                }
+                if (childIndex < getChildrenCount(node)) {
+                    depth++;
+                    path[depth] = getChild(node, childIndex);
+                    childIndexes[depth] = 0;
+                } else {
+                    depth--;
+                }
+            }
+            writer.flush();
+        }
+
+        private static void writeFrame(Writer writer, String name) throws IOException {
+            // Separators can only appear in thread names
+            if (name.indexOf(';') == -1 && name.indexOf('\n') == -1) {
+                writer.write(name);
+            } else {
+                writer.write(name.replace(';', '_').replace('\n', '_'));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.cpu;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JFileChooser;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.ToolTipManager;
+import javax.swing.UIManager;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Flame graph or icicle graph of the sampled call tree. Snapshots of the tree
+ * are created and sorted outside of the EDT, painting only visits frames wider
+ * than one pixel in the visible rows so that large trees can be displayed.
+ * Clicking a frame zooms into it, clicking the root or an ancestor zooms out.
+ *
+ * @author agent
+ */
+final class FlameGraphPanel extends JPanel {
+
+    private static final Logger LOGGER = Logger.getLogger(FlameGraphPanel.class.getName());
+
+    private static final String COLLAPSED_EXT = ".collapsed"; // NOI18N
+
+    private final FlameGraph flameGraph;
+    private final GraphComponent graph;
+
+    private volatile boolean snapshotPending;
+
+
+    FlameGraphPanel(FlameGraph flameGraph) {
+        super(new BorderLayout());
+        this.flameGraph = flameGraph;
+
+        graph = new GraphComponent();
+        JScrollPane scroll = new JScrollPane(graph,
+                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        scroll.setBorder(BorderFactory.createEmptyBorder());
+        scroll.setViewportBorder(BorderFactory.createEmptyBorder());
+        add(scroll, BorderLayout.CENTER);
+    }
+
+
+    /**
+     * Displays the tree with the root at the top (icicle) or at the bottom
+     * (flame graph).
+     */
+    void setIcicle(boolean icicle) {
+        graph.setIcicle(icicle);
+    }
+
+    /**
+     * Creates a new snapshot of the tree in a worker thread and displays it.
+     * Does nothing if the previous snapshot is still being created.
+     */
+    void refresh() {
+        if (snapshotPending) return;
+        snapshotPending = true;
+        RequestProcessor.getDefault().post(new Runnable() {
+            public void run() {
+                final FlameGraph.Snapshot snapshot;
+                try {
+                    snapshot = flameGraph.createSnapshot();
+                } finally {
+                    snapshotPending = false;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() { graph.setSnapshot(snapshot); }
+                });
+            }
+        });
+    }
+
+    /**
+     * Lets the user choose a file and exports the current tree into it in the
+     * collapsed stack format.
+     */
+    void exportCollapsed() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(NbBundle.getMessage(FlameGraphPanel.class,
+                               "CAPTION_Export_collapsed")); // NOI18N
+        chooser.setSelectedFile(new File("samples" + COLLAPSED_EXT)); // NOI18N
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        String filePath = chooser.getSelectedFile().getAbsolutePath();
+        if (!filePath.endsWith(COLLAPSED_EXT)) filePath += COLLAPSED_EXT;
+        final File file = new File(filePath);
+
+        RequestProcessor.getDefault().post(new Runnable() {
+            public void run() {
+                ProgressHandle pHandle = ProgressHandleFactory.createHandle(
+                        NbBundle.getMessage(FlameGraphPanel.class, "LBL_Exporting", // NOI18N
+                        file.getName()));
+                pHandle.setInitialDelay(0);
+                pHandle.start();
+                try {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(file), "UTF-8"), 64 * 1024); // NOI18N
+                    try {
+                        flameGraph.createSnapshot().writeCollapsed(writer);
+                    } finally {
+                        writer.close();
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.INFO, "Failed to export samples to " + file, e); // NOI18N
+                    DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message(
+                            NbBundle.getMessage(FlameGraphPanel.class, "MSG_Export_failed", // NOI18N
+                            file.getName()), NotifyDescriptor.ERROR_MESSAGE));
+                } finally {
+                    pHandle.finish();
+                }
+            }
+        });
+    }
+
+
+    private static final class GraphComponent extends JComponent implements Scrollable {
+
+        private static final Color ROOT_COLOR = new Color(200, 200, 200);
+        private static final Color THREAD_COLOR = new Color(180, 200, 230);
+        private static final Color ANCESTOR_COLOR = new Color(225, 225, 225);
+
+        private static final int TEXT_MARGIN = 3;
+
+        private final NumberFormat percentFormat = NumberFormat.getPercentInstance();
+
+        private FlameGraph.Snapshot snapshot;
+        private String zoomName;
+        private int zoomNode = FlameGraph.ROOT;
+        private boolean icicle;
+
+        private int rowHeight;
+
+        // Reused by paintComponent
+        private int[] nodes = new int[64];
+        private long[] positions = new long[64];
+
+
+        GraphComponent() {
+            setOpaque(true);
+            setBackground(UIManager.getColor("List.background")); // NOI18N
+            setFont(UIManager.getFont("Label.font")); // NOI18N
+            percentFormat.setMaximumFractionDigits(2);
+            ToolTipManager.sharedInstance().registerComponent(this);
+
+            addMouseListener(new MouseAdapter() {
+                public void mouseClicked(MouseEvent e) {
+                    if (!SwingUtilities.isLeftMouseButton(e)) return;
+                    int node = getNodeAt(e.getX(), e.getY());
+                    if (node == -1) return;
+                    zoomNode = node;
+                    zoomName = snapshot.getName(node);
+                    repaint();
+                }
+            });
+        }
+
+
+        void setSnapshot(FlameGraph.Snapshot snapshot) {
+            boolean first = this.snapshot == null;
+            this.snapshot = snapshot;
+            zoomNode = findZoomNode(snapshot);
+            revalidate();
+            repaint();
+            if (first) scrollToRoot();
+        }
+
+        void setIcicle(boolean icicle) {
+            if (this.icicle == icicle) return;
+            this.icicle = icicle;
+            repaint();
+            scrollToRoot();
+        }
+
+        private void scrollToRoot() {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    int y = icicle ? 0 : getHeight() - 1;
+                    scrollRectToVisible(new Rectangle(0, y, 1, 1));
+                }
+            });
+        }
+
+
+        public String getToolTipText(MouseEvent e) {
+            int node = getNodeAt(e.getX(), e.getY());
+            if (node == -1) return null;
+            long total = snapshot.getTotalWeight(FlameGraph.ROOT);
+            long weight = snapshot.getTotalWeight(node);
+            String percent = percentFormat.format(total == 0 ? 0 : (double)weight / total);
+            if (snapshot.isCpuTimeWeighted())
+                return NbBundle.getMessage(FlameGraphPanel.class, "LBL_Frame_tooltip_cpu", // NOI18N
+                        new Object[] { escape(snapshot.getName(node)), weight / 1000000,
+                        percent, snapshot.getSelfWeight(node) / 1000000 });
+            return NbBundle.getMessage(FlameGraphPanel.class, "LBL_Frame_tooltip", // NOI18N
+                    new Object[] { escape(snapshot.getName(node)), weight, percent,
+                    snapshot.getSelfWeight(node) });
+        }
+
+        public Dimension getPreferredSize() {
+            int rows = snapshot == null ? 0 : snapshot.getMaxDepth() + 1;
+            return new Dimension(1, rows * getRowHeight());
+        }
+
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (snapshot == null) return;
+
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            FontMetrics fm = g.getFontMetrics();
+            int width = getWidth();
+            int rowHeight = getRowHeight();
+
+            // Ancestors of the zoomed node span the whole width
+            for (int node = snapshot.getParent(zoomNode); node != -1; node = snapshot.getParent(node))
+                paintFrame(g, fm, node, 0, width, rowHeight, ANCESTOR_COLOR);
+
+            double scale = (double)width / Math.max(1, snapshot.getTotalWeight(zoomNode));
+
+            // Depth first traversal, positions are weights from the left edge
+            int count = 0;
+            push(count++, zoomNode, 0);
+            while (count > 0) {
+                count--;
+                int node = nodes[count];
+                long position = positions[count];
+
+                int x = (int)(position * scale);
+                int w = (int)((position + snapshot.getTotalWeight(node)) * scale) - x;
+                if (w < 1) continue; // children are even narrower
+
+                int y = getRowY(snapshot.getDepth(node), rowHeight);
+                if (y <= clip.y + clip.height && y + rowHeight >= clip.y)
+                    paintFrame(g, fm, node, x, w, rowHeight, null);
+                // Children are painted above (flame graph) or below (icicle) the node
+                if (icicle ? y > clip.y + clip.height : y + rowHeight < clip.y) continue;
+
+                long childPosition = position;
+                int childrenCount = snapshot.getChildrenCount(node);
+                for (int i = 0; i < childrenCount; i++) {
+                    int child = snapshot.getChild(node, i);
+                    push(count++, child, childPosition);
+                    childPosition += snapshot.getTotalWeight(child);
+                }
+            }
+        }
+
+        private void push(int index, int node, long position) {
+            if (index == nodes.length) {
+                nodes = Arrays.copyOf(nodes, index * 2);
+                positions = Arrays.copyOf(positions, index * 2);
+            }
+            nodes[index] = node;
+            positions[index] = position;
+        }
+
+        private void paintFrame(Graphics g, FontMetrics fm, int node, int x, int w,
+                                int rowHeight, Color color) {
+            int y = getRowY(snapshot.getDepth(node), rowHeight);
+            g.setColor(color != null ? color : getColor(node));
+            g.fillRect(x, y, w, rowHeight - 1);
+            if (w > 2) {
+                g.setColor(getBackground());
+                g.drawLine(x + w - 1, y, x + w - 1, y + rowHeight - 2);
+            }
+
+            if (w < fm.charWidth('m') * 3 + TEXT_MARGIN * 2) return;
+            String name = snapshot.getName(node);
+            Graphics gg = g.create(x + TEXT_MARGIN, y, w - TEXT_MARGIN * 2, rowHeight);
+            gg.setColor(Color.BLACK);
+            gg.drawString(name, 0, (rowHeight - fm.getHeight()) / 2 + fm.getAscent());
+            gg.dispose();
+        }
+
+        private Color getColor(int node) {
+            if (node == FlameGraph.ROOT) return ROOT_COLOR;
+            if (snapshot.getParent(node) == FlameGraph.ROOT) return THREAD_COLOR;
+            // Stable warm colors derived from the frame name
+            int hash = snapshot.getName(node).hashCode();
+            int r = 205 + (hash & 0x3F) % 50;
+            int gr = 80 + ((hash >>> 8) & 0xFF) % 150;
+            int b = 50 + ((hash >>> 16) & 0xFF) % 40;
+            return new Color(r, gr, b);
+        }
+
+        private int getNodeAt(int x, int y) {
+            if (snapshot == null) return -1;
+            int rowHeight = getRowHeight();
+            int row = icicle ? y / rowHeight : (getHeight() - 1 - y) / rowHeight;
+            if (row < 0 || row > snapshot.getMaxDepth()) return -1;
+
+            int zoomDepth = snapshot.getDepth(zoomNode);
+            if (row <= zoomDepth) {
+                int node = zoomNode;
+                while (snapshot.getDepth(node) > row) node = snapshot.getParent(node);
+                return node;
+            }
+
+            double scale = (double)getWidth() / Math.max(1, snapshot.getTotalWeight(zoomNode));
+            double weightX = x / scale;
+            int node = zoomNode;
+            long position = 0;
+            for (int depth = zoomDepth; depth < row; depth++) {
+                int childrenCount = snapshot.getChildrenCount(node);
+                int child = -1;
+                for (int i = 0; i < childrenCount; i++) {
+                    int candidate = snapshot.getChild(node, i);
+                    long total = snapshot.getTotalWeight(candidate);
+                    if (weightX < position + total) {
+                        child = candidate;
+                        break;
+                    }
+                    position += total;
+                }
+                if (child == -1) return -1;
+                node = child;
+            }
+            return node;
+        }
+
+        private int findZoomNode(FlameGraph.Snapshot snapshot) {
+            // Node ids are stable between snapshots, names are checked to be sure
+            if (zoomName == null || zoomNode >= snapshot.getNodesCount() ||
+                !zoomName.equals(snapshot.getName(zoomNode))) {
+                zoomName = null;
+                return FlameGraph.ROOT;
+            }
+            return zoomNode;
+        }
+
+        private int getRowY(int depth, int rowHeight) {
+            return icicle ? depth * rowHeight : getHeight() - (depth + 1) * rowHeight;
+        }
+
+        private int getRowHeight() {
+            if (rowHeight == 0) rowHeight = getFontMetrics(getFont()).getHeight() + 4;
+            return rowHeight;
+        }
+
+        private static String escape(String text) {
+            return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"); // NOI18N
+        }
+
+
+        public Dimension getPreferredScrollableViewportSize() {
+            return getPreferredSize();
+        }
+
+        public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+            return getRowHeight();
+        }
+
+        public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+            return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        }
+
+        public boolean getScrollableTracksViewportWidth() {
+            return true;
+        }
+
+        public boolean getScrollableTracksViewportHeight() {
+            // Fill the viewport if the graph is smaller
+            return getParent() instanceof JViewport &&
+                   getParent().getHeight() > getPreferredSize().height;
+        }
+
+    }
+
+}
@@ -25,7 +25,6 @@
 package com.sun.tools.visualvm.sampler.cpu;
 
 import org.netbeans.lib.profiler.results.cpu.FlatProfileContainer;
-import org.netbeans.lib.profiler.results.cpu.MethodInfoMapper;
 import org.netbeans.lib.profiler.utils.formatting.MethodNameFormatter;
 import org.netbeans.lib.profiler.utils.formatting.MethodNameFormatterFactory;
 
@@ -39,7 +38,8 @@ final class FlatProfilerContainer extends FlatProfileContainer {
 
     protected double wholeGraphNetTime0;
     protected double wholeGraphNetTime1;
-    private MethodInfoMapper methodInfoMapper;
+    private String[] classNames;
+    private String[] methodNames;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
@@ -48,6 +48,8 @@ final class FlatProfilerContainer extends FlatProfileContainer {
      * is equal to the number of currently instrumented methods, but in general not all of the methods may be invoked even
      * once at an arbitrary moment.
      *
+     * @param classNames         Array of class names for each method
+     * @param methodNames        Array of method names for each method
      * @param timeInMcs0         Array of Absolute timer values for each method - always used
      * @param timeInMcs1         Array of CPU timer values for each method - optional, may be null
      * @param totalTimeInMcs0   Array of Absolute timer (total time) values for each method - always used
@@ -57,7 +59,7 @@ final class FlatProfilerContainer extends FlatProfileContainer {
      * @param wholeGraphNetTime1 Total CPU time - not used if CPU timer is not used
      * @param nMethods           Total number of profiled methods - length of the provided arrays
      */
-    FlatProfilerContainer(MethodInfoMapper mapper,boolean twoStamps,long[] timeInMcs0, long[] timeInMcs1, 
+    FlatProfilerContainer(String[] classNames, String[] methodNames, boolean twoStamps,long[] timeInMcs0, long[] timeInMcs1, 
                                     long[] totalTimeInMcs0, long[] totalTimeInMcs1,int[] nInvocations,
                                     char[] marks, double wholeGraphNetTime0, double wholeGraphNetTime1, int nMethods) {
         super(timeInMcs0, timeInMcs1, totalTimeInMcs0, totalTimeInMcs1, nInvocations, marks, nMethods);
@@ -65,7 +67,8 @@ final class FlatProfilerContainer extends FlatProfileContainer {
         this.wholeGraphNetTime1 = wholeGraphNetTime1;
 
         collectingTwoTimeStamps = twoStamps;
-        methodInfoMapper = mapper;
+        this.classNames = classNames;
+        this.methodNames = methodNames;
 
         // Now get rid of zero-invocation entries once and forever. Also set nTotalInvocations and set negative times
         // (that may be possible due to time cleansing inaccuracies) to zero.
@@ -78,11 +81,8 @@ final class FlatProfilerContainer extends FlatProfileContainer {
         int methodId = methodIds[row];
         MethodNameFormatter formatter = MethodNameFormatterFactory.getDefault().getFormatter(null);
 
-        String className = methodInfoMapper.getInstrMethodClass(methodId);
-        String methodName = methodInfoMapper.getInstrMethodName(methodId);
-        String signature = methodInfoMapper.getInstrMethodSignature(methodId);
-
-        return formatter.formatMethodName(className, methodName, signature).toFormatted();
+        // Sampled frames carry no signatures
+        return formatter.formatMethodName(classNames[methodId], methodNames[methodId], "").toFormatted(); // NOI18N
     }
 
     public double getWholeGraphNetTime0() {
@@ -0,0 +1,614 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.cpu;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.management.ObjectName;
+import javax.management.openmbean.ArrayType;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import org.netbeans.lib.profiler.global.InstrumentationFilter;
+import org.netbeans.lib.profiler.results.cpu.CPUResultsSnapshot.NoDataAvailableException;
+import org.netbeans.lib.profiler.results.cpu.StackTraceSnapshotBuilder;
+import org.netbeans.modules.profiler.LoadedSnapshot;
+
+/**
+ * Append-only log of CPU samples. Each distinct method, stack and thread is
+ * written only once, samples refer to them by ids. Records are collected into
+ * blocks, each block is compressed separately and appended to the file, a log
+ * of a crashed or killed session is readable up to the last complete block.
+ * Any time range of the log can be converted into a .nps snapshot.
+ *
+ * File layout:
+ * <pre>
+ * int    magic
+ * int    version
+ * long   start time (ms)
+ * int    instrumentation filter type
+ * UTF    instrumentation filter strings
+ * block* int compressed length, int length, deflated records
+ * </pre>
+ *
+ * The log can be flushed and closed from any thread, samples are added from
+ * the sampling thread only.
+ *
+ * A log created in memory keeps the compressed blocks in a byte array, it is
+ * used to create snapshots of live sessions not logged to a file.
+ *
+ * Only the most recent logs of an application are kept, older logs are deleted
+ * when a new log is created. The number of logs and their total size can be
+ * configured by the com.sun.tools.visualvm.sampler.cpu.SampleLog.maxLogs and
+ * com.sun.tools.visualvm.sampler.cpu.SampleLog.maxSize (MB) properties.
+ *
+ * @author agent
+ */
+final class SampleLog {
+
+    static final String FILE_PREFIX = "cpusamples-"; // NOI18N
+    static final String FILE_EXT = ".log"; // NOI18N
+
+    private static final int MAGIC = 0x4E50534C; // NOI18N
+    private static final int VERSION = 1;
+
+    private static final int RECORD_METHOD = 1;
+    private static final int RECORD_STACK = 2;
+    private static final int RECORD_THREAD = 3;
+    private static final int RECORD_SAMPLE = 4;
+
+    private static final int MAX_LOGS = Integer.getInteger(
+            "com.sun.tools.visualvm.sampler.cpu.SampleLog.maxLogs", 5); // NOI18N
+    private static final long MAX_SIZE = Integer.getInteger(
+            "com.sun.tools.visualvm.sampler.cpu.SampleLog.maxSize", 1024) * 1024L * 1024L; // NOI18N
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+    // Blocks are written when reaching BLOCK_SIZE, only new stacks of a single
+    // sample can make them longer
+    private static final int MAX_BLOCK_LENGTH = 256 * BLOCK_SIZE;
+    private static final long BLOCK_TIME = 5000000000L; // ns
+
+    private static final Thread.State[] STATES = Thread.State.values();
+
+    // Logs of running sessions, never deleted by deleteOldLogs()
+    private static final Set<File> ACTIVE_LOGS = new HashSet();
+
+    private final File file; // null for a log in memory
+    private final MemoryOutput memory; // null for a log in a file
+    private final SampledStacks stacks;
+    private final long startTime;
+
+    private DataOutputStream output;
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE + 4096);
+    private final DataOutputStream records = new DataOutputStream(block);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] compressed = new byte[BLOCK_SIZE];
+
+    private int methodsWritten;
+    private int stacksWritten;
+    private int threadsWritten;
+    private final long startNanos;
+    private long blockNanos;
+
+
+    private SampleLog(File file, MemoryOutput memory, SampledStacks stacks,
+                      int filterType, String filterStrings) throws IOException {
+        this.file = file;
+        this.memory = memory;
+        this.stacks = stacks;
+        startTime = System.currentTimeMillis();
+        startNanos = System.nanoTime();
+        blockNanos = startNanos;
+
+        // Compressed blocks are written at once, the buffer merges block headers
+        output = new DataOutputStream(file == null ? memory :
+                 new BufferedOutputStream(new FileOutputStream(file)));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(startTime);
+        output.writeInt(filterType);
+        output.writeUTF(filterStrings);
+        output.flush();
+    }
+
+    /**
+     * Creates a new log in the directory, the samples interned by the stacks
+     * are going to be logged. Filter type and strings are those of the
+     * InstrumentationFilter used by the session.
+     */
+    static SampleLog create(File directory, SampledStacks stacks, int filterType,
+                            String filterStrings) throws IOException {
+        synchronized (ACTIVE_LOGS) {
+            deleteOldLogs(directory);
+            File file = new File(directory, FILE_PREFIX + System.currentTimeMillis() + FILE_EXT);
+            SampleLog log = new SampleLog(file, null, stacks, filterType, filterStrings);
+            ACTIVE_LOGS.add(file);
+            return log;
+        }
+    }
+
+    /**
+     * Creates a new log in memory, the samples interned by the stacks are going
+     * to be logged.
+     */
+    static SampleLog createInMemory(SampledStacks stacks, int filterType,
+                                    String filterStrings) {
+        try {
+            return new SampleLog(null, new MemoryOutput(), stacks, filterType, filterStrings);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown by MemoryOutput
+        }
+    }
+
+    /**
+     * Deletes the oldest logs in the directory, leaves space for a new log
+     * within the configured number of logs and their total size. Logs of
+     * running sessions are not deleted.
+     */
+    private static void deleteOldLogs(File directory) {
+        File[] logs = directory.listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                String name = file.getName();
+                return file.isFile() && name.startsWith(FILE_PREFIX) && name.endsWith(FILE_EXT);
+            }
+        });
+        if (logs == null) return;
+
+        final Map<File, Long> modified = new HashMap();
+        for (File log : logs) modified.put(log, log.lastModified());
+        Arrays.sort(logs, new Comparator<File>() {
+            public int compare(File f1, File f2) {
+                long m1 = modified.get(f1);
+                long m2 = modified.get(f2);
+                return m1 > m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+
+        long size = 0;
+        for (int i = 0; i < logs.length; i++) {
+            size += logs[i].length();
+            if ((i >= MAX_LOGS - 1 || size > MAX_SIZE) && !ACTIVE_LOGS.contains(logs[i]))
+                logs[i].delete();
+        }
+    }
+
+
+    /**
+     * Returns the log file or null for a log in memory.
+     */
+    File getFile() {
+        return file;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    synchronized void addSample(SampledStacks.Sample sample) throws IOException {
+        if (output == null) throw new IOException("Log closed"); // NOI18N
+
+        long timestamp = sample.getTimestamp();
+        writeDictionary();
+
+        records.writeByte(RECORD_SAMPLE);
+        writeVarLong(records, Math.max(0, timestamp - startNanos));
+        int threadsCount = sample.getThreadsCount();
+        writeVarLong(records, threadsCount);
+        for (int i = 0; i < threadsCount; i++) {
+            writeVarLong(records, sample.getThread(i).getIndex());
+            records.writeByte(sample.getState(i).ordinal());
+            writeVarLong(records, sample.getStackId(i));
+        }
+
+        if (block.size() >= BLOCK_SIZE || timestamp - blockNanos >= BLOCK_TIME) {
+            writeBlock();
+            blockNanos = timestamp;
+        }
+    }
+
+    /**
+     * Writes the samples collected so far, the log can be read up to the last
+     * sample added.
+     */
+    synchronized void flush() throws IOException {
+        if (output == null) return;
+        writeBlock();
+        blockNanos = System.nanoTime();
+    }
+
+    synchronized void close() throws IOException {
+        if (output == null) return;
+        try {
+            writeBlock();
+        } finally {
+            synchronized (ACTIVE_LOGS) {
+                ACTIVE_LOGS.remove(file);
+            }
+            output.close();
+            output = null;
+            deflater.end();
+        }
+    }
+
+
+    private void writeDictionary() throws IOException {
+        StackTraceDictionary dictionary = stacks.getDictionary();
+
+        int methodsCount = dictionary.getMethodsCount();
+        for (; methodsWritten < methodsCount; methodsWritten++) {
+            records.writeByte(RECORD_METHOD);
+            records.writeUTF(dictionary.getClassName(methodsWritten));
+            records.writeUTF(dictionary.getMethodName(methodsWritten));
+        }
+
+        int stacksCount = dictionary.getStacksCount();
+        for (; stacksWritten < stacksCount; stacksWritten++) {
+            int[] stack = dictionary.getStack(stacksWritten);
+            records.writeByte(RECORD_STACK);
+            writeVarLong(records, stack.length);
+            for (int methodId : stack) writeVarLong(records, methodId);
+        }
+
+        List<SampledStacks.ThreadStacks> threads = stacks.getThreads();
+        int threadsCount = threads.size();
+        for (; threadsWritten < threadsCount; threadsWritten++) {
+            SampledStacks.ThreadStacks thread = threads.get(threadsWritten);
+            records.writeByte(RECORD_THREAD);
+            records.writeLong(thread.getThreadId());
+            records.writeUTF(thread.getThreadName());
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        int length = block.size();
+        if (length == 0) return;
+
+        byte[] data = block.toByteArray();
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length)
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            compressedLength += deflater.deflate(compressed, compressedLength,
+                                                 compressed.length - compressedLength);
+        }
+
+        output.writeInt(compressedLength);
+        output.writeInt(length);
+        output.write(compressed, 0, compressedLength);
+        output.flush(); // a log of a crashed session is readable up to this block
+
+        block.reset();
+    }
+
+
+    public String toString() {
+        return file != null ? file.getPath() : "samples log in memory"; // NOI18N
+    }
+
+
+    // --- Conversion ----------------------------------------------------------
+
+    /**
+     * Creates a .nps snapshot from samples of this log taken between startTime
+     * and endTime (ms, inclusive), including samples of a running session.
+     * The snapshot is saved into the directory.
+     */
+    LoadedSnapshot createSnapshot(long startTime, long endTime, File directory)
+            throws IOException, NoDataAvailableException {
+        InputStream is;
+        synchronized (this) {
+            flush();
+            // Blocks are only appended, the stream reads those written so far
+            is = memory != null ? memory.getInputStream() :
+                 new BufferedInputStream(new FileInputStream(file));
+        }
+        return createSnapshot(is, startTime, endTime, directory);
+    }
+
+    private static LoadedSnapshot createSnapshot(InputStream is, long startTime, long endTime,
+                                                 File directory) throws IOException,
+                                                 NoDataAvailableException {
+        try {
+            DataInputStream dis = new DataInputStream(is);
+            if (dis.readInt() != MAGIC)
+                throw new IOException("Unknown samples log format"); // NOI18N
+            if (dis.readInt() != VERSION)
+                throw new IOException("Unsupported samples log version"); // NOI18N
+            long logStartTime = dis.readLong();
+
+            InstrumentationFilter filter = new InstrumentationFilter();
+            filter.setFilterType(dis.readInt());
+            filter.setFilterStrings(dis.readUTF());
+            StackTraceSnapshotBuilder builder = new StackTraceSnapshotBuilder(1, filter);
+
+            long startNanos = (startTime - logStartTime) * 1000000;
+            long endNanos = endTime - logStartTime >= Long.MAX_VALUE / 1000000 ?
+                            Long.MAX_VALUE : (endTime - logStartTime) * 1000000 + 999999;
+
+            LogReader reader = new LogReader(builder, startNanos, endNanos);
+            Inflater inflater = new Inflater();
+            try {
+                byte[] data = new byte[BLOCK_SIZE];
+                byte[] compressedData = new byte[BLOCK_SIZE];
+                while (true) {
+                    int compressedLength;
+                    int length;
+                    try {
+                        compressedLength = dis.readInt();
+                        length = dis.readInt();
+                    } catch (EOFException e) {
+                        break; // end of the log or an incomplete block header
+                    }
+                    if (compressedLength <= 0 || compressedLength > MAX_BLOCK_LENGTH ||
+                        length <= 0 || length > MAX_BLOCK_LENGTH)
+                        throw new IOException("Corrupted samples log"); // NOI18N
+                    if (compressedData.length < compressedLength)
+                        compressedData = new byte[compressedLength];
+                    if (data.length < length) data = new byte[length];
+                    try {
+                        dis.readFully(compressedData, 0, compressedLength);
+                    } catch (EOFException e) {
+                        break; // incomplete last block of a crashed session
+                    }
+
+                    inflater.reset();
+                    inflater.setInput(compressedData, 0, compressedLength);
+                    try {
+                        if (inflater.inflate(data, 0, length) != length)
+                            throw new IOException("Corrupted samples log"); // NOI18N
+                    } catch (DataFormatException e) {
+                        throw new IOException("Corrupted samples log", e); // NOI18N
+                    }
+
+                    if (!reader.readBlock(data, length)) break;
+                }
+            } finally {
+                inflater.end();
+            }
+
+            return CPUSamplerSupport.SnapshotDumper.saveNPSSnapshot(builder, directory);
+        } finally {
+            is.close();
+        }
+    }
+
+    private static final class LogReader {
+
+        private final StackTraceSnapshotBuilder builder;
+        private final long startNanos;
+        private final long endNanos;
+        private final ThreadInfoFactory factory;
+
+        private final List<StackTraceElement> methods = new ArrayList();
+        private final List<StackTraceElement[]> stacks = new ArrayList();
+        private final List<Object[]> threads = new ArrayList();
+
+        // Thread infos are immutable, shared by samples of the same thread, stack and state
+        private final Map<Long, ThreadInfo> threadInfos = new HashMap();
+
+
+
+        LogReader(StackTraceSnapshotBuilder builder, long startNanos, long endNanos)
+                throws IOException {
+            this.builder = builder;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            factory = new ThreadInfoFactory();
+        }
+
+
+        /**
+         * Reads records of the block, returns false if the end of the requested
+         * time range has been reached.
+         */
+        boolean readBlock(byte[] data, int length) throws IOException {
+            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data, 0, length));
+            while (dis.available() > 0) {
+                int record = dis.readByte();
+                switch (record) {
+                    case RECORD_METHOD:
+                        methods.add(new StackTraceElement(dis.readUTF(), dis.readUTF(), null, -1));
+                        break;
+                    case RECORD_STACK:
+                        StackTraceElement[] stack = new StackTraceElement[(int)readVarLong(dis)];
+                        for (int i = 0; i < stack.length; i++)
+                            stack[i] = methods.get((int)readVarLong(dis));
+                        stacks.add(stack);
+                        break;
+                    case RECORD_THREAD:
+                        threads.add(new Object[] { dis.readLong(), dis.readUTF() });
+                        break;
+                    case RECORD_SAMPLE:
+                        long timestamp = readVarLong(dis);
+                        if (timestamp > endNanos) return false;
+                        int threadsCount = (int)readVarLong(dis);
+                        ThreadInfo[] infos = new ThreadInfo[threadsCount];
+                        for (int i = 0; i < threadsCount; i++) {
+                            int threadIndex = (int)readVarLong(dis);
+                            int state = dis.readByte();
+                            int stackId = (int)readVarLong(dis);
+                            infos[i] = getThreadInfo(threadIndex, state, stackId);
+                        }
+                        if (timestamp >= startNanos) builder.addStacktrace(infos, timestamp);
+                        break;
+                    default:
+                        throw new IOException("Corrupted samples log"); // NOI18N
+                }
+            }
+            return true;
+        }
+
+        private ThreadInfo getThreadInfo(int threadIndex, int state, int stackId)
+                throws IOException {
+            Long key = ((long)threadIndex << 36) | ((long)state << 32) | stackId;
+            ThreadInfo info = threadInfos.get(key);
+            if (info == null) {
+                Object[] thread = threads.get(threadIndex);
+                info = factory.createThreadInfo((Long)thread[0], (String)thread[1],
+                                                STATES[state], stacks.get(stackId));
+                threadInfos.put(key, info);
+            }
+            return info;
+        }
+
+    }
+
+
+    /**
+     * Creates ThreadInfo instances from the logged data. Uses the CompositeData
+     * types of the running JVM, works for any ThreadInfo version.
+     */
+    private static final class ThreadInfoFactory {
+
+        private final CompositeType threadInfoType;
+        private final CompositeType stackTraceElementType;
+
+
+        ThreadInfoFactory() throws IOException {
+            try {
+                ObjectName threadName = new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME);
+                CompositeData data = (CompositeData)ManagementFactory.getPlatformMBeanServer().
+                        invoke(threadName, "getThreadInfo", // NOI18N
+                               new Object[] { Thread.currentThread().getId(), 1 },
+                               new String[] { "long", "int" }); // NOI18N
+                threadInfoType = data.getCompositeType();
+                ArrayType stackTraceType = (ArrayType)threadInfoType.getType("stackTrace"); // NOI18N
+                stackTraceElementType = (CompositeType)stackTraceType.getElementOpenType();
+            } catch (Exception e) {
+                throw new IOException("Cannot create thread infos", e); // NOI18N
+            }
+        }
+
+
+        ThreadInfo createThreadInfo(long threadId, String threadName,
+                                    Thread.State state, StackTraceElement[] stack)
+                                    throws IOException {
+            try {
+                CompositeData[] stackTrace = new CompositeData[stack.length];
+                for (int i = 0; i < stack.length; i++) {
+                    Map<String, Object> values = defaultValues(stackTraceElementType);
+                    values.put("className", stack[i].getClassName()); // NOI18N
+                    values.put("methodName", stack[i].getMethodName()); // NOI18N
+                    values.put("lineNumber", stack[i].getLineNumber()); // NOI18N
+                    stackTrace[i] = new CompositeDataSupport(stackTraceElementType, values);
+                }
+
+                Map<String, Object> values = defaultValues(threadInfoType);
+                values.put("threadId", threadId); // NOI18N
+                values.put("threadName", threadName); // NOI18N
+                values.put("threadState", state.name()); // NOI18N
+                values.put("lockOwnerId", -1L); // NOI18N
+                values.put("stackTrace", stackTrace); // NOI18N
+                return ThreadInfo.from(new CompositeDataSupport(threadInfoType, values));
+            } catch (OpenDataException e) {
+                throw new IOException("Cannot create thread info", e); // NOI18N
+            }
+        }
+
+        private static Map<String, Object> defaultValues(CompositeType type) {
+            Map<String, Object> values = new HashMap();
+            for (String key : type.keySet()) {
+                OpenType itemType = type.getType(key);
+                Object value = null;
+                if (SimpleType.BOOLEAN.equals(itemType)) value = Boolean.FALSE;
+                else if (SimpleType.LONG.equals(itemType)) value = Long.valueOf(0);
+                else if (SimpleType.INTEGER.equals(itemType)) value = Integer.valueOf(0);
+                else if (itemType instanceof ArrayType) value = new CompositeData[0];
+                values.put(key, value);
+            }
+            return values;
+        }
+
+    }
+
+
+    private static final class MemoryOutput extends ByteArrayOutputStream {
+
+        MemoryOutput() {
+            super(BLOCK_SIZE);
+        }
+
+        // Bytes below count are never modified, a grown buffer is a new array
+        synchronized InputStream getInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+    }
+
+
+    // --- Encoding ------------------------------------------------------------
+
+    private static void writeVarLong(DataOutputStream dos, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            dos.writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        dos.writeByte((int)value);
+    }
+
+    private static long readVarLong(DataInputStream dis) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = dis.readByte();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+}
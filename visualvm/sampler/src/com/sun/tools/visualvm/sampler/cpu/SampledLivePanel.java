@@ -26,12 +26,8 @@ package com.sun.tools.visualvm.sampler.cpu;
 
 import javax.swing.SwingUtilities;
 import javax.swing.table.TableColumnModel;
-import org.netbeans.lib.profiler.global.InstrumentationFilter;
 import org.netbeans.lib.profiler.results.cpu.CPUResultsSnapshot;
 import org.netbeans.lib.profiler.results.cpu.FlatProfileProvider;
-import org.netbeans.lib.profiler.results.cpu.MethodInfoMapper;
-import org.netbeans.lib.profiler.results.cpu.StackTraceSnapshotBuilder;
-import org.netbeans.lib.profiler.results.cpu.cct.nodes.RuntimeCPUCCTNode;
 import org.netbeans.lib.profiler.ui.cpu.CPUResUserActionsHandler;
 import org.netbeans.lib.profiler.ui.cpu.LiveFlatProfileCollectorPanel;
 
@@ -40,31 +36,33 @@ import org.netbeans.lib.profiler.ui.cpu.LiveFlatProfileCollectorPanel;
  * @author Tomas Hurka
  */
 final class SampledLivePanel extends LiveFlatProfileCollectorPanel {
-    private MethodInfoMapper methodInfoMapper;
-    private StackTraceSnapshotBuilder snapshotBuilder;
+    private SlidingFlatProfile slidingProfile;
     
-    public SampledLivePanel(StackTraceSnapshotBuilder builder) {
+    public SampledLivePanel(SlidingFlatProfile profile) {
         super(null,new DummyHandler(),null,true);
-        methodInfoMapper = builder.getMapper();
-        snapshotBuilder = builder;
+        slidingProfile = profile;
+    }
+
+    /**
+     * Displays results of the last window seconds, WINDOW_UNLIMITED displays
+     * results collected since the session started.
+     */
+    void setWindow(int window) {
+        slidingProfile.setWindow(window);
     }
     
     public FlatProfileProvider getFlatProfileProvider() {
-        InstrumentationFilter filter = snapshotBuilder.getFilter();
-        boolean twoTimeStamps = snapshotBuilder.collectionTwoTimeStamps();
-        CCTFlattener flattener = new CCTFlattener(twoTimeStamps,methodInfoMapper,filter);
-        RuntimeCPUCCTNode rootNode = (RuntimeCPUCCTNode) snapshotBuilder.getAppRootNode();
-        return new FlatProfileBuilder(rootNode, flattener);
+        // Maintained incrementally by the sampler, the call tree isn't flattened
+        return slidingProfile;
     }
 
     protected String[] getMethodClassNameAndSig(int methodId, int currentView) {
-        String className = methodInfoMapper.getInstrMethodClass(methodId);
+        String className = slidingProfile.getClassName(methodId);
 
         if (currentView == CPUResultsSnapshot.METHOD_LEVEL_VIEW) {
-            String methodName = methodInfoMapper.getInstrMethodName(methodId);
-            String methodSig = methodInfoMapper.getInstrMethodSignature(methodId);
+            String methodName = slidingProfile.getMethodName(methodId);
 
-            return new String[] { className, methodName, methodSig };
+            return new String[] { className, methodName, "" }; // NOI18N
         }
 
         return new String[] { className, null, null };
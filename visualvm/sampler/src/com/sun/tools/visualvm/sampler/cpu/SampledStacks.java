@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.cpu;
+
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated stack samples of a CPU sampling session. Each sampled stack is
+ * interned in a StackTraceDictionary, each thread keeps just the number of
+ * samples per unique (stack, thread state) pair.
+ *
+ * Not thread safe, access must be synchronized by the caller.
+ *
+ * @author agent
+ */
+final class SampledStacks {
+
+    private static final Thread.State[] STATES = Thread.State.values();
+
+    private final StackTraceDictionary dictionary = new StackTraceDictionary();
+    private final Map<Long, ThreadStacks> threads = new HashMap();
+    private final List<ThreadStacks> threadsList = new ArrayList();
+
+    private final Sample sample = new Sample();
+
+    private int samplesCount;
+    private long firstTimestamp = -1;
+    private long lastTimestamp = -1;
+
+
+    /**
+     * Adds a sample, returns the interned sample. The returned instance is
+     * reused and is only valid until the next invocation of this method.
+     */
+    Sample addSample(ThreadInfo[] infos, long timestamp) {
+        return addSample(infos, null, timestamp);
+    }
+
+    /**
+     * Adds a sample with CPU times of the threads, cpuTimes[i] is the CPU time
+     * in nanoseconds of the thread of infos[i] or -1 if not known.
+     */
+    Sample addSample(ThreadInfo[] infos, long[] cpuTimes, long timestamp) {
+        sample.reset(infos.length, timestamp);
+        for (int i = 0; i < infos.length; i++) {
+            ThreadInfo info = infos[i];
+            if (info == null) continue; // thread terminated
+            ThreadStacks thread = threads.get(info.getThreadId());
+            if (thread == null) {
+                thread = new ThreadStacks(threadsList.size(), info.getThreadId(),
+                                          info.getThreadName());
+                threads.put(info.getThreadId(), thread);
+                threadsList.add(thread);
+            }
+            int stackId = dictionary.getStackId(info.getStackTrace());
+            Thread.State state = info.getThreadState();
+            long cpuTime = cpuTimes == null ? -1 : cpuTimes[i];
+            sample.add(thread, stackId, thread.lastStackId, state, thread.lastState,
+                       thread.getCpuTimeDelta(cpuTime));
+            thread.addSample(stackId, state);
+        }
+
+        if (firstTimestamp == -1) firstTimestamp = timestamp;
+        lastTimestamp = timestamp;
+        samplesCount++;
+
+        return sample;
+    }
+
+    StackTraceDictionary getDictionary() {
+        return dictionary;
+    }
+
+    List<ThreadStacks> getThreads() {
+        return threadsList;
+    }
+
+    int getSamplesCount() {
+        return samplesCount;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+
+    /**
+     * Stacks of all threads captured at one moment.
+     */
+    static final class Sample {
+
+        private long timestamp;
+        private int threadsCount;
+        private ThreadStacks[] threads = new ThreadStacks[0];
+        private int[] stackIds = new int[0];
+        private int[] previousStackIds = new int[0];
+        private Thread.State[] states = new Thread.State[0];
+        private Thread.State[] previousStates = new Thread.State[0];
+        private long[] cpuTimes = new long[0];
+
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        int getThreadsCount() {
+            return threadsCount;
+        }
+
+        ThreadStacks getThread(int index) {
+            return threads[index];
+        }
+
+        int getStackId(int index) {
+            return stackIds[index];
+        }
+
+        /**
+         * Returns id of the stack of the thread in the previous sample or -1
+         * for a new thread.
+         */
+        int getPreviousStackId(int index) {
+            return previousStackIds[index];
+        }
+
+        Thread.State getState(int index) {
+            return states[index];
+        }
+
+        /**
+         * Returns state of the thread in the previous sample or null for a new
+         * thread.
+         */
+        Thread.State getPreviousState(int index) {
+            return previousStates[index];
+        }
+
+        /**
+         * Returns CPU time in nanoseconds consumed by the thread since its
+         * previous sample, 0 for a new thread, or -1 if not measured.
+         */
+        long getCpuTime(int index) {
+            return cpuTimes[index];
+        }
+
+
+        private void reset(int capacity, long timestamp) {
+            this.timestamp = timestamp;
+            threadsCount = 0;
+            if (stackIds.length < capacity) {
+                threads = new ThreadStacks[capacity];
+                stackIds = new int[capacity];
+                previousStackIds = new int[capacity];
+                states = new Thread.State[capacity];
+                previousStates = new Thread.State[capacity];
+                cpuTimes = new long[capacity];
+            }
+        }
+
+        private void add(ThreadStacks thread, int stackId, int previousStackId,
+                         Thread.State state, Thread.State previousState, long cpuTime) {
+            threads[threadsCount] = thread;
+            stackIds[threadsCount] = stackId;
+            previousStackIds[threadsCount] = previousStackId;
+            states[threadsCount] = state;
+            previousStates[threadsCount] = previousState;
+            cpuTimes[threadsCount] = cpuTime;
+            threadsCount++;
+        }
+
+    }
+
+
+    static interface StackVisitor {
+
+        void visitStack(int stackId, Thread.State state, int samples);
+
+    }
+
+
+    static final class ThreadStacks {
+
+        private final int index;
+        private final long threadId;
+        private final String threadName;
+
+        // Open addressing table, key is stackId * STATES.length + state + 1
+        private int[] keys = new int[16];
+        private int[] samples = new int[16];
+        private int entriesCount;
+
+        private int lastStackId = -1;
+        private Thread.State lastState;
+        private long lastCpuTime = -1;
+
+
+        private ThreadStacks(int index, long threadId, String threadName) {
+            this.index = index;
+            this.threadId = threadId;
+            this.threadName = threadName;
+        }
+
+
+        /**
+         * Returns index of the thread in SampledStacks.getThreads().
+         */
+        int getIndex() {
+            return index;
+        }
+
+        long getThreadId() {
+            return threadId;
+        }
+
+        String getThreadName() {
+            return threadName;
+        }
+
+        void visitStacks(StackVisitor visitor) {
+            for (int i = 0; i < keys.length; i++) {
+                int key = keys[i] - 1;
+                if (key == -1) continue;
+                visitor.visitStack(key / STATES.length, STATES[key % STATES.length],
+                                   samples[i]);
+            }
+        }
+
+        private long getCpuTimeDelta(long cpuTime) {
+            if (cpuTime < 0) return -1;
+            long delta = lastCpuTime < 0 ? 0 : Math.max(0, cpuTime - lastCpuTime);
+            lastCpuTime = cpuTime;
+            return delta;
+        }
+
+        private void addSample(int stackId, Thread.State state) {
+            lastStackId = stackId;
+            lastState = state;
+
+            int key = stackId * STATES.length + state.ordinal() + 1;
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                if (++entriesCount * 2 > keys.length) {
+                    samples[slot] = 1;
+                    rehash();
+                    return;
+                }
+            }
+            samples[slot]++;
+        }
+
+        private static int slot(int key, int mask) {
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldSamples = samples;
+            keys = new int[oldKeys.length * 2];
+            samples = new int[oldSamples.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                int key = oldKeys[i];
+                if (key == 0) continue;
+                int slot = slot(key, mask);
+                while (keys[slot] != 0) slot = (slot + 1) & mask;
+                keys[slot] = key;
+                samples[slot] = oldSamples[i];
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.cpu;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.netbeans.lib.profiler.global.InstrumentationFilter;
+import org.netbeans.lib.profiler.results.cpu.FlatProfileContainer;
+import org.netbeans.lib.profiler.results.cpu.FlatProfileProvider;
+
+/**
+ * Flat profile of a sampling session, either of the whole session or of its
+ * last N seconds. Samples are aggregated into per-second intervals kept in a
+ * ring, the totals are updated incrementally: a new sample is added to the
+ * session and window totals, an expired interval is subtracted from the window
+ * totals. Creating the flat profile costs O(methods) regardless of the session
+ * length and size of the call tree.
+ *
+ * Samples are attributed the same way as by StackTraceSnapshotBuilder: time
+ * elapsed since the previous sample of a thread is charged to the previous
+ * stack of the thread, CPU time only if the thread was RUNNABLE. Frames above
+ * the common root part of the previous and current stack are counted as new
+ * invocations. Threads set by setIgnoredThreads() are skipped.
+ * Threads sampled with their CPU time are weighted by the CPU time consumed
+ * since the previous sample instead of the elapsed time of RUNNABLE threads.
+ *
+ * Method ids are the method ids of the StackTraceDictionary, methods rejected
+ * by the instrumentation filter are skipped and their time goes to the caller.
+ *
+ * @author agent
+ */
+final class SlidingFlatProfile implements FlatProfileProvider {
+
+    static final int WINDOW_UNLIMITED = 0;
+    static final int MAX_WINDOW = 300; // seconds
+
+    private static final long INTERVAL_NANOS = 1000000000L;
+
+    private static final byte METHOD_UNKNOWN = 0;
+    private static final byte METHOD_PASSES = 1;
+    private static final byte METHOD_FILTERED = 2;
+
+    private final StackTraceDictionary dictionary;
+    private final InstrumentationFilter filter;
+    private final boolean twoTimeStamps;
+
+    // Filter result per dictionary method id, names of the methods passing it
+    private byte[] methodFilter = new byte[0];
+    private String[] classNames = new String[0];
+    private String[] methodNames = new String[0];
+    private int methodsCount;
+
+    private final Interval[] intervals = new Interval[MAX_WINDOW];
+    private long currentInterval = -1;
+    private long firstTimestamp = -1;
+    private long lastTimestamp = -1;
+    private int window = 60;
+    private boolean unlimited = true;
+
+    private Set<String> ignoredThreads = Collections.EMPTY_SET;
+
+    private final Totals windowTotals = new Totals();
+    private final Totals sessionTotals = new Totals();
+
+    // Methods already counted in total time of the processed stack
+    private int[] marks = new int[0];
+    private int mark;
+
+
+    SlidingFlatProfile(StackTraceDictionary dictionary, InstrumentationFilter filter,
+                       boolean twoTimeStamps) {
+        this.dictionary = dictionary;
+        this.filter = filter;
+        this.twoTimeStamps = twoTimeStamps;
+        for (int i = 0; i < intervals.length; i++) intervals[i] = new Interval();
+    }
+
+
+    // --- Window --------------------------------------------------------------
+
+    /**
+     * Sets length of the window in seconds, the window totals are recomputed
+     * from the intervals still available in the ring. WINDOW_UNLIMITED selects
+     * the totals of the whole session.
+     */
+    synchronized void setWindow(int window) {
+        unlimited = window == WINDOW_UNLIMITED;
+        if (unlimited) return;
+
+        this.window = Math.max(1, Math.min(window, MAX_WINDOW));
+        windowTotals.clear();
+        for (Interval interval : intervals) {
+            interval.counted = interval.number != -1 && isInWindow(interval.number);
+            if (interval.counted) interval.addTo(windowTotals, 1);
+        }
+    }
+
+    synchronized int getWindow() {
+        return unlimited ? WINDOW_UNLIMITED : window;
+    }
+
+
+    // --- Samples -------------------------------------------------------------
+
+    /**
+     * Sets names of threads not included in the profile, like
+     * StackTraceSnapshotBuilder.setIgnoredThreads().
+     */
+    synchronized void setIgnoredThreads(Set<String> names) {
+        ignoredThreads = new HashSet(names);
+    }
+
+    /**
+     * Adds a sample interned by SampledStacks, must be invoked by the thread
+     * adding samples to the SampledStacks.
+     */
+    synchronized void addSample(SampledStacks.Sample sample) {
+        long timestamp = sample.getTimestamp();
+        if (firstTimestamp == -1) {
+            firstTimestamp = timestamp;
+            lastTimestamp = timestamp;
+        }
+
+        long time = Math.max(0, timestamp - lastTimestamp);
+        lastTimestamp = timestamp;
+
+        Interval interval = getInterval((timestamp - firstTimestamp) / INTERVAL_NANOS);
+
+        for (int i = 0; i < sample.getThreadsCount(); i++) {
+            if (ignoredThreads.contains(sample.getThread(i).getThreadName())) continue;
+
+            int[] stack = dictionary.getStack(sample.getStackId(i));
+            int previousStackId = sample.getPreviousStackId(i);
+            if (previousStackId == -1) {
+                // New thread, time before its first sample is unknown
+                addInvocations(interval, stack, null);
+                continue;
+            }
+
+            // The thread spent the time since the previous sample in the previous stack
+            int[] previousStack = dictionary.getStack(previousStackId);
+            long cpuTime = sample.getCpuTime(i);
+            if (cpuTime >= 0) {
+                // Weighted by CPU time, threads waiting in native code don't count
+                addTime(interval, previousStack, cpuTime, cpuTime);
+            } else if (time > 0) {
+                boolean runnable = sample.getPreviousState(i) == Thread.State.RUNNABLE;
+                addTime(interval, previousStack, time, runnable ? time : 0);
+            }
+            addInvocations(interval, stack, previousStack);
+        }
+    }
+
+    private void addTime(Interval interval, int[] stack, long time0, long time1) {
+        if (time0 == 0 && time1 == 0) return;
+
+        if (++mark == 0) {
+            Arrays.fill(marks, 0);
+            mark = 1;
+        }
+
+        boolean selfTime = true;
+        for (int i = 0; i < stack.length; i++) {
+            int methodId = stack[i];
+            if (!passesFilter(methodId)) continue; // time goes to the caller
+
+            ensureCapacity(methodId + 1);
+            boolean recursive = marks[methodId] == mark;
+            marks[methodId] = mark;
+
+            interval.add(this, methodId, selfTime ? time0 : 0, selfTime ? time1 : 0,
+                         recursive ? 0 : time0, recursive ? 0 : time1, 0);
+            selfTime = false;
+        }
+    }
+
+    private void addInvocations(Interval interval, int[] stack, int[] previousStack) {
+        // Frames above the common root part of the stacks are new invocations
+        int common = 0;
+        if (previousStack != null) {
+            int i = stack.length - 1;
+            int j = previousStack.length - 1;
+            while (i >= 0 && j >= 0 && stack[i--] == previousStack[j--]) common++;
+        }
+
+        for (int i = 0; i < stack.length - common; i++) {
+            int methodId = stack[i];
+            if (!passesFilter(methodId)) continue;
+
+            ensureCapacity(methodId + 1);
+            interval.add(this, methodId, 0, 0, 0, 0, 1);
+        }
+    }
+
+    private Interval getInterval(long number) {
+        // A sample taken just before createFlatProfile() moved to a newer
+        // interval is charged to the current interval
+        if (number > currentInterval) startInterval(number);
+        return intervals[(int)(currentInterval % intervals.length)];
+    }
+
+    private void startInterval(long number) {
+        currentInterval = number;
+
+        // Expire intervals which left the window
+        for (Interval interval : intervals) {
+            if (interval.counted && !isInWindow(interval.number)) {
+                interval.addTo(windowTotals, -1);
+                interval.counted = false;
+            }
+        }
+
+        Interval interval = intervals[(int)(number % intervals.length)];
+        if (interval.counted) interval.addTo(windowTotals, -1);
+        interval.reset(number);
+        interval.counted = true;
+    }
+
+    private boolean isInWindow(long number) {
+        return number > currentInterval - window;
+    }
+
+
+    // --- Flat profile --------------------------------------------------------
+
+    public FlatProfileContainer createFlatProfile() {
+        return createFlatProfile(System.nanoTime());
+    }
+
+    /**
+     * Creates the flat profile at the time in System.nanoTime() units, the
+     * window ends at the time also if no samples arrived recently.
+     */
+    synchronized FlatProfileContainer createFlatProfile(long timestamp) {
+        if (firstTimestamp != -1) {
+            long number = (timestamp - firstTimestamp) / INTERVAL_NANOS;
+            if (number > currentInterval) startInterval(number);
+        }
+
+        ensureCapacity(methodsCount);
+        Totals totals = unlimited ? sessionTotals : windowTotals;
+
+        long[] timeInMcs0 = new long[methodsCount];
+        long[] timeInMcs1 = new long[twoTimeStamps ? methodsCount : 0];
+        long[] totalTimeInMcs0 = new long[methodsCount];
+        long[] totalTimeInMcs1 = new long[twoTimeStamps ? methodsCount : 0];
+        int[] nInvocations = new int[methodsCount];
+        double wholeGraphTime0 = 0;
+        double wholeGraphTime1 = 0;
+
+        for (int i = 0; i < methodsCount; i++) {
+            timeInMcs0[i] = totals.selfTime0[i] / 1000;
+            totalTimeInMcs0[i] = totals.totalTime0[i] / 1000;
+            if (twoTimeStamps) {
+                timeInMcs1[i] = totals.selfTime1[i] / 1000;
+                totalTimeInMcs1[i] = totals.totalTime1[i] / 1000;
+            }
+            // Method invoked before the window start still has to be displayed
+            nInvocations[i] = totals.totalTime0[i] > 0 ? Math.max(1, totals.invocations[i]) : 0;
+
+            // Only methods are sampled, there's no Thread root like in the call tree
+            wholeGraphTime0 += timeInMcs0[i];
+            if (twoTimeStamps) wholeGraphTime1 += timeInMcs1[i];
+        }
+
+        return new FlatProfilerContainer(Arrays.copyOf(classNames, methodsCount),
+                Arrays.copyOf(methodNames, methodsCount), twoTimeStamps, timeInMcs0,
+                timeInMcs1, totalTimeInMcs0, totalTimeInMcs1, nInvocations, new char[0],
+                wholeGraphTime0, wholeGraphTime1, methodsCount);
+    }
+
+    /**
+     * Returns class name of a method of the flat profile.
+     */
+    synchronized String getClassName(int methodId) {
+        return classNames[methodId];
+    }
+
+    /**
+     * Returns name of a method of the flat profile.
+     */
+    synchronized String getMethodName(int methodId) {
+        return methodNames[methodId];
+    }
+
+
+    // --- Methods filtering ---------------------------------------------------
+
+    private boolean passesFilter(int methodId) {
+        if (methodId >= methodFilter.length) {
+            int length = Math.max(methodId + 1, methodFilter.length * 2);
+            methodFilter = Arrays.copyOf(methodFilter, length);
+            classNames = Arrays.copyOf(classNames, length);
+            methodNames = Arrays.copyOf(methodNames, length);
+        }
+
+        byte result = methodFilter[methodId];
+        if (result == METHOD_UNKNOWN) {
+            // The dictionary is only read by the sampling thread, names are copied
+            String className = dictionary.getClassName(methodId);
+            if (filter.passesFilter(className.replace('.', '/'))) { // NOI18N
+                result = METHOD_PASSES;
+                classNames[methodId] = className;
+                methodNames[methodId] = dictionary.getMethodName(methodId);
+                methodsCount = Math.max(methodsCount, methodId + 1);
+            } else {
+                result = METHOD_FILTERED;
+            }
+            methodFilter[methodId] = result;
+        }
+        return result == METHOD_PASSES;
+    }
+
+
+    // --- Totals --------------------------------------------------------------
+
+    private void ensureCapacity(int methodsCount) {
+        if (marks.length >= methodsCount) return;
+        int length = Math.max(methodsCount, marks.length * 2);
+        windowTotals.ensureCapacity(length);
+        sessionTotals.ensureCapacity(length);
+        marks = Arrays.copyOf(marks, length);
+    }
+
+
+    /**
+     * Totals indexed by method id, times in nanoseconds.
+     */
+    private static final class Totals {
+
+        private long[] selfTime0 = new long[0];
+        private long[] selfTime1 = new long[0];
+        private long[] totalTime0 = new long[0];
+        private long[] totalTime1 = new long[0];
+        private int[] invocations = new int[0];
+
+
+        void add(int methodId, long self0, long self1, long total0, long total1,
+                 int invocation) {
+            selfTime0[methodId] += self0;
+            selfTime1[methodId] += self1;
+            totalTime0[methodId] += total0;
+            totalTime1[methodId] += total1;
+            invocations[methodId] += invocation;
+        }
+
+        void ensureCapacity(int length) {
+            selfTime0 = Arrays.copyOf(selfTime0, length);
+            selfTime1 = Arrays.copyOf(selfTime1, length);
+            totalTime0 = Arrays.copyOf(totalTime0, length);
+            totalTime1 = Arrays.copyOf(totalTime1, length);
+            invocations = Arrays.copyOf(invocations, length);
+        }
+
+        void clear() {
+            Arrays.fill(selfTime0, 0);
+            Arrays.fill(selfTime1, 0);
+            Arrays.fill(totalTime0, 0);
+            Arrays.fill(totalTime1, 0);
+            Arrays.fill(invocations, 0);
+        }
+
+    }
+
+
+    // --- Interval ------------------------------------------------------------
+
+    /**
+     * Sparse per-method deltas of one interval.
+     */
+    private static final class Interval {
+
+        private long number = -1;
+        private boolean counted;
+
+        private int count;
+        private int[] methods = new int[16];
+        private long[] selfTime0 = new long[16];
+        private long[] selfTime1 = new long[16];
+        private long[] totalTime0 = new long[16];
+        private long[] totalTime1 = new long[16];
+        private int[] invocations = new int[16];
+
+        // Open addressing table of indexes + 1, 0 marks an empty slot
+        private int[] table = new int[32];
+
+
+        void reset(long number) {
+            this.number = number;
+            count = 0;
+            Arrays.fill(table, 0);
+        }
+
+        void add(SlidingFlatProfile profile, int methodId, long self0, long self1,
+                 long total0, long total1, int invocation) {
+            int index = getIndex(methodId);
+            selfTime0[index] += self0;
+            selfTime1[index] += self1;
+            totalTime0[index] += total0;
+            totalTime1[index] += total1;
+            invocations[index] += invocation;
+
+            // Interval being filled is always in the window
+            profile.windowTotals.add(methodId, self0, self1, total0, total1, invocation);
+            profile.sessionTotals.add(methodId, self0, self1, total0, total1, invocation);
+        }
+
+        void addTo(Totals totals, int sign) {
+            for (int i = 0; i < count; i++)
+                totals.add(methods[i], sign * selfTime0[i], sign * selfTime1[i],
+                           sign * totalTime0[i], sign * totalTime1[i], sign * invocations[i]);
+        }
+
+        private int getIndex(int methodId) {
+            int mask = table.length - 1;
+            int slot = slot(methodId, mask);
+            int entry;
+            while ((entry = table[slot]) != 0) {
+                if (methods[entry - 1] == methodId) return entry - 1;
+                slot = (slot + 1) & mask;
+            }
+
+            if (count == methods.length) {
+                int length = count * 2;
+                methods = Arrays.copyOf(methods, length);
+                selfTime0 = Arrays.copyOf(selfTime0, length);
+                selfTime1 = Arrays.copyOf(selfTime1, length);
+                totalTime0 = Arrays.copyOf(totalTime0, length);
+                totalTime1 = Arrays.copyOf(totalTime1, length);
+                invocations = Arrays.copyOf(invocations, length);
+            }
+            int index = count++;
+            methods[index] = methodId;
+            selfTime0[index] = 0;
+            selfTime1[index] = 0;
+            totalTime0[index] = 0;
+            totalTime1[index] = 0;
+            invocations[index] = 0;
+            table[slot] = index + 1;
+
+            if (count * 2 > table.length) rehash();
+            return index;
+        }
+
+        private static int slot(int methodId, int mask) {
+            int hash = methodId * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = slot(methods[i], mask);
+                while (table[slot] != 0) slot = (slot + 1) & mask;
+                table[slot] = i + 1;
+            }
+        }
+
+    }
+
+}
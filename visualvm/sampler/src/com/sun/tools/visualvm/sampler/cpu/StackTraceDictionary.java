@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.cpu;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary of sampled frames and stacks. Frames are interned into method ids
+ * (class name + method name), each stack is stored once as an int[] of method
+ * ids ordered from the top frame, identical stacks share the same stack id.
+ * Memory grows with the number of unique methods and stacks, not with the
+ * number of samples.
+ *
+ * Not thread safe, access must be synchronized by the caller.
+ *
+ * @author agent
+ */
+final class StackTraceDictionary {
+
+    private static final int[] EMPTY_STACK = new int[0];
+
+    private final Map<StackTraceElement, Integer> frameIds = new HashMap();
+    private final Map<String, Integer> methodIds = new HashMap();
+
+    private String[] classNames = new String[256];
+    private String[] methodNames = new String[256];
+    private int methodsCount;
+
+    private int[][] stacks = new int[256][];
+    private int[] stackHashes = new int[256];
+    private int stacksCount;
+
+    // Open addressing table of stack ids + 1, 0 marks an empty slot
+    private int[] stacksTable = new int[512];
+
+    private int[] buffer = new int[64];
+
+
+    // --- Methods -------------------------------------------------------------
+
+    int getMethodId(StackTraceElement frame) {
+        Integer methodId = frameIds.get(frame);
+        if (methodId == null) {
+            String className = frame.getClassName();
+            String methodName = frame.getMethodName();
+            String methodKey = className + "." + methodName; // NOI18N
+            methodId = methodIds.get(methodKey);
+            if (methodId == null) {
+                methodId = addMethod(className, methodName);
+                methodIds.put(methodKey, methodId);
+            }
+            // Same method, different line numbers => different frames
+            frameIds.put(frame, methodId);
+        }
+        return methodId;
+    }
+
+    int getMethodsCount() {
+        return methodsCount;
+    }
+
+    String getClassName(int methodId) {
+        return classNames[methodId];
+    }
+
+    String getMethodName(int methodId) {
+        return methodNames[methodId];
+    }
+
+    private int addMethod(String className, String methodName) {
+        if (methodsCount == classNames.length) {
+            classNames = Arrays.copyOf(classNames, methodsCount * 2);
+            methodNames = Arrays.copyOf(methodNames, methodsCount * 2);
+        }
+        classNames[methodsCount] = className;
+        methodNames[methodsCount] = methodName;
+        return methodsCount++;
+    }
+
+
+    // --- Stacks --------------------------------------------------------------
+
+    /**
+     * Returns id of the stack, the stack is added to the dictionary if needed.
+     */
+    int getStackId(StackTraceElement[] frames) {
+        int length = frames.length;
+        if (buffer.length < length) buffer = new int[Math.max(length, buffer.length * 2)];
+
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            int methodId = getMethodId(frames[i]);
+            buffer[i] = methodId;
+            hash = 31 * hash + methodId;
+        }
+
+        return getStackId(buffer, length, hash);
+    }
+
+    /**
+     * Returns id of the stack defined by method ids, the stack is added to the
+     * dictionary if needed.
+     */
+    int getStackId(int[] methodIds, int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) hash = 31 * hash + methodIds[i];
+        return getStackId(methodIds, length, hash);
+    }
+
+    int getStacksCount() {
+        return stacksCount;
+    }
+
+    /**
+     * Returns method ids of the stack ordered from the top frame. The returned
+     * array is shared and must not be modified.
+     */
+    int[] getStack(int stackId) {
+        return stacks[stackId];
+    }
+
+    private int getStackId(int[] methodIds, int length, int hash) {
+        hash ^= hash >>> 16;
+        int mask = stacksTable.length - 1;
+        int slot = hash & mask;
+
+        int entry;
+        while ((entry = stacksTable[slot]) != 0) {
+            int stackId = entry - 1;
+            if (stackHashes[stackId] == hash && equals(stacks[stackId], methodIds, length))
+                return stackId;
+            slot = (slot + 1) & mask;
+        }
+
+        if (stacksCount == stacks.length) {
+            stacks = Arrays.copyOf(stacks, stacksCount * 2);
+            stackHashes = Arrays.copyOf(stackHashes, stacksCount * 2);
+        }
+        int stackId = stacksCount++;
+        stacks[stackId] = length == 0 ? EMPTY_STACK : Arrays.copyOf(methodIds, length);
+        stackHashes[stackId] = hash;
+        stacksTable[slot] = stackId + 1;
+
+        if (stacksCount * 2 > stacksTable.length) rehash();
+
+        return stackId;
+    }
+
+    private void rehash() {
+        int[] table = new int[stacksTable.length * 2];
+        int mask = table.length - 1;
+        for (int stackId = 0; stackId < stacksCount; stackId++) {
+            int slot = stackHashes[stackId] & mask;
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = stackId + 1;
+        }
+        stacksTable = table;
+    }
+
+    private static boolean equals(int[] stack, int[] methodIds, int length) {
+        if (stack.length != length) return false;
+        for (int i = 0; i < length; i++)
+            if (stack[i] != methodIds[i]) return false;
+        return true;
+    }
+
+}
@@ -34,6 +34,9 @@ import com.sun.tools.visualvm.tools.jmx.JvmMXBeans;
 import com.sun.tools.visualvm.tools.jmx.JvmMXBeansFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.util.NbBundle;
@@ -49,6 +52,11 @@ public final class ThreadInfoProvider {
     final private String status;
     private boolean useGetThreadInfo;
     private ThreadMXBean threadBean;
+
+    private int stackDepth = Integer.MAX_VALUE;
+    private boolean runnableStacksOnly;
+    // Last sampled stack of each thread, reused for threads waiting in the same state
+    private Map<Long, ThreadInfo> lastStacks = new HashMap();
     
     public ThreadInfoProvider(Application app) {
         status = initialize(app);
@@ -96,11 +104,73 @@ public final class ThreadInfoProvider {
         return null;
     }
 
-    ThreadInfo[] dumpAllThreads() {
-        if (useGetThreadInfo) {
-            return threadBean.getThreadInfo(threadBean.getAllThreadIds(), Integer.MAX_VALUE);
+    /**
+     * Configures sampling of stacks. Stacks deeper than stackDepth frames are
+     * truncated. If runnableStacksOnly is set, full stacks are only requested
+     * for RUNNABLE threads and threads which changed their state, other
+     * threads are reported with their previously sampled stack.
+     */
+    synchronized void setStackSettings(int stackDepth, boolean runnableStacksOnly) {
+        this.stackDepth = stackDepth;
+        this.runnableStacksOnly = runnableStacksOnly;
+        lastStacks.clear();
+    }
+
+    synchronized ThreadInfo[] dumpAllThreads() {
+        if (runnableStacksOnly) {
+            return dumpRunnableThreads();
+        }
+        if (useGetThreadInfo || stackDepth != Integer.MAX_VALUE) {
+            return threadBean.getThreadInfo(threadBean.getAllThreadIds(), stackDepth);
         }
         return threadBean.dumpAllThreads(false,false);
     }
 
+    private ThreadInfo[] dumpRunnableThreads() {
+        // Cheap call, thread states without stacks
+        ThreadInfo[] states = threadBean.getThreadInfo(threadBean.getAllThreadIds(), 0);
+
+        long[] stackIds = new long[states.length];
+        int stackIdsCount = 0;
+        for (ThreadInfo state : states) {
+            if (state == null) continue; // thread terminated
+            ThreadInfo last = lastStacks.get(state.getThreadId());
+            if (state.getThreadState() == Thread.State.RUNNABLE || last == null ||
+                last.getThreadState() != state.getThreadState() ||
+                !equals(last.getLockName(), state.getLockName())) {
+                stackIds[stackIdsCount++] = state.getThreadId();
+            }
+        }
+
+        Map<Long, ThreadInfo> stacks = new HashMap(states.length * 4 / 3 + 1);
+        if (stackIdsCount > 0) {
+            ThreadInfo[] infos = threadBean.getThreadInfo(
+                    Arrays.copyOf(stackIds, stackIdsCount), stackDepth);
+            for (ThreadInfo info : infos)
+                if (info != null) stacks.put(info.getThreadId(), info);
+        }
+
+        ThreadInfo[] threads = new ThreadInfo[states.length];
+        int threadsCount = 0;
+        for (ThreadInfo state : states) {
+            if (state == null) continue;
+            Long threadId = state.getThreadId();
+            ThreadInfo info = stacks.get(threadId);
+            if (info == null) {
+                info = lastStacks.get(threadId);
+                if (info == null) info = state;
+                stacks.put(threadId, info);
+            }
+            threads[threadsCount++] = info;
+        }
+        lastStacks = stacks;
+
+        return threadsCount == threads.length ? threads :
+               Arrays.copyOf(threads, threadsCount);
+    }
+
+    private static boolean equals(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
 }
@@ -25,15 +25,12 @@
 
 package com.sun.tools.visualvm.sampler.cpu;
 
+import com.sun.tools.visualvm.sampler.ThreadsPoller;
 import java.io.IOException;
-import java.lang.management.ManagementFactory;
-import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanException;
 import javax.management.MBeanServerConnection;
-import javax.management.MalformedObjectNameException;
-import javax.management.ObjectName;
 import javax.management.ReflectionException;
 
 /**
@@ -41,32 +38,29 @@ import javax.management.ReflectionException;
  * @author Tomas Hurka
  */
 public class ThreadsCPU {
-    private static final ObjectName THREAD_NAME = getThreadName();
     
-    private final ThreadMXBean threadBean;
-    private final MBeanServerConnection connection;
+    private final ThreadsPoller poller;
 
     public ThreadsCPU(ThreadMXBean bean, MBeanServerConnection conn) {
-        threadBean = bean;
-        connection = conn;
+        this(new ThreadsPoller(bean, conn));
+    }
+    
+    public ThreadsCPU(ThreadsPoller poller) {
+        this.poller = poller;
     }
     
     public ThreadsCPUInfo getThreadsCPUInfo() throws MBeanException, ReflectionException, IOException, InstanceNotFoundException {
-        long[] ids = threadBean.getAllThreadIds();
-        ThreadInfo[] tids = threadBean.getThreadInfo(ids);
-        Object[] args = new Object[] {ids};
-        String[] sigs = new String[] {"[J"};  // NOI18N
-        long[] tinfo = (long[])connection.invoke(THREAD_NAME, "getThreadCpuTime", args, sigs);   // NOI18N
-        long time = System.currentTimeMillis();
+        ThreadsPoller.Threads threads = poller.poll(true, false);
         
-        return new ThreadsCPUInfo(time,tids,tinfo);
+        return new ThreadsCPUInfo(threads.getTimestamp(), threads.getIds(),
+                                  threads.getNames(), threads.getCpuTimes());
     }   
 
-    private static ObjectName getThreadName() {
-        try {
-            return new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME);
-        } catch (MalformedObjectNameException ex) {
-            throw new RuntimeException(ex);
-        }
+    /**
+     * Returns CPU time in nanoseconds of each thread in one remote call, -1
+     * for threads which are not alive or if CPU time measurement is disabled.
+     */
+    public long[] getThreadCpuTime(long[] ids) throws MBeanException, ReflectionException, IOException, InstanceNotFoundException {
+        return poller.getThreadCpuTime(ids);
     }
 }
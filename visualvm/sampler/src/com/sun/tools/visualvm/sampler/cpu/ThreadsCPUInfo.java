@@ -25,45 +25,44 @@
 
 package com.sun.tools.visualvm.sampler.cpu;
 
-import java.lang.management.ThreadInfo;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
+ * CPU times of all threads, arrays are sorted by thread id. Diffs are
+ * computed by merging the sorted ids of two infos.
  *
  * @author Tomas Hurka
  */
 class ThreadsCPUInfo {
     
-    private List<ThreadInfo> threads = new ArrayList();
-    private List<Long> cputime = new ArrayList();
-    private Map<Long,Long> cputimeMap;
-    private long totalCPUTime;
-    private long timestamp;
+    private final long timestamp;
+    private final long[] ids;
+    private final String[] names;
+    private final long[] cputime;
+    private final long totalCPUTime;
     private long totalDiffCPUTime;
     
-    ThreadsCPUInfo(long time, ThreadInfo[] tinfo, long[] cpuinfo) {
-        cputimeMap = new HashMap(threads.size()*4/3);
-        totalCPUTime = 0;
-        for (int i = 0; i <tinfo.length; i++) {
-            ThreadInfo ti = tinfo[i];
-            if (ti != null) {
-                threads.add(ti);
-                cputime.add(cpuinfo[i]);
-                cputimeMap.put(ti.getThreadId(),cpuinfo[i]);
-                totalCPUTime+=cpuinfo[i];
-            }
-        }
+    ThreadsCPUInfo(long time, long[] ids, String[] names, long[] cputime) {
         timestamp = time;
+        this.ids = ids;
+        this.names = names;
+        this.cputime = cputime;
+        long sum = 0;
+        for (long value : cputime) sum += value;
+        totalCPUTime = sum;
+    }
+    
+    int getThreadsCount() {
+        return ids.length;
+    }
+    
+    long[] getThreadIds() {
+        return ids;
     }
     
-    List<ThreadInfo> getThreads() {
-        return threads;
+    String[] getThreadNames() {
+        return names;
     }
     
-    List<Long> getThreadCPUTime() {
+    long[] getThreadCPUTime() {
         return cputime;
     }
     
@@ -71,40 +70,37 @@ class ThreadsCPUInfo {
         return totalCPUTime;
     }
     
-    List<Long> getThreadCPUTimeDiff(ThreadsCPUInfo info) {
-        List<Long> cpuTimeDiff = new ArrayList(threads.size());
-        List<ThreadInfo> newThreads = info.getThreads();
-        List<Long> newCPUTime = info.getThreadCPUTime();
+    /**
+     * Returns differences of CPU time since this info for each thread of the
+     * newer info, threads not known to this info are compared to 0.
+     */
+    long[] getThreadCPUTimeDiff(ThreadsCPUInfo info) {
+        long[] newIds = info.ids;
+        long[] newValues = info.cputime;
+        long[] diff = new long[newIds.length];
         
         totalDiffCPUTime = 0;
-        for (int i=0; i<newThreads.size(); i++) {
-            ThreadInfo ti = newThreads.get(i);
-            Long oldAlloc = cputimeMap.get(ti.getThreadId());
-            long diff;
-            
-            if (oldAlloc == null) {
-                oldAlloc = Long.valueOf(0);
-            }
-            diff = newCPUTime.get(i)-oldAlloc;
-            cpuTimeDiff.add(diff);
-            totalDiffCPUTime += diff;
+        for (int i = 0, j = 0; i < newIds.length; i++) {
+            while (j < ids.length && ids[j] < newIds[i]) j++;
+            long oldValue = j < ids.length && ids[j] == newIds[i] ? cputime[j] : 0;
+            diff[i] = newValues[i] - oldValue;
+            totalDiffCPUTime += diff[i];
         }
-        return cpuTimeDiff;
+        return diff;
     }
     
     long getTotalDiffCPUTime() {
         return totalDiffCPUTime;
     }
     
-    List<Long> getCPUTimePerSecond(ThreadsCPUInfo newInfo) {
+    long[] getCPUTimePerSecond(ThreadsCPUInfo newInfo) {
         assert newInfo.timestamp >= timestamp;
-        List<Long> diff = getThreadCPUTimeDiff(newInfo);
+        long[] diff = getThreadCPUTimeDiff(newInfo);
         double secs = (newInfo.timestamp - timestamp) / 1000.0;
-        List<Long> diffPerSec = new ArrayList(diff.size());
         
-        for (Long d : diff) {
-            diffPerSec.add(new Long((long)(d/secs)));
+        for (int i = 0; i < diff.length; i++) {
+            diff[i] = (long)(diff[i] / secs);
         }
-        return diffPerSec;
+        return diff;
     }
 }
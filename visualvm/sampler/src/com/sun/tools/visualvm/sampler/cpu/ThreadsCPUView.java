@@ -26,6 +26,7 @@
 package com.sun.tools.visualvm.sampler.cpu;
 
 import com.sun.tools.visualvm.sampler.AbstractSamplerSupport;
+import com.sun.tools.visualvm.sampler.SortUtils;
 import com.sun.tools.visualvm.uisupport.HTMLTextArea;
 import com.sun.tools.visualvm.uisupport.SeparatorLine;
 import com.sun.tools.visualvm.uisupport.TransparentToolBar;
@@ -39,13 +40,8 @@ import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
-import java.lang.management.ThreadInfo;
 import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
@@ -101,12 +97,14 @@ final class ThreadsCPUView extends JPanel {
     private String filterString = ""; // NOI18N
     private int filterType = CommonConstants.FILTER_CONTAINS;
     
-    private List<ThreadInfo> threads;
-    private List<Long> threadCPUInfo;
-    private List<Long> threadCPUInfoPerSec;
+    private long[] threadIds;
+    private String[] threadNames;
+    private long[] threadCPUInfo;
+    private long[] threadCPUInfoPerSec;
     private ThreadsCPUInfo currentThreadsInfo;
     private ThreadsCPUInfo baseThreadsInfo;
-    private List<Integer> filteredSortedIndexes = new ArrayList();
+    private int[] filteredSortedIndexes = new int[0];
+    private int filteredSortedCount;
     private int totalThreads = -1;
     private long totalCPUTime, baseTotalCPUTime = -1;
     
@@ -147,7 +145,8 @@ final class ThreadsCPUView extends JPanel {
     void refresh(ThreadsCPUInfo info) {
         if (!isShowing() || (pauseButton.isSelected() && !forceRefresh)) return;
         forceRefresh = false;
-        threads = info.getThreads();
+        threadIds = info.getThreadIds();
+        threadNames = info.getThreadNames();
         threadCPUInfo = info.getThreadCPUTime();
         totalCPUTime = info.getTotalCPUTime();
         if (currentThreadsInfo != null) {
@@ -162,7 +161,7 @@ final class ThreadsCPUView extends JPanel {
                 columnRenderers[2] = labelTableCellRenderer;
                 updateColumnRenderers();
             }
-            totalThreads = threads.size() - baseThreadsInfo.getThreads().size();
+            totalThreads = info.getThreadsCount() - baseThreadsInfo.getThreadsCount();
             threadCPUInfo = baseThreadsInfo.getThreadCPUTimeDiff(info);
             totalCPUTime = baseThreadsInfo.getTotalDiffCPUTime();
         } else {
@@ -175,7 +174,7 @@ final class ThreadsCPUView extends JPanel {
             }
             threadCPUInfo = info.getThreadCPUTime();
             totalCPUTime = info.getTotalCPUTime();
-            totalThreads = threads.size();
+            totalThreads = info.getThreadsCount();
             
         }
         customBarCellRenderer.setMaximum(totalCPUTime);
@@ -207,16 +206,19 @@ final class ThreadsCPUView extends JPanel {
     
     
     private void filterData() {
-        filteredSortedIndexes.clear();
+        filteredSortedCount = 0;
+        if (threadNames == null) return;
+        if (filteredSortedIndexes.length < threadNames.length)
+            filteredSortedIndexes = new int[threadNames.length];
         
         String[] filterStrings = FilterComponent.getFilterValues(filterString);
         if (filterType == CommonConstants.FILTER_NONE ||
                 filterStrings == null || filterStrings[0].equals("")) { // NOI18N
-            for (int i = 0; i < threads.size(); i++) filteredSortedIndexes.add(i);
+            for (int i = 0; i < threadNames.length; i++) filteredSortedIndexes[filteredSortedCount++] = i;
         } else {
-            for (int i = 0; i < threads.size(); i++)
-                if (passedFilters(threads.get(i).getThreadName(), filterStrings, filterType))
-                    filteredSortedIndexes.add(i);
+            for (int i = 0; i < threadNames.length; i++)
+                if (passedFilters(threadNames[i], filterStrings, filterType))
+                    filteredSortedIndexes[filteredSortedCount++] = i;
         }
     }
     
@@ -247,33 +249,23 @@ final class ThreadsCPUView extends JPanel {
     }
     
     private void sortData() {
-        Collections.sort(filteredSortedIndexes, new Comparator() {
-            
-            public int compare(Object o1, Object o2) {
-                Integer index1 = (Integer)o1;
-                Integer index2 = (Integer)o2;
-                
-                switch (sortingColumn) {
-                    case 0:
-                        ThreadInfo ti1 = threads.get(index1);
-                        ThreadInfo ti2 = threads.get(index2);
-                        return sortOrder ? Long.valueOf(ti1.getThreadId()).compareTo(ti2.getThreadId()) :
-                            Long.valueOf(ti2.getThreadId()).compareTo(ti1.getThreadId());
-                    case 1:
-                    case 2:
-                        Long alloc1 = threadCPUInfo.get(index1);
-                        Long alloc2 = threadCPUInfo.get(index2);
-                        return sortOrder ? alloc1.compareTo(alloc2) : alloc2.compareTo(alloc1);
-                    case 3:
-                        Long allocSec1 = threadCPUInfoPerSec.get(index1);
-                        Long allocSec2 = threadCPUInfoPerSec.get(index2);
-                        return sortOrder ? allocSec1.compareTo(allocSec2) : allocSec2.compareTo(allocSec1);
-                    default:
-                        return 0;
-                }
-            }
-            
-        });
+        long[] values;
+        switch (sortingColumn) {
+            case 0:
+                values = threadIds;
+                break;
+            case 1:
+            case 2:
+                values = threadCPUInfo;
+                break;
+            case 3:
+                values = threadCPUInfoPerSec;
+                break;
+            default:
+                values = null;
+        }
+        if (values != null)
+            SortUtils.sortIndexes(filteredSortedIndexes, filteredSortedCount, values, sortOrder);
     }
     
     
@@ -284,7 +276,7 @@ final class ThreadsCPUView extends JPanel {
             }
             
             public int getRowCount() {
-                return filteredSortedIndexes.size();
+                return filteredSortedCount;
             }
             
             public int getColumnCount() {
@@ -296,8 +288,8 @@ final class ThreadsCPUView extends JPanel {
             }
             
             public Object getValueAt(int row, int col) {
-                int index = filteredSortedIndexes.get(row);
-                long threadCPUtime = threadCPUInfo.get(index).longValue();
+                int index = filteredSortedIndexes[row];
+                long threadCPUtime = threadCPUInfo[index];
                 double threadCPUtimeInMs = threadCPUtime/NANOS_MILIS;
                 boolean deltas = baseThreadsInfo != null;
                 NumberFormat formatter = NumberFormat.getInstance();
@@ -305,8 +297,7 @@ final class ThreadsCPUView extends JPanel {
                 
                 switch (col) {
                     case 0:
-                        ThreadInfo threadInfo = threads.get(index);
-                        return threadInfo.getThreadName() ;
+                        return threadNames[index];
                     case 1:
                         return threadCPUtime;
                     case 2:
@@ -317,7 +308,7 @@ final class ThreadsCPUView extends JPanel {
                         }
                     case 3:
                         if (threadCPUInfoPerSec != null) {
-                            return formatter.format(threadCPUInfoPerSec.get(index).longValue()/NANOS_MILIS);
+                            return formatter.format(threadCPUInfoPerSec[index]/NANOS_MILIS);
                         }
                         return "0";
                     default:
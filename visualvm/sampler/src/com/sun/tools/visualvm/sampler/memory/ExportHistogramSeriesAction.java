@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.memory;
+
+import com.sun.tools.visualvm.core.ui.actions.SingleDataSourceAction;
+import com.sun.tools.visualvm.profiling.snapshot.ProfilerSnapshot;
+import java.awt.event.ActionEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JFileChooser;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.netbeans.modules.profiler.LoadedSnapshot;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Exports the series of heap histograms saved in a sampled memory snapshot.
+ *
+ * @author agent
+ */
+final class ExportHistogramSeriesAction extends SingleDataSourceAction<ProfilerSnapshot> {
+
+    private static final Logger LOGGER = Logger.getLogger(ExportHistogramSeriesAction.class.getName());
+
+    private static final String CSV_EXT = ".csv"; // NOI18N
+
+    private static ExportHistogramSeriesAction instance;
+
+    public static synchronized ExportHistogramSeriesAction instance() {
+        if (instance == null)
+            instance = new ExportHistogramSeriesAction();
+        return instance;
+    }
+
+
+    protected void actionPerformed(ProfilerSnapshot snapshot, ActionEvent actionEvent) {
+        final File snapshotFile = snapshot.getFile();
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(NbBundle.getMessage(ExportHistogramSeriesAction.class,
+                               "CAPTION_Export_series")); // NOI18N
+        String name = snapshotFile.getName();
+        int extIndex = name.lastIndexOf('.');
+        chooser.setSelectedFile(new File((extIndex == -1 ? name :
+                                name.substring(0, extIndex)) + CSV_EXT));
+        if (chooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) return;
+
+        String filePath = chooser.getSelectedFile().getAbsolutePath();
+        if (!filePath.endsWith(CSV_EXT)) filePath += CSV_EXT;
+        final File file = new File(filePath);
+
+        RequestProcessor.getDefault().post(new Runnable() {
+            public void run() {
+                ProgressHandle pHandle = ProgressHandleFactory.createHandle(
+                        NbBundle.getMessage(ExportHistogramSeriesAction.class,
+                        "LBL_Exporting_series", file.getName())); // NOI18N
+                pHandle.setInitialDelay(0);
+                pHandle.start();
+                try {
+                    HistogramSeries series = HistogramSeries.load(snapshotFile);
+                    if (series == null) {
+                        DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message(
+                                NbBundle.getMessage(ExportHistogramSeriesAction.class,
+                                "MSG_No_series", snapshotFile.getName()), // NOI18N
+                                NotifyDescriptor.WARNING_MESSAGE));
+                        return;
+                    }
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(file), "UTF-8"), 64 * 1024); // NOI18N
+                    try {
+                        series.writeCSV(writer);
+                    } finally {
+                        writer.close();
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.INFO, "Failed to export histogram series to " + file, e); // NOI18N
+                    DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message(
+                            NbBundle.getMessage(ExportHistogramSeriesAction.class,
+                            "MSG_Export_series_failed", file.getName()), // NOI18N
+                            NotifyDescriptor.ERROR_MESSAGE));
+                } finally {
+                    pHandle.finish();
+                }
+            }
+        });
+    }
+
+    protected boolean isEnabled(ProfilerSnapshot snapshot) {
+        if (snapshot.getFile() == null) return false;
+        LoadedSnapshot loadedSnapshot = snapshot.getLoadedSnapshot();
+        return loadedSnapshot != null &&
+               loadedSnapshot.getType() == LoadedSnapshot.SNAPSHOT_TYPE_MEMORY_SAMPLED;
+    }
+
+
+    private ExportHistogramSeriesAction() {
+        super(ProfilerSnapshot.class);
+        putValue(NAME, NbBundle.getMessage(ExportHistogramSeriesAction.class, "MSG_Export_series")); // NOI18N
+        putValue(SHORT_DESCRIPTION, NbBundle.getMessage(ExportHistogramSeriesAction.class, "DESCR_Export_series")); // NOI18N
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.memory;
+
+/**
+ * Keeps the time the target application is paused by taking heap histograms
+ * within a share of the wall time. Each histogram is timed, the interval to the
+ * next histogram is extended so that the recent average cost doesn't exceed
+ * the budget. Ticks of the refresh timer coming before the interval elapses
+ * are skipped.
+ *
+ * All methods are thread safe, times are in nanoseconds.
+ *
+ * @author agent
+ */
+final class HistogramBudget {
+
+    // Weight of the last value in the moving averages
+    private static final float ALPHA = 0.2f;
+
+    private final float budget;
+    private final long requestedInterval;
+
+    private long nextTime;
+    private long lastTime;
+    private long effectiveInterval;
+    private int histogramsCount;
+    private long skippedTicks;
+    private float averageCost;
+    private float averageInterval;
+    private long lastCost;
+
+
+    /**
+     * Creates a budget allowing pauses for the given percentage of time for
+     * histograms requested each refreshRate milliseconds.
+     */
+    HistogramBudget(float pauseBudget, int refreshRate) {
+        budget = Math.max(0.001f, Math.min(1f, pauseBudget / 100));
+        requestedInterval = Math.max(1, refreshRate) * 1000000L;
+        effectiveInterval = requestedInterval;
+    }
+
+
+    /**
+     * Returns true if a histogram can be taken at the given time, otherwise
+     * the tick is counted as skipped.
+     */
+    synchronized boolean acquire(long time) {
+        if (histogramsCount == 0 || time - nextTime >= 0) return true;
+        skippedTicks++;
+        return false;
+    }
+
+    synchronized void histogramTaken(long start, long cost) {
+        if (histogramsCount == 0) {
+            averageCost = cost;
+        } else {
+            averageCost += ALPHA * (cost - averageCost);
+            long interval = start - lastTime;
+            averageInterval = histogramsCount == 1 ? interval :
+                              averageInterval + ALPHA * (interval - averageInterval);
+        }
+        lastTime = start;
+        lastCost = cost;
+        histogramsCount++;
+
+        // A single expensive histogram (e.g. full heap) backs off immediately,
+        // the average brings the interval back once histograms get cheaper
+        float recentCost = Math.max(averageCost, lastCost);
+        effectiveInterval = Math.max(requestedInterval, (long)(recentCost / budget));
+        // Half of the requested interval tolerates jitter of the refresh timer
+        nextTime = start + effectiveInterval - requestedInterval / 2;
+    }
+
+
+    // --- Statistics, times in milliseconds -----------------------------------
+
+    float getPauseBudget() {
+        return budget * 100;
+    }
+
+    float getRequestedInterval() {
+        return requestedInterval / 1e6f;
+    }
+
+    synchronized float getEffectiveInterval() {
+        return effectiveInterval / 1e6f;
+    }
+
+    /**
+     * Returns the recent average interval between histograms, 0 if not known yet.
+     */
+    synchronized float getAchievedInterval() {
+        return averageInterval / 1e6f;
+    }
+
+    synchronized float getAverageCost() {
+        return averageCost / 1e6f;
+    }
+
+    synchronized float getLastCost() {
+        return lastCost / 1e6f;
+    }
+
+    /**
+     * Returns the recent percentage of time the application has been paused,
+     * 0 if not known yet.
+     */
+    synchronized float getPauseShare() {
+        return averageInterval == 0 ? 0 : averageCost / averageInterval * 100;
+    }
+
+    synchronized int getHistogramsCount() {
+        return histogramsCount;
+    }
+
+    synchronized long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.memory;
+
+import com.sun.tools.visualvm.application.jvm.HeapHistogram.ClassInfo;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact history of bytes and instances per class over a sampling session.
+ * Class names are mapped to int ids, each point stores primitive columns
+ * indexed by the class id. Once MAX_POINTS points are collected the history is
+ * down-sampled by merging two neighbouring points, the number of histograms
+ * merged into a point grows with its age. Recent points keep the full
+ * resolution while the whole session stays covered.
+ *
+ * All methods are thread safe.
+ *
+ * @author agent
+ */
+final class HistogramHistory {
+
+    private static final int MAX_POINTS = Math.max(8, Integer.getInteger(
+            "com.sun.tools.visualvm.sampler.memory.HistogramHistory.maxPoints", 64)); // NOI18N
+
+    private static final double MILLIS_PER_MINUTE = 60 * 1000d;
+
+    // --- Class ids
+    private String[] classNames = new String[1024];
+    private int[] idsTable = new int[2048];
+    private int classesCount;
+    private int[] idsBuffer = new int[1024];
+
+    // --- Points
+    private final long[] timestamps = new long[MAX_POINTS];
+    private final int[] spans = new int[MAX_POINTS];
+    private final long[][] bytes = new long[MAX_POINTS][];
+    private final int[][] instances = new int[MAX_POINTS][];
+    private int pointsCount;
+    private int version;
+    // Columns of the point evicted by the last compaction, reused by the next point
+    private long[] spareBytes;
+    private int[] spareInstances;
+
+    // --- Trends, computed lazily for the current version
+    private double[] growthRates;
+    private double[] leakScores;
+    private int trendsVersion = -1;
+
+
+    // --- Class ids -----------------------------------------------------------
+
+    /**
+     * Stores ids of the classes into the array in iteration order, unknown
+     * classes are registered. The array must be at least classes.size() long.
+     */
+    synchronized void getClassIds(Collection<ClassInfo> classes, int[] ids) {
+        int index = 0;
+        for (ClassInfo info : classes) ids[index++] = registerClass(info.getName());
+    }
+
+    synchronized String getClassName(int classId) {
+        return classNames[classId];
+    }
+
+    synchronized int getClassesCount() {
+        return classesCount;
+    }
+
+    private int registerClass(String className) {
+        int mask = idsTable.length - 1;
+        int slot = className.hashCode() & mask;
+        int id;
+        while ((id = idsTable[slot]) != 0) {
+            if (classNames[id - 1].equals(className)) return id - 1;
+            slot = (slot + 1) & mask;
+        }
+
+        if (classesCount == classNames.length) {
+            String[] newClassNames = new String[classNames.length * 2];
+            System.arraycopy(classNames, 0, newClassNames, 0, classesCount);
+            classNames = newClassNames;
+        }
+        classNames[classesCount] = className;
+        idsTable[slot] = ++classesCount;
+
+        if (classesCount * 2 > idsTable.length) rehashIds();
+        return classesCount - 1;
+    }
+
+    private void rehashIds() {
+        idsTable = new int[idsTable.length * 2];
+        int mask = idsTable.length - 1;
+        for (int id = 0; id < classesCount; id++) {
+            int slot = classNames[id].hashCode() & mask;
+            while (idsTable[slot] != 0) slot = (slot + 1) & mask;
+            idsTable[slot] = id + 1;
+        }
+    }
+
+
+    // --- Points --------------------------------------------------------------
+
+    /**
+     * Adds a new point to the history. Returns false if the point isn't newer
+     * than the last point, for example if the same histogram is added twice.
+     */
+    synchronized boolean addHistogram(long timestamp, Collection<ClassInfo> classes) {
+        if (pointsCount > 0 && timestamp <= timestamps[pointsCount - 1]) return false;
+
+        int count = classes.size();
+        if (idsBuffer.length < count) idsBuffer = new int[count];
+        getClassIds(classes, idsBuffer);
+
+        if (pointsCount == MAX_POINTS) compact();
+
+        // Columns may be longer than classesCount, the rest are zeros
+        long[] pointBytes = spareBytes;
+        int[] pointInstances = spareInstances;
+        spareBytes = null;
+        spareInstances = null;
+        if (pointBytes != null && pointBytes.length >= classesCount) {
+            Arrays.fill(pointBytes, 0);
+            Arrays.fill(pointInstances, 0);
+        } else {
+            pointBytes = new long[classesCount];
+            pointInstances = new int[classesCount];
+        }
+        int index = 0;
+        for (ClassInfo info : classes) {
+            int id = idsBuffer[index++];
+            pointBytes[id] += info.getBytes();
+            pointInstances[id] = (int)Math.min(Integer.MAX_VALUE,
+                                     pointInstances[id] + info.getInstancesCount());
+        }
+
+        timestamps[pointsCount] = timestamp;
+        spans[pointsCount] = 1;
+        bytes[pointsCount] = pointBytes;
+        instances[pointsCount] = pointInstances;
+        pointsCount++;
+        version++;
+
+        return true;
+    }
+
+    synchronized void reset() {
+        for (int i = 0; i < pointsCount; i++) {
+            bytes[i] = null;
+            instances[i] = null;
+        }
+        pointsCount = 0;
+        spareBytes = null;
+        spareInstances = null;
+        version++;
+    }
+
+    synchronized int getPointsCount() {
+        return pointsCount;
+    }
+
+    synchronized long getTimestamp(int point) {
+        return timestamps[point];
+    }
+
+    /**
+     * Returns number of histograms merged into the point.
+     */
+    synchronized int getSpan(int point) {
+        return spans[point];
+    }
+
+    synchronized long getBytes(int point, int classId) {
+        long[] pointBytes = bytes[point];
+        return classId < pointBytes.length ? pointBytes[classId] : 0;
+    }
+
+    synchronized int getInstances(int point, int classId) {
+        int[] pointInstances = instances[point];
+        return classId < pointInstances.length ? pointInstances[classId] : 0;
+    }
+
+    /**
+     * Copies bytes of the class for all points into the array, returns number
+     * of points. The array must be at least getPointsCount() long.
+     */
+    synchronized int getBytes(int classId, long[] values, long[] times) {
+        for (int i = 0; i < pointsCount; i++) {
+            long[] pointBytes = bytes[i];
+            values[i] = classId < pointBytes.length ? pointBytes[classId] : 0;
+            times[i] = timestamps[i];
+        }
+        return pointsCount;
+    }
+
+    /**
+     * Returns a copy of the history to be stored with a snapshot, null if
+     * there are no points.
+     */
+    synchronized HistogramSeries createSeries() {
+        if (pointsCount == 0) return null;
+
+        String[] names = new String[classesCount];
+        System.arraycopy(classNames, 0, names, 0, classesCount);
+        long[][] seriesBytes = new long[pointsCount][];
+        int[][] seriesInstances = new int[pointsCount][];
+        for (int i = 0; i < pointsCount; i++) {
+            seriesBytes[i] = Arrays.copyOf(bytes[i], classesCount);
+            seriesInstances[i] = Arrays.copyOf(instances[i], classesCount);
+        }
+
+        return new HistogramSeries(names, Arrays.copyOf(timestamps, pointsCount),
+                                   Arrays.copyOf(spans, pointsCount),
+                                   seriesBytes, seriesInstances);
+    }
+
+    /**
+     * Increments with every change of the history.
+     */
+    synchronized int getVersion() {
+        return version;
+    }
+
+    // Merges the pair of neighbouring points with the smallest span relative
+    // to its age, the spans of old points grow proportionally to their age
+    private void compact() {
+        int merged = 0;
+        double minCost = Double.MAX_VALUE;
+        long age = spans[pointsCount - 1];
+        for (int i = pointsCount - 2; i >= 0; i--) {
+            age += spans[i];
+            double cost = (spans[i] + spans[i + 1]) / (double)age;
+            if (cost <= minCost) {
+                minCost = cost;
+                merged = i;
+            }
+        }
+
+        mergePoints(merged, merged + 1, merged);
+        for (int i = merged + 2; i < pointsCount; i++) {
+            timestamps[i - 1] = timestamps[i];
+            spans[i - 1] = spans[i];
+            bytes[i - 1] = bytes[i];
+            instances[i - 1] = instances[i];
+        }
+        pointsCount--;
+        bytes[pointsCount] = null;
+        instances[pointsCount] = null;
+    }
+
+    private void mergePoints(int point1, int point2, int target) {
+        long span1 = spans[point1];
+        long span2 = spans[point2];
+        long span = span1 + span2;
+
+        // Merges into the longer columns, the values beyond the length of
+        // the shorter columns are zeros
+        long[] bytes1 = bytes[point1];
+        long[] bytes2 = bytes[point2];
+        int[] instances1 = instances[point1];
+        int[] instances2 = instances[point2];
+        if (bytes1.length > bytes2.length) {
+            long[] b = bytes1; bytes1 = bytes2; bytes2 = b;
+            int[] i = instances1; instances1 = instances2; instances2 = i;
+            long s = span1; span1 = span2; span2 = s;
+        }
+        for (int id = 0; id < bytes2.length; id++) {
+            long b1 = id < bytes1.length ? bytes1[id] : 0;
+            long i1 = id < instances1.length ? instances1[id] : 0;
+            bytes2[id] = (b1 * span1 + bytes2[id] * span2) / span;
+            instances2[id] = (int)((i1 * span1 + instances2[id] * span2) / span);
+        }
+
+        timestamps[target] = (timestamps[point1] * spans[point1] +
+                              timestamps[point2] * spans[point2]) / span;
+        spans[target] = (int)span;
+        bytes[target] = bytes2;
+        instances[target] = instances2;
+        spareBytes = bytes1;
+        spareInstances = instances1;
+    }
+
+
+    // --- Trends --------------------------------------------------------------
+
+    /**
+     * Returns the growth rate of the class in bytes per minute, computed as
+     * the slope of a least squares fit over the whole history.
+     */
+    synchronized double getGrowthRate(int classId) {
+        computeTrends();
+        return classId < growthRates.length ? growthRates[classId] : 0;
+    }
+
+    /**
+     * Returns the leak suspect score of the class: the positive growth rate
+     * weighted by the coefficient of determination of the fit. The score is
+     * high for classes growing steadily over the session and low for classes
+     * which only fluctuate or grew once.
+     */
+    synchronized double getLeakScore(int classId) {
+        computeTrends();
+        return classId < leakScores.length ? leakScores[classId] : 0;
+    }
+
+    private void computeTrends() {
+        if (trendsVersion == version) return;
+        trendsVersion = version;
+
+        if (growthRates == null || growthRates.length < classesCount) {
+            growthRates = new double[classesCount];
+            leakScores = new double[classesCount];
+        } else {
+            for (int id = 0; id < classesCount; id++) {
+                growthRates[id] = 0;
+                leakScores[id] = 0;
+            }
+        }
+        if (pointsCount < 2) return;
+
+        // Weighted least squares, each point is weighted by its span
+        double sw = 0, swx = 0, swxx = 0;
+        double[] swy = new double[classesCount];
+        double[] swxy = new double[classesCount];
+        double[] swyy = new double[classesCount];
+
+        long t0 = timestamps[0];
+        for (int i = 0; i < pointsCount; i++) {
+            double w = spans[i];
+            double x = (timestamps[i] - t0) / MILLIS_PER_MINUTE;
+            sw += w;
+            swx += w * x;
+            swxx += w * x * x;
+            long[] pointBytes = bytes[i];
+            for (int id = 0; id < pointBytes.length; id++) {
+                double y = pointBytes[id];
+                if (y == 0) continue;
+                swy[id] += w * y;
+                swxy[id] += w * x * y;
+                swyy[id] += w * y * y;
+            }
+        }
+
+        double varX = sw * swxx - swx * swx;
+        if (varX <= 0) return;
+
+        boolean fitted = pointsCount > 2;
+        for (int id = 0; id < classesCount; id++) {
+            double covXY = sw * swxy[id] - swx * swy[id];
+            double slope = covXY / varX;
+            growthRates[id] = slope;
+            if (fitted && slope > 0) {
+                double varY = sw * swyy[id] - swy[id] * swy[id];
+                if (varY > 0) leakScores[id] = slope * (covXY * covXY / (varX * varY));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.memory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Bytes and instances per class at points of time taken during a memory
+ * sampling session. Older points may be averages of several histograms, see
+ * getSpan().
+ *
+ * The series is stored as a section appended to a saved snapshot file:
+ * section header (magic, version), compressed series data and a trailer with
+ * the offset of the section and the magic. The trailer is found from the end
+ * of the file, the format of the snapshot data before the section doesn't
+ * matter. Readers of the snapshot ignore the trailing section.
+ *
+ * @author agent
+ */
+public final class HistogramSeries {
+
+    private static final int MAGIC = 0x48535331; // NOI18N
+    private static final int VERSION = 1;
+
+    private static final int TRAILER_LENGTH = 8 + 4;
+
+    private final String[] classNames;
+    private final long[] timestamps;
+    private final int[] spans;
+    private final long[][] bytes;
+    private final int[][] instances;
+
+
+    HistogramSeries(String[] classNames, long[] timestamps, int[] spans,
+                    long[][] bytes, int[][] instances) {
+        this.classNames = classNames;
+        this.timestamps = timestamps;
+        this.spans = spans;
+        this.bytes = bytes;
+        this.instances = instances;
+    }
+
+
+    public int getClassesCount() {
+        return classNames.length;
+    }
+
+    public String getClassName(int classIndex) {
+        return classNames[classIndex];
+    }
+
+    public int getPointsCount() {
+        return timestamps.length;
+    }
+
+    public long getTimestamp(int point) {
+        return timestamps[point];
+    }
+
+    /**
+     * Returns number of histograms averaged into the point.
+     */
+    public int getSpan(int point) {
+        return spans[point];
+    }
+
+    public long getBytes(int point, int classIndex) {
+        return bytes[point][classIndex];
+    }
+
+    public int getInstances(int point, int classIndex) {
+        return instances[point][classIndex];
+    }
+
+
+    /**
+     * Writes the series as comma separated values, one line per point
+     * and class.
+     */
+    public void writeCSV(Writer writer) throws IOException {
+        writer.write("Time [ms],Histograms,Class,Bytes,Instances\n"); // NOI18N
+        for (int point = 0; point < timestamps.length; point++) {
+            String pointPrefix = timestamps[point] + "," + spans[point] + ","; // NOI18N
+            for (int i = 0; i < classNames.length; i++) {
+                writer.write(pointPrefix);
+                writer.write(classNames[i]);
+                writer.write(',');
+                writer.write(Long.toString(bytes[point][i]));
+                writer.write(',');
+                writer.write(Integer.toString(instances[point][i]));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+
+    // --- Persistence ---------------------------------------------------------
+
+    /**
+     * Appends the series as a section to the end of a saved snapshot file.
+     */
+    void appendTo(File file) throws IOException {
+        long offset = file.length();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file, true), 64 * 1024));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.flush();
+
+            DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+            writeData(new DataOutputStream(deflater));
+            deflater.finish();
+
+            out.writeLong(offset);
+            out.writeInt(MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the series section of a saved snapshot file. Returns null if the
+     * file doesn't contain a series.
+     */
+    public static HistogramSeries load(File file) throws IOException {
+        long length = file.length();
+        if (length < TRAILER_LENGTH) return null;
+
+        long offset;
+        RandomAccessFile raf = new RandomAccessFile(file, "r"); // NOI18N
+        try {
+            raf.seek(length - TRAILER_LENGTH);
+            offset = raf.readLong();
+            if (raf.readInt() != MAGIC) return null;
+        } finally {
+            raf.close();
+        }
+        if (offset < 0 || offset > length - TRAILER_LENGTH - 8)
+            throw new IOException("Corrupted histograms series"); // NOI18N
+
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            long skipped = 0;
+            while (skipped < offset) {
+                long n = fis.skip(offset - skipped);
+                if (n <= 0) throw new IOException("Corrupted histograms series"); // NOI18N
+                skipped += n;
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fis, 64 * 1024));
+            if (in.readInt() != MAGIC)
+                throw new IOException("Corrupted histograms series"); // NOI18N
+            if (in.readInt() != VERSION)
+                throw new IOException("Unsupported histograms series version"); // NOI18N
+            return readData(new DataInputStream(new InflaterInputStream(in)));
+        } finally {
+            fis.close();
+        }
+    }
+
+    private void writeData(DataOutputStream out) throws IOException {
+        out.writeInt(classNames.length);
+        for (String className : classNames) out.writeUTF(className);
+        out.writeInt(timestamps.length);
+        for (int point = 0; point < timestamps.length; point++) {
+            out.writeLong(timestamps[point]);
+            out.writeInt(spans[point]);
+            long[] pointBytes = bytes[point];
+            int[] pointInstances = instances[point];
+            for (int i = 0; i < classNames.length; i++) {
+                out.writeLong(pointBytes[i]);
+                out.writeInt(pointInstances[i]);
+            }
+        }
+        out.flush();
+    }
+
+    private static HistogramSeries readData(DataInputStream in) throws IOException {
+        int classesCount = in.readInt();
+        if (classesCount < 0) throw new IOException("Corrupted histograms series"); // NOI18N
+        String[] classNames = new String[classesCount];
+        for (int i = 0; i < classesCount; i++) classNames[i] = in.readUTF();
+
+        int pointsCount = in.readInt();
+        if (pointsCount < 0) throw new IOException("Corrupted histograms series"); // NOI18N
+        long[] timestamps = new long[pointsCount];
+        int[] spans = new int[pointsCount];
+        long[][] bytes = new long[pointsCount][classesCount];
+        int[][] instances = new int[pointsCount][classesCount];
+        for (int point = 0; point < pointsCount; point++) {
+            timestamps[point] = in.readLong();
+            spans[point] = in.readInt();
+            long[] pointBytes = bytes[point];
+            int[] pointInstances = instances[point];
+            for (int i = 0; i < classesCount; i++) {
+                pointBytes[i] = in.readLong();
+                pointInstances[i] = in.readInt();
+            }
+        }
+
+        return new HistogramSeries(classNames, timestamps, spans, bytes, instances);
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.memory;
+
+import com.sun.tools.visualvm.application.jvm.HeapHistogram.ClassInfo;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Serialized form of a heap histogram as read by
+ * SampledMemoryResultsSnapshot.readFromStream(). The data is encoded lazily
+ * in small chunks while being read, the whole serialized histogram never
+ * exists in memory.
+ *
+ * @author agent
+ */
+final class HistogramSnapshotInput extends InputStream {
+
+    private static final int VERSION = 1;
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private static final int HEADER = 0;
+    private static final int NAMES = 1;
+    private static final int COUNTS_HEADER = 2;
+    private static final int COUNTS = 3;
+    private static final int FINISHED = 4;
+
+    private final long beginTime;
+    private final long takenTime;
+    private final Collection<ClassInfo> classes;
+
+    private final Chunk chunk = new Chunk();
+    private final DataOutputStream output = new DataOutputStream(chunk);
+    private int position;
+    private int limit;
+
+    private int section = HEADER;
+    private Iterator<ClassInfo> iterator;
+
+
+    HistogramSnapshotInput(long beginTime, long takenTime, Collection<ClassInfo> classes) {
+        this.beginTime = beginTime;
+        this.takenTime = takenTime;
+        this.classes = classes;
+    }
+
+
+    public int read() throws IOException {
+        if (position == limit && !nextChunk()) return -1;
+        return chunk.byteAt(position++);
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (position == limit && !nextChunk()) return -1;
+        int count = Math.min(len, limit - position);
+        chunk.copyTo(position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    public int available() {
+        return limit - position;
+    }
+
+
+    private boolean nextChunk() throws IOException {
+        chunk.reset();
+        position = 0;
+
+        while (chunk.size() < CHUNK_SIZE && section != FINISHED) {
+            switch (section) {
+                case HEADER:
+                    output.writeInt(VERSION);
+                    output.writeLong(beginTime);
+                    output.writeLong(takenTime);
+                    output.writeInt(classes.size());   // no of classes
+                    iterator = classes.iterator();
+                    section = NAMES;
+                    break;
+                case NAMES:
+                    if (iterator.hasNext()) {
+                        ClassInfo info = iterator.next();
+                        output.writeUTF(info.getName());     // name
+                        output.writeLong(info.getBytes());   // total number of bytes
+                    } else {
+                        section = COUNTS_HEADER;
+                    }
+                    break;
+                case COUNTS_HEADER:
+                    output.writeBoolean(false);        // no stacktraces
+                    output.writeInt(classes.size());   // no of classes
+                    iterator = classes.iterator();
+                    section = COUNTS;
+                    break;
+                case COUNTS:
+                    if (iterator.hasNext()) {
+                        output.writeInt((int)iterator.next().getInstancesCount()); // number of instances
+                    } else {
+                        iterator = null;
+                        section = FINISHED;
+                    }
+                    break;
+            }
+        }
+
+        limit = chunk.size();
+        return limit > 0;
+    }
+
+
+    // Reusable buffer, bytes are read directly without copying the array
+    private static final class Chunk extends ByteArrayOutputStream {
+
+        Chunk() {
+            super(CHUNK_SIZE + 1024);
+        }
+
+        int byteAt(int index) {
+            return buf[index] & 0xff;
+        }
+
+        void copyTo(int index, byte[] b, int off, int len) {
+            System.arraycopy(buf, index, b, off, len);
+        }
+
+    }
+
+}
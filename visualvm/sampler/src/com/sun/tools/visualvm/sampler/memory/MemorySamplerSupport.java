@@ -31,16 +31,13 @@ import com.sun.tools.visualvm.core.options.GlobalPreferences;
 import com.sun.tools.visualvm.core.ui.components.DataViewComponent;
 import com.sun.tools.visualvm.sampler.AbstractSamplerSupport;
 import com.sun.tools.visualvm.sampler.AbstractSamplerSupport.Refresher;
+import com.sun.tools.visualvm.sampler.SamplingEngine;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.lang.management.MemoryMXBean;
-import java.util.Set;
-import java.util.TimerTask;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import org.netbeans.lib.profiler.common.ProfilingSettings;
@@ -60,7 +57,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     private final HeapDumper heapDumper;
     private final SnapshotDumper snapshotDumper;
     
-    private java.util.Timer processor;
+    private SamplingEngine.Target processor;
     
     private Timer heapTimer;
     private Refresher heapRefresher;
@@ -75,6 +72,10 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     private Refresher threadAllocRefresher;
     private ThreadsMemoryView threadAllocView;
     
+    private final HistogramHistory heapHistory = new HistogramHistory();
+    private final HistogramHistory permgenHistory = new HistogramHistory();
+    private volatile HistogramBudget histogramBudget;
+    
     private DataViewComponent.DetailsView[] detailsViews;
     
     public MemorySamplerSupport(Jvm jvm, boolean hasPermGen, ThreadsMemory mem, MemoryMXBean memoryBean, SnapshotDumper snapshotDumper, HeapDumper heapDumper) {
@@ -84,6 +85,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         this.memoryBean = memoryBean;
         this.heapDumper = heapDumper;
         this.snapshotDumper = snapshotDumper;
+        if (snapshotDumper != null) snapshotDumper.history = heapHistory;
     }
     
     
@@ -98,8 +100,23 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     }
     
     public boolean startSampling(ProfilingSettings settings, int samplingRate, int refreshRate) {
+        return startSampling(settings, samplingRate, refreshRate, 1f);
+    }
+    
+    /**
+     * Starts sampling, heap histograms are taken less often than samplingRate
+     * if needed to keep the application paused at most for pauseBudget
+     * percent of time.
+     */
+    public boolean startSampling(ProfilingSettings settings, int samplingRate, int refreshRate,
+                                 float pauseBudget) {
 //        heapTimer.start();
 //        permgenTimer.start();
+        heapHistory.reset();
+        permgenHistory.reset();
+        histogramBudget = new HistogramBudget(pauseBudget, samplingRate);
+        if (heapView != null) heapView.setHistogramBudget(histogramBudget);
+        if (permgenView != null) permgenView.setHistogramBudget(histogramBudget);
         heapRefresher.setRefreshRate(samplingRate);
         if (permgenRefresher != null)
             permgenRefresher.setRefreshRate(samplingRate);
@@ -134,7 +151,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     private void initialize() {
         int defaultRefresh = GlobalPreferences.sharedInstance().getMonitoredDataPoll() * 1000;
         
-        processor = getTimer();
+        processor = getSamplingTarget();
         
         heapTimer = new Timer(defaultRefresh, new ActionListener() {
             public void actionPerformed(ActionEvent e) {
@@ -142,10 +159,11 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
             }
         });
         heapRefresher = new Refresher() {
+            // Histograms are taken while sampling even if no view is showing
+            // to keep the histogram history complete, the HistogramBudget
+            // bounds the overhead
             public final boolean checkRefresh() {
-                if (!heapTimer.isRunning()) return false;
-                return (heapView.isShowing() || (permgenTimer != null && permgenTimer.getDelay() ==
-                        heapTimer.getDelay() && permgenView.isShowing()));
+                return heapTimer.isRunning();
             }
             public final void doRefresh() {
                 if (heapView.isShowing()) {
@@ -153,6 +171,8 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                 } else if (permgenTimer != null && permgenTimer.getDelay() == heapTimer.getDelay() &&
                            permgenView.isShowing()) {
                     doRefreshImpl(heapTimer, permgenView);
+                } else {
+                    doRefreshImpl(heapTimer);
                 }
             }
             public final void setRefreshRate(int refreshRate) {
@@ -224,12 +244,12 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         if (threadAllocRefresher != null) detailsCount++;
         DataViewComponent.DetailsView[] details = new DataViewComponent.DetailsView[detailsCount];
         
-        heapView = new MemoryView(heapRefresher, MemoryView.MODE_HEAP, memoryBean, snapshotDumper, heapDumper);
+        heapView = new MemoryView(heapRefresher, MemoryView.MODE_HEAP, memoryBean, snapshotDumper, heapDumper, heapHistory);
         details[detailIndex++] = new DataViewComponent.DetailsView(
                     NbBundle.getMessage(MemorySamplerSupport.class, "LBL_Heap_histogram"), // NOI18N
                     null, 10, heapView, null);
         if (hasPermGenHisto) {
-            permgenView = new MemoryView(permgenRefresher, MemoryView.MODE_PERMGEN, memoryBean, null, heapDumper);
+            permgenView = new MemoryView(permgenRefresher, MemoryView.MODE_PERMGEN, memoryBean, null, heapDumper, permgenHistory);
             details[detailIndex++] = new DataViewComponent.DetailsView(
                         NbBundle.getMessage(MemorySamplerSupport.class, "LBL_PermGen_histogram"), // NOI18N
                         null, 20, permgenView, null);
@@ -247,7 +267,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         if (!timer.isRunning() || view.isPaused()) return;
         
         try {
-            processor.schedule(new TimerTask() {
+            processor.post(new Runnable() {
                 public void run() {
                     try {
                         if (!timer.isRunning()) return;
@@ -256,39 +276,49 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                         terminate();
                     }
                 }
-            }, 0);
+            });
         } catch (Exception e) {
             terminate();
         }
     }
     
+    // Paused views don't stop taking histograms, the history is still recorded
     private void doRefreshImpl(final Timer timer, final MemoryView... views) {
-        if (!timer.isRunning() || (views.length == 1 && views[0].isPaused())) return;
+        if (!timer.isRunning()) return;
         
         try {
-            processor.schedule(new TimerTask() {
+            processor.post(new Runnable() {
                 public void run() {
                     try {
                         if (!timer.isRunning()) return;
-                        doRefreshImplImpl(jvm.takeHeapHistogram(), views);
+                        HistogramBudget budget = histogramBudget;
+                        long start = System.nanoTime();
+                        if (budget != null && !budget.acquire(start)) return;
+                        HeapHistogram histogram = jvm.takeHeapHistogram();
+                        if (budget != null) budget.histogramTaken(start, System.nanoTime() - start);
+                        doRefreshImplImpl(histogram, views);
                     } catch (Exception e) {
                         terminate();
                     }
                 }
-            }, 0);
+            });
         } catch (Exception e) {
             terminate();
         }
     }
 
     private void doRefreshImplImpl(final HeapHistogram heapHistogram, final MemoryView... views) {
-        if (heapHistogram != null)
+        if (heapHistogram != null) {
+            long time = heapHistogram.getTime().getTime();
+            heapHistory.addHistogram(time, heapHistogram.getHeapHistogram());
+            if (hasPermGenHisto) permgenHistory.addHistogram(time, heapHistogram.getPermGenHistogram());
             SwingUtilities.invokeLater(new Runnable() {
                 public void run() {
                     snapshotDumper.lastHistogram = heapHistogram;
                     for (MemoryView view : views) view.refresh(heapHistogram);
                 }
             });
+        }
     }
     
     private void doRefreshImplImpl(final ThreadsMemoryInfo info, final ThreadsMemoryView view) {
@@ -305,34 +335,22 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     
     public static abstract class SnapshotDumper {
         private volatile HeapHistogram lastHistogram;
+        private volatile HistogramHistory history;
         
         public abstract void takeSnapshot(boolean openView);
         
+        /**
+         * Creates snapshot of the last heap histogram.
+         */
         public SampledMemoryResultsSnapshot createSnapshot(long time) {
             HeapHistogram histogram = lastHistogram;
 
             if (histogram != null) {
-                ByteArrayOutputStream output = new ByteArrayOutputStream(1024);
-                DataOutputStream dos = new DataOutputStream(output);
+                SampledMemoryResultsSnapshot result = new SampledMemoryResultsSnapshot();
                 try {
-                    SampledMemoryResultsSnapshot result = new SampledMemoryResultsSnapshot();
-                    Set<HeapHistogram.ClassInfo> classes = histogram.getHeapHistogram();
-                    
-                    dos.writeInt(1);    // version
-                    dos.writeLong(histogram.getTime().getTime()); // begin time
-                    dos.writeLong(time); // taken time
-                    dos.writeInt(classes.size());   // no of classes
-                    for (HeapHistogram.ClassInfo info : classes) {
-                        dos.writeUTF(info.getName());       // name
-                        dos.writeLong(info.getBytes());     // total number of bytes
-                    }
-                    dos.writeBoolean(false); // no stacktraces
-                    dos.writeInt(classes.size());   // no of classes
-                    for (HeapHistogram.ClassInfo info : classes) {
-                        dos.writeInt((int)info.getInstancesCount());     // number of instances
-                    }
-                    dos.close();
-                    result.readFromStream(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+                    // The histogram is encoded while being read, no intermediate buffer
+                    result.readFromStream(new DataInputStream(new HistogramSnapshotInput(
+                            histogram.getTime().getTime(), time, histogram.getHeapHistogram())));
                     return result;
                 } catch (IOException ex) {
                     ex.printStackTrace();
@@ -340,5 +358,15 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
             }
             return null;
         }
+
+        /**
+         * Appends the series of histograms collected during the session to
+         * the saved snapshot file, see HistogramSeries.load().
+         */
+        public void saveSeries(File snapshotFile) throws IOException {
+            HistogramHistory h = history;
+            HistogramSeries series = h == null ? null : h.createSeries();
+            if (series != null) series.appendTo(snapshotFile);
+        }
     }
 }
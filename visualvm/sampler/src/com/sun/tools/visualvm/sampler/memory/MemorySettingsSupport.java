@@ -59,6 +59,8 @@ public abstract class MemorySettingsSupport {
     
     public int getRefreshRate() { return panel.getRefreshRate(); }
     
+    public float getPauseBudget() { return panel.getPauseBudget(); }
+    
     public void saveSettings() {
         // NOTE: might save custom configuration here
     }
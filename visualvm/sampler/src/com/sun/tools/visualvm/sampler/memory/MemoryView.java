@@ -28,6 +28,7 @@ package com.sun.tools.visualvm.sampler.memory;
 import com.sun.tools.visualvm.application.jvm.HeapHistogram;
 import com.sun.tools.visualvm.application.jvm.HeapHistogram.ClassInfo;
 import com.sun.tools.visualvm.sampler.AbstractSamplerSupport;
+import com.sun.tools.visualvm.sampler.SortUtils;
 import com.sun.tools.visualvm.uisupport.HTMLTextArea;
 import com.sun.tools.visualvm.uisupport.SeparatorLine;
 import com.sun.tools.visualvm.uisupport.TransparentToolBar;
@@ -44,14 +45,10 @@ import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.lang.management.MemoryMXBean;
 import java.text.NumberFormat;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
@@ -103,14 +100,17 @@ final class MemoryView extends JPanel {
     private final MemoryMXBean memoryBean;
     private final MemorySamplerSupport.HeapDumper heapDumper;
     private final MemorySamplerSupport.SnapshotDumper snapshotDumper;
+    private final HistogramHistory history;
+    private volatile HistogramBudget histogramBudget;
 
 
     MemoryView(AbstractSamplerSupport.Refresher refresher, int mode,
                MemoryMXBean memoryBean, MemorySamplerSupport.SnapshotDumper snapshotDumper,
-               MemorySamplerSupport.HeapDumper heapDumper) {
+               MemorySamplerSupport.HeapDumper heapDumper, HistogramHistory history) {
 
         this.refresher = refresher;
         this.mode = mode;
+        this.history = history;
 
         this.memoryBean = memoryBean;
         this.snapshotDumper = snapshotDumper;
@@ -132,6 +132,10 @@ final class MemoryView extends JPanel {
         if (snapshotButton != null) snapshotButton.setEnabled(false);
     }
 
+    void setHistogramBudget(HistogramBudget histogramBudget) {
+        this.histogramBudget = histogramBudget;
+    }
+
     boolean isPaused() {
         return pauseButton.isSelected() && !forceRefresh;
     }
@@ -141,14 +145,18 @@ final class MemoryView extends JPanel {
     }
 
     void refresh(HeapHistogram histogram) {
+        updateStatistics();
         if (histogram == null || isPaused()) return;
         forceRefresh = false;
 
+        Collection<ClassInfo> newClasses = getHistogram(histogram);
+
         if (deltaButton.isSelected()) {
-            if (baseClasses == null) {
-                baseClasses = new ArrayList(classes);
+            if (!deltas) {
+                setBaseClasses();
                 baseTotalBytes = totalBytes;
                 baseTotalInstances = totalInstances;
+                deltas = true;
 
                 columnRenderers[1] = diffBarCellRenderer;
                 columnRenderers[2] = labelTableCellRenderer;
@@ -156,23 +164,23 @@ final class MemoryView extends JPanel {
                 updateColumnRenderers();
             }
 
-            Collection<ClassInfo> newClasses = getHistogram(histogram);
-            classes = computeDeltaClasses(baseClasses, newClasses);
+            setClasses(newClasses);
 
-            totalClasses = baseClasses.size() - newClasses.size();
+            totalClasses = baseClassesCount - newClasses.size();
             totalBytes = getTotalBytes(histogram) - baseTotalBytes;
             totalInstances = getTotalInstances(histogram) - baseTotalInstances;
 
             long maxAbsDiffBytes = 0;
-            for (ClassInfo cInfo : classes)
-                maxAbsDiffBytes = Math.max(maxAbsDiffBytes, Math.abs(cInfo.getBytes()));
+            for (int i = 0; i < classesCount; i++)
+                maxAbsDiffBytes = Math.max(maxAbsDiffBytes, Math.abs(bytes[classIds[i]]));
 
             diffBarCellRenderer.setMaximum(maxAbsDiffBytes);
             diffBarCellRenderer.setMinimum(-maxAbsDiffBytes);
             
         } else {
-            if (baseClasses != null) {
-                baseClasses = null;
+            if (deltas) {
+                deltas = false;
+                baseClassesCount = 0;
                 baseTotalBytes = -1;
                 baseTotalInstances = -1;
 
@@ -181,10 +189,10 @@ final class MemoryView extends JPanel {
                 columnRenderers[3] = labelBracketTableCellRenderer;
                 updateColumnRenderers();
             }
-            classes.clear();
-            classes.addAll(getHistogram(histogram));
 
-            totalClasses = classes.size();
+            setClasses(newClasses);
+
+            totalClasses = classesCount;
             totalBytes = getTotalBytes(histogram);
             totalInstances = getTotalInstances(histogram);
             customBarCellRenderer.setMaximum(totalBytes);
@@ -196,6 +204,26 @@ final class MemoryView extends JPanel {
         if (snapshotButton != null) snapshotButton.setEnabled(true);
     }
 
+    private void updateStatistics() {
+        HistogramBudget budget = histogramBudget;
+        if (budget == null || budget.getHistogramsCount() == 0) return;
+        NumberFormat format = NumberFormat.getNumberInstance();
+        format.setMaximumFractionDigits(1);
+        float interval = budget.getAchievedInterval();
+        if (interval == 0) interval = budget.getEffectiveInterval();
+        statisticsLabel.setText(NbBundle.getMessage(MemoryView.class, "LBL_Histogram_stats", // NOI18N
+                new Object[] { format.format(interval),
+                format.format(budget.getAverageCost()),
+                format.format(budget.getPauseShare()) }));
+        statisticsLabel.setToolTipText(NbBundle.getMessage(MemoryView.class, "TOOLTIP_Histogram_stats", // NOI18N
+                new Object[] { budget.getHistogramsCount(),
+                format.format(budget.getLastCost()),
+                format.format(budget.getRequestedInterval()),
+                format.format(budget.getEffectiveInterval()),
+                budget.getSkippedTicks(),
+                format.format(budget.getPauseBudget()) }));
+    }
+
     void terminate() {
 //        refreshRateLabel.setEnabled(false);
 //        refreshCombo.setEnabled(false);
@@ -225,20 +253,82 @@ final class MemoryView extends JPanel {
         return -1;
     }
 
-    private static List<ClassInfo> computeDeltaClasses(Collection<ClassInfo> basis, Collection<ClassInfo> changed) {
-
-        Map<String, DeltaClassInfo> deltaMap = new HashMap((int)(basis.size() * 1.3));
+    // Remembers the displayed classes as the base of deltas
+    private void setBaseClasses() {
+        baseClassesCount = classesCount;
+        if (baseClassIds.length < classesCount) {
+            baseClassIds = new int[classesCount];
+            baseBytes = new long[classesCount];
+            baseInstances = new long[classesCount];
+        }
+        for (int i = 0; i < classesCount; i++) {
+            int classId = classIds[i];
+            baseClassIds[i] = classId;
+            baseBytes[i] = bytes[classId];
+            baseInstances[i] = instances[classId];
+        }
+    }
 
-        for (ClassInfo cInfo : basis)
-            deltaMap.put(cInfo.getName(), new DeltaClassInfo(cInfo, true));
+    // Computes the displayed values indexed by class ids, differences from the
+    // base classes in delta mode. Arrays are reused, no objects are allocated.
+    private void setClasses(Collection<ClassInfo> newClasses) {
+        int newClassesCount = newClasses.size();
+        if (newClassIds.length < newClassesCount) newClassIds = new int[newClassesCount];
+        history.getClassIds(newClasses, newClassIds);
+        ensureCapacity(history.getClassesCount(), baseClassesCount + newClassesCount);
+
+        if (++classesStamp == 0) {
+            Arrays.fill(classStamps, 0);
+            classesStamp = 1;
+        }
+        classesCount = 0;
+
+        if (deltas) {
+            for (int i = 0; i < baseClassesCount; i++) {
+                int classId = baseClassIds[i];
+                classStamps[classId] = classesStamp;
+                classIds[classesCount++] = classId;
+                bytes[classId] = -baseBytes[i];
+                instances[classId] = -baseInstances[i];
+            }
+        }
 
-        for (ClassInfo cInfo : changed) {
-            DeltaClassInfo bInfo = deltaMap.get(cInfo.getName());
-            if (bInfo != null) bInfo.add(cInfo);
-            else deltaMap.put(cInfo.getName(), new DeltaClassInfo(cInfo, false));
+        int index = 0;
+        for (ClassInfo cInfo : newClasses) {
+            int classId = newClassIds[index++];
+            if (classStamps[classId] != classesStamp) {
+                classStamps[classId] = classesStamp;
+                classIds[classesCount++] = classId;
+                bytes[classId] = 0;
+                instances[classId] = 0;
+            }
+            bytes[classId] += cInfo.getBytes();
+            instances[classId] += cInfo.getInstancesCount();
         }
+    }
 
-        return new ArrayList(deltaMap.values());
+    private void ensureCapacity(int idsCount, int rowsCount) {
+        if (bytes.length < idsCount) {
+            int length = Math.max(idsCount, bytes.length * 2);
+            long[] newBytes = new long[length];
+            long[] newInstances = new long[length];
+            int[] newStamps = new int[length];
+            System.arraycopy(bytes, 0, newBytes, 0, bytes.length);
+            System.arraycopy(instances, 0, newInstances, 0, instances.length);
+            System.arraycopy(classStamps, 0, newStamps, 0, classStamps.length);
+            bytes = newBytes;
+            instances = newInstances;
+            classStamps = newStamps;
+            sortValues = new long[length];
+        }
+        if (classIds.length < rowsCount) {
+            int length = Math.max(rowsCount, classIds.length * 2);
+            int[] newClassIds = new int[length];
+            System.arraycopy(classIds, 0, newClassIds, 0, classesCount);
+            classIds = newClassIds;
+            filteredSortedIds = new int[length];
+            sortBuffer = new int[length];
+        }
     }
 
 
@@ -260,16 +350,17 @@ final class MemoryView extends JPanel {
 
 
     private void filterData() {
-        filteredSortedIndexes.clear();
+        filteredSortedCount = 0;
 
         String[] filterStrings = FilterComponent.getFilterValues(filterString);
         if (filterType == CommonConstants.FILTER_NONE ||
             filterStrings == null || filterStrings[0].equals("")) { // NOI18N
-            for (int i = 0; i < classes.size(); i++) filteredSortedIndexes.add(i);
+            System.arraycopy(classIds, 0, filteredSortedIds, 0, classesCount);
+            filteredSortedCount = classesCount;
         } else {
-            for (int i = 0; i < classes.size(); i++)
-                if (passedFilters(classes.get(i).getName(), filterStrings, filterType))
-                    filteredSortedIndexes.add(i);
+            for (int i = 0; i < classesCount; i++)
+                if (passedFilters(history.getClassName(classIds[i]), filterStrings, filterType))
+                    filteredSortedIds[filteredSortedCount++] = classIds[i];
         }
     }
 
@@ -314,31 +405,69 @@ final class MemoryView extends JPanel {
     }
 
     private void sortData() {
-        Collections.sort(filteredSortedIndexes, new Comparator() {
+        long[] values;
+        switch (sortingColumn) {
+            case 0:
+                values = getNameRanks();
+                break;
+            case 1:
+            case 2:
+                values = bytes;
+                break;
+            case 3:
+                values = instances;
+                break;
+            case 4:
+                for (int i = 0; i < filteredSortedCount; i++) {
+                    int classId = filteredSortedIds[i];
+                    sortValues[classId] = Math.round(history.getGrowthRate(classId));
+                }
+                values = sortValues;
+                break;
+            case 5:
+                for (int i = 0; i < filteredSortedCount; i++) {
+                    int classId = filteredSortedIds[i];
+                    sortValues[classId] = Math.round(history.getLeakScore(classId));
+                }
+                values = sortValues;
+                break;
+            default:
+                values = null;
+        }
+        if (values != null)
+            SortUtils.sortIndexes(filteredSortedIds, filteredSortedCount,
+                                  values, sortOrder, sortBuffer);
+    }
 
-            public int compare(Object o1, Object o2) {
-                Integer index1 = (Integer)o1;
-                Integer index2 = (Integer)o2;
-                ClassInfo class1 = classes.get(index1);
-                ClassInfo class2 = classes.get(index2);
+    // Sorts by the Trend column, classes growing steadily over the session first
+    private void sortByLeakScore() {
+        sortingColumn = 5;
+        sortOrder = false;
+        resTableModel.setInitialSorting(sortingColumn, sortOrder);
+        resTable.getTableHeader().repaint();
+        updateData(true);
+    }
 
-                switch (sortingColumn) {
-                    case 0:
-                        return sortOrder ? class1.getName().compareTo(class2.getName()) :
-                            class2.getName().compareTo(class1.getName());
-                    case 1:
-                    case 2:
-                        return sortOrder ? ((Long)class1.getBytes()).compareTo(class2.getBytes()) :
-                            ((Long)class2.getBytes()).compareTo(class1.getBytes());
-                    case 3:
-                        return sortOrder ? ((Long)class1.getInstancesCount()).compareTo(class2.getInstancesCount()) :
-                            ((Long)class2.getInstancesCount()).compareTo(class1.getInstancesCount());
-                    default:
-                        return 0;
-                }
+    // Returns alphabetical ranks of class names indexed by class ids, the
+    // ranks are only recomputed when new classes have been registered
+    private long[] getNameRanks() {
+        int idsCount = history.getClassesCount();
+        if (nameRanks.length != idsCount) {
+            final String[] names = new String[idsCount];
+            Integer[] order = new Integer[idsCount];
+            for (int i = 0; i < idsCount; i++) {
+                names[i] = history.getClassName(i);
+                order[i] = i;
             }
-
-        });
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer i1, Integer i2) {
+                    return names[i1].compareTo(names[i2]);
+                }
+            });
+            nameRanks = new long[idsCount];
+            for (int i = 0; i < idsCount; i++) nameRanks[order[i]] = i;
+        }
+        return nameRanks;
     }
 
 
@@ -349,7 +478,7 @@ final class MemoryView extends JPanel {
             }
 
             public int getRowCount() {
-                return filteredSortedIndexes.size();
+                return filteredSortedCount;
             }
 
             public int getColumnCount() {
@@ -361,15 +490,14 @@ final class MemoryView extends JPanel {
             }
 
             public Object getValueAt(int row, int col) {
-                ClassInfo classs = classes.get(filteredSortedIndexes.get(row));
-                boolean deltas = baseClasses != null;
-                long bytes = classs.getBytes();
-                long instances = classs.getInstancesCount();
+                int classId = filteredSortedIds[row];
+                long bytes = MemoryView.this.bytes[classId];
+                long instances = MemoryView.this.instances[classId];
                 NumberFormat formatter = NumberFormat.getInstance();
 
                 switch (col) {
                     case 0:
-                        return classs.getName();
+                        return history.getClassName(classId);
                     case 1:
                         return bytes;
                     case 2:
@@ -384,6 +512,12 @@ final class MemoryView extends JPanel {
                         } else {
                             return instances == 0 ? "0 (0.0%)" : formatter.format(instances) + " (" + getPercentValue(instances, totalInstances) + "%)"; // NOI18N
                         }
+                    case 4:
+                        if (history.getPointsCount() < 2) return ""; // NOI18N
+                        long growth = Math.round(history.getGrowthRate(classId));
+                        return growth > 0 ? "+" + formatter.format(growth) : formatter.format(growth); // NOI18N
+                    case 5:
+                        return classId;
                     default:
                         return null;
                 }
@@ -498,17 +632,23 @@ final class MemoryView extends JPanel {
             NbBundle.getMessage(MemoryView.class, "COL_Class_name"), // NOI18N
             NbBundle.getMessage(MemoryView.class, "COL_Bytes_rel"), // NOI18N
             NbBundle.getMessage(MemoryView.class, "COL_Bytes"), // NOI18N
-            NbBundle.getMessage(MemoryView.class, "COL_Instances") }; // NOI18N
+            NbBundle.getMessage(MemoryView.class, "COL_Instances"), // NOI18N
+            NbBundle.getMessage(MemoryView.class, "COL_Growth"), // NOI18N
+            NbBundle.getMessage(MemoryView.class, "COL_Trend") }; // NOI18N
         columnToolTips = new String[] {
             NbBundle.getMessage(MemoryView.class, "COL_Class_name"), // NOI18N
             NbBundle.getMessage(MemoryView.class, "COL_Bytes_rel"), // NOI18N
             NbBundle.getMessage(MemoryView.class, "COL_Bytes"), // NOI18N
-            NbBundle.getMessage(MemoryView.class, "COL_Instances") }; // NOI18N
-        columnTypes = new Class[] { String.class, Number.class, String.class, String.class };
+            NbBundle.getMessage(MemoryView.class, "COL_Instances"), // NOI18N
+            NbBundle.getMessage(MemoryView.class, "TOOLTIP_Growth"), // NOI18N
+            NbBundle.getMessage(MemoryView.class, "TOOLTIP_Trend") }; // NOI18N
+        columnTypes = new Class[] { String.class, Number.class, String.class, String.class,
+                                    String.class, Integer.class };
         columnRenderers = new TableCellRenderer[] {
             classNameTableCellRenderer, customBarCellRenderer, 
-            labelBracketTableCellRenderer, labelBracketTableCellRenderer };
-        columnWidths = new int[] { maxWidth, maxWidth, maxWidth, maxWidth };
+            labelBracketTableCellRenderer, labelBracketTableCellRenderer,
+            labelTableCellRenderer, new SparklineRenderer(history) };
+        columnWidths = new int[] { maxWidth, maxWidth, maxWidth, maxWidth, maxWidth };
     }
 
     private void setColumnsData() {
@@ -612,6 +752,15 @@ final class MemoryView extends JPanel {
         deltaButton.setOpaque(false);
         toolBar.addItem(deltaButton);
 
+        leakSuspectsButton = new JButton(NbBundle.getMessage(MemoryView.class, "LBL_Leak_suspects")) { // NOI18N
+            protected void fireActionPerformed(ActionEvent event) {
+                sortByLeakScore();
+            }
+        };
+        leakSuspectsButton.setToolTipText(NbBundle.getMessage(MemoryView.class, "TOOLTIP_Leak_suspects")); // NOI18N
+        leakSuspectsButton.setOpaque(false);
+        toolBar.addItem(leakSuspectsButton);
+
         if (snapshotDumper != null) {
             toolBar.addSeparator();
             
@@ -630,6 +779,10 @@ final class MemoryView extends JPanel {
 
         toolBar.addFiller();
 
+        statisticsLabel = new JLabel();
+        statisticsLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 8));
+        toolBar.addItem(statisticsLabel);
+
         gcButton = new JButton(NbBundle.getMessage(MemoryView.class, "LBL_Gc")) { // NOI18N
             protected void fireActionPerformed(ActionEvent event) {
                 RequestProcessor.getDefault().post(new Runnable() {
@@ -662,6 +815,7 @@ final class MemoryView extends JPanel {
         maxHeight = Math.max(maxHeight, refreshButton.getPreferredSize().height);
         if (snapshotButton != null) maxHeight = Math.max(maxHeight, snapshotButton.getPreferredSize().height);
         maxHeight = Math.max(maxHeight, deltaButton.getPreferredSize().height);
+        maxHeight = Math.max(maxHeight, leakSuspectsButton.getPreferredSize().height);
         maxHeight = Math.max(maxHeight, gcButton.getPreferredSize().height);
         maxHeight = Math.max(maxHeight, heapdumpButton.getPreferredSize().height);
 
@@ -691,6 +845,12 @@ final class MemoryView extends JPanel {
         deltaButton.setPreferredSize(size);
         deltaButton.setMaximumSize(size);
 
+        width = leakSuspectsButton.getPreferredSize().width;
+        size = new Dimension(width + 5, maxHeight);
+        leakSuspectsButton.setMinimumSize(size);
+        leakSuspectsButton.setPreferredSize(size);
+        leakSuspectsButton.setMaximumSize(size);
+
         width = gcButton.getPreferredSize().width;
         size = new Dimension(width + 5, maxHeight);
         gcButton.setMinimumSize(size);
@@ -808,7 +968,6 @@ final class MemoryView extends JPanel {
     }
 
     private String getBasicTelemetry() {
-        boolean deltas = baseClasses != null;
         String sClasses = totalClasses == -1 ? "" : (deltas && totalClasses > 0 ? "+" : "") + NumberFormat.getInstance().format(totalClasses); // NOI18N
         String sInstances = totalInstances == -1 ? "" : (deltas && totalInstances > 0 ? "+" : "") + NumberFormat.getInstance().format(totalInstances); // NOI18N
         String sBytes = totalBytes == -1 ? "" : (deltas && totalBytes > 0 ? "+" : "") + NumberFormat.getInstance().format(totalBytes); // NOI18N
@@ -821,11 +980,13 @@ final class MemoryView extends JPanel {
 
 
     private HTMLTextArea area;
+    private JLabel statisticsLabel;
 //    private JLabel refreshRateLabel;
 //    private JLabel refreshUnitsLabel;
 //    private JComboBox refreshCombo;
     private AbstractButton snapshotButton;
     private AbstractButton deltaButton;
+    private AbstractButton leakSuspectsButton;
     private AbstractButton pauseButton;
     private AbstractButton refreshButton;
     private AbstractButton gcButton;
@@ -842,9 +1003,29 @@ final class MemoryView extends JPanel {
     private String filterString = ""; // NOI18N
     private int filterType = CommonConstants.FILTER_CONTAINS;
 
-    private List<ClassInfo> classes = new ArrayList();
-    private List<ClassInfo> baseClasses = new ArrayList(); // Needed to correctly setup table renderers
-    private List<Integer> filteredSortedIndexes = new ArrayList();
+    private boolean deltas = true; // Needed to correctly setup table renderers
+
+    // Values of the displayed classes indexed by class id
+    private long[] bytes = new long[0];
+    private long[] instances = new long[0];
+    private int[] classStamps = new int[0];
+    private int classesStamp;
+    private long[] sortValues = new long[0];
+    private long[] nameRanks = new long[0];
+
+    // Class ids of the displayed classes
+    private int[] classIds = new int[0];
+    private int classesCount;
+    private int[] newClassIds = new int[0];
+    private int[] filteredSortedIds = new int[0];
+    private int filteredSortedCount;
+    private int[] sortBuffer = new int[0];
+
+    // Base of deltas
+    private int[] baseClassIds = new int[0];
+    private long[] baseBytes = new long[0];
+    private long[] baseInstances = new long[0];
+    private int baseClassesCount;
     private int totalClasses = -1;
     private long totalBytes, baseTotalBytes = -1;
     private long totalInstances, baseTotalInstances = -1;
@@ -875,27 +1056,4 @@ final class MemoryView extends JPanel {
 //
 //    }
 
-    private static class DeltaClassInfo extends ClassInfo {
-
-        String name;
-        long instancesCount;
-        long bytes;
-
-        DeltaClassInfo(ClassInfo cInfo, boolean negative) {
-            name = cInfo.getName();
-            instancesCount = negative ? -cInfo.getInstancesCount() : cInfo.getInstancesCount();
-            bytes = negative ? -cInfo.getBytes() : cInfo.getBytes();
-        }
-
-        void add(ClassInfo cInfo) {
-            instancesCount += cInfo.getInstancesCount();
-            bytes += cInfo.getBytes();
-        }
-
-        public String getName() { return name; }
-        public long getInstancesCount() { return instancesCount; }
-        public long getBytes() { return bytes; }
-
-    }
-
 }
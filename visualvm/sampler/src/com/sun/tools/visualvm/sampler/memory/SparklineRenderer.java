@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.memory;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Table cell renderer painting history of bytes of a class as a sparkline.
+ * The cell value is the class id in the HistogramHistory.
+ *
+ * @author agent
+ */
+final class SparklineRenderer extends JComponent implements TableCellRenderer {
+
+    private static final int MARGIN = 3;
+    private static final Color LEAK_COLOR = new Color(200, 60, 60);
+
+    private final HistogramHistory history;
+
+    private long[] values = new long[0];
+    private long[] times = new long[0];
+    private int[] xPoints = new int[0];
+    private int[] yPoints = new int[0];
+    private int classId = -1;
+    private boolean suspect;
+
+
+    SparklineRenderer(HistogramHistory history) {
+        this.history = history;
+        setOpaque(true);
+    }
+
+
+    public Component getTableCellRendererComponent(JTable table, Object value,
+            boolean isSelected, boolean hasFocus, int row, int column) {
+        classId = value == null ? -1 : ((Integer)value).intValue();
+        suspect = classId != -1 && history.getLeakScore(classId) > 0;
+        setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
+        setForeground(isSelected ? table.getSelectionForeground() : table.getForeground());
+        return this;
+    }
+
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (classId == -1) return;
+
+        int count = history.getPointsCount();
+        if (count < 2) return;
+        if (values.length < count) {
+            values = new long[count];
+            times = new long[count];
+            xPoints = new int[count];
+            yPoints = new int[count];
+        }
+        count = Math.min(count, history.getBytes(classId, values, times));
+        if (count < 2) return;
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+
+        int width = getWidth() - 2 * MARGIN;
+        int height = getHeight() - 2 * MARGIN;
+        long duration = Math.max(1, times[count - 1] - times[0]);
+        long range = max - min;
+        for (int i = 0; i < count; i++) {
+            xPoints[i] = MARGIN + (int)((times[i] - times[0]) * width / duration);
+            yPoints[i] = MARGIN + height - (range == 0 ? height / 2 :
+                         (int)((values[i] - min) * height / range));
+        }
+
+        Graphics2D g2 = (Graphics2D)g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(suspect ? LEAK_COLOR : getForeground());
+        g2.drawPolyline(xPoints, yPoints, count);
+    }
+
+    // --- Performance tweaks, as in DefaultTableCellRenderer ------------------
+
+    public void validate() {}
+    public void revalidate() {}
+    public void repaint(long tm, int x, int y, int width, int height) {}
+    protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {}
+
+}
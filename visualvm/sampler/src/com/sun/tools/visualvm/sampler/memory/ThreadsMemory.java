@@ -25,15 +25,12 @@
 
 package com.sun.tools.visualvm.sampler.memory;
 
+import com.sun.tools.visualvm.sampler.ThreadsPoller;
 import java.io.IOException;
-import java.lang.management.ManagementFactory;
-import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanException;
 import javax.management.MBeanServerConnection;
-import javax.management.MalformedObjectNameException;
-import javax.management.ObjectName;
 import javax.management.ReflectionException;
 
 /**
@@ -41,32 +38,21 @@ import javax.management.ReflectionException;
  * @author Tomas Hurka
  */
 public class ThreadsMemory {
-    private static final ObjectName THREAD_NAME = getThreadName();
     
-    private final ThreadMXBean threadBean;
-    private final MBeanServerConnection connection;
+    private final ThreadsPoller poller;
 
     public ThreadsMemory(ThreadMXBean bean, MBeanServerConnection conn) {
-        threadBean = bean;
-        connection = conn;
+        this(new ThreadsPoller(bean, conn));
+    }
+    
+    public ThreadsMemory(ThreadsPoller poller) {
+        this.poller = poller;
     }
     
     public ThreadsMemoryInfo getThreadsMemoryInfo() throws MBeanException, ReflectionException, IOException, InstanceNotFoundException {
-        long[] ids = threadBean.getAllThreadIds();
-        ThreadInfo[] tids = threadBean.getThreadInfo(ids);
-        Object[] args = new Object[] {ids};
-        String[] sigs = new String[] {"[J"};  // NOI18N
-        long[] memInfo = (long[])connection.invoke(THREAD_NAME, "getThreadAllocatedBytes", args, sigs);   // NOI18N
-        long time = System.currentTimeMillis();
+        ThreadsPoller.Threads threads = poller.poll(false, true);
         
-        return new ThreadsMemoryInfo(time,tids,memInfo);
+        return new ThreadsMemoryInfo(threads.getTimestamp(), threads.getIds(),
+                                     threads.getNames(), threads.getAllocatedBytes());
     }   
-
-    private static ObjectName getThreadName() {
-        try {
-            return new ObjectName(ManagementFactory.THREAD_MXBEAN_NAME);
-        } catch (MalformedObjectNameException ex) {
-            throw new RuntimeException(ex);
-        }
-    }
 }
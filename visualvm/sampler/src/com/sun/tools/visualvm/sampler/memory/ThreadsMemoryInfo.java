@@ -25,45 +25,44 @@
 
 package com.sun.tools.visualvm.sampler.memory;
 
-import java.lang.management.ThreadInfo;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
+ * Allocated bytes of all threads, arrays are sorted by thread id. Diffs are
+ * computed by merging the sorted ids of two infos.
  *
  * @author Tomas Hurka
  */
 class ThreadsMemoryInfo {
     
-    private List<ThreadInfo> threads = new ArrayList();
-    private List<Long> allocatedBytes = new ArrayList();
-    private Map<Long,Long> allocatedBytesMap;
-    private long totalBytes;
-    private long timestamp;
+    private final long timestamp;
+    private final long[] ids;
+    private final String[] names;
+    private final long[] allocatedBytes;
+    private final long totalBytes;
     private long totalDiffBytes;
     
-    ThreadsMemoryInfo(long time, ThreadInfo[] tinfo, long[] minfo) {
-        allocatedBytesMap = new HashMap(threads.size()*4/3);
-        totalBytes = 0;
-        for (int i = 0; i <tinfo.length; i++) {
-            ThreadInfo ti = tinfo[i];
-            if (ti != null) {
-                threads.add(ti);
-                allocatedBytes.add(minfo[i]);
-                allocatedBytesMap.put(ti.getThreadId(),minfo[i]);
-                totalBytes+=minfo[i];
-            }
-        }
+    ThreadsMemoryInfo(long time, long[] ids, String[] names, long[] allocatedBytes) {
         timestamp = time;
+        this.ids = ids;
+        this.names = names;
+        this.allocatedBytes = allocatedBytes;
+        long sum = 0;
+        for (long value : allocatedBytes) sum += value;
+        totalBytes = sum;
+    }
+    
+    int getThreadsCount() {
+        return ids.length;
+    }
+    
+    long[] getThreadIds() {
+        return ids;
     }
     
-    List<ThreadInfo> getThreads() {
-        return threads;
+    String[] getThreadNames() {
+        return names;
     }
     
-    List<Long> getAllocatedBytes() {
+    long[] getAllocatedBytes() {
         return allocatedBytes;
     }
     
@@ -71,40 +70,37 @@ class ThreadsMemoryInfo {
         return totalBytes;
     }
     
-    List<Long> getAllocatedDiffBytes(ThreadsMemoryInfo info) {
-        List<Long> allocDiff = new ArrayList(threads.size());
-        List<ThreadInfo> newThreads = info.getThreads();
-        List<Long> newAllocatedBytes = info.getAllocatedBytes();
+    /**
+     * Returns differences of allocated bytes since this info for each thread of the
+     * newer info, threads not known to this info are compared to 0.
+     */
+    long[] getAllocatedDiffBytes(ThreadsMemoryInfo info) {
+        long[] newIds = info.ids;
+        long[] newValues = info.allocatedBytes;
+        long[] diff = new long[newIds.length];
         
         totalDiffBytes = 0;
-        for (int i=0; i<newThreads.size(); i++) {
-            ThreadInfo ti = newThreads.get(i);
-            Long oldAlloc = allocatedBytesMap.get(ti.getThreadId());
-            long diff;
-            
-            if (oldAlloc == null) {
-                oldAlloc = Long.valueOf(0);
-            }
-            diff = newAllocatedBytes.get(i)-oldAlloc;
-            allocDiff.add(diff);
-            totalDiffBytes += diff;
+        for (int i = 0, j = 0; i < newIds.length; i++) {
+            while (j < ids.length && ids[j] < newIds[i]) j++;
+            long oldValue = j < ids.length && ids[j] == newIds[i] ? allocatedBytes[j] : 0;
+            diff[i] = newValues[i] - oldValue;
+            totalDiffBytes += diff[i];
         }
-        return allocDiff;
+        return diff;
     }
     
     long getTotalDiffBytes() {
         return totalDiffBytes;
     }
     
-    List<Long> getAllocatedBytesPerSecond(ThreadsMemoryInfo newInfo) {
+    long[] getAllocatedBytesPerSecond(ThreadsMemoryInfo newInfo) {
         assert newInfo.timestamp >= timestamp;
-        List<Long> diff = getAllocatedDiffBytes(newInfo);
+        long[] diff = getAllocatedDiffBytes(newInfo);
         double secs = (newInfo.timestamp - timestamp) / 1000.0;
-        List<Long> diffPerSec = new ArrayList(diff.size());
         
-        for (Long d : diff) {
-            diffPerSec.add(new Long((long)(d/secs)));
+        for (int i = 0; i < diff.length; i++) {
+            diff[i] = (long)(diff[i] / secs);
         }
-        return diffPerSec;
+        return diff;
     }
 }
@@ -26,6 +26,7 @@
 package com.sun.tools.visualvm.sampler.memory;
 
 import com.sun.tools.visualvm.sampler.AbstractSamplerSupport;
+import com.sun.tools.visualvm.sampler.SortUtils;
 import com.sun.tools.visualvm.uisupport.HTMLTextArea;
 import com.sun.tools.visualvm.uisupport.SeparatorLine;
 import com.sun.tools.visualvm.uisupport.TransparentToolBar;
@@ -41,13 +42,8 @@ import java.awt.event.HierarchyListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.lang.management.MemoryMXBean;
-import java.lang.management.ThreadInfo;
 import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
@@ -109,12 +105,14 @@ final class ThreadsMemoryView extends JPanel {
     private String filterString = ""; // NOI18N
     private int filterType = CommonConstants.FILTER_CONTAINS;
     
-    private List<ThreadInfo> threads;
-    private List<Long> allocatedBytes;
-    private List<Long> allocatedBytesPerSec;
+    private long[] threadIds;
+    private String[] threadNames;
+    private long[] allocatedBytes;
+    private long[] allocatedBytesPerSec;
     private ThreadsMemoryInfo currentThreadsInfo;
     private ThreadsMemoryInfo baseThreadsInfo;
-    private List<Integer> filteredSortedIndexes = new ArrayList();
+    private int[] filteredSortedIndexes = new int[0];
+    private int filteredSortedCount;
     private int totalThreads = -1;
     private long totalBytes, baseTotalBytes = -1;
     
@@ -157,7 +155,8 @@ final class ThreadsMemoryView extends JPanel {
     void refresh(ThreadsMemoryInfo info) {
         if (isPaused()) return;
         forceRefresh = false;
-        threads = info.getThreads();
+        threadIds = info.getThreadIds();
+        threadNames = info.getThreadNames();
         allocatedBytes = info.getAllocatedBytes();
         totalBytes = info.getTotalBytes();
         if (currentThreadsInfo != null) {
@@ -172,7 +171,7 @@ final class ThreadsMemoryView extends JPanel {
                 columnRenderers[2] = labelTableCellRenderer;
                 updateColumnRenderers();
             }
-            totalThreads = threads.size() - baseThreadsInfo.getThreads().size();
+            totalThreads = info.getThreadsCount() - baseThreadsInfo.getThreadsCount();
             allocatedBytes = baseThreadsInfo.getAllocatedDiffBytes(info);
             totalBytes = baseThreadsInfo.getTotalDiffBytes();
         } else {
@@ -185,7 +184,7 @@ final class ThreadsMemoryView extends JPanel {
             }
             allocatedBytes = info.getAllocatedBytes();
             totalBytes = info.getTotalBytes();
-            totalThreads = threads.size();
+            totalThreads = info.getThreadsCount();
             
         }
         customBarCellRenderer.setMaximum(totalBytes);
@@ -219,16 +218,19 @@ final class ThreadsMemoryView extends JPanel {
     
     
     private void filterData() {
-        filteredSortedIndexes.clear();
+        filteredSortedCount = 0;
+        if (threadNames == null) return;
+        if (filteredSortedIndexes.length < threadNames.length)
+            filteredSortedIndexes = new int[threadNames.length];
         
         String[] filterStrings = FilterComponent.getFilterValues(filterString);
         if (filterType == CommonConstants.FILTER_NONE ||
                 filterStrings == null || filterStrings[0].equals("")) { // NOI18N
-            for (int i = 0; i < threads.size(); i++) filteredSortedIndexes.add(i);
+            for (int i = 0; i < threadNames.length; i++) filteredSortedIndexes[filteredSortedCount++] = i;
         } else {
-            for (int i = 0; i < threads.size(); i++)
-                if (passedFilters(threads.get(i).getThreadName(), filterStrings, filterType))
-                    filteredSortedIndexes.add(i);
+            for (int i = 0; i < threadNames.length; i++)
+                if (passedFilters(threadNames[i], filterStrings, filterType))
+                    filteredSortedIndexes[filteredSortedCount++] = i;
         }
     }
     
@@ -259,33 +261,23 @@ final class ThreadsMemoryView extends JPanel {
     }
     
     private void sortData() {
-        Collections.sort(filteredSortedIndexes, new Comparator() {
-            
-            public int compare(Object o1, Object o2) {
-                Integer index1 = (Integer)o1;
-                Integer index2 = (Integer)o2;
-                
-                switch (sortingColumn) {
-                    case 0:
-                        ThreadInfo ti1 = threads.get(index1);
-                        ThreadInfo ti2 = threads.get(index2);
-                        return sortOrder ? Long.valueOf(ti1.getThreadId()).compareTo(ti2.getThreadId()) :
-                            Long.valueOf(ti2.getThreadId()).compareTo(ti1.getThreadId());
-                    case 1:
-                    case 2:
-                        Long alloc1 = allocatedBytes.get(index1);
-                        Long alloc2 = allocatedBytes.get(index2);
-                        return sortOrder ? alloc1.compareTo(alloc2) : alloc2.compareTo(alloc1);
-                    case 3:
-                        Long allocSec1 = allocatedBytesPerSec.get(index1);
-                        Long allocSec2 = allocatedBytesPerSec.get(index2);
-                        return sortOrder ? allocSec1.compareTo(allocSec2) : allocSec2.compareTo(allocSec1);
-                    default:
-                        return 0;
-                }
-            }
-            
-        });
+        long[] values;
+        switch (sortingColumn) {
+            case 0:
+                values = threadIds;
+                break;
+            case 1:
+            case 2:
+                values = allocatedBytes;
+                break;
+            case 3:
+                values = allocatedBytesPerSec;
+                break;
+            default:
+                values = null;
+        }
+        if (values != null)
+            SortUtils.sortIndexes(filteredSortedIndexes, filteredSortedCount, values, sortOrder);
     }
     
     
@@ -296,7 +288,7 @@ final class ThreadsMemoryView extends JPanel {
             }
             
             public int getRowCount() {
-                return filteredSortedIndexes.size();
+                return filteredSortedCount;
             }
             
             public int getColumnCount() {
@@ -308,15 +300,14 @@ final class ThreadsMemoryView extends JPanel {
             }
             
             public Object getValueAt(int row, int col) {
-                int index = filteredSortedIndexes.get(row);
-                long alloc = allocatedBytes.get(index).longValue();
+                int index = filteredSortedIndexes[row];
+                long alloc = allocatedBytes[index];
                 boolean deltas = baseThreadsInfo != null;
                 NumberFormat formatter = NumberFormat.getInstance();
                 
                 switch (col) {
                     case 0:
-                        ThreadInfo threadInfo = threads.get(index);
-                        return threadInfo.getThreadName() ;
+                        return threadNames[index];
                     case 1:
                         return alloc;
                     case 2:
@@ -327,7 +318,7 @@ final class ThreadsMemoryView extends JPanel {
                         }
                     case 3:
                         if (allocatedBytesPerSec != null) {
-                            return formatter.format(allocatedBytesPerSec.get(index).longValue());
+                            return formatter.format(allocatedBytesPerSec[index]);
                         }
                         return "0";
                     default:
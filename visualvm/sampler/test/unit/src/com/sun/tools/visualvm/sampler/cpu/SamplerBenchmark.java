@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.cpu;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+import org.netbeans.lib.profiler.global.InstrumentationFilter;
+import org.netbeans.lib.profiler.results.cpu.StackTraceSnapshotBuilder;
+
+/**
+ * Compares the per-sample cost of StackTraceSnapshotBuilder.addStacktrace
+ * with interning the same dumps by SampledStacks, and times the ThreadsCPUInfo
+ * diff. The dumps are recorded up front from THREADS_COUNT parked threads of
+ * this JVM with random stack depths; part of the threads move to another depth
+ * between the dumps. -Dbenchmark.iterations=N sets the measured iterations.
+ *
+ * @author agent
+ */
+public class SamplerBenchmark {
+
+    private static final int THREADS_COUNT = 2000;
+    private static final int DUMPS_COUNT = 10;
+    private static final int MIN_DEPTH = 10;
+    private static final int MAX_DEPTH = 60;
+    private static final int SAMPLES_COUNT = 100;
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 5); // NOI18N
+
+
+    private final ThreadInfo[][] dumps = new ThreadInfo[DUMPS_COUNT][];
+    private final ThreadsCPUInfo[] cpuInfos = new ThreadsCPUInfo[DUMPS_COUNT];
+
+    // Sum of the diff lengths, printed once so that the diffs are really computed
+    private static long checksum;
+
+
+    private SamplerBenchmark() throws InterruptedException {
+        ParkedThread[] threads = new ParkedThread[THREADS_COUNT];
+        for (int i = 0; i < THREADS_COUNT; i++) {
+            threads[i] = new ParkedThread(i);
+            threads[i].start();
+        }
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Random random = new Random(42);
+        for (int d = 0; d < DUMPS_COUNT; d++) {
+            // A quarter of the threads changes its stack before each dump
+            for (int i = 0; i < THREADS_COUNT / 4; i++)
+                LockSupport.unpark(threads[random.nextInt(THREADS_COUNT)]);
+            Thread.sleep(200);
+            dumps[d] = threadBean.dumpAllThreads(false, false);
+
+            long[] ids = new long[dumps[d].length];
+            String[] names = new String[ids.length];
+            long[] cpuTimes = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) ids[i] = dumps[d][i].getThreadId();
+            Arrays.sort(ids);
+            for (int i = 0; i < ids.length; i++) {
+                names[i] = "Thread " + ids[i]; // NOI18N
+                cpuTimes[i] = 1000000L * d * (1 + ids[i] % 10);
+            }
+            cpuInfos[d] = new ThreadsCPUInfo(1000L * d, ids, names, cpuTimes);
+        }
+
+        for (ParkedThread thread : threads) thread.finish();
+    }
+
+
+    private long addStacktraces() {
+        StackTraceSnapshotBuilder builder = new StackTraceSnapshotBuilder(1, new InstrumentationFilter());
+        long timestamp = System.nanoTime();
+        long start = System.nanoTime();
+        for (int s = 0; s < SAMPLES_COUNT; s++)
+            builder.addStacktrace(dumps[s % DUMPS_COUNT], timestamp += 10000000L);
+        return System.nanoTime() - start;
+    }
+
+    private long addSamples() {
+        SampledStacks stacks = new SampledStacks();
+        long timestamp = System.nanoTime();
+        long start = System.nanoTime();
+        for (int s = 0; s < SAMPLES_COUNT; s++)
+            stacks.addSample(dumps[s % DUMPS_COUNT], timestamp += 10000000L);
+        return System.nanoTime() - start;
+    }
+
+    private long cpuTimeDiffs() {
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int s = 1; s < SAMPLES_COUNT; s++) {
+            ThreadsCPUInfo oldInfo = cpuInfos[(s - 1) % DUMPS_COUNT];
+            ThreadsCPUInfo newInfo = cpuInfos[s % DUMPS_COUNT];
+            sum += oldInfo.getThreadCPUTimeDiff(newInfo).length;
+        }
+        long time = System.nanoTime() - start;
+        checksum += sum;
+        return time;
+    }
+
+
+    private void run() throws Exception {
+        System.out.println("Sampler: " + dumps[0].length + " threads, " + DUMPS_COUNT + // NOI18N
+                           " recorded dumps, " + SAMPLES_COUNT + " samples"); // NOI18N
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            addStacktraces();
+            addSamples();
+            cpuTimeDiffs();
+        }
+
+        long builder = 0, stacks = 0, diffs = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            builder += addStacktraces();
+            stacks += addSamples();
+            diffs += cpuTimeDiffs();
+        }
+
+        report("StackTraceSnapshotBuilder", builder, SAMPLES_COUNT); // NOI18N
+        report("SampledStacks.addSample", stacks, SAMPLES_COUNT); // NOI18N
+        report("ThreadsCPUInfo diff", diffs, SAMPLES_COUNT - 1); // NOI18N
+        System.out.println("  (checksum " + checksum + ")"); // NOI18N
+    }
+
+    private static void report(String name, long totalTime, int samples) {
+        double perSample = (double)totalTime / ITERATIONS / samples / 1000;
+        System.out.println(String.format("  %-32s %10.1f us/sample", name, perSample)); // NOI18N
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        new SamplerBenchmark().run();
+    }
+
+
+    /**
+     * Thread parked at a random stack depth, an unpark makes it park again
+     * at a different depth.
+     */
+    private static final class ParkedThread extends Thread {
+
+        private final Random random;
+        private volatile boolean finished;
+
+        ParkedThread(int index) {
+            super("Benchmark thread " + index); // NOI18N
+            random = new Random(index);
+            setDaemon(true);
+        }
+
+        public void run() {
+            while (!finished)
+                level1(MIN_DEPTH + random.nextInt(MAX_DEPTH - MIN_DEPTH + 1));
+        }
+
+        void finish() {
+            finished = true;
+            LockSupport.unpark(this);
+        }
+
+        private void level1(int depth) {
+            if (depth == 0) LockSupport.park(this);
+            else if (random.nextBoolean()) level2(depth - 1);
+            else level3(depth - 1);
+        }
+
+        private void level2(int depth) {
+            if (depth == 0) LockSupport.park(this);
+            else if (random.nextBoolean()) level1(depth - 1);
+            else level3(depth - 1);
+        }
+
+        private void level3(int depth) {
+            if (depth == 0) LockSupport.park(this);
+            else level1(depth - 1);
+        }
+
+    }
+
+}
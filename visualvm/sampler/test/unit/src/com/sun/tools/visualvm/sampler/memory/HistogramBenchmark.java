@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.tools.visualvm.sampler.memory;
+
+import com.sun.tools.visualvm.application.jvm.HeapHistogram.ClassInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Work done by the memory sampler for each refreshed histogram: mapping the
+ * classes to ids as MemoryView does before computing the deltas, and adding
+ * the histogram to HistogramHistory. The number of measured iterations can be
+ * changed by -Dbenchmark.iterations=N.
+ *
+ * @author agent
+ */
+public class HistogramBenchmark {
+
+    private static final int CLASSES_COUNT = 20000;
+    private static final int HISTOGRAMS_COUNT = 200;
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 10); // NOI18N
+
+
+    private final List<List<ClassInfo>> histograms = new ArrayList();
+
+
+    private HistogramBenchmark() {
+        // Instances of each class slowly change, classes are occasionally
+        // loaded and unloaded between the histograms
+        Random random = new Random(42);
+        long[] instances = new long[CLASSES_COUNT];
+        for (int i = 0; i < CLASSES_COUNT; i++) instances[i] = 1 + random.nextInt(100000);
+        for (int h = 0; h < HISTOGRAMS_COUNT; h++) {
+            List<ClassInfo> histogram = new ArrayList(CLASSES_COUNT);
+            for (int i = 0; i < CLASSES_COUNT; i++) {
+                instances[i] = Math.max(0, instances[i] + random.nextInt(201) - 100);
+                if (instances[i] > 0 && random.nextInt(100) > 0)
+                    histogram.add(new BenchmarkClassInfo("com.example.module" + (i % 97) + // NOI18N
+                                  ".Class" + i, instances[i], instances[i] * 24)); // NOI18N
+            }
+            histograms.add(histogram);
+        }
+    }
+
+
+    private long getClassIds() {
+        HistogramHistory history = new HistogramHistory();
+        int[] ids = new int[CLASSES_COUNT];
+        long start = System.nanoTime();
+        for (List<ClassInfo> histogram : histograms)
+            history.getClassIds(histogram, ids);
+        return System.nanoTime() - start;
+    }
+
+    private long addHistograms() {
+        HistogramHistory history = new HistogramHistory();
+        long start = System.nanoTime();
+        for (int h = 0; h < HISTOGRAMS_COUNT; h++)
+            history.addHistogram(1000L * (h + 1), histograms.get(h));
+        return System.nanoTime() - start;
+    }
+
+
+    private void run() throws Exception {
+        System.out.println("HistogramHistory: " + CLASSES_COUNT + " classes, " + // NOI18N
+                           HISTOGRAMS_COUNT + " histograms"); // NOI18N
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            getClassIds();
+            addHistograms();
+        }
+
+        long ids = 0, add = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            ids += getClassIds();
+            add += addHistograms();
+        }
+
+        report("HistogramHistory.getClassIds", ids); // NOI18N
+        report("HistogramHistory.addHistogram", add); // NOI18N
+    }
+
+    private static void report(String name, long totalTime) {
+        double perHistogram = (double)totalTime / ITERATIONS / HISTOGRAMS_COUNT / 1000;
+        System.out.println(String.format("  %-32s %10.1f us/histogram", name, perHistogram)); // NOI18N
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        new HistogramBenchmark().run();
+    }
+
+
+    private static final class BenchmarkClassInfo extends ClassInfo {
+
+        private final String name;
+        private final long instances;
+        private final long bytes;
+
+        BenchmarkClassInfo(String name, long instances, long bytes) {
+            this.name = name;
+            this.instances = instances;
+            this.bytes = bytes;
+        }
+
+        public String getName() { return name; }
+        public long getInstancesCount() { return instances; }
+        public long getBytes() { return bytes; }
+
+    }
+
+}